@@ -0,0 +1,183 @@
+package com.artem.paymentservice.cache;
+
+import com.artem.paymentservice.config.PaymentMethodCatalogProperties;
+import com.artem.paymentservice.dto.PaymentMethodInfo;
+import com.artem.paymentservice.dto.PaymentMethodResponse;
+import com.artem.paymentservice.mapper.PaymentMapper;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentMethodDefinition;
+import com.artem.paymentservice.repository.PaymentMethodDefinitionRepository;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.projection.CatalogVersion;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Справочник способов оплаты в памяти: методы с провайдером, определения по валюте × стране
+ * и готовые ответы GET /api/v1/payment-methods — эндпоинт списка не ходит в БД вовсе.
+ * <p>
+ * Загружается при старте двумя запросами (методы с провайдером и обязательными полями
+ * одним fetch join, затем активные определения) и перечитывается, когда изменилась
+ * версия справочника (count, max(modified_at) по его таблицам), и без условий — каждые
+ * full-reload-every проверок: modified_at — время начала транзакции, и изменение, закоммиченное
+ * после чтения версии, может её не сдвинуть. Снимок неизменяемый и подменяется целиком;
+ * метод, которого ещё нет в снимке, дочитывается по id при платеже.
+ */
+@Slf4j
+@Component
+public class PaymentMethodCatalog {
+
+    private final PaymentMethodRepository paymentMethodRepository;
+    private final PaymentMethodDefinitionRepository definitionRepository;
+    private final PaymentMapper paymentMapper;
+    private final PaymentMethodCatalogProperties properties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+    private final AtomicInteger checksSinceLoad = new AtomicInteger();
+
+    public PaymentMethodCatalog(PaymentMethodRepository paymentMethodRepository,
+                                PaymentMethodDefinitionRepository definitionRepository,
+                                PaymentMapper paymentMapper,
+                                PaymentMethodCatalogProperties properties,
+                                PlatformTransactionManager transactionManager) {
+        this.paymentMethodRepository = paymentMethodRepository;
+        this.definitionRepository = definitionRepository;
+        this.paymentMapper = paymentMapper;
+        this.properties = properties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${payment-service.catalog.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            Version version = Version.of(paymentMethodRepository.findCatalogVersion());
+            if (Objects.equals(version, snapshot.version())
+                    && checksSinceLoad.incrementAndGet() < properties.getFullReloadEvery()) {
+                return;
+            }
+
+            Snapshot loaded = readOnlyTransaction.execute(status -> load(version));
+
+            synchronized (this) {
+                snapshot = loaded;
+            }
+            checksSinceLoad.set(0);
+            log.info(
+                    "Payment method catalog loaded. methods={}, currencyCountryPairs={}",
+                    loaded.methods().size(),
+                    loaded.responses().size()
+            );
+        } catch (RuntimeException ex) {
+            log.error("Payment method catalog refresh failed, keeping previous catalog", ex);
+        }
+    }
+
+    public List<PaymentMethodResponse> getAvailablePaymentMethods(
+            String currencyCode,
+            String countryCode
+    ) {
+        return snapshot.responses().getOrDefault(key(currencyCode, countryCode), List.of());
+    }
+
+    public Optional<PaymentMethodInfo> findMethod(Integer methodId) {
+        PaymentMethodInfo info = snapshot.methods().get(methodId);
+        if (info != null) {
+            return Optional.of(info);
+        }
+
+        return paymentMethodRepository.findWithProviderById(methodId).map(this::remember);
+    }
+
+    private Snapshot load(Version version) {
+        List<PaymentMethod> methods = paymentMethodRepository.findAllWithProviderAndRequiredFields();
+
+        Map<Integer, PaymentMethodInfo> infos = new HashMap<>(methods.size() * 2);
+        Map<Integer, PaymentMethodResponse> responses = new HashMap<>(methods.size() * 2);
+        for (PaymentMethod method : methods) {
+            infos.put(method.getId(), toInfo(method));
+            responses.put(method.getId(), paymentMapper.toPaymentMethodResponse(method));
+        }
+
+        /*
+         * getPaymentMethod().getId() берёт id из прокси, не загружая метод.
+         */
+        Map<String, List<PaymentMethodResponse>> byCurrencyCountry = new LinkedHashMap<>();
+        for (PaymentMethodDefinition definition : definitionRepository.findByIsActiveTrue()) {
+            PaymentMethodResponse response = responses.get(definition.getPaymentMethod().getId());
+            if (response != null) {
+                byCurrencyCountry
+                        .computeIfAbsent(
+                                key(definition.getCurrencyCode(), definition.getCountryAlpha3Code()),
+                                key -> new ArrayList<>()
+                        )
+                        .add(response);
+            }
+        }
+
+        Map<String, List<PaymentMethodResponse>> index = new HashMap<>(byCurrencyCountry.size() * 2);
+        byCurrencyCountry.forEach((key, list) -> index.put(key, List.copyOf(list)));
+
+        return new Snapshot(Map.copyOf(infos), Map.copyOf(index), version);
+    }
+
+    private synchronized PaymentMethodInfo remember(PaymentMethod method) {
+        PaymentMethodInfo info = toInfo(method);
+        Map<Integer, PaymentMethodInfo> next = new HashMap<>(snapshot.methods());
+        next.put(info.id(), info);
+        snapshot = new Snapshot(Map.copyOf(next), snapshot.responses(), snapshot.version());
+        return info;
+    }
+
+    private static PaymentMethodInfo toInfo(PaymentMethod method) {
+        return new PaymentMethodInfo(
+                method.getId(),
+                method.getName(),
+                method.getProvider().getName(),
+                method.getProviderMethodType(),
+                Boolean.TRUE.equals(method.getActive())
+        );
+    }
+
+    private static String key(String currencyCode, String countryCode) {
+        return currencyCode + '|' + countryCode;
+    }
+
+    private record Version(long count, LocalDateTime lastModified) {
+
+        static Version of(CatalogVersion version) {
+            return new Version(version.getCount(), version.getLastModified());
+        }
+    }
+
+    /**
+     * Ответы эндпоинта отдаются как есть и между запросами не копируются — их никто не меняет.
+     */
+    private record Snapshot(
+            Map<Integer, PaymentMethodInfo> methods,
+            Map<String, List<PaymentMethodResponse>> responses,
+            Version version
+    ) {
+        static final Snapshot EMPTY = new Snapshot(Map.of(), Map.of(), null);
+    }
+}
@@ -6,6 +6,13 @@ import org.springframework.boot.context.properties.EnableConfigurationProperties
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
-@EnableConfigurationProperties(FakePaymentProviderProperties.class)
+@EnableConfigurationProperties({
+        FakePaymentProviderProperties.class,
+        PaymentAdmissionProperties.class,
+        PaymentMethodCatalogProperties.class,
+        PaymentStateWriterProperties.class,
+        PaymentStatusPollingProperties.class,
+        WebhookProperties.class
+})
 public class ConfigurationPropertiesConfig {
 }
\ No newline at end of file
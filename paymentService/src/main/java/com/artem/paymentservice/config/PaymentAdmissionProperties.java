@@ -0,0 +1,29 @@
+package com.artem.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment-service.admission")
+public class PaymentAdmissionProperties {
+
+    /**
+     * Сколько платежей может обрабатываться одновременно; 0 — без ограничения.
+     * На платформенных потоках потолок и так задаёт пул Tomcat, на виртуальных — только этот лимит.
+     * Не задано — maximum-pool-size Hikari × per-connection.
+     */
+    private Integer maxInFlight;
+
+    /**
+     * Платежей на одно соединение Hikari: соединение берётся только на короткие транзакции
+     * до и после вызова провайдера, поэтому одно соединение обслуживает несколько платежей.
+     */
+    private int perConnection = 4;
+
+    /**
+     * Сколько запрос ждёт места, прежде чем получить 503.
+     */
+    private long acquireTimeoutMs = 1_000;
+}
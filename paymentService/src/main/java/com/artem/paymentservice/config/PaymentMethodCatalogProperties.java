@@ -0,0 +1,23 @@
+package com.artem.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment-service.catalog")
+public class PaymentMethodCatalogProperties {
+
+    /**
+     * Как часто сверять версию справочника с БД.
+     */
+    private long refreshIntervalMs = 30_000;
+
+    /**
+     * Через сколько проверок без изменения версии справочник перечитывается всё равно.
+     * Версия строится по modified_at = NOW() — времени начала транзакции: изменение, закоммиченное
+     * позже уже прочитанной версии, её не сдвигает и без полной перезагрузки не было бы видно.
+     */
+    private int fullReloadEvery = 10;
+}
@@ -0,0 +1,31 @@
+package com.artem.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment-service.state-writer")
+public class PaymentStateWriterProperties {
+
+    /**
+     * Переходов статуса в одной транзакции.
+     */
+    private int batchSize = 256;
+
+    /**
+     * Сколько переходов может ждать записи; дальше вызывающий блокируется.
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * Сколько писатель ждёт попутчиков после первого перехода, прежде чем коммитить пачку.
+     */
+    private long lingerMs = 1;
+
+    /**
+     * Сколько синхронный переход ждёт коммита своей пачки.
+     */
+    private long commitTimeoutMs = 5_000;
+}
@@ -0,0 +1,43 @@
+package com.artem.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment-service.status-polling")
+public class PaymentStatusPollingProperties {
+
+    /**
+     * false — статусы приходят только webhook'ами, провайдер не опрашивается.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Как часто поллер забирает созревшие проверки из очереди.
+     */
+    private long tickMs = 100;
+
+    /**
+     * Задержка перед первой проверкой; дальше она удваивается до maxDelayMs.
+     */
+    private long initialDelayMs = 500;
+
+    private long maxDelayMs = 30_000;
+
+    /**
+     * Сколько платёж может оставаться PENDING у провайдера, прежде чем будет помечен FAILED.
+     */
+    private long maxAgeMs = 600_000;
+
+    /**
+     * Проверок за один тик.
+     */
+    private int batchSize = 200;
+
+    /**
+     * Одновременных запросов статуса к провайдерам.
+     */
+    private int concurrency = 32;
+}
@@ -0,0 +1,44 @@
+package com.artem.paymentservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "payment-service.webhooks")
+public class WebhookProperties {
+
+    /**
+     * Передавать провайдеру notificationUrl и принимать callback'и.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Адрес этого сервиса, доступный провайдеру; к нему добавляется /api/v1/webhooks/{provider}/{token}.
+     */
+    private String callbackBaseUrl;
+
+    /**
+     * Секрет развёртывания в notificationUrl: callback с другим токеном отклоняется с 401.
+     * Без токена notificationUrl провайдеру не передаётся, а статусы приносит только опрос.
+     */
+    private String token;
+
+    /**
+     * Ёмкость буфера принятых, но ещё не применённых событий.
+     */
+    private int queueCapacity = 65_536;
+
+    /**
+     * Событий в одном пакетном UPDATE.
+     */
+    private int batchSize = 500;
+
+    private long flushMs = 50;
+
+    /**
+     * Сколько помнить уже принятые события для отсева повторов.
+     */
+    private long dedupTtlMs = 600_000;
+}
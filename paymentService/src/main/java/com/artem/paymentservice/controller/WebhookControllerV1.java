@@ -0,0 +1,31 @@
+package com.artem.paymentservice.controller;
+
+import com.artem.paymentservice.api.WebhooksApi;
+import com.artem.paymentservice.dto.ProviderWebhook;
+import com.artem.paymentservice.service.WebhookService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequiredArgsConstructor
+public class WebhookControllerV1 implements WebhooksApi {
+
+    private final WebhookService webhookService;
+
+    @Override
+    public ResponseEntity<Void> receiveProviderWebhook(
+            String provider,
+            String token,
+            ProviderWebhook providerWebhook
+    ) {
+
+        boolean accepted =
+                webhookService.accept(provider, token, providerWebhook);
+
+        return ResponseEntity
+                .status(accepted ? HttpStatus.ACCEPTED : HttpStatus.SERVICE_UNAVAILABLE)
+                .build();
+    }
+}
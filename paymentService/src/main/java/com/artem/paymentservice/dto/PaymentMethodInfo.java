@@ -0,0 +1,13 @@
+package com.artem.paymentservice.dto;
+
+/**
+ * Способ оплаты из справочника в памяти — всё, что нужно для проведения платежа.
+ */
+public record PaymentMethodInfo(
+        Integer id,
+        String name,
+        String providerName,
+        String providerMethodType,
+        boolean active
+) {
+}
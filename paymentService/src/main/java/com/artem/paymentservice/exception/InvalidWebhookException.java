@@ -0,0 +1,8 @@
+package com.artem.paymentservice.exception;
+
+public class InvalidWebhookException extends RuntimeException {
+
+    public InvalidWebhookException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,8 @@
+package com.artem.paymentservice.exception;
+
+public class PaymentServiceOverloadedException extends RuntimeException {
+
+    public PaymentServiceOverloadedException() {
+        super("Payment service is overloaded, retry later");
+    }
+}
@@ -0,0 +1,8 @@
+package com.artem.paymentservice.exception;
+
+public class WebhookUnauthorizedException extends RuntimeException {
+
+    public WebhookUnauthorizedException(String message) {
+        super(message);
+    }
+}
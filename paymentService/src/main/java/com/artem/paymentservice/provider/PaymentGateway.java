@@ -3,12 +3,24 @@ package com.artem.paymentservice.provider;
 
 import com.artem.paymentservice.dto.PaymentRequest;
 import com.artem.paymentservice.dto.PaymentResponse;
+import com.artem.paymentservice.dto.PaymentStatus;
 
 public interface PaymentGateway {
 
+    /**
+     * Создаёт платёж у провайдера и сразу возвращает его начальный статус,
+     * не дожидаясь финального.
+     */
     PaymentResponse processPayment(
             PaymentRequest request,
             String providerMethodType
     );
 
-}
\ No newline at end of file
+    /**
+     * Один запрос текущего статуса платежа у провайдера.
+     */
+    PaymentStatus getStatus(
+            String providerTransactionId
+    );
+
+}
@@ -7,4 +7,6 @@ public interface PaymentProviderFactory {
 
     PaymentGateway getProvider(String providerName);
 
+    boolean supports(String providerName);
+
 }
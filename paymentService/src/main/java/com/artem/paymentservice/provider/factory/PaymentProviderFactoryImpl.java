@@ -26,4 +26,10 @@ public class PaymentProviderFactoryImpl
 
         return gateway;
     }
-}
\ No newline at end of file
+
+    @Override
+    public boolean supports(String providerName) {
+
+        return providers.containsKey(providerName);
+    }
+}
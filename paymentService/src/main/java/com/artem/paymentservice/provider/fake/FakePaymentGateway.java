@@ -5,23 +5,28 @@ import com.artem.fakepaymentprovider.client.dto.Transaction;
 import com.artem.fakepaymentprovider.client.dto.TransactionRequest;
 import com.artem.paymentservice.dto.PaymentRequest;
 import com.artem.paymentservice.dto.PaymentResponse;
+import com.artem.paymentservice.config.WebhookProperties;
 import com.artem.paymentservice.dto.PaymentStatus;
 import com.artem.paymentservice.mapper.TransactionMapper;
 import com.artem.paymentservice.provider.PaymentGateway;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.util.UriUtils;
+
+import java.nio.charset.StandardCharsets;
 
 @Slf4j
 @Component("FAKE")
 @RequiredArgsConstructor
 public class FakePaymentGateway implements PaymentGateway {
 
-    private static final int MAX_STATUS_ATTEMPTS = 5;
-    private static final long STATUS_POLL_INTERVAL_MS = 500L;
+    private static final String WEBHOOK_PATH = "/api/v1/webhooks/FAKE/";
 
     private final TransactionsApi transactionsApi;
     private final TransactionMapper transactionMapper;
+    private final WebhookProperties webhookProperties;
 
     @Override
     public PaymentResponse processPayment(
@@ -44,6 +49,19 @@ public class FakePaymentGateway implements PaymentGateway {
                         providerMethodType
                 );
 
+        /*
+         * Провайдер сообщит финальный статус на наш webhook.
+         */
+        if (webhookProperties.isEnabled()
+                && webhookProperties.getCallbackBaseUrl() != null
+                && StringUtils.hasText(webhookProperties.getToken())) {
+
+            transactionRequest.setNotificationUrl(
+                    webhookProperties.getCallbackBaseUrl() + WEBHOOK_PATH
+                            + UriUtils.encodePathSegment(webhookProperties.getToken(), StandardCharsets.UTF_8)
+            );
+        }
+
         /*
          * 2. Создаём транзакцию.
          */
@@ -51,10 +69,11 @@ public class FakePaymentGateway implements PaymentGateway {
                 transactionsApi.createTransaction(transactionRequest);
 
         if (providerTransaction == null
-                || providerTransaction.getId() == null) {
+                || providerTransaction.getId() == null
+                || providerTransaction.getStatus() == null) {
 
             throw new IllegalStateException(
-                    "Fake Payment Provider returned transaction without id"
+                    "Fake Payment Provider returned transaction without id or status"
             );
         }
 
@@ -68,26 +87,13 @@ public class FakePaymentGateway implements PaymentGateway {
         );
 
         /*
-         * 3. Получаем актуальный статус через REST.
-         *
-         * Webhook здесь специально НЕ используется.
+         * 3. Финальный статус здесь не ждём:
+         * его приносит webhook провайдера,
+         * а запасным путём — PaymentStatusPoller.
          */
-        Transaction actualTransaction =
-                waitForFinalStatus(providerTransactionId);
-
         PaymentStatus paymentStatus =
-                mapPaymentStatus(actualTransaction.getStatus().name());
+                mapPaymentStatus(providerTransaction.getStatus().name());
 
-        log.info(
-                "Final provider transaction status received. providerTransactionId={}, status={}",
-                providerTransactionId,
-                actualTransaction.getStatus()
-        );
-
-        /*
-         * 4. Возвращаем Payment Service результат
-         * в его внутреннем формате.
-         */
         return new PaymentResponse()
                 .providerTransactionId(
                         providerTransactionId.toString()
@@ -95,81 +101,29 @@ public class FakePaymentGateway implements PaymentGateway {
                 .status(paymentStatus);
     }
 
-    private Transaction waitForFinalStatus(
-            Long providerTransactionId
+    @Override
+    public PaymentStatus getStatus(
+            String providerTransactionId
     ) {
 
-        Transaction transaction = null;
-
-        for (int attempt = 1;
-             attempt <= MAX_STATUS_ATTEMPTS;
-             attempt++) {
-
-            transaction =
-                    transactionsApi.getTransactionById(
-                            providerTransactionId
-                    );
-
-            if (transaction == null
-                    || transaction.getStatus() == null) {
-
-                throw new IllegalStateException(
-                        "Fake Payment Provider returned invalid transaction status"
+        Transaction transaction =
+                transactionsApi.getTransactionById(
+                        Long.valueOf(providerTransactionId)
                 );
-            }
 
-            String status =
-                    transaction.getStatus().name();
+        if (transaction == null
+                || transaction.getStatus() == null) {
 
-            log.info(
-                    "Polling provider transaction. providerTransactionId={}, attempt={}, status={}",
-                    providerTransactionId,
-                    attempt,
-                    status
+            throw new IllegalStateException(
+                    "Fake Payment Provider returned invalid transaction status"
             );
-
-            if ("SUCCESS".equals(status)
-                    || "FAILED".equals(status)) {
-
-                return transaction;
-            }
-
-            if (!"PENDING".equals(status)) {
-
-                throw new IllegalStateException(
-                        "Unknown transaction status from Fake Payment Provider: "
-                                + status
-                );
-            }
-
-            if (attempt < MAX_STATUS_ATTEMPTS) {
-                sleepBeforeNextAttempt();
-            }
         }
 
-        throw new IllegalStateException(
-                "Payment provider transaction did not reach final status in time. "
-                        + "providerTransactionId=" + providerTransactionId
+        return mapPaymentStatus(
+                transaction.getStatus().name()
         );
     }
 
-    private void sleepBeforeNextAttempt() {
-
-        try {
-
-            Thread.sleep(STATUS_POLL_INTERVAL_MS);
-
-        } catch (InterruptedException ex) {
-
-            Thread.currentThread().interrupt();
-
-            throw new IllegalStateException(
-                    "Payment status polling was interrupted",
-                    ex
-            );
-        }
-    }
-
     private PaymentStatus mapPaymentStatus(
             String providerStatus
     ) {
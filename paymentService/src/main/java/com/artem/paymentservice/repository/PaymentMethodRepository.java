@@ -2,13 +2,49 @@ package com.artem.paymentservice.repository;
 
 
 import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.repository.projection.CatalogVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
+import java.util.Optional;
 
 public interface PaymentMethodRepository
         extends JpaRepository<PaymentMethod, Integer> {
 
     List<PaymentMethod> findByActiveTrue();
 
+    @Query("""
+            select m from PaymentMethod m
+            join fetch m.provider
+            where m.id = :id
+            """)
+    Optional<PaymentMethod> findWithProviderById(@Param("id") Integer id);
+
+    /**
+     * Все способы оплаты с провайдером и обязательными полями — одним запросом.
+     */
+    @Query("""
+            select distinct m from PaymentMethod m
+            join fetch m.provider
+            left join fetch m.requiredFields
+            order by m.id
+            """)
+    List<PaymentMethod> findAllWithProviderAndRequiredFields();
+
+    @Query(value = """
+            SELECT (SELECT count(*) FROM payment_providers)
+                 + (SELECT count(*) FROM payment_methods)
+                 + (SELECT count(*) FROM payment_method_definitions)
+                 + (SELECT count(*) FROM payment_method_required_fields) AS "count",
+                   GREATEST(
+                       (SELECT max(modified_at) FROM payment_providers),
+                       (SELECT max(coalesce(modified_at, created_at)) FROM payment_methods),
+                       (SELECT max(modified_at) FROM payment_method_definitions),
+                       (SELECT max(modified_at) FROM payment_method_required_fields)
+                   ) AS "lastModified"
+            """, nativeQuery = true)
+    CatalogVersion findCatalogVersion();
+
 }
\ No newline at end of file
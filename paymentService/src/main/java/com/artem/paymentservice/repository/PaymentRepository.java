@@ -3,7 +3,9 @@ package com.artem.paymentservice.repository;
 
 import com.artem.paymentservice.model.Payment;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 public interface PaymentRepository
@@ -11,4 +13,17 @@ public interface PaymentRepository
 
     Optional<Payment> findByInternalTransactionId(String internalTransactionId);
 
+    /**
+     * Платежи, ждущие финального статуса от провайдера, вместе с провайдером —
+     * для восстановления очереди поллера после рестарта.
+     */
+    @Query("""
+            select p from Payment p
+            join fetch p.paymentMethod m
+            join fetch m.provider
+            where p.status = 'PENDING'
+              and p.externalTransactionId is not null
+            """)
+    List<Payment> findAwaitingProviderStatus();
+
 }
\ No newline at end of file
@@ -0,0 +1,100 @@
+package com.artem.paymentservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+public class PaymentStatusBatchRepository {
+
+    /**
+     * Только PENDING → финальный статус: повторный или запоздавший callback
+     * не перезапишет уже завершённый платёж.
+     */
+    private static final String COMPLETE_BY_EXTERNAL_ID = """
+            UPDATE payments p
+            SET status = ?, modified_at = now()
+            FROM payment_methods m
+            JOIN payment_providers pp ON pp.id = m.provider_id
+            WHERE p.payment_method_id = m.id
+              AND pp.name = ?
+              AND p.external_transaction_id = ?
+              AND p.status = 'PENDING'
+            """;
+
+    /**
+     * Переход по id с проверкой исходного статуса — без SELECT и merge сущности.
+     * external_transaction_id пишется, только если передан.
+     */
+    private static final String TRANSITION_BY_ID = """
+            UPDATE payments
+            SET status = ?,
+                external_transaction_id = coalesce(?, external_transaction_id),
+                modified_at = now()
+            WHERE id = ?
+              AND status = ?
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return число обновлённых строк (0 — платёж уже не в ожидаемом статусе) для каждого перехода
+     */
+    public int[] transition(List<StatusTransition> transitions) {
+
+        if (transitions.isEmpty()) {
+            return new int[0];
+        }
+
+        return jdbcTemplate.batchUpdate(
+                TRANSITION_BY_ID,
+                transitions,
+                transitions.size(),
+                (ps, transition) -> {
+                    ps.setString(1, transition.targetStatus());
+                    ps.setString(2, transition.externalTransactionId());
+                    ps.setInt(3, transition.paymentId());
+                    ps.setString(4, transition.expectedStatus());
+                }
+        )[0];
+    }
+
+    /**
+     * @return число обновлённых строк для каждого изменения, в порядке списка
+     */
+    public int[] completeByExternalId(List<StatusChange> changes) {
+
+        if (changes.isEmpty()) {
+            return new int[0];
+        }
+
+        return jdbcTemplate.batchUpdate(
+                COMPLETE_BY_EXTERNAL_ID,
+                changes,
+                changes.size(),
+                (ps, change) -> {
+                    ps.setString(1, change.status());
+                    ps.setString(2, change.providerName());
+                    ps.setString(3, change.externalTransactionId());
+                }
+        )[0];
+    }
+
+    public record StatusChange(
+            String providerName,
+            String externalTransactionId,
+            String status
+    ) {
+    }
+
+    public record StatusTransition(
+            Integer paymentId,
+            String expectedStatus,
+            String targetStatus,
+            String externalTransactionId
+    ) {
+    }
+}
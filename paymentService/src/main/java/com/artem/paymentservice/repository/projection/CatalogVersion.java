@@ -0,0 +1,10 @@
+package com.artem.paymentservice.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface CatalogVersion {
+
+    long getCount();
+
+    LocalDateTime getLastModified();
+}
@@ -0,0 +1,12 @@
+package com.artem.paymentservice.service;
+
+import com.artem.paymentservice.dto.ProviderWebhook;
+
+public interface WebhookService {
+
+    /**
+     * @param token секрет из notificationUrl, выданного провайдеру
+     * @return false, если буфер событий переполнен и провайдеру стоит повторить позже
+     */
+    boolean accept(String provider, String token, ProviderWebhook webhook);
+}
@@ -0,0 +1,77 @@
+package com.artem.paymentservice.service.impl;
+
+import com.artem.paymentservice.config.PaymentAdmissionProperties;
+import com.artem.paymentservice.exception.PaymentServiceOverloadedException;
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Ограничение числа одновременно обрабатываемых платежей.
+ * <p>
+ * На виртуальных потоках Tomcat принимает столько запросов, сколько соединений:
+ * без лимита тысячи платежей выстроятся в очередь за соединениями Hikari и упадут
+ * по connection-timeout, а провайдер получит всплеск запросов. Лишние запросы
+ * отсюда быстро получают 503 вместо долгого ожидания.
+ * <p>
+ * Лимит по умолчанию выводится из размера пула Hikari, чтобы не расходиться с ним при изменении пула.
+ */
+@Slf4j
+@Component
+public class PaymentAdmission {
+
+    private final Semaphore permits;
+    private final long acquireTimeoutMs;
+
+    public PaymentAdmission(PaymentAdmissionProperties properties, DataSource dataSource) {
+        int maxInFlight = properties.getMaxInFlight() != null
+                ? properties.getMaxInFlight()
+                : maximumPoolSize(dataSource) * properties.getPerConnection();
+
+        this.permits = maxInFlight > 0
+                ? new Semaphore(maxInFlight, true)
+                : null;
+        this.acquireTimeoutMs = properties.getAcquireTimeoutMs();
+
+        log.info("Payment admission limit: {}", maxInFlight > 0 ? maxInFlight : "unlimited");
+    }
+
+    public <T> T execute(Supplier<T> payment) {
+
+        if (permits == null) {
+            return payment.get();
+        }
+
+        try {
+            if (!permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new PaymentServiceOverloadedException();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new PaymentServiceOverloadedException();
+        }
+
+        try {
+            return payment.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    private static int maximumPoolSize(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+            }
+        } catch (SQLException ex) {
+            throw new IllegalStateException("Failed to read Hikari pool size", ex);
+        }
+        throw new IllegalStateException("payment-service.admission.max-in-flight must be set for a non-Hikari data source");
+    }
+}
@@ -1,10 +1,7 @@
 package com.artem.paymentservice.service.impl;
 
+import com.artem.paymentservice.cache.PaymentMethodCatalog;
 import com.artem.paymentservice.dto.PaymentMethodResponse;
-import com.artem.paymentservice.mapper.PaymentMapper;
-import com.artem.paymentservice.model.PaymentMethodDefinition;
-import com.artem.paymentservice.repository.PaymentMethodDefinitionRepository;
-import com.artem.paymentservice.repository.PaymentMethodRequiredFieldRepository;
 import com.artem.paymentservice.service.PaymentMethodService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -16,28 +13,20 @@ import java.util.List;
 public class PaymentMethodServiceImpl
         implements PaymentMethodService {
 
-    private final PaymentMethodDefinitionRepository definitionRepository;
-
-    private final PaymentMethodRequiredFieldRepository requiredFieldRepository;
-
-    private final PaymentMapper paymentMapper;
+    private final PaymentMethodCatalog paymentMethodCatalog;
 
+    /**
+     * Ответ целиком берётся из справочника в памяти, без обращений к БД.
+     */
     @Override
     public List<PaymentMethodResponse> getAvailablePaymentMethods(
             String currencyCode,
             String countryCode
     ) {
 
-        List<PaymentMethodDefinition> definitions =
-                definitionRepository
-                        .findByCurrencyCodeAndCountryAlpha3CodeAndIsActiveTrue(
-                                currencyCode,
-                                countryCode
-                        );
-
-        return definitions.stream()
-                .map(PaymentMethodDefinition::getPaymentMethod)
-                .map(paymentMapper::toPaymentMethodResponse)
-                .toList();
+        return paymentMethodCatalog.getAvailablePaymentMethods(
+                currencyCode,
+                countryCode
+        );
     }
-}
\ No newline at end of file
+}
@@ -1,15 +1,15 @@
 package com.artem.paymentservice.service.impl;
 
+import com.artem.paymentservice.cache.PaymentMethodCatalog;
+import com.artem.paymentservice.dto.PaymentMethodInfo;
 import com.artem.paymentservice.dto.PaymentRequest;
 import com.artem.paymentservice.dto.PaymentResponse;
 import com.artem.paymentservice.dto.PaymentStatus;
 import com.artem.paymentservice.exception.PaymentMethodNotFoundException;
 import com.artem.paymentservice.exception.PaymentProviderUnavailableException;
 import com.artem.paymentservice.model.Payment;
-import com.artem.paymentservice.model.PaymentMethod;
 import com.artem.paymentservice.provider.PaymentGateway;
 import com.artem.paymentservice.provider.factory.PaymentProviderFactory;
-import com.artem.paymentservice.repository.PaymentMethodRepository;
 import com.artem.paymentservice.service.PaymentService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -23,12 +23,25 @@ import java.math.BigDecimal;
 public class PaymentServiceImpl implements PaymentService {
 
     private final PaymentProviderFactory paymentProviderFactory;
-    private final PaymentMethodRepository paymentMethodRepository;
+    private final PaymentMethodCatalog paymentMethodCatalog;
     private final PaymentStateService paymentStateService;
+    private final PaymentStatusPoller paymentStatusPoller;
+    private final PaymentAdmission paymentAdmission;
 
     @Override
     public PaymentResponse processPayment(PaymentRequest request) {
 
+        /*
+         * Лимит одновременных платежей: на виртуальных потоках
+         * пул Tomcat больше не ограничивает их число.
+         */
+        return paymentAdmission.execute(
+                () -> processAdmitted(request)
+        );
+    }
+
+    private PaymentResponse processAdmitted(PaymentRequest request) {
+
         log.info(
                 "Starting payment processing. internalTransactionUid={}, methodId={}, amount={}, currency={}",
                 request.getInternalTransactionUid(),
@@ -38,11 +51,12 @@ public class PaymentServiceImpl implements PaymentService {
         );
 
         /*
-         * 1. Находим способ оплаты
+         * 1. Находим способ оплаты в справочнике в памяти
+         * (провайдер и тип метода уже там, без SELECT и lazy-загрузок)
          */
-        PaymentMethod paymentMethod =
-                paymentMethodRepository
-                        .findById(request.getMethodId().intValue())
+        PaymentMethodInfo paymentMethod =
+                paymentMethodCatalog
+                        .findMethod(request.getMethodId().intValue())
                         .orElseThrow(() ->
                                 new PaymentMethodNotFoundException(
                                         request.getMethodId()
@@ -51,9 +65,9 @@ public class PaymentServiceImpl implements PaymentService {
 
         log.info(
                 "Payment method found. methodId={}, provider={}, providerMethodType={}",
-                paymentMethod.getId(),
-                paymentMethod.getProvider().getName(),
-                paymentMethod.getProviderMethodType()
+                paymentMethod.id(),
+                paymentMethod.providerName(),
+                paymentMethod.providerMethodType()
         );
 
         /*
@@ -67,7 +81,7 @@ public class PaymentServiceImpl implements PaymentService {
          */
         Payment payment =
                 paymentStateService.createPendingPayment(
-                        paymentMethod,
+                        paymentMethod.id(),
                         request.getInternalTransactionUid().toString(),
                         BigDecimal.valueOf(request.getAmount()),
                         request.getCurrency()
@@ -89,7 +103,7 @@ public class PaymentServiceImpl implements PaymentService {
 
             paymentGateway =
                     paymentProviderFactory.getProvider(
-                            paymentMethod.getProvider().getName()
+                            paymentMethod.providerName()
                     );
 
         } catch (Exception ex) {
@@ -97,7 +111,7 @@ public class PaymentServiceImpl implements PaymentService {
             log.error(
                     "Failed to resolve payment provider. paymentId={}, provider={}",
                     payment.getId(),
-                    paymentMethod.getProvider().getName(),
+                    paymentMethod.providerName(),
                     ex
             );
 
@@ -119,7 +133,7 @@ public class PaymentServiceImpl implements PaymentService {
             providerResponse =
                     paymentGateway.processPayment(
                             request,
-                            paymentMethod.getProviderMethodType()
+                            paymentMethod.providerMethodType()
                     );
 
         } catch (Exception ex) {
@@ -200,9 +214,9 @@ public class PaymentServiceImpl implements PaymentService {
          * 6. Обновляем состояние Payment
          *
          * Важно:
-         * не изменяем detached entity вручную.
-         * PaymentStateService откроет отдельную транзакцию
-         * и сохранит актуальное состояние.
+         * не сохраняем detached entity через merge.
+         * PaymentStateService запишет переход guarded UPDATE'ом
+         * в общей пачке и дождётся её коммита.
          */
         PaymentStatus providerStatus =
                 providerResponse.getStatus();
@@ -217,8 +231,18 @@ public class PaymentServiceImpl implements PaymentService {
                         PaymentStatus.PENDING
                 );
 
+                /*
+                 * Финальный статус доведёт PaymentStatusPoller,
+                 * ответ вызывающему уходит сразу.
+                 */
+                paymentStatusPoller.track(
+                        payment,
+                        paymentMethod.providerName(),
+                        providerResponse.getProviderTransactionId()
+                );
+
                 log.info(
-                        "Payment remains PENDING. paymentId={}, providerTransactionId={}",
+                        "Payment remains PENDING, status polling scheduled. paymentId={}, providerTransactionId={}",
                         payment.getId(),
                         providerResponse.getProviderTransactionId()
                 );
@@ -1,26 +1,45 @@
 package com.artem.paymentservice.service.impl;
 
+import com.artem.paymentservice.config.PaymentStateWriterProperties;
 import com.artem.paymentservice.dto.PaymentStatus;
 import com.artem.paymentservice.model.Payment;
-import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
 import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.repository.PaymentStatusBatchRepository.StatusTransition;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Состояние платежей в БД.
+ * <p>
+ * Вставка PENDING-платежа — отдельная транзакция до вызова провайдера. Все переходы статуса —
+ * UPDATE ... WHERE id = ? AND status = 'PENDING' без чтения и merge сущности,
+ * записываемые пачками через {@link PaymentStateWriter}: завершённый платёж не откатится
+ * назад повторным или запоздавшим переходом.
+ */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class PaymentStateService {
 
     private final PaymentRepository paymentRepository;
+    private final PaymentMethodRepository paymentMethodRepository;
+    private final PaymentStateWriter paymentStateWriter;
+    private final PaymentStateWriterProperties properties;
 
     @Transactional(propagation = Propagation.REQUIRES_NEW)
     public Payment createPendingPayment(
-            PaymentMethod paymentMethod,
+            Integer paymentMethodId,
             String internalTransactionId,
             BigDecimal amount,
             String currency
@@ -29,7 +48,10 @@ public class PaymentStateService {
         LocalDateTime now = LocalDateTime.now();
 
         Payment payment = Payment.builder()
-                .paymentMethod(paymentMethod)
+                .paymentMethod(
+                        // только FK: способ оплаты уже проверен по справочнику в памяти
+                        paymentMethodRepository.getReferenceById(paymentMethodId)
+                )
                 .internalTransactionId(internalTransactionId)
                 .amount(amount)
                 .currency(currency)
@@ -41,22 +63,41 @@ public class PaymentStateService {
         return paymentRepository.save(payment);
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    /**
+     * PENDING → FAILED с ожиданием коммита: компенсация в потоке запроса,
+     * после которой вызывающий получит ошибку.
+     */
     public void markFailed(Payment payment) {
 
-        payment.setStatus(
-                PaymentStatus.FAILED.name()
+        awaitCommit(
+                payment,
+                markFailedAsync(payment),
+                PaymentStatus.FAILED
         );
+    }
 
-        payment.setModifiedAt(
-                LocalDateTime.now()
-        );
+    /**
+     * Переход из PENDING с ожиданием коммита — ответ вызывающему
+     * уходит только после записи статуса и внешнего id.
+     */
+    public void updateStatus(
+            Payment payment,
+            String externalTransactionId,
+            PaymentStatus status
+    ) {
 
-        paymentRepository.save(payment);
+        awaitCommit(
+                payment,
+                updateStatusAsync(payment, externalTransactionId, status),
+                status
+        );
     }
 
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
-    public void updateStatus(
+    /**
+     * Некритичный переход (вызывающего никто не ждёт, например итог опроса провайдера):
+     * пишется в общей пачке, результат — в future.
+     */
+    public CompletableFuture<Boolean> updateStatusAsync(
             Payment payment,
             String externalTransactionId,
             PaymentStatus status
@@ -74,6 +115,77 @@ public class PaymentStateService {
                 LocalDateTime.now()
         );
 
-        paymentRepository.save(payment);
+        return paymentStateWriter.submit(
+                new StatusTransition(
+                        payment.getId(),
+                        PaymentStatus.PENDING.name(),
+                        status.name(),
+                        externalTransactionId
+                )
+        );
+    }
+
+    public CompletableFuture<Boolean> markFailedAsync(Payment payment) {
+
+        payment.setStatus(
+                PaymentStatus.FAILED.name()
+        );
+
+        payment.setModifiedAt(
+                LocalDateTime.now()
+        );
+
+        return paymentStateWriter.submit(
+                new StatusTransition(
+                        payment.getId(),
+                        PaymentStatus.PENDING.name(),
+                        PaymentStatus.FAILED.name(),
+                        null
+                )
+        );
+    }
+
+    private void awaitCommit(
+            Payment payment,
+            CompletableFuture<Boolean> result,
+            PaymentStatus status
+    ) {
+
+        boolean applied;
+
+        try {
+
+            applied = result.get(
+                    properties.getCommitTimeoutMs(),
+                    TimeUnit.MILLISECONDS
+            );
+
+        } catch (InterruptedException ex) {
+
+            Thread.currentThread().interrupt();
+
+            throw new IllegalStateException(
+                    "Interrupted while saving payment status", ex
+            );
+
+        } catch (ExecutionException | TimeoutException ex) {
+
+            throw new IllegalStateException(
+                    "Failed to save payment status. paymentId=" + payment.getId(), ex
+            );
+        }
+
+        if (!applied) {
+
+            /*
+             * Платёж уже не PENDING: его успел завершить
+             * webhook или поллер — guard не дал перезаписать статус.
+             */
+            log.info(
+                    "Payment status transition skipped, payment is no longer PENDING. paymentId={}, target={}",
+                    payment.getId(),
+                    status
+            );
+        }
     }
 }
@@ -0,0 +1,151 @@
+package com.artem.paymentservice.service.impl;
+
+import com.artem.paymentservice.config.PaymentStateWriterProperties;
+import com.artem.paymentservice.repository.PaymentStatusBatchRepository;
+import com.artem.paymentservice.repository.PaymentStatusBatchRepository.StatusTransition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Групповая запись переходов статуса платежей.
+ * <p>
+ * 1️⃣ переход кладётся в очередь и сразу получает future;
+ * 2️⃣ один поток-писатель берёт первый переход, ждёт попутчиков linger-ms и забирает
+ *    до batch-size переходов — всё, что накопилось, пока коммитилась предыдущая пачка;
+ * 3️⃣ пачка выполняется одним JDBC batch в одной транзакции, future каждого перехода
+ *    завершается после коммита: true — строка обновлена, false — статус уже не тот.
+ * <p>
+ * Писатель один, поэтому переходы одного платежа применяются в порядке поступления.
+ */
+@Slf4j
+@Component
+public class PaymentStateWriter {
+
+    private static final long IDLE_POLL_MS = 100;
+
+    private final PaymentStatusBatchRepository paymentStatusBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final PaymentStateWriterProperties properties;
+    private final BlockingQueue<PendingTransition> queue;
+
+    private volatile boolean running = true;
+    private Thread writer;
+
+    public PaymentStateWriter(PaymentStatusBatchRepository paymentStatusBatchRepository,
+                              PlatformTransactionManager transactionManager,
+                              PaymentStateWriterProperties properties) {
+        this.paymentStatusBatchRepository = paymentStatusBatchRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+    }
+
+    @PostConstruct
+    public void start() {
+        writer = Thread.ofVirtual().name("payment-state-writer").start(this::run);
+    }
+
+    public CompletableFuture<Boolean> submit(StatusTransition transition) {
+
+        if (!running) {
+            return CompletableFuture.failedFuture(
+                    new IllegalStateException("Payment state writer is stopped")
+            );
+        }
+
+        PendingTransition pending = new PendingTransition(transition, new CompletableFuture<>());
+        try {
+            queue.put(pending);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return CompletableFuture.failedFuture(ex);
+        }
+        return pending.result();
+    }
+
+    /**
+     * Останавливает приём и дописывает то, что уже в очереди.
+     * Писатель не прерывается: interrupt виртуального потока закрыл бы сокет JDBC посреди коммита.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        writer.join(properties.getCommitTimeoutMs());
+    }
+
+    private void run() {
+
+        List<PendingTransition> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (true) {
+            PendingTransition first;
+            try {
+                first = queue.poll(IDLE_POLL_MS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            if (first == null) {
+                if (!running) {
+                    return;
+                }
+                continue;
+            }
+            batch.add(first);
+
+            if (running
+                    && properties.getLingerMs() > 0
+                    && queue.size() < properties.getBatchSize() - 1) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(properties.getLingerMs()));
+            }
+
+            queue.drainTo(batch, properties.getBatchSize() - batch.size());
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<PendingTransition> batch) {
+
+        List<StatusTransition> transitions = new ArrayList<>(batch.size());
+        for (PendingTransition pending : batch) {
+            transitions.add(pending.transition());
+        }
+
+        int[] updated;
+        try {
+            updated = transactionTemplate.execute(
+                    status -> paymentStatusBatchRepository.transition(transitions)
+            );
+        } catch (RuntimeException ex) {
+            log.error("Payment state batch failed. transitions={}", batch.size(), ex);
+            batch.forEach(pending -> pending.result().completeExceptionally(ex));
+            return;
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            batch.get(i).result().complete(updated[i] > 0);
+        }
+
+        log.debug("Payment state batch committed. transitions={}", batch.size());
+    }
+
+    private record PendingTransition(
+            StatusTransition transition,
+            CompletableFuture<Boolean> result
+    ) {
+    }
+}
@@ -0,0 +1,274 @@
+package com.artem.paymentservice.service.impl;
+
+import com.artem.paymentservice.config.PaymentStatusPollingProperties;
+import com.artem.paymentservice.dto.PaymentStatus;
+import com.artem.paymentservice.model.Payment;
+import com.artem.paymentservice.provider.factory.PaymentProviderFactory;
+import com.artem.paymentservice.repository.PaymentRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Доводит PENDING-платежи до финального статуса, не занимая потоки запросов.
+ * <p>
+ * Все платежи в ожидании лежат в одной очереди с задержкой (один таймер на весь сервис);
+ * раз в tick-ms поллер забирает пачку созревших проверок и опрашивает провайдеров
+ * в виртуальных потоках, не больше concurrency запросов одновременно.
+ * Пока статус PENDING, следующая проверка откладывается экспоненциально
+ * (initial-delay-ms × 2^attempt, не больше max-delay-ms) со случайным разбросом,
+ * чтобы платежи, созданные в одну секунду, не опрашивались синхронно.
+ * Через max-age-ms ожидания платёж помечается FAILED — как раньше при исчерпании попыток.
+ * <p>
+ * Если статус уже пришёл webhook'ом, {@link #settle} снимает платёж с опроса:
+ * его проверка остаётся в очереди, но при созревании пропускается без запроса к провайдеру.
+ */
+@Slf4j
+@Service
+public class PaymentStatusPoller {
+
+    private final PaymentProviderFactory paymentProviderFactory;
+    private final PaymentStateService paymentStateService;
+    private final PaymentRepository paymentRepository;
+    private final PaymentStatusPollingProperties properties;
+    private final Semaphore inFlight;
+
+    private final DelayQueue<StatusCheck> queue = new DelayQueue<>();
+    private final Set<String> tracked = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public PaymentStatusPoller(PaymentProviderFactory paymentProviderFactory,
+                               PaymentStateService paymentStateService,
+                               PaymentRepository paymentRepository,
+                               PaymentStatusPollingProperties properties) {
+        this.paymentProviderFactory = paymentProviderFactory;
+        this.paymentStateService = paymentStateService;
+        this.paymentRepository = paymentRepository;
+        this.properties = properties;
+        this.inFlight = new Semaphore(properties.getConcurrency());
+    }
+
+    /**
+     * Ставит платёж в очередь на проверку статуса у провайдера.
+     */
+    public void track(Payment payment, String providerName, String providerTransactionId) {
+        track(payment, providerName, providerTransactionId, System.currentTimeMillis());
+    }
+
+    private void track(Payment payment, String providerName, String providerTransactionId, long startedAt) {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        tracked.add(key(providerName, providerTransactionId));
+        queue.put(new StatusCheck(payment, providerName, providerTransactionId, 0, startedAt,
+                System.currentTimeMillis() + delay(0)));
+    }
+
+    /**
+     * Финальный статус получен в обход поллера.
+     *
+     * @return true, если платёж ещё ждал проверки
+     */
+    public boolean settle(String providerName, String providerTransactionId) {
+        return tracked.remove(key(providerName, providerTransactionId));
+    }
+
+    public int pending() {
+        return tracked.size();
+    }
+
+    /**
+     * Очередь живёт в памяти: после рестарта в неё возвращаются все PENDING-платежи
+     * с внешним id. max-age-ms отсчитывается от создания платежа, а не от рестарта,
+     * иначе частые рестарты держали бы платёж в PENDING бесконечно.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+
+        List<Payment> payments = paymentRepository.findAwaitingProviderStatus();
+        for (Payment payment : payments) {
+            track(payment, payment.getPaymentMethod().getProvider().getName(), payment.getExternalTransactionId(),
+                    startedAt(payment));
+        }
+        if (!payments.isEmpty()) {
+            log.info("Payment status polling recovered. payments={}", payments.size());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${payment-service.status-polling.tick-ms:100}")
+    public void poll() {
+        int capacity = Math.min(properties.getBatchSize(), inFlight.availablePermits());
+        if (capacity == 0) {
+            return;
+        }
+
+        List<StatusCheck> due = new ArrayList<>(capacity);
+        queue.drainTo(due, capacity);
+
+        for (StatusCheck check : due) {
+            inFlight.acquireUninterruptibly();
+            executor.execute(() -> {
+                try {
+                    process(check);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private void process(StatusCheck check) {
+        String key = key(check.providerName(), check.providerTransactionId());
+        if (!tracked.contains(key)) {
+            return;
+        }
+
+        Payment payment = check.payment();
+        PaymentStatus status;
+
+        try {
+            status = paymentProviderFactory
+                    .getProvider(check.providerName())
+                    .getStatus(check.providerTransactionId());
+        } catch (Exception ex) {
+            log.warn(
+                    "Provider status check failed. paymentId={}, providerTransactionId={}, attempt={}",
+                    payment.getId(),
+                    check.providerTransactionId(),
+                    check.attempt(),
+                    ex
+            );
+            status = PaymentStatus.PENDING;
+        }
+
+        try {
+            if (status != PaymentStatus.PENDING) {
+                if (!tracked.remove(key)) {
+                    return;
+                }
+                paymentStateService
+                        .updateStatusAsync(payment, check.providerTransactionId(), status)
+                        .whenComplete((applied, ex) -> logPersistFailure(payment, status, ex));
+                log.info(
+                        "Final provider status received. paymentId={}, providerTransactionId={}, status={}, attempts={}",
+                        payment.getId(),
+                        check.providerTransactionId(),
+                        status,
+                        check.attempt() + 1
+                );
+                return;
+            }
+
+            long now = System.currentTimeMillis();
+            if (now - check.startedAt() >= properties.getMaxAgeMs()) {
+                if (!tracked.remove(key)) {
+                    return;
+                }
+                paymentStateService
+                        .markFailedAsync(payment)
+                        .whenComplete((applied, ex) -> logPersistFailure(payment, PaymentStatus.FAILED, ex));
+                log.warn(
+                        "Payment did not reach final status in time. paymentId={}, providerTransactionId={}, attempts={}",
+                        payment.getId(),
+                        check.providerTransactionId(),
+                        check.attempt() + 1
+                );
+                return;
+            }
+
+            queue.put(check.next(now + delay(check.attempt() + 1)));
+        } catch (RuntimeException ex) {
+            tracked.remove(key);
+            logPersistFailure(payment, status, ex);
+        }
+    }
+
+    /**
+     * Итог опроса никто не ждёт, поэтому переход пишется в общей пачке без ожидания коммита.
+     * Если пачка не записалась, платёж останется PENDING и вернётся в очередь при следующем recover.
+     */
+    private static void logPersistFailure(Payment payment, PaymentStatus status, Throwable ex) {
+        if (ex == null) {
+            return;
+        }
+        log.error(
+                "Failed to persist provider status. paymentId={}, status={}",
+                payment.getId(),
+                status,
+                ex
+        );
+    }
+
+    /**
+     * created_at пишется по LocalDateTime.now() — в часовом поясе сервиса.
+     */
+    private static long startedAt(Payment payment) {
+        if (payment.getCreatedAt() == null) {
+            return System.currentTimeMillis();
+        }
+        return payment.getCreatedAt().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static String key(String providerName, String providerTransactionId) {
+        return providerName + ':' + providerTransactionId;
+    }
+
+    /**
+     * Экспоненциальная задержка с разбросом в её верхней половине.
+     */
+    private long delay(int attempt) {
+        long base = properties.getInitialDelayMs() << Math.min(attempt, 20);
+        long capped = Math.min(Math.max(base, 1), properties.getMaxDelayMs());
+        long half = capped / 2;
+        return half + ThreadLocalRandom.current().nextLong(capped - half + 1);
+    }
+
+    private record StatusCheck(
+            Payment payment,
+            String providerName,
+            String providerTransactionId,
+            int attempt,
+            long startedAt,
+            long dueAt
+    ) implements Delayed {
+
+        StatusCheck next(long nextDueAt) {
+            return new StatusCheck(payment, providerName, providerTransactionId, attempt + 1, startedAt, nextDueAt);
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(dueAt - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return Long.compare(dueAt, ((StatusCheck) other).dueAt);
+        }
+    }
+}
@@ -0,0 +1,232 @@
+package com.artem.paymentservice.service.impl;
+
+import com.artem.paymentservice.config.WebhookProperties;
+import com.artem.paymentservice.dto.PaymentStatus;
+import com.artem.paymentservice.dto.ProviderWebhook;
+import com.artem.paymentservice.exception.InvalidWebhookException;
+import com.artem.paymentservice.exception.WebhookUnauthorizedException;
+import com.artem.paymentservice.provider.factory.PaymentProviderFactory;
+import com.artem.paymentservice.repository.PaymentStatusBatchRepository;
+import com.artem.paymentservice.repository.PaymentStatusBatchRepository.StatusChange;
+import com.artem.paymentservice.service.WebhookService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Приём callback'ов провайдеров.
+ * <p>
+ * 0️⃣ callback без секрета развёртывания из notificationUrl отклоняется с 401: адрес webhook'а
+ *    открыт, и без проверки любой мог бы перевести чужой платёж в SUCCESS;
+ * 1️⃣ поток запроса только проверяет событие, отсеивает повтор по (provider, eventType, entityId)
+ *    и кладёт его в ограниченный кольцевой буфер — ответ провайдеру не ждёт БД;
+ * 2️⃣ раз в flush-ms буфер разбирается пачками: события одного платежа схлопываются,
+ *    статусы применяются одним пакетным UPDATE по external_transaction_id;
+ * 3️⃣ применённые платежи снимаются с опроса в {@link PaymentStatusPoller}.
+ * <p>
+ * Событие, которое не удалось применить (ошибка БД или 0 обновлённых строк), снимается
+ * из отсеянных: повтор провайдера снова попадёт в буфер, а не будет принят за дубль.
+ * <p>
+ * Буфер живёт в памяти: событие, не применённое до падения, или пришедшее раньше,
+ * чем у платежа записан external_transaction_id, догонит поллер.
+ */
+@Slf4j
+@Service
+public class WebhookServiceImpl implements WebhookService {
+
+    private static final String TRANSACTION_EVENT_PREFIX = "TRANSACTION_";
+
+    private final PaymentProviderFactory paymentProviderFactory;
+    private final PaymentStatusBatchRepository paymentStatusBatchRepository;
+    private final PaymentStatusPoller paymentStatusPoller;
+    private final WebhookProperties properties;
+    private final BlockingQueue<WebhookEvent> buffer;
+
+    private final Map<WebhookKey, Long> seen = new ConcurrentHashMap<>();
+    private volatile long lastEviction = System.currentTimeMillis();
+
+    public WebhookServiceImpl(PaymentProviderFactory paymentProviderFactory,
+                              PaymentStatusBatchRepository paymentStatusBatchRepository,
+                              PaymentStatusPoller paymentStatusPoller,
+                              WebhookProperties properties) {
+        this.paymentProviderFactory = paymentProviderFactory;
+        this.paymentStatusBatchRepository = paymentStatusBatchRepository;
+        this.paymentStatusPoller = paymentStatusPoller;
+        this.properties = properties;
+        this.buffer = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+
+        if (properties.isEnabled() && !StringUtils.hasText(properties.getToken())) {
+            log.warn("payment-service.webhooks.token is not set: callbacks are rejected, statuses come from polling only");
+        }
+    }
+
+    @Override
+    public boolean accept(String provider, String token, ProviderWebhook webhook) {
+
+        if (!properties.isEnabled()) {
+            throw new InvalidWebhookException("Webhooks are disabled");
+        }
+        if (!tokenMatches(token)) {
+            throw new WebhookUnauthorizedException("Invalid webhook token");
+        }
+        if (!paymentProviderFactory.supports(provider)) {
+            throw new InvalidWebhookException("Unknown payment provider: " + provider);
+        }
+        if (webhook == null
+                || webhook.getEventType() == null
+                || webhook.getEntityId() == null) {
+            throw new InvalidWebhookException("eventType and entityId are required");
+        }
+
+        String eventType = webhook.getEventType();
+        if (!eventType.startsWith(TRANSACTION_EVENT_PREFIX)) {
+            // выплаты (PAYOUT_*) этот сервис не создаёт
+            log.debug("Ignoring webhook. provider={}, eventType={}", provider, eventType);
+            return true;
+        }
+
+        PaymentStatus status = statusOf(eventType);
+
+        WebhookKey key = new WebhookKey(provider, eventType, webhook.getEntityId());
+        if (seen.putIfAbsent(key, System.currentTimeMillis()) != null) {
+            log.debug("Duplicate webhook. provider={}, eventType={}, entityId={}",
+                    provider, eventType, webhook.getEntityId());
+            return true;
+        }
+
+        if (status == PaymentStatus.PENDING) {
+            return true;
+        }
+
+        if (!buffer.offer(new WebhookEvent(key, webhook.getEntityId().toString(), status))) {
+            // провайдер повторит — повтор не должен считаться дублем
+            seen.remove(key);
+            log.warn("Webhook buffer is full. provider={}, entityId={}", provider, webhook.getEntityId());
+            return false;
+        }
+
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${payment-service.webhooks.flush-ms:50}")
+    public void flush() {
+
+        List<WebhookEvent> batch = new ArrayList<>(properties.getBatchSize());
+
+        while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+            apply(batch);
+            batch.clear();
+        }
+
+        evictSeen();
+    }
+
+    private void apply(List<WebhookEvent> events) {
+
+        /*
+         * Несколько событий одного платежа в пачке — применяется последнее;
+         * ключи всех схлопнутых событий копятся при нём, чтобы при неудаче снять их вместе.
+         */
+        Map<String, PendingChange> changes = new LinkedHashMap<>(events.size() * 2);
+        for (WebhookEvent event : events) {
+            String provider = event.key().provider();
+            String paymentKey = provider + ':' + event.externalTransactionId();
+
+            PendingChange previous = changes.get(paymentKey);
+            List<WebhookKey> keys = previous == null ? new ArrayList<>(1) : previous.keys();
+            keys.add(event.key());
+
+            changes.put(
+                    paymentKey,
+                    new PendingChange(new StatusChange(provider, event.externalTransactionId(), event.status().name()), keys)
+            );
+        }
+
+        List<PendingChange> pending = new ArrayList<>(changes.values());
+        List<StatusChange> ordered = pending.stream().map(PendingChange::change).toList();
+        int[] updated;
+
+        try {
+            updated = paymentStatusBatchRepository.completeByExternalId(ordered);
+        } catch (RuntimeException ex) {
+            log.error("Failed to apply webhook batch. events={}", ordered.size(), ex);
+            pending.forEach(this::forget);
+            return;
+        }
+
+        int applied = 0;
+        for (int i = 0; i < ordered.size(); i++) {
+            if (updated[i] > 0) {
+                StatusChange change = ordered.get(i);
+                paymentStatusPoller.settle(change.providerName(), change.externalTransactionId());
+                applied++;
+            } else {
+                // external_transaction_id ещё не записан или платёж уже не PENDING
+                forget(pending.get(i));
+            }
+        }
+
+        log.info("Webhook batch applied. events={}, payments={}, updated={}",
+                events.size(), ordered.size(), applied);
+    }
+
+    private void forget(PendingChange change) {
+        change.keys().forEach(seen::remove);
+    }
+
+    private void evictSeen() {
+
+        long now = System.currentTimeMillis();
+        if (now - lastEviction < 1_000) {
+            return;
+        }
+        lastEviction = now;
+
+        long cutoff = now - properties.getDedupTtlMs();
+        seen.values().removeIf(receivedAt -> receivedAt < cutoff);
+    }
+
+    /**
+     * Сравнение за постоянное время: по времени ответа токен не подобрать посимвольно.
+     */
+    private boolean tokenMatches(String token) {
+        String expected = properties.getToken();
+        if (!StringUtils.hasText(expected) || token == null) {
+            return false;
+        }
+        return MessageDigest.isEqual(
+                expected.getBytes(StandardCharsets.UTF_8),
+                token.getBytes(StandardCharsets.UTF_8)
+        );
+    }
+
+    private static PaymentStatus statusOf(String eventType) {
+
+        return switch (eventType.substring(TRANSACTION_EVENT_PREFIX.length())) {
+            case "SUCCESS" -> PaymentStatus.SUCCESS;
+            case "FAILED" -> PaymentStatus.FAILED;
+            case "PENDING" -> PaymentStatus.PENDING;
+            default -> throw new InvalidWebhookException("Unknown event type: " + eventType);
+        };
+    }
+
+    private record WebhookKey(String provider, String eventType, Long entityId) {
+    }
+
+    private record WebhookEvent(WebhookKey key, String externalTransactionId, PaymentStatus status) {
+    }
+
+    private record PendingChange(StatusChange change, List<WebhookKey> keys) {
+    }
+}
@@ -0,0 +1,38 @@
+-- ============================================================
+-- Версия справочника способов оплаты: count + max(modified_at)
+-- по четырём таблицам. modified_at обновляется триггером
+-- при любом UPDATE, в том числе мимо приложения.
+-- ============================================================
+
+ALTER TABLE payment_providers
+    ADD COLUMN modified_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+ALTER TABLE payment_method_definitions
+    ADD COLUMN modified_at TIMESTAMP NOT NULL DEFAULT NOW();
+
+CREATE OR REPLACE FUNCTION touch_modified_at() RETURNS trigger AS $$
+BEGIN
+    NEW.modified_at := NOW();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER payment_providers_touch
+    BEFORE UPDATE ON payment_providers
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+CREATE TRIGGER payment_methods_touch
+    BEFORE UPDATE ON payment_methods
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+CREATE TRIGGER payment_method_definitions_touch
+    BEFORE UPDATE ON payment_method_definitions
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+CREATE TRIGGER payment_method_required_fields_touch
+    BEFORE UPDATE ON payment_method_required_fields
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+CREATE INDEX idx_payment_definition_currency_country
+    ON payment_method_definitions(currency_code, country_alpha3_code)
+    WHERE is_active;
@@ -0,0 +1,93 @@
+package com.artem.paymentservice.integration;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.OffsetDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Заглушка Fake Payment Provider для нагрузочных тестов: POST создаёт PENDING-транзакцию,
+ * GET отдаёт SUCCESS, если с создания прошло settleMs. Каждый ответ задерживается на latencyMs.
+ */
+final class FakeProviderStub implements AutoCloseable {
+
+    final AtomicLong calls = new AtomicLong();
+
+    private final HttpServer server;
+    private final long settleMs;
+    private final long latencyMs;
+    private final Map<Long, Long> createdAt = new ConcurrentHashMap<>();
+    private final AtomicLong ids = new AtomicLong();
+
+    private FakeProviderStub(HttpServer server, long settleMs, long latencyMs) {
+        this.server = server;
+        this.settleMs = settleMs;
+        this.latencyMs = latencyMs;
+    }
+
+    static FakeProviderStub start(long settleMs, long latencyMs) {
+        try {
+            HttpServer server = HttpServer.create(new InetSocketAddress("localhost", 0), 8192);
+            FakeProviderStub stub = new FakeProviderStub(server, settleMs, latencyMs);
+            server.createContext("/api/v1/transactions", stub::handle);
+            server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+            server.start();
+            return stub;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start provider stub", e);
+        }
+    }
+
+    String baseUrl() {
+        return "http://localhost:" + server.getAddress().getPort();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        calls.incrementAndGet();
+        exchange.getRequestBody().readAllBytes();
+
+        if (latencyMs > 0) {
+            try {
+                Thread.sleep(latencyMs);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        long id;
+        int code;
+        String status;
+        if ("POST".equals(exchange.getRequestMethod())) {
+            id = ids.incrementAndGet();
+            createdAt.put(id, System.currentTimeMillis());
+            code = 201;
+            status = "PENDING";
+        } else {
+            String path = exchange.getRequestURI().getPath();
+            id = Long.parseLong(path.substring(path.lastIndexOf('/') + 1));
+            Long created = createdAt.get(id);
+            code = 200;
+            status = created != null && System.currentTimeMillis() - created >= settleMs ? "SUCCESS" : "PENDING";
+        }
+
+        byte[] body = """
+                {"id":%d,"merchantId":1,"amount":100.0,"currency":"EUR","method":"CARD","status":"%s","createdAt":"%s"}
+                """.formatted(id, status, OffsetDateTime.now()).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "application/json");
+        exchange.sendResponseHeaders(code, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+}
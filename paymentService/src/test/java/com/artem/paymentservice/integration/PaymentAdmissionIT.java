@@ -0,0 +1,97 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.exception.PaymentServiceOverloadedException;
+import com.artem.paymentservice.service.impl.PaymentAdmission;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Лимит одновременных платежей без max-in-flight: maximum-pool-size Hikari × per-connection = 3.
+ */
+class PaymentAdmissionIT extends AbstractIntegrationTest {
+
+    private static final int POOL_SIZE = 3;
+
+    @Autowired
+    private PaymentAdmission paymentAdmission;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @DynamicPropertySource
+    static void admission(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.hikari.maximum-pool-size", () -> String.valueOf(POOL_SIZE));
+        registry.add("payment-service.admission.per-connection", () -> "1");
+        registry.add("payment-service.admission.acquire-timeout-ms", () -> "100");
+    }
+
+    @Test
+    void shouldRejectPaymentsOverPoolDerivedLimitWith503() throws Exception {
+
+        CountDownLatch admitted = new CountDownLatch(POOL_SIZE);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Future<Boolean>> holders = new ArrayList<>();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+
+            for (int i = 0; i < POOL_SIZE; i++) {
+                holders.add(executor.submit(() -> paymentAdmission.execute(() -> {
+                    admitted.countDown();
+                    try {
+                        return release.await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                        return false;
+                    }
+                })));
+            }
+
+            // все POOL_SIZE мест заняты — лимит не больше размера пула
+            assertTrue(admitted.await(5, TimeUnit.SECONDS));
+            assertThrows(PaymentServiceOverloadedException.class, () -> paymentAdmission.execute(() -> true));
+
+            mockMvc.perform(
+                            post("/api/v1/payments")
+                                    .with(httpBasic("admin", "admin"))
+                                    .contentType(MediaType.APPLICATION_JSON)
+                                    .content("""
+                                            {
+                                              "internalTransactionUid":"22222222-2222-2222-2222-222222222222",
+                                              "methodId": 1,
+                                              "amount": 10.00,
+                                              "currency": "EUR",
+                                              "userFields": {}
+                                            }
+                                            """)
+                    )
+                    .andExpect(status().isServiceUnavailable());
+
+            release.countDown();
+            for (Future<Boolean> holder : holders) {
+                assertTrue(holder.get(5, TimeUnit.SECONDS));
+            }
+        }
+
+        // места освободились
+        assertEquals(Boolean.TRUE, paymentAdmission.execute(() -> true));
+    }
+}
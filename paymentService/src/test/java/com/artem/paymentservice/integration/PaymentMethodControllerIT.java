@@ -9,6 +9,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
+import com.artem.paymentservice.cache.PaymentMethodCatalog;
+import com.artem.paymentservice.config.PaymentMethodCatalogProperties;
 import com.artem.paymentservice.model.PaymentMethod;
 import com.artem.paymentservice.model.PaymentMethodDefinition;
 import com.artem.paymentservice.model.PaymentMethodRequiredField;
@@ -22,8 +24,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.test.web.reactive.server.WebTestClient;
 import org.springframework.test.web.servlet.MockMvc;
 
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 class PaymentMethodControllerIT extends AbstractIntegrationTest {
 
     @Autowired
@@ -41,6 +49,15 @@ class PaymentMethodControllerIT extends AbstractIntegrationTest {
     @Autowired
     private PaymentProviderRepository paymentProviderRepository;
 
+    @Autowired
+    private PaymentMethodCatalog paymentMethodCatalog;
+
+    @Autowired
+    private PaymentMethodCatalogProperties catalogProperties;
+
+    @Autowired
+    private DataSource dataSource;
+
     @BeforeEach
     void cleanDatabase() {
 
@@ -98,6 +115,9 @@ class PaymentMethodControllerIT extends AbstractIntegrationTest {
 
         fieldRepository.save(field);
 
+        // справочник перечитывается по таймеру; в тесте — сразу
+        paymentMethodCatalog.refresh();
+
         mockMvc.perform(
                         get("/api/v1/payment-methods/EUR/NLD")
                                 .with(httpBasic("admin", "admin"))
@@ -109,6 +129,69 @@ class PaymentMethodControllerIT extends AbstractIntegrationTest {
                 .andExpect(jsonPath("$[0].requiredFields[0].name").value("cardNumber"));
     }
 
+    @Test
+    void shouldPickUpLateCommittedDefinitionOnFullReload() throws Exception {
+
+        try (Connection late = dataSource.getConnection()) {
+
+            // транзакция началась раньше, чем записан остальной справочник: её NOW() меньше max(modified_at)
+            late.setAutoCommit(false);
+            late.createStatement().execute("SELECT 1");
+
+            PaymentProvider provider =
+                    paymentProviderRepository.save(
+                            PaymentProvider.builder()
+                                    .name("TEST_PROVIDER")
+                                    .description("Test provider")
+                                    .build()
+                    );
+
+            PaymentMethod paymentMethod =
+                    paymentMethodRepository.save(
+                            PaymentMethod.builder()
+                                    .provider(provider)
+                                    .type("CARD")
+                                    .name("Visa")
+                                    .active(true)
+                                    .providerUniqueId(UUID.randomUUID().toString())
+                                    .providerMethodType("CARD")
+                                    .profileType("INDIVIDUAL")
+                                    .build()
+                    );
+
+            PaymentMethodDefinition definition =
+                    definitionRepository.save(
+                            PaymentMethodDefinition.builder()
+                                    .paymentMethod(paymentMethod)
+                                    .currencyCode("EUR")
+                                    .countryAlpha3Code("NLD")
+                                    .isActive(true)
+                                    .isAllCurrencies(false)
+                                    .isAllCountries(false)
+                                    .isPriority(false)
+                                    .build()
+                    );
+
+            paymentMethodCatalog.refresh();
+            assertEquals(1, paymentMethodCatalog.getAvailablePaymentMethods("EUR", "NLD").size());
+
+            // ни count, ни max(modified_at) не меняются — версия справочника прежняя
+            try (PreparedStatement update = late.prepareStatement(
+                    "UPDATE payment_method_definitions SET currency_code = 'USD' WHERE id = ?")) {
+                update.setInt(1, definition.getId());
+                update.executeUpdate();
+            }
+            late.commit();
+        }
+
+        for (int i = 0; i < catalogProperties.getFullReloadEvery(); i++) {
+            paymentMethodCatalog.refresh();
+        }
+
+        assertTrue(paymentMethodCatalog.getAvailablePaymentMethods("EUR", "NLD").isEmpty());
+        assertEquals(1, paymentMethodCatalog.getAvailablePaymentMethods("USD", "NLD").size());
+    }
+
     @Test
     void shouldReturn401WhenUnauthorized() throws Exception {
 
@@ -0,0 +1,183 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.dto.PaymentStatus;
+import com.artem.paymentservice.model.Payment;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.service.impl.PaymentStateService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Запись перехода PENDING → SUCCESS: прежняя схема (save detached-платежа в отдельной транзакции —
+ * SELECT + UPDATE и коммит на каждый переход) против текущего PaymentStateService.updateStatus
+ * (guarded UPDATE, пачки через PaymentStateWriter, вызывающий ждёт коммита пачки).
+ * <p>
+ * Каждый режим переводит свои заранее созданные PENDING-платежи из THREADS виртуальных потоков;
+ * печатаются transitions/s, p99 и число коммитов в БД (прирост xact_commit в pg_stat_database).
+ * <p>
+ * Запуск: ./gradlew test --tests '*PaymentStateBenchmark' -Dbenchmark=true [-Dbenchmark.transitions=50000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PaymentStateBenchmark extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentStateBenchmark.class);
+
+    private static final int TRANSITIONS = Integer.getInteger("benchmark.transitions", 50_000);
+    private static final int THREADS = 1_000;
+
+    @Autowired
+    private PaymentStateService paymentStateService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PaymentProviderRepository paymentProviderRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void quiet(DynamicPropertyRegistry registry) {
+        registry.add("payment-service.status-polling.enabled", () -> "false");
+        registry.add("payment-service.webhooks.enabled", () -> "false");
+        registry.add("logging.level.com.artem.paymentservice", () -> "WARN");
+    }
+
+    @Test
+    void mergePerTransitionVersusGroupCommit() throws Exception {
+        PaymentProvider provider = paymentProviderRepository.save(
+                PaymentProvider.builder().name("FAKE").description("Local stub").build());
+        PaymentMethod method = paymentMethodRepository.save(
+                PaymentMethod.builder()
+                        .provider(provider)
+                        .type("CARD")
+                        .name("Visa")
+                        .active(true)
+                        .providerUniqueId(UUID.randomUUID().toString())
+                        .providerMethodType("CARD")
+                        .profileType("INDIVIDUAL")
+                        .build());
+
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Result merge = run(seed(method), payment -> requiresNew.executeWithoutResult(status -> {
+            payment.setExternalTransactionId(UUID.randomUUID().toString());
+            payment.setStatus(PaymentStatus.SUCCESS.name());
+            payment.setModifiedAt(LocalDateTime.now());
+            paymentRepository.save(payment);
+        }));
+
+        Result groupCommit = run(seed(method), payment -> paymentStateService.updateStatus(
+                payment, UUID.randomUUID().toString(), PaymentStatus.SUCCESS));
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM payments WHERE status = 'PENDING'", Integer.class));
+        log.warn(String.format("%n%d transitions, %d threads%n"
+                        + "mode         | transitions/s | p99, ms | db commits%n"
+                        + "merge        | %13.0f | %7.1f | %10d%n"
+                        + "group commit | %13.0f | %7.1f | %10d%nspeed-up: %.1fx",
+                TRANSITIONS, THREADS,
+                merge.rate, merge.p99Ms, merge.commits,
+                groupCommit.rate, groupCommit.p99Ms, groupCommit.commits,
+                groupCommit.rate / merge.rate));
+    }
+
+    private List<Payment> seed(PaymentMethod method) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Payment> payments = new ArrayList<>(TRANSITIONS);
+        for (int i = 0; i < TRANSITIONS; i++) {
+            payments.add(Payment.builder()
+                    .paymentMethod(method)
+                    .internalTransactionId(UUID.randomUUID().toString())
+                    .amount(BigDecimal.valueOf(100.5))
+                    .currency("EUR")
+                    .status(PaymentStatus.PENDING.name())
+                    .createdAt(now)
+                    .modifiedAt(now)
+                    .build());
+        }
+        // после saveAll платежи detached — как в PaymentServiceImpl после createPendingPayment
+        return paymentRepository.saveAll(payments);
+    }
+
+    private Result run(List<Payment> payments, Transition transition) throws Exception {
+        long commitsBefore = commits();
+        long[] latencies = new long[payments.size()];
+        long start = System.nanoTime();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<?>> workers = new ArrayList<>(THREADS);
+            for (int t = 0; t < THREADS; t++) {
+                int first = t;
+                workers.add(executor.submit(() -> {
+                    for (int i = first; i < payments.size(); i += THREADS) {
+                        long sent = System.nanoTime();
+                        transition.apply(payments.get(i));
+                        latencies[i] = System.nanoTime() - sent;
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> worker : workers) {
+                worker.get();
+            }
+        }
+
+        double elapsedNanos = System.nanoTime() - start;
+        long commits = commits() - commitsBefore;
+
+        Arrays.sort(latencies);
+        long p99 = latencies[(int) Math.min(latencies.length - 1, Math.ceil(latencies.length * 0.99) - 1)];
+        return new Result(payments.size() * 1e9 / elapsedNanos, p99 / 1e6, commits);
+    }
+
+    /**
+     * Бэкенды сбрасывают статистику в pg_stat_database не чаще раза в секунду — отсюда пауза.
+     */
+    private long commits() throws InterruptedException {
+        Thread.sleep(1_500);
+        return jdbcTemplate.queryForObject(
+                "SELECT xact_commit FROM pg_stat_database WHERE datname = current_database()", Long.class);
+    }
+
+    @FunctionalInterface
+    private interface Transition {
+        void apply(Payment payment);
+    }
+
+    private record Result(double rate, double p99Ms, long commits) {
+    }
+}
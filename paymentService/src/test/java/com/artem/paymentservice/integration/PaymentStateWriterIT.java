@@ -0,0 +1,91 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.dto.PaymentStatus;
+import com.artem.paymentservice.model.Payment;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.service.impl.PaymentStateService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PaymentStateWriterIT extends AbstractIntegrationTest {
+
+    @Autowired
+    private PaymentStateService paymentStateService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PaymentProviderRepository paymentProviderRepository;
+
+    private PaymentMethod method;
+
+    @BeforeEach
+    void setUp() {
+
+        PaymentProvider provider =
+                paymentProviderRepository.save(
+                        PaymentProvider.builder()
+                                .name("STATE_PROVIDER")
+                                .description("State writer provider")
+                                .build()
+                );
+
+        method =
+                paymentMethodRepository.save(
+                        PaymentMethod.builder()
+                                .provider(provider)
+                                .type("CARD")
+                                .name("Visa")
+                                .active(true)
+                                .providerUniqueId(UUID.randomUUID().toString())
+                                .providerMethodType("CARD")
+                                .profileType("INDIVIDUAL")
+                                .build()
+                );
+    }
+
+    @Test
+    void shouldNotApplyLateFailedAfterSuccess() throws Exception {
+
+        Payment payment = paymentStateService.createPendingPayment(
+                method.getId(),
+                UUID.randomUUID().toString(),
+                BigDecimal.TEN,
+                "EUR"
+        );
+
+        assertTrue(
+                paymentStateService
+                        .updateStatusAsync(payment, "2001", PaymentStatus.SUCCESS)
+                        .get(5, TimeUnit.SECONDS)
+        );
+
+        // запоздавший FAILED (истёк max-age поллера, компенсация) — guard по исходному статусу его отбрасывает
+        assertFalse(
+                paymentStateService
+                        .markFailedAsync(payment)
+                        .get(5, TimeUnit.SECONDS)
+        );
+
+        Payment stored = paymentRepository.findById(payment.getId()).orElseThrow();
+        assertEquals("SUCCESS", stored.getStatus());
+        assertEquals("2001", stored.getExternalTransactionId());
+    }
+}
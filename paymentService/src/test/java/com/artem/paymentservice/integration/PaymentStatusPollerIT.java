@@ -0,0 +1,124 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.model.Payment;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.service.impl.PaymentStatusPoller;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Опрос провайдера с заглушкой, у которой транзакции навсегда остаются PENDING.
+ */
+class PaymentStatusPollerIT extends AbstractIntegrationTest {
+
+    private static final long MAX_AGE_MS = 60_000;
+    private static final long AWAIT_MS = 10_000;
+
+    private static final FakeProviderStub STUB = FakeProviderStub.start(Long.MAX_VALUE, 0);
+
+    @Autowired
+    private PaymentStatusPoller paymentStatusPoller;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PaymentProviderRepository paymentProviderRepository;
+
+    @DynamicPropertySource
+    static void providerStub(DynamicPropertyRegistry registry) {
+        registry.add("fake-payment-provider.base-url", STUB::baseUrl);
+        registry.add("payment-service.webhooks.enabled", () -> "false");
+        registry.add("payment-service.status-polling.initial-delay-ms", () -> "50");
+        registry.add("payment-service.status-polling.max-delay-ms", () -> "200");
+        registry.add("payment-service.status-polling.max-age-ms", () -> String.valueOf(MAX_AGE_MS));
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void recover_shouldFailPaymentOlderThanMaxAge_countingFromCreation() throws Exception {
+
+        PaymentMethod method = fakeMethod();
+
+        // создан задолго до рестарта: max-age истёк, хотя в очередь он попадает только сейчас
+        Payment expired = pendingPayment(method, "3001", LocalDateTime.now().minusMinutes(5));
+        Payment fresh = pendingPayment(method, "3002", LocalDateTime.now());
+
+        paymentStatusPoller.recover();
+
+        long deadline = System.currentTimeMillis() + AWAIT_MS;
+        while (!"FAILED".equals(statusOf(expired)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+
+        assertEquals("FAILED", statusOf(expired));
+        // тот же опрос для нового платежа: провайдер отвечает PENDING, max-age не истёк
+        assertEquals("PENDING", statusOf(fresh));
+    }
+
+    private PaymentMethod fakeMethod() {
+
+        PaymentProvider provider =
+                paymentProviderRepository.findAll().stream()
+                        .filter(p -> "FAKE".equals(p.getName()))
+                        .findFirst()
+                        .orElseGet(() -> paymentProviderRepository.save(
+                                PaymentProvider.builder()
+                                        .name("FAKE")
+                                        .description("Fake provider")
+                                        .build()
+                        ));
+
+        return paymentMethodRepository.save(
+                PaymentMethod.builder()
+                        .provider(provider)
+                        .type("CARD")
+                        .name("Visa")
+                        .active(true)
+                        .providerUniqueId(UUID.randomUUID().toString())
+                        .providerMethodType("CARD")
+                        .profileType("INDIVIDUAL")
+                        .build()
+        );
+    }
+
+    private Payment pendingPayment(PaymentMethod method, String externalTransactionId, LocalDateTime createdAt) {
+
+        return paymentRepository.save(
+                Payment.builder()
+                        .paymentMethod(method)
+                        .internalTransactionId(UUID.randomUUID().toString())
+                        .externalTransactionId(externalTransactionId)
+                        .amount(BigDecimal.TEN)
+                        .currency("EUR")
+                        .status("PENDING")
+                        .createdAt(createdAt)
+                        .modifiedAt(createdAt)
+                        .build()
+        );
+    }
+
+    private String statusOf(Payment payment) {
+        return paymentRepository.findById(payment.getId()).orElseThrow().getStatus();
+    }
+}
@@ -0,0 +1,171 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.fakepaymentprovider.client.api.TransactionsApi;
+import com.artem.fakepaymentprovider.client.dto.Transaction;
+import com.artem.fakepaymentprovider.client.dto.TransactionRequest;
+import com.artem.paymentservice.dto.PaymentRequest;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.service.PaymentService;
+import com.artem.paymentservice.service.impl.PaymentStatusPoller;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Пропускная способность создания платежей с заглушкой провайдера, у которой транзакция
+ * становится SUCCESS через settle-ms после создания.
+ * <p>
+ * blocking — прежняя схема FakePaymentGateway: поток запроса создаёт транзакцию и опрашивает статус
+ * (до 5 раз, пауза 500 мс) до финального; async — текущий PaymentService.processPayment,
+ * финальный статус доводит PaymentStatusPoller. Оба режима — пул из 200 потоков, как у Tomcat по умолчанию.
+ * <p>
+ * Запуск: ./gradlew test --tests '*PaymentThroughputBenchmark' -Dbenchmark=true [-Dbenchmark.settle-ms=1000]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class PaymentThroughputBenchmark extends AbstractIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentThroughputBenchmark.class);
+
+    private static final int THREADS = 200;
+    private static final long DURATION_MS = 10_000;
+    private static final long SETTLE_MS = Long.getLong("benchmark.settle-ms", 1_000);
+    private static final int MAX_STATUS_ATTEMPTS = 5;
+    private static final long STATUS_POLL_INTERVAL_MS = 500;
+
+    private static final FakeProviderStub STUB = FakeProviderStub.start(SETTLE_MS, 0);
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private PaymentStatusPoller paymentStatusPoller;
+
+    @Autowired
+    private TransactionsApi transactionsApi;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PaymentProviderRepository paymentProviderRepository;
+
+    @DynamicPropertySource
+    static void providerStub(DynamicPropertyRegistry registry) {
+        registry.add("fake-payment-provider.base-url", STUB::baseUrl);
+        // заглушка webhook'ов не шлёт: статус доводит только поллер, с прежней первой паузой
+        registry.add("payment-service.webhooks.enabled", () -> "false");
+        registry.add("payment-service.status-polling.initial-delay-ms", () -> "500");
+        registry.add("logging.level.com.artem.paymentservice", () -> "WARN");
+    }
+
+    @AfterAll
+    static void stopStub() {
+        STUB.close();
+    }
+
+    @Test
+    void blockingVersusAsyncStatus() throws Exception {
+        PaymentProvider provider = paymentProviderRepository.save(
+                PaymentProvider.builder().name("FAKE").description("Local stub").build());
+        PaymentMethod method = paymentMethodRepository.save(
+                PaymentMethod.builder()
+                        .provider(provider)
+                        .type("CARD")
+                        .name("Visa")
+                        .active(true)
+                        .providerUniqueId(UUID.randomUUID().toString())
+                        .providerMethodType("CARD")
+                        .profileType("INDIVIDUAL")
+                        .build());
+
+        double blocking = run(() -> {
+            Transaction created = transactionsApi.createTransaction(
+                    new TransactionRequest().amount(100.0).currency("EUR").method("CARD"));
+            for (int attempt = 1; attempt <= MAX_STATUS_ATTEMPTS; attempt++) {
+                String status = transactionsApi.getTransactionById(created.getId()).getStatus().name();
+                if (!"PENDING".equals(status)) {
+                    return;
+                }
+                Thread.sleep(STATUS_POLL_INTERVAL_MS);
+            }
+        });
+        long providerCallsBlocking = STUB.calls.getAndSet(0);
+
+        long before = paymentRepository.count();
+        double async = run(() -> paymentService.processPayment(new PaymentRequest()
+                .internalTransactionUid(UUID.randomUUID())
+                .methodId(method.getId().longValue())
+                .amount(100.0)
+                .currency("EUR")
+                .userFields(Map.of("cardNumber", "4111111111111111"))));
+        long created = paymentRepository.count() - before;
+
+        long drainStart = System.nanoTime();
+        while (paymentStatusPoller.pending() > 0) {
+            Thread.sleep(50);
+        }
+        long drainMs = (System.nanoTime() - drainStart) / 1_000_000;
+        long providerCallsAsync = STUB.calls.get();
+
+        assertEquals(0, paymentRepository.findAwaitingProviderStatus().size());
+        log.warn(String.format("%nthreads=%d, provider settles in %d ms, %d s per mode%n"
+                        + "mode     | payments/s | provider calls/payment%n"
+                        + "blocking | %10.0f |%n"
+                        + "async    | %10.0f | %.2f (drained %d ms after load)%nspeed-up: %.1fx (provider calls in blocking run: %d)",
+                THREADS, SETTLE_MS, DURATION_MS / 1000, blocking, async,
+                (double) providerCallsAsync / created, drainMs, async / blocking, providerCallsBlocking));
+    }
+
+    private static double run(ThrowingRunnable payment) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        AtomicLong completed = new AtomicLong();
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+        long start = System.nanoTime();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            workers.add(executor.submit(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    payment.run();
+                    completed.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        double rate = completed.get() * 1e9 / (System.nanoTime() - start);
+        executor.shutdown();
+        return rate;
+    }
+
+    @FunctionalInterface
+    private interface ThrowingRunnable {
+        void run() throws Exception;
+    }
+}
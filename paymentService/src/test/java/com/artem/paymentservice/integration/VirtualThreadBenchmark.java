@@ -0,0 +1,207 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.PaymentServiceApplication;
+import com.artem.paymentservice.TestcontainersConfiguration;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import jdk.jfr.consumer.RecordingStream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * POST /api/v1/payments на платформенных потоках (Tomcat, 200 потоков) против виртуальных
+ * (spring.threads.virtual.enabled) при 1k и 5k одновременных клиентах и медленном провайдере.
+ * <p>
+ * Для каждого прогона печатаются payments/s, p99, отказы 503 от лимита admission и прочие ошибки,
+ * насыщение пула Hikari (максимум активных соединений и потоков в ожидании соединения)
+ * и число событий JFR jdk.VirtualThreadPinned.
+ * <p>
+ * Запуск: ./gradlew test --tests '*VirtualThreadBenchmark' -Dbenchmark=true [-Dbenchmark.provider-latency-ms=200]
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class VirtualThreadBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(VirtualThreadBenchmark.class);
+
+    private static final long PROVIDER_LATENCY_MS = Long.getLong("benchmark.provider-latency-ms", 200);
+    private static final long DURATION_MS = 15_000;
+    private static final int[] CONCURRENCY = {1_000, 5_000};
+
+    @Test
+    void platformVersusVirtualThreads() throws Exception {
+        List<String> rows = new ArrayList<>();
+
+        try (FakeProviderStub stub = FakeProviderStub.start(0, PROVIDER_LATENCY_MS)) {
+            for (boolean virtual : new boolean[]{false, true}) {
+                try (ConfigurableApplicationContext context = start(stub, virtual)) {
+                    int port = Integer.parseInt(context.getEnvironment().getProperty("local.server.port"));
+                    int methodId = seedMethod(context);
+                    HikariPoolMXBean pool = context.getBean(HikariDataSource.class).getHikariPoolMXBean();
+
+                    for (int clients : CONCURRENCY) {
+                        Result result = run(port, methodId, clients, pool);
+                        rows.add(String.format("%-8s | %7d | %10.0f | %7d | %8d | %6d | %11d | %12d | %6d",
+                                virtual ? "virtual" : "platform", clients, result.rate, result.p99Ms,
+                                result.rejected, result.errors, result.maxActive, result.maxAwaiting, result.pinned));
+                    }
+                }
+            }
+        }
+
+        log.warn(String.format("%nprovider latency %d ms, %d s per run%n"
+                        + "threads  | clients | payments/s | p99, ms | rejected | errors | max active | max awaiting | pinned%n%s",
+                PROVIDER_LATENCY_MS, DURATION_MS / 1000, String.join("\n", rows)));
+    }
+
+    private static ConfigurableApplicationContext start(FakeProviderStub stub, boolean virtual) {
+        return SpringApplication.from(PaymentServiceApplication::main)
+                .with(TestcontainersConfiguration.class)
+                .run(
+                        "--server.port=0",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--fake-payment-provider.base-url=" + stub.baseUrl(),
+                        "--payment-service.status-polling.enabled=false",
+                        "--payment-service.webhooks.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.springframework.web=WARN"
+                )
+                .getApplicationContext();
+    }
+
+    private static int seedMethod(ConfigurableApplicationContext context) {
+        PaymentProvider provider = context.getBean(PaymentProviderRepository.class).save(
+                PaymentProvider.builder().name("FAKE").description("Local stub").build());
+        return context.getBean(PaymentMethodRepository.class).save(
+                PaymentMethod.builder()
+                        .provider(provider)
+                        .type("CARD")
+                        .name("Visa")
+                        .active(true)
+                        .providerUniqueId(UUID.randomUUID().toString())
+                        .providerMethodType("CARD")
+                        .profileType("INDIVIDUAL")
+                        .build()).getId();
+    }
+
+    private static Result run(int port, int methodId, int clients, HikariPoolMXBean pool) throws Exception {
+        URI uri = URI.create("http://localhost:" + port + "/api/v1/payments");
+        AtomicInteger rejected = new AtomicInteger();
+        AtomicInteger errors = new AtomicInteger();
+        AtomicLong pinned = new AtomicLong();
+        AtomicInteger maxActive = new AtomicInteger();
+        AtomicInteger maxAwaiting = new AtomicInteger();
+
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+             HttpClient client = HttpClient.newBuilder()
+                     .executor(executor)
+                     .connectTimeout(Duration.ofSeconds(10))
+                     .build();
+             RecordingStream jfr = new RecordingStream()) {
+
+            jfr.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ZERO);
+            jfr.onEvent("jdk.VirtualThreadPinned", event -> pinned.incrementAndGet());
+            jfr.startAsync();
+
+            long deadline = System.currentTimeMillis() + DURATION_MS;
+
+            Future<?> sampler = executor.submit(() -> {
+                while (System.currentTimeMillis() < deadline) {
+                    maxActive.accumulateAndGet(pool.getActiveConnections(), Math::max);
+                    maxAwaiting.accumulateAndGet(pool.getThreadsAwaitingConnection(), Math::max);
+                    Thread.sleep(10);
+                }
+                return null;
+            });
+
+            List<Future<long[]>> workers = new ArrayList<>(clients);
+            long start = System.nanoTime();
+            for (int c = 0; c < clients; c++) {
+                workers.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.currentTimeMillis() < deadline) {
+                        HttpRequest request = HttpRequest.newBuilder(uri)
+                                .timeout(Duration.ofSeconds(60))
+                                .header("Content-Type", "application/json")
+                                .POST(HttpRequest.BodyPublishers.ofString("""
+                                        {"internalTransactionUid":"%s","methodId":%d,"amount":100.5,
+                                         "currency":"EUR","userFields":{"cardNumber":"4111111111111111"}}
+                                        """.formatted(UUID.randomUUID(), methodId)))
+                                .build();
+
+                        long sent = System.nanoTime();
+                        try {
+                            int status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+                            if (status == 503) {
+                                rejected.incrementAndGet();
+                                continue;
+                            }
+                            if (status != 200) {
+                                errors.incrementAndGet();
+                                continue;
+                            }
+                        } catch (Exception e) {
+                            errors.incrementAndGet();
+                            continue;
+                        }
+
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = System.nanoTime() - sent;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+
+            List<long[]> parts = new ArrayList<>(clients);
+            int total = 0;
+            for (Future<long[]> worker : workers) {
+                long[] part = worker.get();
+                parts.add(part);
+                total += part.length;
+            }
+            double elapsedNanos = System.nanoTime() - start;
+            sampler.get();
+
+            long[] all = new long[total];
+            int offset = 0;
+            for (long[] part : parts) {
+                System.arraycopy(part, 0, all, offset, part.length);
+                offset += part.length;
+            }
+            Arrays.sort(all);
+            long p99 = all.length == 0 ? 0 : all[(int) Math.min(all.length - 1, Math.ceil(all.length * 0.99) - 1)];
+
+            return new Result(total * 1e9 / elapsedNanos, p99 / 1_000_000, rejected.get(), errors.get(),
+                    maxActive.get(), maxAwaiting.get(), pinned.get());
+        }
+    }
+
+    private record Result(double rate, long p99Ms, int rejected, int errors, int maxActive, int maxAwaiting,
+                          long pinned) {
+    }
+}
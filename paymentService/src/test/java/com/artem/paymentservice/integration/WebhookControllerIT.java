@@ -0,0 +1,220 @@
+package com.artem.paymentservice.integration;
+
+import com.artem.paymentservice.model.Payment;
+import com.artem.paymentservice.model.PaymentMethod;
+import com.artem.paymentservice.model.PaymentProvider;
+import com.artem.paymentservice.repository.PaymentMethodRepository;
+import com.artem.paymentservice.repository.PaymentProviderRepository;
+import com.artem.paymentservice.repository.PaymentRepository;
+import com.artem.paymentservice.service.impl.WebhookServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class WebhookControllerIT extends AbstractIntegrationTest {
+
+    private static final String TOKEN = "webhook-test-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private WebhookServiceImpl webhookService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private PaymentMethodRepository paymentMethodRepository;
+
+    @Autowired
+    private PaymentProviderRepository paymentProviderRepository;
+
+    private PaymentMethod method;
+
+    @DynamicPropertySource
+    static void token(DynamicPropertyRegistry registry) {
+        registry.add("payment-service.webhooks.token", () -> TOKEN);
+    }
+
+    @BeforeEach
+    void setUp() {
+
+        paymentRepository.deleteAll();
+
+        PaymentProvider provider =
+                paymentProviderRepository.findAll().stream()
+                        .filter(p -> "FAKE".equals(p.getName()))
+                        .findFirst()
+                        .orElseGet(() -> paymentProviderRepository.save(
+                                PaymentProvider.builder()
+                                        .name("FAKE")
+                                        .description("Fake provider")
+                                        .build()
+                        ));
+
+        method =
+                paymentMethodRepository.save(
+                        PaymentMethod.builder()
+                                .provider(provider)
+                                .type("CARD")
+                                .name("Visa")
+                                .active(true)
+                                .providerUniqueId(UUID.randomUUID().toString())
+                                .providerMethodType("CARD")
+                                .profileType("INDIVIDUAL")
+                                .build()
+                );
+    }
+
+    @Test
+    void shouldApplyFinalStatusOnce() throws Exception {
+
+        Payment payment = pendingPayment("1001");
+
+        send("FAKE", "TRANSACTION_SUCCESS", 1001)
+                .andExpect(status().isAccepted());
+        send("FAKE", "TRANSACTION_SUCCESS", 1001)
+                .andExpect(status().isAccepted());
+
+        webhookService.flush();
+
+        assertEquals(
+                "SUCCESS",
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus()
+        );
+    }
+
+    @Test
+    void shouldNotOverwriteFinishedPayment() throws Exception {
+
+        Payment payment = pendingPayment("1002");
+
+        send("FAKE", "TRANSACTION_FAILED", 1002)
+                .andExpect(status().isAccepted());
+        webhookService.flush();
+
+        send("FAKE", "TRANSACTION_SUCCESS", 1002)
+                .andExpect(status().isAccepted());
+        webhookService.flush();
+
+        assertEquals(
+                "FAILED",
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus()
+        );
+    }
+
+    @Test
+    void shouldApplyRetryOfWebhookThatMatchedNoPayment() throws Exception {
+
+        // callback пришёл раньше, чем у платежа записан external_transaction_id
+        Payment payment = pendingPayment(null);
+
+        send("FAKE", "TRANSACTION_SUCCESS", 1004)
+                .andExpect(status().isAccepted());
+        webhookService.flush();
+
+        payment.setExternalTransactionId("1004");
+        paymentRepository.save(payment);
+
+        send("FAKE", "TRANSACTION_SUCCESS", 1004)
+                .andExpect(status().isAccepted());
+        webhookService.flush();
+
+        assertEquals(
+                "SUCCESS",
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus()
+        );
+    }
+
+    @Test
+    void shouldRejectUnknownProviderAndEvent() throws Exception {
+
+        send("UNKNOWN", "TRANSACTION_SUCCESS", 1003)
+                .andExpect(status().isBadRequest());
+
+        send("FAKE", "TRANSACTION_REFUNDED", 1003)
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void shouldRejectCallbackWithWrongToken() throws Exception {
+
+        Payment payment = pendingPayment("1005");
+
+        send("FAKE", "wrong-token", "TRANSACTION_SUCCESS", 1005)
+                .andExpect(status().isUnauthorized());
+        webhookService.flush();
+
+        assertEquals(
+                "PENDING",
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus()
+        );
+
+        // отклонённый callback не считается принятым: с верным токеном он применяется
+        send("FAKE", "TRANSACTION_SUCCESS", 1005)
+                .andExpect(status().isAccepted());
+        webhookService.flush();
+
+        assertEquals(
+                "SUCCESS",
+                paymentRepository.findById(payment.getId()).orElseThrow().getStatus()
+        );
+    }
+
+    private Payment pendingPayment(String externalTransactionId) {
+
+        LocalDateTime now = LocalDateTime.now();
+
+        return paymentRepository.save(
+                Payment.builder()
+                        .paymentMethod(method)
+                        .internalTransactionId(UUID.randomUUID().toString())
+                        .externalTransactionId(externalTransactionId)
+                        .amount(BigDecimal.TEN)
+                        .currency("EUR")
+                        .status("PENDING")
+                        .createdAt(now)
+                        .modifiedAt(now)
+                        .build()
+        );
+    }
+
+    private ResultActions send(
+            String provider,
+            String eventType,
+            long entityId
+    ) throws Exception {
+
+        return send(provider, TOKEN, eventType, entityId);
+    }
+
+    private ResultActions send(
+            String provider,
+            String token,
+            String eventType,
+            long entityId
+    ) throws Exception {
+
+        return mockMvc.perform(
+                post("/api/v1/webhooks/" + provider + "/" + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("""
+                                {"eventType":"%s","entityId":%d,"payload":{"status":"%s"}}
+                                """.formatted(eventType, entityId, eventType))
+        );
+    }
+}
@@ -5,6 +5,7 @@ plugins {
     id("org.openapi.generator") version "7.5.0"
     id("org.flywaydb.flyway") version "11.3.4"
     id("maven-publish")
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 
@@ -232,6 +233,7 @@ dependencies {
     implementation("com.zaxxer:HikariCP:5.0.1")
     implementation("org.flywaydb:flyway-core:10.20.1")
     implementation("org.flywaydb:flyway-database-postgresql:10.20.1")
+    implementation("com.github.ben-manes.caffeine:caffeine")
     compileOnly("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok")
     annotationProcessor("org.projectlombok:lombok-mapstruct-binding:0.2.0")
@@ -250,6 +252,26 @@ dependencies {
     testRuntimeOnly("org.junit.platform:junit-platform-launcher")
 }
 
+/* ============================
+   JMH
+   ============================ */
+
+/**
+ * src/jmh/java — микробенчмарки горячих путей.
+ * ./gradlew jmh -> build/reports/jmh/results-<version>.json,
+ * файлы разных релизов можно сравнивать между собой.
+ */
+jmh {
+    jmhVersion = "1.37"
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("reports/jmh/results-${project.version}.json")
+}
+
 tasks.withType<Test> {
     useJUnitPlatform()
+    // бенчмарки в src/test запускаются только с -Dbenchmark=true
+    systemProperty("benchmark", providers.systemProperty("benchmark").getOrElse("false"))
 }
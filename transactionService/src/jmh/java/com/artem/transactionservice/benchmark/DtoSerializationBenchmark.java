@@ -0,0 +1,65 @@
+package com.artem.transactionservice.benchmark;
+
+import com.artem.transaction.model.TopUpConfirmRequest;
+import com.artem.transaction.model.WithdrawalInitResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Jackson (де)сериализация сгенерированных DTO com.artem.transaction.model.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DtoSerializationBenchmark {
+
+    private ObjectMapper objectMapper;
+    private TopUpConfirmRequest confirmRequest;
+    private String confirmRequestJson;
+    private WithdrawalInitResponse initResponse;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+
+        confirmRequest = new TopUpConfirmRequest();
+        confirmRequest.setUserUid(UUID.randomUUID());
+        confirmRequest.setWalletUid(UUID.randomUUID());
+        confirmRequest.setAmount(new BigDecimal("1234.56"));
+        confirmRequest.setComment("benchmark");
+        confirmRequestJson = objectMapper.writeValueAsString(confirmRequest);
+
+        initResponse = new WithdrawalInitResponse();
+        initResponse.setAvailable(true);
+        initResponse.setFee(BigDecimal.ZERO);
+        initResponse.setTotalAmount(new BigDecimal("1234.56"));
+        initResponse.setCurrency("RUB");
+        initResponse.setMessage("Withdrawal is available");
+    }
+
+    @Benchmark
+    public TopUpConfirmRequest deserializeConfirmRequest() throws JsonProcessingException {
+        return objectMapper.readValue(confirmRequestJson, TopUpConfirmRequest.class);
+    }
+
+    @Benchmark
+    public String serializeConfirmRequest() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(confirmRequest);
+    }
+
+    @Benchmark
+    public String serializeInitResponse() throws JsonProcessingException {
+        return objectMapper.writeValueAsString(initResponse);
+    }
+}
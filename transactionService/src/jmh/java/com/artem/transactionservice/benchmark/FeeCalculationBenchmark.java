@@ -0,0 +1,128 @@
+package com.artem.transactionservice.benchmark;
+
+import com.artem.transactionservice.fee.FeeSchedule;
+import com.artem.transactionservice.money.Money;
+import com.artem.transactionservice.repository.projection.FeeRuleRow;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Арифметика fee/total из init-методов TopUpServiceImpl и WithdrawalServiceImpl:
+ * BigDecimal против Money (long в минимальных единицах).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class FeeCalculationBenchmark {
+
+    private BigDecimal amount;
+    private BigDecimal balance;
+    private Money amountMoney;
+    private Money balanceMoney;
+    private FeeSchedule schedule;
+    private UUID walletTypeUid;
+
+    @Setup
+    public void setUp() {
+        amount = new BigDecimal("1234.56");
+        balance = new BigDecimal("100000.00");
+        amountMoney = Money.of(amount, "RUB");
+        balanceMoney = Money.of(balance, "RUB");
+
+        // 2 операции × 20 типов кошельков × 8 ступеней, плюс общие шкалы
+        List<FeeRuleRow> rules = new ArrayList<>();
+        long id = 0;
+        for (String operation : List.of("WITHDRAWAL", "TRANSFER")) {
+            for (int type = 0; type <= 20; type++) {
+                UUID typeUid = type == 0 ? null : new UUID(0, type);
+                for (int tier = 0; tier < 8; tier++) {
+                    rules.add(new FeeRuleRow(++id, operation, "RUB", typeUid, BigDecimal.valueOf(tier * 500L),
+                            150 - tier * 10, BigDecimal.ONE, BigDecimal.TEN, new BigDecimal("1000.00")));
+                }
+            }
+        }
+        schedule = FeeSchedule.build(rules);
+        walletTypeUid = new UUID(0, 7);
+    }
+
+    /**
+     * Как сейчас в init: fee = amount * 0.00, total = amount + fee, сравнение с балансом.
+     */
+    @Benchmark
+    public void currentInitPath(Blackhole bh) {
+        BigDecimal fee = amount.multiply(BigDecimal.valueOf(0.00));
+        BigDecimal total = amount.add(fee);
+        bh.consume(fee);
+        bh.consume(balance.compareTo(total) < 0);
+    }
+
+    /**
+     * Процентная комиссия с округлением до копеек.
+     */
+    @Benchmark
+    public void percentFeeWithScale(Blackhole bh) {
+        BigDecimal fee = amount.multiply(new BigDecimal("0.015")).setScale(2, RoundingMode.HALF_UP);
+        BigDecimal total = amount.add(fee);
+        bh.consume(fee);
+        bh.consume(balance.compareTo(total) < 0);
+    }
+
+    /**
+     * То же, что currentInitPath, целиком в минимальных единицах.
+     */
+    @Benchmark
+    public void moneyInitPath(Blackhole bh) {
+        Money fee = Money.zero(amountMoney.currency());
+        Money total = amountMoney.plus(fee);
+        bh.consume(fee);
+        bh.consume(balanceMoney.compareTo(total) < 0);
+    }
+
+    /**
+     * То же, что percentFeeWithScale: 150 б.п. = 1.5%, HALF_UP.
+     */
+    @Benchmark
+    public void moneyPercentFee(Blackhole bh) {
+        Money fee = amountMoney.percentOf(150);
+        Money total = amountMoney.plus(fee);
+        bh.consume(fee);
+        bh.consume(balanceMoney.compareTo(total) < 0);
+    }
+
+    /**
+     * Путь init после перехода на Money: разбор BigDecimal из запроса, расчёт и обратно в BigDecimal для ответа.
+     */
+    @Benchmark
+    public void moneyInitPathWithBoundary(Blackhole bh) {
+        Money money = Money.of(amount, "RUB");
+        Money fee = money.percentOf(150);
+        Money total = money.plus(fee);
+        bh.consume(fee.toBigDecimal());
+        bh.consume(total.toBigDecimal());
+        bh.consume(balance.compareTo(total.toBigDecimal()) < 0);
+    }
+
+    /**
+     * Ступенчатая комиссия из FeeSchedule: поиск шкалы, бинарный поиск ступени, min/max.
+     */
+    @Benchmark
+    public void tieredFeeFromSchedule(Blackhole bh) {
+        Money fee = schedule.feeFor("WITHDRAWAL", walletTypeUid, amountMoney);
+        Money total = amountMoney.plus(fee);
+        bh.consume(fee);
+        bh.consume(balanceMoney.compareTo(total) < 0);
+    }
+}
@@ -0,0 +1,80 @@
+package com.artem.transactionservice.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость маппинга суммы на строку: transactions.amount (DECIMAL) против суммы в минимальных единицах (BIGINT).
+ * <p>
+ * Моделирует то, что делают драйвер и Hibernate на каждую строку: NUMERIC приходит текстом
+ * и разбирается в BigDecimal, BIGINT — 8 байт в бинарном протоколе. Запрос и сеть сюда не входят,
+ * только разница в декодировании и связывании параметра.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MoneyColumnMappingBenchmark {
+
+    private static final int ROWS = 1_024;
+
+    private String[] numericText;
+    private byte[][] bigintBinary;
+    private BigDecimal[] amounts;
+    private long[] minors;
+
+    @Setup
+    public void setUp() {
+        numericText = new String[ROWS];
+        bigintBinary = new byte[ROWS][];
+        amounts = new BigDecimal[ROWS];
+        minors = new long[ROWS];
+        for (int i = 0; i < ROWS; i++) {
+            long minor = ThreadLocalRandom.current().nextLong(1, 100_000_000);
+            minors[i] = minor;
+            amounts[i] = BigDecimal.valueOf(minor, 2);
+            numericText[i] = amounts[i].toPlainString();
+            bigintBinary[i] = ByteBuffer.allocate(Long.BYTES).putLong(minor).array();
+        }
+    }
+
+    @Benchmark
+    public void readDecimal(Blackhole bh) {
+        for (String value : numericText) {
+            bh.consume(new BigDecimal(value));
+        }
+    }
+
+    @Benchmark
+    public void readBigint(Blackhole bh) {
+        for (byte[] value : bigintBinary) {
+            bh.consume(ByteBuffer.wrap(value).getLong());
+        }
+    }
+
+    @Benchmark
+    public void bindDecimal(Blackhole bh) {
+        for (BigDecimal amount : amounts) {
+            bh.consume(amount.toPlainString());
+        }
+    }
+
+    @Benchmark
+    public void bindBigint(Blackhole bh) {
+        ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+        for (long minor : minors) {
+            buffer.clear();
+            bh.consume(buffer.putLong(minor).getLong(0));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.artem.transactionservice.benchmark;
+
+import com.artem.transactionservice.HintAlgorithm;
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.UserShardingAlgorithm;
+import org.apache.shardingsphere.infra.datanode.DataNodeInfo;
+import org.apache.shardingsphere.sharding.algorithm.sharding.inline.InlineShardingAlgorithm;
+import org.apache.shardingsphere.sharding.api.sharding.hint.HintShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Стоимость выбора шарда на один SQL-запрос:
+ * HINT-алгоритм, старое INLINE-выражение user-sharding (Groovy)
+ * и CLASS_BASED {@link UserShardingAlgorithm}, которым оно заменено.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ShardingBenchmark {
+
+    private static final String USER_SHARDING_EXPRESSION = "ds_${Math.abs(user_uid.hashCode()) % 2}";
+
+    private final Collection<String> targets = List.of("ds_0", "ds_1");
+
+    private HintAlgorithm hintAlgorithm;
+    private HintShardingValue<Long> hintValue;
+
+    private InlineShardingAlgorithm inlineAlgorithm;
+    private PreciseShardingValue<Comparable<?>> inlineValue;
+
+    private UserShardingAlgorithm userShardingAlgorithm;
+
+    private ShardRouter shardRouter;
+    private UUID userUid;
+
+    @Setup
+    public void setUp() {
+        hintAlgorithm = new HintAlgorithm();
+        hintValue = new HintShardingValue<>("transactions", "user_uid", List.of(1L));
+
+        Properties props = new Properties();
+        props.setProperty("algorithm-expression", USER_SHARDING_EXPRESSION);
+        inlineAlgorithm = new InlineShardingAlgorithm();
+        inlineAlgorithm.init(props);
+
+        userUid = UUID.randomUUID();
+        inlineValue = new PreciseShardingValue<>("wallets", "user_uid", new DataNodeInfo("ds_", 1, '0'), userUid);
+
+        userShardingAlgorithm = new UserShardingAlgorithm();
+        userShardingAlgorithm.init(new Properties());
+
+        shardRouter = new ShardRouter(2, false);
+    }
+
+    @Benchmark
+    public Collection<String> hintAlgorithm() {
+        return hintAlgorithm.doSharding(targets, hintValue);
+    }
+
+    @Benchmark
+    public String inlineUserSharding() {
+        return inlineAlgorithm.doSharding(targets, inlineValue);
+    }
+
+    @Benchmark
+    public String classBasedUserSharding() {
+        return userShardingAlgorithm.doSharding(targets, inlineValue);
+    }
+
+    @Benchmark
+    public int javaUserSharding() {
+        return shardRouter.shardOf(userUid);
+    }
+}
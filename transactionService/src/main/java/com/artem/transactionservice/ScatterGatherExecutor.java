@@ -0,0 +1,156 @@
+package com.artem.transactionservice;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Параллельный запрос ко всем шардам для выборок, не привязанных к user_uid.
+ * <p>
+ * ShardingSphere выполняет такие запросы по шардам последовательно. Здесь каждый шард
+ * опрашивается в своём виртуальном потоке (маршрут задаётся хинтом на datasource),
+ * LIMIT применяется в каждом шарде, а отсортированные ответы сливаются k-way merge.
+ * <p>
+ * Запрос должен заканчиваться ORDER BY в том же порядке, что и comparator; LIMIT добавляется здесь.
+ */
+@Component
+public class ScatterGatherExecutor {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+    private final MeterRegistry meterRegistry;
+    private final long timeoutMs;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public ScatterGatherExecutor(JdbcTemplate jdbcTemplate,
+                                 ShardRouter shardRouter,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${transaction.scatter-gather.timeout-ms:5000}") long timeoutMs) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.shardRouter = shardRouter;
+        this.meterRegistry = meterRegistry;
+        this.timeoutMs = timeoutMs;
+    }
+
+    public <T> Result<T> query(String sql, RowMapper<T> rowMapper, Comparator<? super T> order, int limit, Object... args) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit must be greater than zero");
+        }
+
+        String limitedSql = sql + " LIMIT ?";
+        Object[] limitedArgs = Arrays.copyOf(args, args.length + 1);
+        limitedArgs[args.length] = limit;
+
+        int shardCount = shardRouter.getShardCount();
+        List<Future<ShardResult<T>>> futures = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> queryShard(target, limitedSql, rowMapper, limitedArgs)));
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        List<List<T>> sorted = new ArrayList<>(shardCount);
+        Map<Integer, Long> latencyMs = new TreeMap<>();
+
+        for (Future<ShardResult<T>> future : futures) {
+            ShardResult<T> result = await(future, deadline, futures);
+            sorted.add(result.rows());
+            latencyMs.put(result.shard(), result.latencyMs());
+        }
+
+        return new Result<>(merge(sorted, order, limit), latencyMs);
+    }
+
+    /**
+     * k-way merge уже отсортированных списков: O(n log k), берётся не больше limit строк.
+     */
+    public static <T> List<T> merge(List<List<T>> sorted, Comparator<? super T> order, int limit) {
+        PriorityQueue<Cursor<T>> heads = new PriorityQueue<>((a, b) -> order.compare(a.current(), b.current()));
+        for (List<T> rows : sorted) {
+            if (!rows.isEmpty()) {
+                heads.add(new Cursor<>(rows, 0));
+            }
+        }
+
+        List<T> merged = new ArrayList<>(Math.min(limit, sorted.stream().mapToInt(List::size).sum()));
+        while (!heads.isEmpty() && merged.size() < limit) {
+            Cursor<T> head = heads.poll();
+            merged.add(head.current());
+            if (head.index() + 1 < head.rows().size()) {
+                heads.add(new Cursor<>(head.rows(), head.index() + 1));
+            }
+        }
+        return merged;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> ShardResult<T> queryShard(int shard, String sql, RowMapper<T> rowMapper, Object[] args) {
+        long start = System.nanoTime();
+        List<T> rows = shardRouter.onShard(shard, () -> jdbcTemplate.query(sql, rowMapper, args));
+        long elapsed = System.nanoTime() - start;
+
+        Timer.builder("scatter.gather.shard")
+                .description("Latency of one shard in a scatter-gather query")
+                .tag("shard", String.valueOf(shard))
+                .register(meterRegistry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+
+        return new ShardResult<>(shard, rows, TimeUnit.NANOSECONDS.toMillis(elapsed));
+    }
+
+    private static <T> ShardResult<T> await(Future<ShardResult<T>> future, long deadline,
+                                            List<Future<ShardResult<T>>> all) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            all.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shards", e);
+        } catch (TimeoutException e) {
+            all.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Scatter-gather query timed out", e);
+        } catch (ExecutionException e) {
+            all.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Scatter-gather query failed", e.getCause());
+        }
+    }
+
+    /**
+     * rows — слитый результат, shardLatencyMs — время ответа каждого шарда.
+     */
+    public record Result<T>(List<T> rows, Map<Integer, Long> shardLatencyMs) {
+    }
+
+    private record ShardResult<T>(int shard, List<T> rows, long latencyMs) {
+    }
+
+    private record Cursor<T>(List<T> rows, int index) {
+
+        T current() {
+            return rows.get(index);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.artem.transactionservice;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Виртуальные бакеты поверх хэша user_uid.
+ * <p>
+ * Пользователь навсегда привязан к бакету (hash % BUCKET_COUNT), а бакет — к шарду
+ * через каталог shard_buckets. Добавление шарда — это перенос части бакетов,
+ * а не перераскладка всех пользователей.
+ * <p>
+ * Пока каталог не загружен, бакет b живёт в шарде b % N. Это не прежняя раскладка
+ * Math.abs(user_uid.hashCode()) % N: бакет считается другим хэшем, поэтому базы, разложенные
+ * по старому выражению, работают в режиме legacy-hash (см. {@link UserShardingAlgorithm}).
+ * <p>
+ * Каталог хранится в статическом поле: экземпляры алгоритмов шардирования создаёт ShardingSphere, а не Spring.
+ */
+public final class ShardBuckets {
+
+    public static final int BUCKET_COUNT = 1024;
+
+    private static final LongAdder FROZEN_REJECTS = new LongAdder();
+
+    private static volatile Directory directory;
+
+    private ShardBuckets() {
+    }
+
+    public static int bucketOf(UUID userUid) {
+        return (int) Long.remainderUnsigned(
+                UserShardingAlgorithm.mix(userUid.getMostSignificantBits(), userUid.getLeastSignificantBits()),
+                BUCKET_COUNT
+        );
+    }
+
+    /**
+     * Шард пользователя по текущему каталогу. Бакет в финальной фазе переноса
+     * временно недоступен: запрос падает и должен быть повторён клиентом.
+     */
+    public static int route(UUID userUid, int defaultShardCount) {
+        return routeBucket(bucketOf(userUid), defaultShardCount);
+    }
+
+    public static int routeBucket(int bucket, int defaultShardCount) {
+        Directory current = directory;
+
+        if (current == null) {
+            return bucket % defaultShardCount;
+        }
+
+        if (current.frozen()[bucket]) {
+            FROZEN_REJECTS.increment();
+            throw new IllegalStateException("Bucket " + bucket + " is being moved to another shard, retry later");
+        }
+
+        return current.shards()[bucket];
+    }
+
+    public static void publish(int[] shards, boolean[] frozen) {
+        if (shards.length != BUCKET_COUNT || frozen.length != BUCKET_COUNT) {
+            throw new IllegalArgumentException("Bucket directory must contain exactly " + BUCKET_COUNT + " buckets");
+        }
+
+        int maxShard = 0;
+        for (int shard : shards) {
+            if (shard < 0) {
+                throw new IllegalArgumentException("Negative shard in bucket directory: " + shard);
+            }
+            maxShard = Math.max(maxShard, shard);
+        }
+
+        directory = new Directory(shards.clone(), frozen.clone(), maxShard + 1);
+    }
+
+    public static void reset() {
+        directory = null;
+    }
+
+    /**
+     * Число шардов, на которые ссылается каталог (0, если каталог не загружен).
+     */
+    public static int shardCount() {
+        Directory current = directory;
+        return current == null ? 0 : current.shardCount();
+    }
+
+    public static long frozenRejects() {
+        return FROZEN_REJECTS.sum();
+    }
+
+    private record Directory(int[] shards, boolean[] frozen, int shardCount) {
+    }
+}
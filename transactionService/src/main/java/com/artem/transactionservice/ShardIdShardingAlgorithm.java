@@ -0,0 +1,48 @@
+package com.artem.transactionservice;
+
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.StandardShardingAlgorithm;
+
+import java.util.Collection;
+import java.util.Properties;
+
+/**
+ * Маршрутизация по явному номеру шарда (колонка shard_id, см. outbox_events).
+ */
+public class ShardIdShardingAlgorithm implements StandardShardingAlgorithm<Comparable<?>> {
+
+    private String[] targetNames;
+
+    @Override
+    public void init(Properties props) {
+        int shardingCount = Integer.parseInt(props.getProperty(UserShardingAlgorithm.SHARDING_COUNT, "2"));
+        String prefix = props.getProperty(UserShardingAlgorithm.TARGET_PREFIX, "ds_");
+
+        targetNames = new String[Math.max(shardingCount, UserShardingAlgorithm.MAX_SHARDS)];
+        for (int i = 0; i < targetNames.length; i++) {
+            targetNames[i] = prefix + i;
+        }
+    }
+
+    @Override
+    public String doSharding(Collection<String> availableTargetNames, PreciseShardingValue<Comparable<?>> shardingValue) {
+        int shardId = ((Number) shardingValue.getValue()).intValue();
+
+        if (shardId < 0 || shardId >= targetNames.length || !availableTargetNames.contains(targetNames[shardId])) {
+            throw new IllegalArgumentException("Shard " + shardId + " is not available.");
+        }
+
+        return targetNames[shardId];
+    }
+
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames, RangeShardingValue<Comparable<?>> shardingValue) {
+        return availableTargetNames;
+    }
+
+    @Override
+    public String getType() {
+        return "SHARD_ID";
+    }
+}
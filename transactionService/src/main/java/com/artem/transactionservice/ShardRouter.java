@@ -0,0 +1,113 @@
+package com.artem.transactionservice;
+
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.OptionalInt;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Вычисляет индекс шарда по user_uid так же, как {@link UserShardingAlgorithm}
+ * из sharding.yaml: sharding-count и legacy-hash берутся из props самого алгоритма.
+ * Используется там, где запросы нужно заранее сгруппировать по шардам.
+ * После переноса бакетов на новые шарды их число берётся из каталога {@link ShardBuckets}.
+ */
+@Component
+public class ShardRouter {
+
+    public static final String DATA_SOURCE_PREFIX = "ds_";
+
+    private final int shardCount;
+    private final boolean legacyHash;
+
+    /**
+     * ShardingSphere читает sharding.yaml и создаёт алгоритмы при первом подключении —
+     * открываем его заранее, чтобы не снять настройки по умолчанию вместо настроенных.
+     */
+    @Autowired
+    public ShardRouter(DataSource dataSource) {
+        this(initializedLayout(dataSource));
+    }
+
+    private ShardRouter(UserShardingAlgorithm.Layout layout) {
+        this(layout.shardingCount(), layout.legacyHash());
+    }
+
+    public ShardRouter(int shardCount, boolean legacyHash) {
+        if (shardCount <= 0) {
+            throw new IllegalArgumentException("shard-count must be greater than zero");
+        }
+        this.shardCount = shardCount;
+        this.legacyHash = legacyHash;
+    }
+
+    public int shardOf(UUID userUid) {
+        return UserShardingAlgorithm.shardIndex(userUid, shardCount, legacyHash);
+    }
+
+    /**
+     * uid нового кошелька, из которого {@link #shardOfWallet} восстановит шард владельца в текущем режиме.
+     */
+    public UUID newWalletUid(UUID userUid) {
+        if (legacyHash) {
+            return WalletUids.newLegacyWalletUid(shardOf(userUid));
+        }
+        return WalletUids.newWalletUid(userUid);
+    }
+
+    /**
+     * Шард кошелька по бакету или legacy-шарду, зашитому в uid (см. {@link WalletUids}).
+     * Пусто для старых uid и для uid, созданных в другом режиме.
+     */
+    public OptionalInt shardOfWallet(UUID walletUid) {
+        if (legacyHash) {
+            int shard = WalletUids.legacyShardOf(walletUid);
+            return shard >= 0 && shard < shardCount ? OptionalInt.of(shard) : OptionalInt.empty();
+        }
+
+        int bucket = WalletUids.bucketOf(walletUid);
+        if (bucket < 0) {
+            return OptionalInt.empty();
+        }
+        return OptionalInt.of(ShardBuckets.routeBucket(bucket, shardCount));
+    }
+
+    /**
+     * Выполняет запросы текущего потока только в указанном шарде, минуя алгоритм шардирования.
+     * Не вызывать в транзакции с несброшенными изменениями: auto-flush Hibernate тоже уйдёт в этот шард.
+     */
+    public <T> T onShard(int shard, Supplier<T> action) {
+        try (HintManager hintManager = HintManager.getInstance()) {
+            hintManager.setDataSourceName(DATA_SOURCE_PREFIX + shard);
+            return action.get();
+        }
+    }
+
+    public boolean isLegacyHash() {
+        return legacyHash;
+    }
+
+    /**
+     * Раскладка по умолчанию (sharding-count), без учёта каталога бакетов.
+     */
+    public int getDefaultShardCount() {
+        return shardCount;
+    }
+
+    public int getShardCount() {
+        return Math.max(shardCount, ShardBuckets.shardCount());
+    }
+
+    private static UserShardingAlgorithm.Layout initializedLayout(DataSource dataSource) {
+        try (Connection ignored = dataSource.getConnection()) {
+            return UserShardingAlgorithm.layout();
+        } catch (SQLException e) {
+            throw new IllegalStateException("Failed to initialize sharding data source", e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.artem.transactionservice;
+
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * UUID версии 7 (RFC 9562): 48 бит unix-времени в миллисекундах, затем 12-битный счётчик
+ * (rand_a, метод 3 RFC) и 62 случайных бита.
+ * <p>
+ * Новые ключи растут по времени, поэтому вставка идёт в правый край B-дерева первичного ключа,
+ * а не в случайную страницу, как у v4. Порядок строгий в пределах JVM: время и счётчик лежат
+ * в одном AtomicLong и сдвигаются CAS без блокировок; больше 4096 uid за миллисекунду
+ * переносятся в следующую миллисекунду, часы, ушедшие назад, не ломают монотонность.
+ */
+public final class TimeOrderedUuids {
+
+    static final int COUNTER_BITS = 12;
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+    private static final long VARIANT_BITS = 0x8000000000000000L;
+    private static final long RANDOM_MASK = 0x3FFFFFFFFFFFFFFFL;
+
+    /**
+     * (unix ms << 12) | счётчик последнего выданного uid.
+     */
+    private static final AtomicLong LAST_TICK = new AtomicLong();
+
+    private TimeOrderedUuids() {
+    }
+
+    public static UUID next() {
+        return new UUID(mostSignificantBits(7), randomLeastSignificantBits());
+    }
+
+    /**
+     * Старшие 64 бита с временем и счётчиком — общий префикс для v7 и для uid кошельков ({@link WalletUids}).
+     */
+    static long mostSignificantBits(int version) {
+        long tick = nextTick();
+        return ((tick >>> COUNTER_BITS) << 16) | ((long) version << 12) | (tick & COUNTER_MASK);
+    }
+
+    static long randomLeastSignificantBits() {
+        return (ThreadLocalRandom.current().nextLong() & RANDOM_MASK) | VARIANT_BITS;
+    }
+
+    /**
+     * Время создания, зашитое в uid версии 7 или 8 этого формата.
+     */
+    public static long timestampMillis(UUID uid) {
+        return uid.getMostSignificantBits() >>> 16;
+    }
+
+    private static long nextTick() {
+        long now = System.currentTimeMillis() << COUNTER_BITS;
+        while (true) {
+            long last = LAST_TICK.get();
+            long next = Math.max(now, last + 1);
+            if (LAST_TICK.compareAndSet(last, next)) {
+                return next;
+            }
+        }
+    }
+}
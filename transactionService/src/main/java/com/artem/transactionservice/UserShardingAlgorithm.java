@@ -0,0 +1,130 @@
+package com.artem.transactionservice;
+
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.RangeShardingValue;
+import org.apache.shardingsphere.sharding.api.sharding.standard.StandardShardingAlgorithm;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.UUID;
+
+/**
+ * Шардирование по user_uid без Groovy.
+ * <p>
+ * Хэш считается по двум long из UUID (финализатор MurmurHash3), без аллокаций:
+ * имена шардов ds_0..ds_{N-1} вычисляются один раз в init.
+ * IN-списки ShardingSphere маршрутизирует поштучно через точный doSharding и
+ * объединяет шарды, поэтому каждое значение попадает только в свой шард.
+ * <p>
+ * Шард определяется через виртуальный бакет ({@link ShardBuckets}): sharding-count задаёт
+ * только раскладку по умолчанию, пока каталог shard_buckets не загружен. Шарды сверх
+ * sharding-count (до MAX_SHARDS) появляются после переноса в них бакетов.
+ * <p>
+ * legacy-hash=true (по умолчанию) повторяет старое INLINE-выражение Math.abs(user_uid.hashCode()) % N —
+ * по нему разложены данные всех существующих баз. Бакетный хэш включается только на пустых
+ * шардах или после переноса данных; перенос бакетов в legacy-режиме недоступен.
+ * <p>
+ * Props из sharding.yaml — единственный источник настроек: init публикует их в {@link #layout()},
+ * откуда их берёт {@link ShardRouter}.
+ */
+public class UserShardingAlgorithm implements StandardShardingAlgorithm<Comparable<?>> {
+
+    public static final String SHARDING_COUNT = "sharding-count";
+    public static final String TARGET_PREFIX = "target-prefix";
+    public static final String LEGACY_HASH = "legacy-hash";
+    public static final int MAX_SHARDS = 64;
+
+    private static final Layout DEFAULT_LAYOUT = new Layout(2, true);
+
+    private static volatile Layout layout = DEFAULT_LAYOUT;
+
+    private int shardingCount;
+    private boolean legacyHash;
+    private String[] targetNames;
+
+    @Override
+    public void init(Properties props) {
+        shardingCount = Integer.parseInt(props.getProperty(SHARDING_COUNT, String.valueOf(DEFAULT_LAYOUT.shardingCount())));
+        if (shardingCount <= 0) {
+            throw new IllegalArgumentException("sharding-count must be greater than zero");
+        }
+
+        legacyHash = Boolean.parseBoolean(props.getProperty(LEGACY_HASH, String.valueOf(DEFAULT_LAYOUT.legacyHash())));
+        layout = new Layout(shardingCount, legacyHash);
+
+        String prefix = props.getProperty(TARGET_PREFIX, "ds_");
+        targetNames = new String[Math.max(shardingCount, MAX_SHARDS)];
+        for (int i = 0; i < targetNames.length; i++) {
+            targetNames[i] = prefix + i;
+        }
+    }
+
+    @Override
+    public String doSharding(Collection<String> availableTargetNames, PreciseShardingValue<Comparable<?>> shardingValue) {
+        String target = targetNames[shardIndex(toUuid(shardingValue.getValue()), shardingCount, legacyHash)];
+
+        if (!availableTargetNames.contains(target)) {
+            throw new IllegalArgumentException("Selected shard '" + target + "' is not available.");
+        }
+
+        return target;
+    }
+
+    /**
+     * Порядок UUID не связан с шардом, поэтому диапазон сужается только до одной точки.
+     */
+    @Override
+    public Collection<String> doSharding(Collection<String> availableTargetNames, RangeShardingValue<Comparable<?>> shardingValue) {
+        var range = shardingValue.getValueRange();
+
+        if (range.hasLowerBound() && range.hasUpperBound() && range.lowerEndpoint().equals(range.upperEndpoint())) {
+            String target = targetNames[shardIndex(toUuid(range.lowerEndpoint()), shardingCount, legacyHash)];
+            return availableTargetNames.contains(target) ? Collections.singletonList(target) : Collections.emptyList();
+        }
+
+        return availableTargetNames;
+    }
+
+    @Override
+    public String getType() {
+        return "USER_UUID";
+    }
+
+    /**
+     * Настройки последнего инициализированного алгоритма; до init ShardingSphere (и без него) — значения по умолчанию.
+     */
+    public static Layout layout() {
+        return layout;
+    }
+
+    public static int shardIndex(UUID userUid, int shardingCount, boolean legacyHash) {
+        if (legacyHash) {
+            return Math.abs(userUid.hashCode()) % shardingCount;
+        }
+        return ShardBuckets.route(userUid, shardingCount);
+    }
+
+    /**
+     * fmix64 из MurmurHash3 поверх обеих половин UUID.
+     */
+    static long mix(long msb, long lsb) {
+        long h = msb ^ Long.rotateLeft(lsb, 31) * 0x9e3779b97f4a7c15L;
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static UUID toUuid(Comparable<?> value) {
+        if (value instanceof UUID uuid) {
+            return uuid;
+        }
+        return UUID.fromString(value.toString());
+    }
+
+    public record Layout(int shardingCount, boolean legacyHash) {
+    }
+}
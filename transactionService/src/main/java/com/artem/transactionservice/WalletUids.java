@@ -0,0 +1,74 @@
+package com.artem.transactionservice;
+
+import java.util.UUID;
+
+/**
+ * uid кошелька, из которого виден шард владельца.
+ * <p>
+ * Формат — UUID версии 8 (RFC 9562, произвольная раскладка) поверх раскладки v7
+ * ({@link TimeOrderedUuids}): время и счётчик в старших битах, поэтому новые кошельки
+ * вставляются в конец индекса, а в младших 10 битах — виртуальный бакет user_uid.
+ * Бакет следует за пользователем при переносе между шардами, поэтому шард кошелька =
+ * шард бакета по текущему каталогу. Версия 8, а не 7, отличает такие uid от обычных v7
+ * транзакций: в них младшие биты случайные. У кошельков первых выпусков v8 старшие биты
+ * случайные, бакет лежит там же. У старых кошельков (UUID v4) бакета нет — их ищут широковещательно.
+ * <p>
+ * В режиме legacy-hash шард не выводится из бакета, поэтому в младших битах зашит сам шард,
+ * а бит 10 помечает такой uid. Переноса бакетов в этом режиме нет, и шард не меняется.
+ * У uid первых выпусков бит 10 случайный: такие кошельки могут указать не на тот шард,
+ * поэтому промах точечного поиска добирается широковещательным (см. WalletLocator).
+ */
+public final class WalletUids {
+
+    private static final int VERSION = 8;
+    private static final long BUCKET_MASK = ShardBuckets.BUCKET_COUNT - 1;
+    private static final long LEGACY_FLAG = ShardBuckets.BUCKET_COUNT;
+
+    private WalletUids() {
+    }
+
+    public static UUID newWalletUid(UUID userUid) {
+        return withPayload(ShardBuckets.bucketOf(userUid));
+    }
+
+    /**
+     * uid для режима legacy-hash: вместо бакета — шард владельца.
+     */
+    public static UUID newLegacyWalletUid(int shard) {
+        if (shard < 0 || shard > BUCKET_MASK) {
+            throw new IllegalArgumentException("Shard out of range: " + shard);
+        }
+        return withPayload(LEGACY_FLAG | shard);
+    }
+
+    /**
+     * Бакет владельца кошелька или -1, если uid создан до появления этого формата или в режиме legacy-hash.
+     */
+    public static int bucketOf(UUID walletUid) {
+        if (!isWalletUid(walletUid) || (walletUid.getLeastSignificantBits() & LEGACY_FLAG) != 0) {
+            return -1;
+        }
+        return (int) (walletUid.getLeastSignificantBits() & BUCKET_MASK);
+    }
+
+    /**
+     * Шард владельца из uid, созданного в режиме legacy-hash, иначе -1.
+     */
+    public static int legacyShardOf(UUID walletUid) {
+        if (!isWalletUid(walletUid) || (walletUid.getLeastSignificantBits() & LEGACY_FLAG) == 0) {
+            return -1;
+        }
+        return (int) (walletUid.getLeastSignificantBits() & BUCKET_MASK);
+    }
+
+    private static boolean isWalletUid(UUID uid) {
+        return uid.version() == VERSION && uid.variant() == 2;
+    }
+
+    private static UUID withPayload(long payload) {
+        long msb = TimeOrderedUuids.mostSignificantBits(VERSION);
+        long lsb = (TimeOrderedUuids.randomLeastSignificantBits() & ~(BUCKET_MASK | LEGACY_FLAG)) | payload;
+
+        return new UUID(msb, lsb);
+    }
+}
@@ -0,0 +1,95 @@
+package com.artem.transactionservice.cache;
+
+import com.artem.transactionservice.config.WalletCacheProperties;
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Read-through кэш активных кошельков.
+ * <p>
+ * Два уровня с разным TTL: снимок кошелька (статус, валюта, слоты) меняется редко,
+ * баланс — на каждом применённом батче, поэтому живёт доли секунды и нужен только init.
+ * Запись в кошелёк на этом инстансе сразу сбрасывает его из кэша; изменения с других
+ * инстансов становятся видны не позже TTL.
+ * <p>
+ * Метрики: cache.gets{result=hit|miss}, cache.evictions, cache.size с тегом cache=wallets|wallet-balances.
+ */
+@Component
+public class WalletCache {
+
+    private final Cache<UUID, WalletSnapshot> snapshots;
+    private final Cache<UUID, BigDecimal> balances;
+
+    public WalletCache(WalletCacheProperties properties, MeterRegistry meterRegistry) {
+        long maximumSize = properties.isEnabled() ? properties.getMaximumSize() : 0;
+
+        this.snapshots = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(Duration.ofMillis(properties.getTtlMs()))
+                .recordStats()
+                .build();
+
+        this.balances = Caffeine.newBuilder()
+                .maximumSize(properties.getBalanceTtlMs() > 0 ? maximumSize : 0)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, properties.getBalanceTtlMs())))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, snapshots, "wallets");
+        CaffeineCacheMetrics.monitor(meterRegistry, balances, "wallet-balances");
+    }
+
+    /**
+     * Исключение из loader (кошелёк не найден, неактивен) пробрасывается и не кэшируется.
+     */
+    public WalletSnapshot getSnapshot(UUID walletUid, Function<UUID, WalletSnapshot> loader) {
+        return snapshots.get(walletUid, uid -> loader.apply(uid).cached());
+    }
+
+    public void putSnapshot(WalletSnapshot snapshot) {
+        snapshots.put(snapshot.uid(), snapshot.cached());
+    }
+
+    public BigDecimal getBalance(UUID walletUid, Function<UUID, BigDecimal> loader) {
+        return balances.get(walletUid, loader);
+    }
+
+    public void invalidate(UUID walletUid) {
+        snapshots.invalidate(walletUid);
+        balances.invalidate(walletUid);
+    }
+
+    public void invalidateBalances(Collection<UUID> walletUids) {
+        balances.invalidateAll(walletUids);
+    }
+
+    /**
+     * Внутри транзакции сброс откладывается до коммита: иначе параллельный init
+     * успеет закэшировать ещё не изменённый баланс.
+     */
+    public void invalidateBalancesAfterCommit(Collection<UUID> walletUids) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidateBalances(walletUids);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                invalidateBalances(walletUids);
+            }
+        });
+    }
+}
@@ -0,0 +1,79 @@
+package com.artem.transactionservice.cache;
+
+import com.artem.transactionservice.ShardRouter;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Выравнивает wallet_types по шардам при старте.
+ * <p>
+ * До V14 таблица была !SINGLE: тип, созданный через сервис, лежал только в одном шарде.
+ * BROADCAST читает из любого шарда, поэтому без выравнивания тип то находится, то нет,
+ * а JOIN с кошельками в другом шарде теряет строки. Миграция этого не сделает — Flyway
+ * видит только свою базу. Вставка идемпотентна, так что шаг безопасно повторяется на каждом инстансе.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class WalletTypeBackfill {
+
+    private static final String COLUMNS =
+            "uid, created_at, modified_at, name, currency_code, status, archived_at, user_type, creator, modifier";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ShardRouter shardRouter;
+
+    @PostConstruct
+    public void backfill() {
+        int shards = shardRouter.getShardCount();
+
+        // 1️⃣ объединение по uid; хинт направляет запрос в конкретный шард в обход BROADCAST
+        List<Map<UUID, Object[]>> perShard = new ArrayList<>(shards);
+        Map<UUID, Object[]> union = new LinkedHashMap<>();
+        for (int shard = 0; shard < shards; shard++) {
+            Map<UUID, Object[]> rows = shardRouter.onShard(shard, this::findAll);
+            perShard.add(rows);
+            rows.forEach(union::putIfAbsent);
+        }
+
+        // 2️⃣ недостающие строки дописываются в каждый шард
+        for (int shard = 0; shard < shards; shard++) {
+            Map<UUID, Object[]> present = perShard.get(shard);
+            List<Object[]> missing = union.entrySet().stream()
+                    .filter(entry -> !present.containsKey(entry.getKey()))
+                    .map(Map.Entry::getValue)
+                    .toList();
+            if (missing.isEmpty()) {
+                continue;
+            }
+
+            // ON CONFLICT без цели: в шарде может оказаться другой uid с тем же именем — он остаётся
+            shardRouter.onShard(shard, () -> jdbcTemplate.batchUpdate(
+                    "INSERT INTO wallet_types (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                    missing));
+            log.warn("Wallet types backfilled, shard={}, types={}", shard, missing.size());
+        }
+    }
+
+    private Map<UUID, Object[]> findAll() {
+        Map<UUID, Object[]> rows = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT " + COLUMNS + " FROM wallet_types ORDER BY uid", rs -> {
+            Object[] row = new Object[10];
+            row[0] = UUID.fromString(rs.getString(1));
+            for (int i = 1; i < row.length; i++) {
+                row[i] = rs.getObject(i + 1);
+            }
+            rows.put((UUID) row[0], row);
+        });
+        return rows;
+    }
+}
@@ -0,0 +1,177 @@
+package com.artem.transactionservice.cache;
+
+import com.artem.transactionservice.dto.WalletTypeInfo;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.entity.WalletType;
+import com.artem.transactionservice.repository.WalletTypeRepository;
+import com.artem.transactionservice.repository.projection.ReferenceDataVersion;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Справочник типов кошельков в памяти: валюта кошелька и тип в ответах API берутся отсюда,
+ * без второго SELECT по wallet_types и без lazy-загрузки Wallet.walletType.
+ * <p>
+ * Загружается целиком при старте и перечитывается, только когда изменилась версия таблицы
+ * (count, max(modified_at)). Карта неизменяемая и подменяется целиком; тип, которого ещё нет
+ * в карте (создан только что), дочитывается по id и добавляется копированием карты.
+ * <p>
+ * Промах тоже запоминается — на negative-ttl-ms: запросы с несуществующим wallet_type_uid
+ * не превращаются в SELECT на каждый вызов. Загрузка справочника промахи сбрасывает.
+ * Пустые копии в шардах после V14 дописывает {@link WalletTypeBackfill} до первой загрузки.
+ */
+@Slf4j
+@Component
+@DependsOn("walletTypeBackfill")
+public class WalletTypeRegistry {
+
+    private static final long DEFAULT_NEGATIVE_TTL_MS = 5_000;
+    private static final int MAX_NEGATIVE_ENTRIES = 10_000;
+
+    private final WalletTypeRepository walletTypeRepository;
+    private final Counter missCounter;
+    private final Cache<UUID, Boolean> absent;
+
+    private volatile Map<UUID, WalletTypeInfo> types = Map.of();
+    private volatile ReferenceDataVersion loadedVersion;
+
+    public WalletTypeRegistry(WalletTypeRepository walletTypeRepository, MeterRegistry meterRegistry) {
+        this(walletTypeRepository, meterRegistry, DEFAULT_NEGATIVE_TTL_MS);
+    }
+
+    @Autowired
+    public WalletTypeRegistry(WalletTypeRepository walletTypeRepository,
+                              MeterRegistry meterRegistry,
+                              @Value("${transaction.wallet-types.negative-ttl-ms:5000}") long negativeTtlMs) {
+        this.walletTypeRepository = walletTypeRepository;
+        this.absent = Caffeine.newBuilder()
+                .maximumSize(MAX_NEGATIVE_ENTRIES)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, negativeTtlMs)))
+                .build();
+        this.missCounter = Counter.builder("wallet.types.misses")
+                .description("Wallet type lookups that had to read wallet_types")
+                .register(meterRegistry);
+        Gauge.builder("wallet.types.loaded", this, registry -> registry.types.size())
+                .description("Wallet types held in memory")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.wallet-types.refresh-interval-ms:30000}")
+    public void refresh() {
+        try {
+            ReferenceDataVersion version = walletTypeRepository.findVersion();
+            if (Objects.equals(version, loadedVersion)) {
+                return;
+            }
+
+            List<WalletType> rows = walletTypeRepository.findAll();
+            Map<UUID, WalletTypeInfo> loaded = new HashMap<>(rows.size() * 2);
+            rows.forEach(row -> loaded.put(row.getUid(), toInfo(row)));
+
+            synchronized (this) {
+                types = Map.copyOf(loaded);
+                loadedVersion = version;
+            }
+            absent.invalidateAll();
+            log.info("Wallet types loaded, types={}", loaded.size());
+        } catch (RuntimeException e) {
+            log.error("Wallet types refresh failed, keeping previous registry", e);
+        }
+    }
+
+    public Optional<WalletTypeInfo> find(UUID walletTypeUid) {
+        WalletTypeInfo info = types.get(walletTypeUid);
+        if (info != null) {
+            return Optional.of(info);
+        }
+
+        if (absent.getIfPresent(walletTypeUid) != null) {
+            return Optional.empty();
+        }
+
+        missCounter.increment();
+        Optional<WalletTypeInfo> found = walletTypeRepository.findById(walletTypeUid).map(this::remember);
+        if (found.isEmpty()) {
+            absent.put(walletTypeUid, Boolean.TRUE);
+        }
+        return found;
+    }
+
+    public WalletTypeInfo require(UUID walletTypeUid) {
+        return find(walletTypeUid)
+                .orElseThrow(() -> new IllegalArgumentException("Wallet type not found"));
+    }
+
+    /**
+     * Подставляет в кошелёк тип из справочника вместо lazy-прокси: сериализация ответа
+     * не пойдёт в БД. FK тот же, поэтому для managed-кошелька UPDATE не появится.
+     */
+    public Wallet resolve(Wallet wallet) {
+        WalletType walletType = wallet.getWalletType();
+        if (walletType != null) {
+            wallet.setWalletType(toEntity(require(walletType.getUid())));
+        }
+        return wallet;
+    }
+
+    public WalletType toEntity(WalletTypeInfo info) {
+        WalletType walletType = new WalletType();
+        walletType.setUid(info.uid());
+        walletType.setCreatedAt(info.createdAt());
+        walletType.setModifiedAt(info.modifiedAt());
+        walletType.setName(info.name());
+        walletType.setCurrencyCode(info.currencyCode());
+        walletType.setStatus(info.status());
+        walletType.setArchivedAt(info.archivedAt());
+        walletType.setUserType(info.userType());
+        walletType.setCreator(info.creator());
+        walletType.setModifier(info.modifier());
+        return walletType;
+    }
+
+    private synchronized WalletTypeInfo remember(WalletType row) {
+        WalletTypeInfo info = toInfo(row);
+        Map<UUID, WalletTypeInfo> next = new HashMap<>(types);
+        next.put(info.uid(), info);
+        types = Map.copyOf(next);
+        return info;
+    }
+
+    private static WalletTypeInfo toInfo(WalletType row) {
+        return new WalletTypeInfo(
+                row.getUid(),
+                row.getCreatedAt(),
+                row.getModifiedAt(),
+                row.getName(),
+                row.getCurrencyCode(),
+                row.getStatus(),
+                row.getArchivedAt(),
+                row.getUserType(),
+                row.getCreator(),
+                row.getModifier()
+        );
+    }
+}
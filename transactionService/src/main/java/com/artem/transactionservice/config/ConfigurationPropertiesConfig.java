@@ -0,0 +1,19 @@
+package com.artem.transactionservice.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties({
+        IdempotencyProperties.class,
+        LedgerBatchProperties.class,
+        LedgerSnapshotProperties.class,
+        OutboxProperties.class,
+        PartitionProperties.class,
+        RebalanceProperties.class,
+        SplitBalanceProperties.class,
+        WalletBulkProperties.class,
+        WalletCacheProperties.class
+})
+public class ConfigurationPropertiesConfig {
+}
@@ -0,0 +1,31 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.idempotency")
+public class IdempotencyProperties {
+
+    /**
+     * Сколько хранится ключ: повтор позже этого срока создаст новую транзакцию.
+     */
+    private long ttlMs = 86_400_000;
+
+    /**
+     * Сколько недавних ответов держится в памяти. 0 — каждый повтор читает idempotency_keys.
+     */
+    private long recentMaximumSize = 100_000;
+
+    /**
+     * Сколько живёт ответ в памяти. Ответ после коммита не меняется, поэтому это только ограничение памяти.
+     */
+    private long recentTtlMs = 600_000;
+
+    /**
+     * Сколько истёкших ключей удаляется одним DELETE.
+     */
+    private int sweepBatchSize = 1000;
+}
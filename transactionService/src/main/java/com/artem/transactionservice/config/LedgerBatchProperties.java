@@ -0,0 +1,34 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.ledger.batch")
+public class LedgerBatchProperties {
+
+    /**
+     * Сколько записей забираем из Kafka за один poll.
+     */
+    private int maxPollRecords = 500;
+
+    /**
+     * Сколько брокер может ждать накопления данных перед ответом на fetch.
+     */
+    private int fetchMaxWaitMs = 50;
+
+    /**
+     * На сколько параллельных потоков по ключу (кошельку) делится одна пачка.
+     */
+    private int lanes = 8;
+
+    /**
+     * Число consumer-потоков по id листенера. Больше числа партиций топика ставить бессмысленно.
+     */
+    private Map<String, Integer> concurrency = new HashMap<>();
+}
@@ -0,0 +1,22 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.ledger.snapshot")
+public class LedgerSnapshotProperties {
+
+    /**
+     * Включает периодические снимки балансов по ledger_entries.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Снимок берёт только проводки старше этого, чтобы запросы «баланс на момент T» чаще находили готовый снимок.
+     * Незакоммиченные проводки за границу снимка не попадают независимо от lag: её держит горизонт xid.
+     */
+    private long lagMs = 60_000;
+}
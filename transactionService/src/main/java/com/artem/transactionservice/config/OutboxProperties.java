@@ -0,0 +1,26 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.outbox")
+public class OutboxProperties {
+
+    /**
+     * Включает relay, который переносит outbox_events в Kafka.
+     */
+    private boolean enabled = true;
+
+    /**
+     * Сколько событий захватывается из шарда за одну транзакцию relay.
+     */
+    private int batchSize = 1000;
+
+    /**
+     * Сколько ждём подтверждения брокера на весь батч.
+     */
+    private long sendTimeoutMs = 10000;
+}
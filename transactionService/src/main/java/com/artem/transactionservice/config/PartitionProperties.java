@@ -0,0 +1,31 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.partitions")
+public class PartitionProperties {
+
+    /**
+     * Включает обслуживание месячных секций transactions.
+     */
+    private boolean enabled = true;
+
+    /**
+     * На сколько месяцев вперёд создаются секции, чтобы вставки никогда не попадали в default.
+     */
+    private int monthsAhead = 3;
+
+    /**
+     * Сколько полных месяцев истории остаётся в transactions. 0 — секции не отсоединяются.
+     */
+    private int detachAfterMonths = 24;
+
+    /**
+     * Схема, куда переносятся отсоединённые секции (данные не удаляются).
+     */
+    private String archiveSchema = "archive";
+}
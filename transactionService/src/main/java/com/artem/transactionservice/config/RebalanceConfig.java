@@ -0,0 +1,16 @@
+package com.artem.transactionservice.config;
+
+import com.artem.transactionservice.rebalance.ShardDataSources;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(prefix = "transaction.rebalance", name = "enabled", havingValue = "true")
+public class RebalanceConfig {
+
+    @Bean(destroyMethod = "close")
+    public ShardDataSources shardDataSources(RebalanceProperties properties) {
+        return new ShardDataSources(properties.getShards(), 4);
+    }
+}
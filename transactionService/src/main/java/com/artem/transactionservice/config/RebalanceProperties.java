@@ -0,0 +1,61 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.rebalance")
+public class RebalanceProperties {
+
+    /**
+     * Включает каталог бакетов shard_buckets и мигратор.
+     */
+    private boolean enabled = false;
+
+    /**
+     * Сколько строк копируется/удаляется за один запрос мигратора.
+     */
+    private int chunkSize = 1000;
+
+    /**
+     * Пауза между порциями копирования: ограничивает нагрузку мигратора на живой трафик.
+     */
+    private long chunkPauseMs = 0;
+
+    /**
+     * Как часто инстансы перечитывают каталог бакетов.
+     */
+    private long directoryRefreshMs = 1000;
+
+    /**
+     * Запас при догонке изменений: транзакции, начатые раньше отметки, но закоммиченные позже, тоже попадут в выборку.
+     * Должен покрывать и расхождение часов приложения и БД (created_at проставляет приложение).
+     */
+    private long catchUpMarginMs = 30000;
+
+    /**
+     * Максимум проходов догонки до заморозки бакетов.
+     */
+    private int maxCatchUpPasses = 5;
+
+    /**
+     * Прямые подключения к физическим шардам, индекс в списке = номер шарда (ds_N).
+     */
+    private List<Shard> shards = new ArrayList<>();
+
+    @Getter
+    @Setter
+    public static class Shard {
+
+        private String url;
+
+        private String username;
+
+        private String password;
+    }
+}
@@ -0,0 +1,26 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.split-balance")
+public class SplitBalanceProperties {
+
+    /**
+     * Максимальное число слотов на один кошелёк.
+     */
+    private int maxSlots = 64;
+
+    /**
+     * Сколько живёт закэшированная сумма слотов (только для отображения и init).
+     */
+    private long aggregateTtlMs = 200;
+
+    /**
+     * Сколько сумм слотов держит кэш; при переполнении вытесняются редко читаемые кошельки.
+     */
+    private long aggregateMaximumSize = 10_000;
+}
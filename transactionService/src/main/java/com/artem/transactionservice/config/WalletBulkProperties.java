@@ -0,0 +1,28 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.wallet-bulk")
+public class WalletBulkProperties {
+
+    /**
+     * Строк NDJSON, которые читаются, раскладываются по шардам и вставляются за один проход.
+     * Результаты чанка пишутся в ответ сразу после его вставки.
+     */
+    private int chunkSize = 10_000;
+
+    /**
+     * Строк в одном executeBatch; с reWriteBatchedInserts драйвер склеивает их в многострочные INSERT.
+     */
+    private int batchSize = 1_000;
+
+    /**
+     * Таймаут транзакции вставки чанка в одном шарде (округляется вверх до секунд): по его истечении
+     * запрос отменяется, транзакция откатывается, а строки шарда возвращаются с error.
+     */
+    private long timeoutMs = 60_000;
+}
@@ -0,0 +1,37 @@
+package com.artem.transactionservice.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@Getter
+@Setter
+@ConfigurationProperties(prefix = "transaction.wallet-cache")
+public class WalletCacheProperties {
+
+    /**
+     * false — каждый запрос читает кошелёк из БД (кэш нулевого размера).
+     */
+    private boolean enabled = true;
+
+    /**
+     * Максимальное число кошельков в кэше, дальше вытеснение по частоте использования.
+     */
+    private long maximumSize = 100_000;
+
+    /**
+     * Сколько живёт снимок кошелька (статус, валюта, число слотов).
+     * Инвалидация локальная, поэтому это же верхняя граница устаревания между инстансами.
+     */
+    private long ttlMs = 30_000;
+
+    /**
+     * Сколько живёт закэшированный баланс для init. 0 — баланс всегда читается из БД.
+     */
+    private long balanceTtlMs = 500;
+
+    /**
+     * true — confirm всегда читает кошелёк и баланс из БД в своей транзакции.
+     */
+    private boolean strictConfirm = true;
+}
@@ -0,0 +1,48 @@
+package com.artem.transactionservice.controller;
+
+import com.artem.transactionservice.rebalance.BucketMigrator;
+import com.artem.transactionservice.repository.BucketDirectoryRepository;
+import com.artem.transactionservice.repository.projection.ShardBucketRow;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.Set;
+
+@Slf4j
+@RestController
+@RequestMapping("/api/v1/admin/rebalance")
+@RequiredArgsConstructor
+@ConditionalOnProperty(prefix = "transaction.rebalance", name = "enabled", havingValue = "true")
+public class RebalanceControllerV1 {
+
+    private final BucketMigrator bucketMigrator;
+    private final BucketDirectoryRepository directoryRepository;
+
+    @GetMapping("/buckets")
+    public List<ShardBucketRow> getBuckets() {
+        return directoryRepository.findAll();
+    }
+
+    /**
+     * Запускает фоновый перенос бакетов; ход переноса виден в логах и метриках rebalance.*.
+     */
+    @PostMapping("/buckets/migrate")
+    public ResponseEntity<Void> migrateBuckets(
+            @RequestParam int targetShard,
+            @RequestBody Set<Integer> buckets
+    ) {
+        bucketMigrator.submit(buckets, targetShard)
+                .whenComplete((reports, e) -> {
+                    if (e != null) {
+                        log.error("Bucket migration failed, buckets={}, targetShard={}", buckets, targetShard, e);
+                    } else {
+                        log.info("Bucket migration completed: {}", reports);
+                    }
+                });
+        return ResponseEntity.accepted().build();
+    }
+}
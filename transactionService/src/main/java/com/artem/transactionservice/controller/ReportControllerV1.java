@@ -0,0 +1,30 @@
+package com.artem.transactionservice.controller;
+
+import com.artem.transactionservice.ScatterGatherExecutor;
+import com.artem.transactionservice.repository.TransactionReportRepository;
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/v1/reports")
+@RequiredArgsConstructor
+public class ReportControllerV1 {
+
+    private static final int MAX_LIMIT = 1000;
+
+    private final TransactionReportRepository transactionReportRepository;
+
+    /**
+     * Самые старые незавершённые транзакции по всем шардам с временем ответа каждого шарда.
+     */
+    @GetMapping("/pending-transactions")
+    public ScatterGatherExecutor.Result<TransactionHistoryView> getPendingTransactions(
+            @RequestParam(defaultValue = "100") int limit
+    ) {
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+        return transactionReportRepository.findOldestPending(limit);
+    }
+}
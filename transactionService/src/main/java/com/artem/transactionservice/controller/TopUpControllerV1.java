@@ -4,8 +4,10 @@ import com.artem.transaction.model.TopUpConfirmRequest;
 import com.artem.transaction.model.TopUpConfirmResponse;
 import com.artem.transaction.model.TopUpInitRequest;
 import com.artem.transaction.model.TopUpInitResponse;
+import com.artem.transactionservice.service.IdempotencyService;
 import com.artem.transactionservice.service.TopUpService;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -17,14 +19,22 @@ import org.springframework.web.bind.annotation.RestController;
 public class TopUpControllerV1 {
 
     private final TopUpService topUpService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/init")
     public TopUpInitResponse init(@RequestBody TopUpInitRequest request) {
         return topUpService.init(request);
     }
 
+    /**
+     * Повтор с тем же Idempotency-Key возвращает ответ первого вызова, новая транзакция не создаётся.
+     */
     @PostMapping("/confirm")
-    public TopUpConfirmResponse confirm(@RequestBody TopUpConfirmRequest request) {
-        return topUpService.confirm(request);
+    public TopUpConfirmResponse confirm(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody TopUpConfirmRequest request
+    ) {
+        return idempotencyService.execute(idempotencyKey, request.getUserUid(), "topup.confirm", request,
+                TopUpConfirmResponse.class, () -> topUpService.confirm(request));
     }
 }
@@ -4,10 +4,12 @@ import com.artem.transaction.model.TransferConfirmRequest;
 import com.artem.transaction.model.TransferConfirmResponse;
 import com.artem.transaction.model.TransferInitRequest;
 import com.artem.transaction.model.TransferInitResponse;
+import com.artem.transactionservice.service.IdempotencyService;
 import com.artem.transactionservice.service.TransferService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -16,15 +18,23 @@ import org.springframework.web.bind.annotation.RestController;
 @RequiredArgsConstructor
 public class TransferControllerV1 {
     private final TransferService transferService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/init")
     public TransferInitResponse init(@RequestBody TransferInitRequest request) {
         return transferService.init(request);
     }
 
+    /**
+     * Повтор с тем же Idempotency-Key возвращает ответ первого вызова, новая транзакция не создаётся.
+     */
     @PostMapping("/confirm")
-    public TransferConfirmResponse confirm(@RequestBody TransferConfirmRequest request) {
-        return transferService.confirm(request);
+    public TransferConfirmResponse confirm(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
+            @RequestBody TransferConfirmRequest request
+    ) {
+        return idempotencyService.execute(idempotencyKey, request.getUserUid(), "transfer.confirm", request,
+                TransferConfirmResponse.class, () -> transferService.confirm(request));
     }
 
 
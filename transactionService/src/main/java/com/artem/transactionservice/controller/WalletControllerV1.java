@@ -2,12 +2,25 @@ package com.artem.transactionservice.controller;
 
 import com.artem.transaction.model.CreateWalletRequest;
 import com.artem.transaction.model.UpdateWalletRequest;
+import com.artem.transactionservice.dto.BalanceAsOf;
+import com.artem.transactionservice.dto.TransactionHistoryPage;
 import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.service.LedgerService;
+import com.artem.transactionservice.service.TransactionHistoryService;
+import com.artem.transactionservice.service.WalletBulkService;
 import com.artem.transactionservice.service.WalletService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -17,6 +30,9 @@ import java.util.UUID;
 public class WalletControllerV1 {
 
     private final WalletService walletService;
+    private final TransactionHistoryService transactionHistoryService;
+    private final LedgerService ledgerService;
+    private final WalletBulkService walletBulkService;
 
     @PostMapping
     @Transactional
@@ -25,6 +41,16 @@ public class WalletControllerV1 {
 
     }
 
+    /**
+     * Массовое создание кошельков: NDJSON на входе, NDJSON с результатом каждой строки на выходе.
+     * Тело читается и ответ пишется чанками, весь запрос в памяти не держится.
+     */
+    @PostMapping(value = "/bulk", consumes = "application/x-ndjson", produces = "application/x-ndjson")
+    public void createWallets(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        response.setContentType("application/x-ndjson");
+        walletBulkService.createWallets(request.getInputStream(), response.getOutputStream());
+    }
+
     @PatchMapping("/{walletUid}")
     public Wallet updateWallet(
             @PathVariable UUID walletUid,
@@ -33,6 +59,58 @@ public class WalletControllerV1 {
         return walletService.updateWallet(walletUid, updateWalletRequest);
     }
 
+    /**
+     * Включает split balance для "горячего" кошелька (например, кошелька мерчанта).
+     */
+    @PostMapping("/{walletUid}/split-balance")
+    public Wallet enableSplitBalance(
+            @PathVariable UUID walletUid,
+            @RequestParam UUID userUid,
+            @RequestParam int slots
+    ) {
+        return walletService.enableSplitBalance(walletUid, userUid, slots);
+    }
+
+    /**
+     * История транзакций кошелька, от новых к старым. userUid необязателен,
+     * но без него запрос уходит во все шарды.
+     */
+    @GetMapping("/{walletUid}/transactions")
+    public TransactionHistoryPage getTransactions(
+            @PathVariable UUID walletUid,
+            @RequestParam(required = false) UUID userUid,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return transactionHistoryService.getHistory(walletUid, userUid, cursor, limit);
+    }
+
+    /**
+     * Полная выгрузка истории в NDJSON: строки читаются курсором и сразу пишутся в ответ.
+     */
+    @GetMapping(value = "/{walletUid}/transactions/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportTransactions(
+            @PathVariable UUID walletUid,
+            @RequestParam(required = false) UUID userUid
+    ) {
+        StreamingResponseBody body = out -> transactionHistoryService.exportHistory(walletUid, userUid, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Проведённый баланс на момент asOf (по умолчанию — сейчас) по снимку и проводкам, без чтения wallets.
+     */
+    @GetMapping("/{walletUid}/balance")
+    public BalanceAsOf getBalanceAsOf(
+            @PathVariable UUID walletUid,
+            @RequestParam UUID userUid,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime asOf
+    ) {
+        return ledgerService.getBalanceAsOf(walletUid, userUid, asOf);
+    }
+
     @GetMapping("/{user_uid}")
     public List<Wallet> getWalletByUserUid(@PathVariable("user_uid") UUID user_uid) {
         return walletService.findAllWalletsByUserId(user_uid);
@@ -4,10 +4,12 @@ import com.artem.transaction.model.WithdrawalConfirmRequest;
 import com.artem.transaction.model.WithdrawalConfirmResponse;
 import com.artem.transaction.model.WithdrawalInitRequest;
 import com.artem.transaction.model.WithdrawalInitResponse;
+import com.artem.transactionservice.service.IdempotencyService;
 import com.artem.transactionservice.service.WithdrawalService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
@@ -17,6 +19,7 @@ import org.springframework.web.bind.annotation.RestController;
 public class WithdrawalControllerV1 {
 
     private final WithdrawalService withdrawalService;
+    private final IdempotencyService idempotencyService;
 
     @PostMapping("/init")
     public WithdrawalInitResponse init(
@@ -25,10 +28,15 @@ public class WithdrawalControllerV1 {
         return withdrawalService.init(request);
     }
 
+    /**
+     * Повтор с тем же Idempotency-Key возвращает ответ первого вызова, новая транзакция не создаётся.
+     */
     @PostMapping("/confirm")
     public WithdrawalConfirmResponse confirm(
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey,
             @RequestBody WithdrawalConfirmRequest request
     ) {
-        return withdrawalService.confirm(request);
+        return idempotencyService.execute(idempotencyKey, request.getUserUid(), "withdrawal.confirm", request,
+                WithdrawalConfirmResponse.class, () -> withdrawalService.confirm(request));
     }
 }
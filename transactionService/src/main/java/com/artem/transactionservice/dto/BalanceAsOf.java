@@ -0,0 +1,18 @@
+package com.artem.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Проведённый баланс на момент asOf: снимок с last_entry_id = snapshotEntryId плюс tailEntries проводок,
+ * не вошедших в него.
+ */
+public record BalanceAsOf(
+        UUID walletUid,
+        LocalDateTime asOf,
+        BigDecimal balance,
+        long snapshotEntryId,
+        long tailEntries
+) {
+}
@@ -0,0 +1,24 @@
+package com.artem.transactionservice.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.UUID;
+
+/**
+ * Строка ответа bulk-загрузки: номер строки запроса (с 1) и uid кошелька либо ошибка.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BulkWalletResult(
+        int line,
+        UUID walletUid,
+        String error
+) {
+
+    public static BulkWalletResult created(int line, UUID walletUid) {
+        return new BulkWalletResult(line, walletUid, null);
+    }
+
+    public static BulkWalletResult failed(int line, String error) {
+        return new BulkWalletResult(line, null, error);
+    }
+}
@@ -0,0 +1,16 @@
+package com.artem.transactionservice.dto;
+
+import java.util.UUID;
+
+/**
+ * Кошелёк из bulk-загрузки, уже с uid и шардом владельца.
+ */
+public record BulkWalletRow(
+        int line,
+        int shard,
+        UUID uid,
+        UUID userUid,
+        UUID walletTypeUid,
+        String name
+) {
+}
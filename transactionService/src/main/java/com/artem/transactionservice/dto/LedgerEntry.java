@@ -0,0 +1,29 @@
+package com.artem.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Проводка по кошельку: delta > 0 — CREDIT, delta < 0 — DEBIT.
+ * Комиссия проводится отдельной проводкой с fee = true.
+ * <p>
+ * Журнал не двойной записи: проводится только сторона кошелька. У перевода это две проводки (источник и получатель),
+ * а у пополнения, вывода и комиссии встречной стороны (провайдер, выплата, доход) в журнале нет,
+ * поэтому сумма проводок транзакции не обязана быть нулевой.
+ */
+public record LedgerEntry(
+        UUID transactionUid,
+        UUID userUid,
+        UUID walletUid,
+        BigDecimal delta,
+        boolean fee
+) {
+
+    public LedgerEntry(UUID transactionUid, UUID userUid, UUID walletUid, BigDecimal delta) {
+        this(transactionUid, userUid, walletUid, delta, false);
+    }
+
+    public static LedgerEntry fee(UUID transactionUid, UUID userUid, UUID walletUid, BigDecimal delta) {
+        return new LedgerEntry(transactionUid, userUid, walletUid, delta, true);
+    }
+}
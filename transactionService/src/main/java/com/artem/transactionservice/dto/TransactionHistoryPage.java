@@ -0,0 +1,14 @@
+package com.artem.transactionservice.dto;
+
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+
+import java.util.List;
+
+/**
+ * Страница истории. nextCursor == null — дальше записей нет.
+ */
+public record TransactionHistoryPage(
+        List<TransactionHistoryView> items,
+        String nextCursor
+) {
+}
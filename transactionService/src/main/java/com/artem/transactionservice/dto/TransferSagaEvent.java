@@ -0,0 +1,33 @@
+package com.artem.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Событие межшардового перевода: transfer.credit (шаг зачисления) и transfer.settle (результат).
+ * failureReason == null — зачисление прошло.
+ * Получателю зачисляется amount, с источника списывается amount + fee (fee == null у событий до комиссий).
+ * createdAt — created_at перевода в шарде источника (null у событий, опубликованных до его появления).
+ */
+public record TransferSagaEvent(
+        UUID transactionUid,
+        UUID sourceUserUid,
+        UUID sourceWalletUid,
+        UUID targetUserUid,
+        UUID targetWalletUid,
+        BigDecimal amount,
+        BigDecimal fee,
+        String failureReason,
+        LocalDateTime createdAt
+) {
+
+    public TransferSagaEvent failed(String reason) {
+        return new TransferSagaEvent(transactionUid, sourceUserUid, sourceWalletUid,
+                targetUserUid, targetWalletUid, amount, fee, reason, createdAt);
+    }
+
+    public BigDecimal feeOrZero() {
+        return fee == null ? BigDecimal.ZERO : fee;
+    }
+}
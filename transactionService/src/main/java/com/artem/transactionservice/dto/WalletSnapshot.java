@@ -0,0 +1,26 @@
+package com.artem.transactionservice.dto;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Неизменяемый снимок активного кошелька.
+ * <p>
+ * balance — значение на момент чтения, доверять ему можно только при fresh == true
+ * (снимок прочитан из БД в текущем вызове). У снимков из кэша баланс берётся отдельно.
+ */
+public record WalletSnapshot(
+        UUID uid,
+        UUID userUid,
+        String status,
+        UUID walletTypeUid,
+        String currencyCode,
+        int balanceSlots,
+        BigDecimal balance,
+        boolean fresh
+) {
+
+    public WalletSnapshot cached() {
+        return fresh ? new WalletSnapshot(uid, userUid, status, walletTypeUid, currencyCode, balanceSlots, balance, false) : this;
+    }
+}
@@ -0,0 +1,21 @@
+package com.artem.transactionservice.dto;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Неизменяемая копия строки wallet_types из WalletTypeRegistry.
+ */
+public record WalletTypeInfo(
+        UUID uid,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        String name,
+        String currencyCode,
+        String status,
+        LocalDateTime archivedAt,
+        String userType,
+        String creator,
+        String modifier
+) {
+}
@@ -14,7 +14,7 @@ import java.util.UUID;
 public class Transaction {
 
     @Id
-    @GeneratedValue
+    @TimeOrderedUuid
     private UUID uid;
 
     @Column(name = "created_at", nullable = false)
@@ -1,7 +1,14 @@
 package com.artem.transactionservice.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import org.springframework.data.domain.Persistable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -10,13 +17,27 @@ import java.util.UUID;
 @Data
 @Entity
 @Table(name = "wallets")
-public class Wallet {
+public class Wallet implements Persistable<UUID> {
 
+    /**
+     * Назначается сервисом ({@link com.artem.transactionservice.ShardRouter#newWalletUid}): в uid зашит шард владельца.
+     */
     @Id
-    @GeneratedValue
     @Column(updatable = false)
     private UUID uid;
 
+    /**
+     * uid задан до сохранения, поэтому новизну save() узнаёт отсюда: persist вместо merge,
+     * который сначала ищет кошелёк SELECT'ом во всех шардах.
+     */
+    @Transient
+    @JsonIgnore
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private boolean persisted;
+
     @Column(name = "created_at", nullable = false)
     private LocalDateTime createdAt = LocalDateTime.now();
 
@@ -39,8 +60,47 @@ public class Wallet {
     @Column(nullable = false)
     private BigDecimal balance = BigDecimal.ZERO;
 
+    /**
+     * Сумма, зарезервированная подтверждёнными, но ещё не применёнными списаниями (статус HELD).
+     * Уже вычтена из balance. Для split balance не ведётся — резерв списывается прямо из слотов.
+     */
+    @Column(name = "held_balance", nullable = false)
+    private BigDecimal heldBalance = BigDecimal.ZERO;
+
+    /**
+     * 0 — обычный кошелёк, баланс в balance.
+     * N > 0 — split balance: баланс лежит в N строках wallet_balance_slots.
+     */
+    @Column(name = "balance_slots", nullable = false)
+    private int balanceSlots;
+
     @Column(name = "archived_at")
     private LocalDateTime archivedAt;
 
+    @Override
+    @JsonIgnore
+    public UUID getId() {
+        return uid;
+    }
+
+    @Override
+    @JsonIgnore
+    public boolean isNew() {
+        return !persisted;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markPersisted() {
+        persisted = true;
+    }
+
+    /**
+     * По modified_at мигратор бакетов догоняет изменения, сделанные во время копирования.
+     */
+    @PreUpdate
+    void touch() {
+        modifiedAt = LocalDateTime.now();
+    }
 
 }
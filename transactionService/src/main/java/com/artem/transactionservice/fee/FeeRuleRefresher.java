@@ -0,0 +1,51 @@
+package com.artem.transactionservice.fee;
+
+import com.artem.transactionservice.repository.FeeRuleRepository;
+import com.artem.transactionservice.repository.projection.ReferenceDataVersion;
+import com.artem.transactionservice.service.FeeService;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Objects;
+
+/**
+ * Загружает fee_rules при старте и перечитывает их, только когда изменились count(*) или max(modified_at).
+ * Новый индекс строится целиком в стороне и публикуется одной подменой ссылки;
+ * если сборка не удалась, продолжают действовать прежние правила.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FeeRuleRefresher {
+
+    private final FeeRuleRepository feeRuleRepository;
+    private final FeeService feeService;
+
+    private volatile ReferenceDataVersion loadedVersion;
+
+    @PostConstruct
+    public void init() {
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.fees.refresh-interval-ms:10000}")
+    public void refresh() {
+        try {
+            ReferenceDataVersion version = feeRuleRepository.version();
+            if (Objects.equals(version, loadedVersion)) {
+                return;
+            }
+
+            FeeSchedule schedule = FeeSchedule.build(feeRuleRepository.findActive());
+            feeService.publish(schedule);
+            loadedVersion = version;
+
+            log.info("Fee rules loaded, rules={}, lastModified={}", schedule.ruleCount(), version.lastModified());
+        } catch (RuntimeException e) {
+            log.error("Fee rules refresh failed, keeping previous rules", e);
+        }
+    }
+}
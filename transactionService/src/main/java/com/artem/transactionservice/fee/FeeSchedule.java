@@ -0,0 +1,112 @@
+package com.artem.transactionservice.fee;
+
+import com.artem.transactionservice.money.Money;
+import com.artem.transactionservice.repository.projection.FeeRuleRow;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Неизменяемый индекс правил комиссий: операция × валюта × тип кошелька → шкала ступеней.
+ * <p>
+ * Суммы заранее переведены в минимальные единицы валюты, ступени лежат в параллельных массивах,
+ * отсортированных по нижней границе, — расчёт на init это поиск в HashMap, бинарный поиск
+ * по long[] и арифметика над long, без обращений к БД.
+ * Правило конкретного типа кошелька перекрывает правило «для всех типов» (wallet_type_uid = NULL);
+ * если подходящей ступени нет, комиссия нулевая.
+ */
+public final class FeeSchedule {
+
+    public static final FeeSchedule EMPTY = new FeeSchedule(Map.of(), 0);
+
+    private final Map<Key, Tiers> tiers;
+    private final int ruleCount;
+
+    private FeeSchedule(Map<Key, Tiers> tiers, int ruleCount) {
+        this.tiers = tiers;
+        this.ruleCount = ruleCount;
+    }
+
+    /**
+     * Строит индекс целиком; правило с суммами, не переводимыми в валюту без округления,
+     * роняет всю сборку — лучше остаться на прежних правилах, чем молча потерять ступень.
+     */
+    public static FeeSchedule build(List<FeeRuleRow> rows) {
+        Map<Key, List<FeeRuleRow>> grouped = new HashMap<>();
+        for (FeeRuleRow row : rows) {
+            grouped.computeIfAbsent(new Key(row.operation(), row.currencyCode(), row.walletTypeUid()),
+                    key -> new ArrayList<>()).add(row);
+        }
+
+        Map<Key, Tiers> index = new HashMap<>(grouped.size() * 2);
+        grouped.forEach((key, group) -> index.put(key, Tiers.of(key.currency(), group)));
+        return new FeeSchedule(Map.copyOf(index), rows.size());
+    }
+
+    public Money feeFor(String operation, UUID walletTypeUid, Money amount) {
+        Tiers scale = walletTypeUid != null ? tiers.get(new Key(operation, amount.currency(), walletTypeUid)) : null;
+        if (scale == null) {
+            scale = tiers.get(new Key(operation, amount.currency(), null));
+        }
+        return new Money(scale != null ? scale.fee(amount.minor()) : 0, amount.currency());
+    }
+
+    public int ruleCount() {
+        return ruleCount;
+    }
+
+    private record Key(String operation, String currency, UUID walletTypeUid) {
+    }
+
+    /**
+     * Ступени одной шкалы, индекс i во всех массивах — одна ступень.
+     */
+    private record Tiers(long[] from, long[] fixed, long[] percentBp, long[] min, long[] max) {
+
+        static Tiers of(String currency, List<FeeRuleRow> rows) {
+            List<FeeRuleRow> sorted = new ArrayList<>(rows);
+            sorted.sort(Comparator.comparing(FeeRuleRow::minAmount));
+
+            int n = sorted.size();
+            Tiers tiers = new Tiers(new long[n], new long[n], new long[n], new long[n], new long[n]);
+            for (int i = 0; i < n; i++) {
+                FeeRuleRow row = sorted.get(i);
+                try {
+                    tiers.from[i] = minor(row.minAmount(), currency, 0);
+                    tiers.fixed[i] = minor(row.fixedFee(), currency, 0);
+                    tiers.percentBp[i] = row.percentBp();
+                    tiers.min[i] = minor(row.minFee(), currency, 0);
+                    tiers.max[i] = minor(row.maxFee(), currency, Long.MAX_VALUE);
+                } catch (IllegalArgumentException e) {
+                    throw new IllegalStateException("Invalid fee rule id=" + row.id() + ": " + e.getMessage(), e);
+                }
+                if (i > 0 && tiers.from[i] == tiers.from[i - 1]) {
+                    throw new IllegalStateException("Duplicate fee tier id=" + row.id() + " for " + row.operation()
+                            + "/" + currency + " from " + row.minAmount());
+                }
+            }
+            return tiers;
+        }
+
+        long fee(long amountMinor) {
+            int found = Arrays.binarySearch(from, amountMinor);
+            int tier = found >= 0 ? found : -found - 2;
+            if (tier < 0) {
+                return 0;
+            }
+
+            long fee = Math.addExact(fixed[tier], Money.percentOf(amountMinor, percentBp[tier]));
+            return Math.min(Math.max(fee, min[tier]), max[tier]);
+        }
+
+        private static long minor(BigDecimal value, String currency, long defaultValue) {
+            return value != null ? Money.of(value, currency).minor() : defaultValue;
+        }
+    }
+}
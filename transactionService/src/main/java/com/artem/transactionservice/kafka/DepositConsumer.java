@@ -1,44 +1,31 @@
 package com.artem.transactionservice.kafka;
 
-import com.artem.transactionservice.entity.Transaction;
-import com.artem.transactionservice.repository.TransactionRepository;
-import com.artem.transactionservice.repository.WalletRepository;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
 
-import java.util.UUID;
+import java.util.List;
 
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class DepositConsumer {
 
-    private final TransactionRepository transactionRepository;
-    private final WalletRepository walletRepository;
+    private final LedgerBatchApplier ledgerBatchApplier;
+    private final KeyedBatchDispatcher keyedBatchDispatcher;
 
-    @Transactional
     @KafkaListener(
+            id = "deposit-ledger",
             topics = "deposit.requested",
-            groupId = "transaction-service"
+            groupId = "transaction-service",
+            containerFactory = "batchListenerContainerFactory"
     )
-    public void handleDeposit(String transactionUid) {
+    public void handleDeposits(List<ConsumerRecord<String, String>> records) {
 
-        log.info("Deposit event received, tx={}", transactionUid);
+        log.info("Deposit batch received, size={}", records.size());
 
-        Transaction tx = transactionRepository.findById(
-                UUID.fromString(transactionUid)
-        ).orElseThrow(() -> new RuntimeException("Transaction not found"));
-
-        walletRepository.increaseBalance(
-                tx.getWallet().getUid(),
-                tx.getAmount()
-        );
-
-        tx.setStatus("COMPLETED");
-        transactionRepository.save(tx);
+        keyedBatchDispatcher.dispatch(records, ledgerBatchApplier::apply);
     }
 }
@@ -0,0 +1,134 @@
+package com.artem.transactionservice.kafka;
+
+import com.artem.transactionservice.config.LedgerBatchProperties;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/**
+ * Параллельная обработка одной пачки Kafka с сохранением порядка внутри ключа.
+ * <p>
+ * Сообщения ключуются кошельком, поэтому пачка делится на lanes по hash(key):
+ * разные кошельки обрабатываются параллельно, записи одного кошелька — в одной lane и по порядку.
+ * Пропускная способность растёт и с числом партиций (concurrency листенера), и внутри партиции.
+ * <p>
+ * Если lane падает, наружу уходит {@link BatchListenerFailedException} с наименьшим индексом
+ * упавшей записи в исходной пачке. Записи других lanes после этого индекса будут доставлены
+ * повторно — обработчики идемпотентны.
+ */
+@Component
+public class KeyedBatchDispatcher {
+
+    private final int lanes;
+    private final DistributionSummary lanesUsed;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public KeyedBatchDispatcher(LedgerBatchProperties properties, MeterRegistry meterRegistry) {
+        if (properties.getLanes() < 1) {
+            throw new IllegalArgumentException("transaction.ledger.batch.lanes must be at least 1");
+        }
+        this.lanes = properties.getLanes();
+        this.lanesUsed = DistributionSummary.builder("kafka.batch.lanes")
+                .description("Non-empty key lanes per consumed batch")
+                .register(meterRegistry);
+    }
+
+    /**
+     * handler получает значения одной lane в исходном порядке.
+     */
+    public void dispatch(List<ConsumerRecord<String, String>> records, Consumer<List<String>> handler) {
+        List<Lane> byKey = split(records);
+        lanesUsed.record(byKey.size());
+
+        if (byKey.size() == 1) {
+            run(byKey.get(0), handler);
+            return;
+        }
+
+        List<Future<?>> futures = new ArrayList<>(byKey.size());
+        for (Lane lane : byKey) {
+            futures.add(executor.submit(() -> run(lane, handler)));
+        }
+
+        BatchListenerFailedException first = null;
+        for (Future<?> future : futures) {
+            BatchListenerFailedException failure = await(future);
+            if (failure != null && (first == null || failure.getIndex() < first.getIndex())) {
+                first = failure;
+            }
+        }
+
+        if (first != null) {
+            throw first;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private List<Lane> split(List<ConsumerRecord<String, String>> records) {
+        Lane[] byHash = new Lane[lanes];
+        List<Lane> used = new ArrayList<>();
+
+        for (int i = 0; i < records.size(); i++) {
+            ConsumerRecord<String, String> record = records.get(i);
+            // старые события ключевались uid транзакции, без ключа — по значению
+            String key = record.key() != null ? record.key() : String.valueOf(record.value());
+            int lane = Math.floorMod(key.hashCode(), lanes);
+
+            if (byHash[lane] == null) {
+                byHash[lane] = new Lane(new ArrayList<>(), new ArrayList<>());
+                used.add(byHash[lane]);
+            }
+            byHash[lane].indexes().add(i);
+            byHash[lane].values().add(record.value());
+        }
+
+        return used;
+    }
+
+    /**
+     * Индекс ошибки переводится из номера в lane в номер в исходной пачке.
+     */
+    private static void run(Lane lane, Consumer<List<String>> handler) {
+        try {
+            handler.accept(lane.values());
+        } catch (BatchListenerFailedException e) {
+            int index = e.getIndex() >= 0 && e.getIndex() < lane.indexes().size() ? e.getIndex() : 0;
+            throw new BatchListenerFailedException(e.getMessage(), e.getCause(), lane.indexes().get(index));
+        } catch (RuntimeException e) {
+            throw new BatchListenerFailedException("Keyed lane failed", e, lane.indexes().get(0));
+        }
+    }
+
+    private static BatchListenerFailedException await(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for key lanes", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof BatchListenerFailedException failure) {
+                return failure;
+            }
+            throw new IllegalStateException("Key lane failed", e.getCause());
+        }
+    }
+
+    private record Lane(List<Integer> indexes, List<String> values) {
+    }
+}
@@ -0,0 +1,547 @@
+package com.artem.transactionservice.kafka;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.dto.LedgerEntry;
+import com.artem.transactionservice.entity.Transaction;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.entity.enums.PaymentType;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.repository.projection.WalletOwnerView;
+import com.artem.transactionservice.service.SplitBalanceService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Применяет пачку транзакций из Kafka к балансам кошельков.
+ * <p>
+ * Вместо findById + update + save на каждое сообщение:
+ * транзакции читаются одним IN-запросом (ShardingSphere отправляет его в каждый шард),
+ * кошельки блокируются одним запросом на шард, чистые изменения балансов
+ * пишутся одним UPDATE на шард, статусы переключаются пакетно.
+ * Ошибка одной записи (нет средств, кошелёк неактивен) помечает FAILED только её.
+ * Если падает весь батч, записи переигрываются по одной в отдельных транзакциях.
+ * <p>
+ * Кошельки в режиме split balance не блокируются: их ноги применяются сразу
+ * через {@link SplitBalanceService}, списание там само проверяет остаток.
+ * <p>
+ * Списания в статусе HELD уже зарезервированы на confirm: их расходная нога не проверяет
+ * остаток, а только закрывает резерв (held_balance), при ошибке резерв возвращается в balance.
+ * PENDING-списания, созданные до появления резервов, проводятся по-старому.
+ * Переводы с резервом между разными шардами отдаются {@link TransferSaga}.
+ * <p>
+ * Расходная нога списания и перевода — сумма плюс комиссия (transactions.fee), её же покрывает резерв;
+ * в ledger_entries комиссия проводится отдельной ногой. Каждая проведённая нога добавляется
+ * в ledger_entries одной пачкой на батч.
+ * <p>
+ * После коммита затронутые кошельки сбрасываются из {@link WalletCache}.
+ * <p>
+ * transactions секционирована по месяцам created_at: транзакции батча ищутся сначала
+ * в секциях за последние дни, а статусы обновляются с границей по created_at.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LedgerBatchApplier {
+
+    private static final String WITHDRAWAL = "WITHDRAWAL";
+    private static final String HELD = "HELD";
+    private static final Duration RECENT = Duration.ofDays(7);
+
+    private final TransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final SplitBalanceService splitBalanceService;
+    private final WalletCache walletCache;
+    private final TransferSaga transferSaga;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    public void apply(List<String> transactionUids) {
+
+        // uid -> индекс записи в батче (нужен Kafka для частичного коммита)
+        Map<UUID, Integer> records = new LinkedHashMap<>();
+        for (int i = 0; i < transactionUids.size(); i++) {
+            try {
+                records.putIfAbsent(UUID.fromString(transactionUids.get(i)), i);
+            } catch (IllegalArgumentException e) {
+                log.error("Malformed transaction uid in ledger batch, skipped: {}", transactionUids.get(i));
+            }
+        }
+
+        if (records.isEmpty()) {
+            return;
+        }
+
+        try {
+            invalidate(transactionTemplate.execute(status -> applyInTransaction(records.keySet())));
+        } catch (RuntimeException e) {
+            log.warn("Ledger batch of {} records failed, retrying one by one", records.size(), e);
+            applyOneByOne(records);
+        }
+    }
+
+    private void applyOneByOne(Map<UUID, Integer> records) {
+        records.forEach((uid, index) -> {
+            try {
+                invalidate(transactionTemplate.execute(status -> applyInTransaction(List.of(uid))));
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Ledger record failed, tx=" + uid, e, index);
+            }
+        });
+    }
+
+    /**
+     * Консьюмер отстаёт на секунды, поэтому почти всегда хватает свежих секций;
+     * если какой-то uid не найден (старое событие, повтор), ищем по всем.
+     */
+    private List<Transaction> load(Collection<UUID> uids) {
+        List<Transaction> recent = transactionRepository.findAllByUidInAndCreatedAtGreaterThanEqual(
+                uids, LocalDateTime.now().minus(RECENT));
+        if (recent.size() == uids.size()) {
+            return recent;
+        }
+        return transactionRepository.findAllByUidIn(uids);
+    }
+
+    private void invalidate(Set<UUID> walletUids) {
+        if (walletUids != null && !walletUids.isEmpty()) {
+            walletCache.invalidateBalances(walletUids);
+        }
+    }
+
+    /**
+     * @return кошельки, чьи балансы могли измениться
+     */
+    private Set<UUID> applyInTransaction(Collection<UUID> uids) {
+
+        Map<UUID, Transaction> loaded = load(uids).stream()
+                .collect(Collectors.toMap(Transaction::getUid, Function.identity()));
+
+        // 🔐 идемпотентность: обрабатываем только PENDING и HELD, порядок как в Kafka
+        List<Transaction> pending = new ArrayList<>();
+        for (UUID uid : uids) {
+            Transaction tx = loaded.get(uid);
+            if (tx == null) {
+                log.warn("Transaction not found, tx={}", uid);
+            } else if (!"PENDING".equals(tx.getStatus()) && !HELD.equals(tx.getStatus())) {
+                log.warn("Transaction already processed, tx={}, status={}", uid, tx.getStatus());
+            } else {
+                pending.add(tx);
+            }
+        }
+
+        if (pending.isEmpty()) {
+            return Set.of();
+        }
+
+        Map<UUID, UUID> allOwners = resolveOwners(pending);
+
+        // межшардовый перевод не проводится одной локальной транзакцией — его ведёт TransferSaga
+        List<Transaction> crossShard = pending.stream().filter(tx -> isCrossShard(tx, allOwners)).toList();
+        if (!crossShard.isEmpty()) {
+            transferSaga.start(crossShard, allOwners);
+            pending.removeAll(crossShard);
+        }
+
+        Map<UUID, UUID> owners = crossShard.isEmpty() ? allOwners : ownersOf(pending, allOwners);
+        Map<UUID, Wallet> wallets = lockWallets(owners);
+        Map<UUID, Wallet> splitWallets = loadSplitWallets(owners, wallets.keySet());
+        lockSplitSlots(pending, splitWallets);
+
+        Map<UUID, BigDecimal> balances = new HashMap<>();
+        wallets.forEach((uid, wallet) -> balances.put(uid, wallet.getBalance()));
+
+        Map<UUID, BigDecimal> deltas = new HashMap<>();
+        Map<UUID, BigDecimal> settled = new HashMap<>();
+        Map<UUID, BigDecimal> released = new HashMap<>();
+        List<Transaction> completed = new ArrayList<>();
+        Map<Transaction, String> failed = new LinkedHashMap<>();
+
+        for (Transaction tx : pending) {
+            Map<UUID, BigDecimal> legs = legsOf(tx);
+            UUID heldWalletUid = HELD.equals(tx.getStatus()) ? tx.getWallet().getUid() : null;
+            String failure = validate(tx, legs, heldWalletUid, wallets, splitWallets, balances);
+
+            // зарезервированная нога уже списана на confirm
+            if (heldWalletUid != null) {
+                legs.remove(heldWalletUid);
+            }
+
+            if (failure == null && !applySplitLegs(tx, legs, splitWallets)) {
+                failure = "Insufficient funds";
+            }
+
+            if (failure != null) {
+                failed.put(tx, failure);
+                if (heldWalletUid != null) {
+                    release(tx, heldWalletUid, wallets, splitWallets, balances, released);
+                }
+                continue;
+            }
+
+            if (heldWalletUid != null && wallets.containsKey(heldWalletUid)) {
+                settled.merge(heldWalletUid, debitOf(tx), BigDecimal::add);
+            }
+
+            legs.forEach((walletUid, delta) -> {
+                if (!splitWallets.containsKey(walletUid)) {
+                    balances.merge(walletUid, delta, BigDecimal::add);
+                    deltas.merge(walletUid, delta, BigDecimal::add);
+                }
+            });
+            completed.add(tx);
+        }
+
+        deltas.values().removeIf(delta -> delta.signum() == 0);
+
+        applyDeltas(deltas, owners);
+        settleHolds(settled, released, owners);
+        complete(completed);
+        ledgerEntryRepository.insert(entriesOf(completed, owners));
+
+        failed.forEach((tx, reason) -> {
+            transactionRepository.markFailed(tx.getUserUid(), tx.getUid(), tx.getCreatedAt(), reason);
+            log.warn("Ledger tx failed, tx={}, reason={}", tx.getUid(), reason);
+        });
+
+        log.info("Ledger batch applied: completed={}, failed={}, sagas={}, skipped={}",
+                completed.size(), failed.size(), crossShard.size(), uids.size() - pending.size() - crossShard.size());
+
+        return owners.keySet();
+    }
+
+    /**
+     * walletUid -> userUid для всех кошельков, затронутых батчем.
+     * Владельца целевого кошелька перевода в транзакции нет, поэтому он дочитывается одним запросом.
+     */
+    private Map<UUID, UUID> resolveOwners(List<Transaction> pending) {
+        Map<UUID, UUID> owners = new HashMap<>();
+        List<UUID> unknownTargets = new ArrayList<>();
+
+        for (Transaction tx : pending) {
+            owners.put(tx.getWallet().getUid(), tx.getUserUid());
+        }
+
+        for (Transaction tx : pending) {
+            if (tx.getTargetWalletUid() != null && !owners.containsKey(tx.getTargetWalletUid())) {
+                unknownTargets.add(tx.getTargetWalletUid());
+            }
+        }
+
+        if (!unknownTargets.isEmpty()) {
+            for (WalletOwnerView owner : walletRepository.findOwnersByUidIn(unknownTargets)) {
+                owners.put(owner.getUid(), owner.getUserUid());
+            }
+        }
+
+        return owners;
+    }
+
+    /**
+     * Только переводы с резервом: у PENDING-переводов без резерва нечего возвращать при сбое на шарде получателя.
+     */
+    private boolean isCrossShard(Transaction tx, Map<UUID, UUID> owners) {
+        UUID targetOwner = tx.getTargetWalletUid() == null ? null : owners.get(tx.getTargetWalletUid());
+
+        return HELD.equals(tx.getStatus())
+                && PaymentType.TRANSFER.name().equals(tx.getType())
+                && targetOwner != null
+                && shardRouter.shardOf(targetOwner) != shardRouter.shardOf(tx.getUserUid());
+    }
+
+    private static Map<UUID, UUID> ownersOf(List<Transaction> transactions, Map<UUID, UUID> owners) {
+        Map<UUID, UUID> retained = new HashMap<>();
+
+        for (Transaction tx : transactions) {
+            retained.put(tx.getWallet().getUid(), tx.getUserUid());
+            if (tx.getTargetWalletUid() != null && owners.containsKey(tx.getTargetWalletUid())) {
+                retained.put(tx.getTargetWalletUid(), owners.get(tx.getTargetWalletUid()));
+            }
+        }
+
+        return retained;
+    }
+
+    private Map<UUID, Wallet> lockWallets(Map<UUID, UUID> owners) {
+        Map<UUID, Wallet> wallets = new HashMap<>();
+
+        // шарды по возрастанию, внутри шарда order by uid — единый порядок блокировок
+        groupByShard(owners.keySet(), owners).forEach((shard, walletUids) -> {
+            Set<UUID> userUids = walletUids.stream().map(owners::get).collect(Collectors.toSet());
+            for (Wallet wallet : walletRepository.findAllForUpdate(userUids, walletUids)) {
+                wallets.put(wallet.getUid(), wallet);
+            }
+        });
+
+        return wallets;
+    }
+
+    private Map<UUID, Wallet> loadSplitWallets(Map<UUID, UUID> owners, Set<UUID> locked) {
+        Map<UUID, Wallet> splitWallets = new HashMap<>();
+        List<UUID> rest = owners.keySet().stream().filter(uid -> !locked.contains(uid)).toList();
+
+        groupByShard(rest, owners).forEach((shard, walletUids) -> {
+            Set<UUID> userUids = walletUids.stream().map(owners::get).collect(Collectors.toSet());
+            for (Wallet wallet : walletRepository.findAllSplit(userUids, walletUids)) {
+                splitWallets.put(wallet.getUid(), wallet);
+            }
+        });
+
+        return splitWallets;
+    }
+
+    /**
+     * Слоты split-кошельков, которые батч может тронуть, блокируются заранее и по возрастанию (wallet_uid, slot):
+     * иначе зачисления по порядку транзакций брали бы слоты одного кошелька встречно с другим батчем.
+     * Возврат резерва — тоже зачисление, его слот берётся, даже если транзакция в итоге пройдёт.
+     */
+    private void lockSplitSlots(List<Transaction> pending, Map<UUID, Wallet> splitWallets) {
+        if (splitWallets.isEmpty()) {
+            return;
+        }
+
+        Map<UUID, Set<UUID>> creditKeys = new HashMap<>();
+        Set<UUID> debitWalletUids = new HashSet<>();
+
+        for (Transaction tx : pending) {
+            UUID heldWalletUid = HELD.equals(tx.getStatus()) ? tx.getWallet().getUid() : null;
+            legsOf(tx).forEach((walletUid, delta) -> {
+                if (!splitWallets.containsKey(walletUid)) {
+                    return;
+                }
+                if (walletUid.equals(heldWalletUid) || delta.signum() > 0) {
+                    creditKeys.computeIfAbsent(walletUid, uid -> new HashSet<>()).add(tx.getUid());
+                } else if (delta.signum() < 0) {
+                    debitWalletUids.add(walletUid);
+                }
+            });
+        }
+
+        splitBalanceService.lockSlots(splitWallets, creditKeys, debitWalletUids);
+    }
+
+    /**
+     * Сначала списания (могут не пройти), потом зачисления.
+     */
+    private boolean applySplitLegs(Transaction tx, Map<UUID, BigDecimal> legs, Map<UUID, Wallet> splitWallets) {
+        for (Map.Entry<UUID, BigDecimal> leg : legs.entrySet()) {
+            Wallet wallet = splitWallets.get(leg.getKey());
+            if (wallet != null && leg.getValue().signum() < 0
+                    && !splitBalanceService.tryDebit(wallet, leg.getValue().negate(), tx.getUid())) {
+                return false;
+            }
+        }
+
+        for (Map.Entry<UUID, BigDecimal> leg : legs.entrySet()) {
+            Wallet wallet = splitWallets.get(leg.getKey());
+            if (wallet != null && leg.getValue().signum() > 0) {
+                splitBalanceService.credit(wallet, leg.getValue(), tx.getUid());
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Все ноги проведённых транзакций, включая зарезервированную: резерв закрыт и становится проводкой.
+     * Комиссия отделяется от расходной ноги в собственную проводку.
+     */
+    private List<LedgerEntry> entriesOf(List<Transaction> completed, Map<UUID, UUID> owners) {
+        List<LedgerEntry> entries = new ArrayList<>();
+        for (Transaction tx : completed) {
+            BigDecimal fee = feeOf(tx);
+            legsOf(tx).forEach((walletUid, delta) -> {
+                UUID userUid = owners.get(walletUid);
+                if (delta.signum() < 0 && fee.signum() > 0) {
+                    entries.add(new LedgerEntry(tx.getUid(), userUid, walletUid, delta.add(fee)));
+                    entries.add(LedgerEntry.fee(tx.getUid(), userUid, walletUid, fee.negate()));
+                } else {
+                    entries.add(new LedgerEntry(tx.getUid(), userUid, walletUid, delta));
+                }
+            });
+        }
+        return entries;
+    }
+
+    private Map<UUID, BigDecimal> legsOf(Transaction tx) {
+        Map<UUID, BigDecimal> legs = new LinkedHashMap<>();
+        UUID walletUid = tx.getWallet().getUid();
+        BigDecimal amount = tx.getAmount();
+
+        if (PaymentType.DEPOSIT.name().equals(tx.getType())) {
+            legs.put(walletUid, amount);
+        } else if (WITHDRAWAL.equals(tx.getType())) {
+            legs.put(walletUid, debitOf(tx).negate());
+        } else if (PaymentType.TRANSFER.name().equals(tx.getType()) && tx.getTargetWalletUid() != null) {
+            legs.put(walletUid, debitOf(tx).negate());
+            legs.put(tx.getTargetWalletUid(), amount);
+        }
+
+        return legs;
+    }
+
+    /**
+     * Сколько списывается с кошелька-источника: сумма и комиссия, зарезервированные на confirm.
+     */
+    private static BigDecimal debitOf(Transaction tx) {
+        return tx.getAmount().add(feeOf(tx));
+    }
+
+    /**
+     * Транзакции до появления комиссий и пополнения хранят fee = NULL.
+     */
+    private static BigDecimal feeOf(Transaction tx) {
+        return tx.getFee() == null || PaymentType.DEPOSIT.name().equals(tx.getType()) ? BigDecimal.ZERO : tx.getFee();
+    }
+
+    /**
+     * Резерв отменённой транзакции возвращается в доступный баланс
+     * и сразу учитывается при проверке следующих записей батча.
+     */
+    private void release(Transaction tx,
+                         UUID heldWalletUid,
+                         Map<UUID, Wallet> wallets,
+                         Map<UUID, Wallet> splitWallets,
+                         Map<UUID, BigDecimal> balances,
+                         Map<UUID, BigDecimal> released) {
+
+        BigDecimal held = debitOf(tx);
+
+        if (wallets.containsKey(heldWalletUid)) {
+            released.merge(heldWalletUid, held, BigDecimal::add);
+            balances.merge(heldWalletUid, held, BigDecimal::add);
+        } else if (splitWallets.containsKey(heldWalletUid)) {
+            splitBalanceService.credit(splitWallets.get(heldWalletUid), held, tx.getUid());
+        } else {
+            log.error("Cannot release hold, wallet not found, tx={}, wallet={}", tx.getUid(), heldWalletUid);
+        }
+    }
+
+    private String validate(Transaction tx,
+                            Map<UUID, BigDecimal> legs,
+                            UUID heldWalletUid,
+                            Map<UUID, Wallet> wallets,
+                            Map<UUID, Wallet> splitWallets,
+                            Map<UUID, BigDecimal> balances) {
+
+        if (legs.isEmpty()) {
+            return "Unsupported transaction type: " + tx.getType();
+        }
+
+        if (tx.getAmount().signum() <= 0) {
+            return "amount must be greater than zero";
+        }
+
+        for (Map.Entry<UUID, BigDecimal> leg : legs.entrySet()) {
+            Wallet wallet = wallets.getOrDefault(leg.getKey(), splitWallets.get(leg.getKey()));
+
+            if (wallet == null) {
+                return "Wallet not found: " + leg.getKey();
+            }
+
+            if (!"ACTIVE".equals(wallet.getStatus())) {
+                return "Wallet is not active: " + leg.getKey();
+            }
+
+            if (leg.getValue().signum() < 0
+                    && !leg.getKey().equals(heldWalletUid)
+                    && wallet.getBalanceSlots() == 0
+                    && balances.get(leg.getKey()).add(leg.getValue()).signum() < 0) {
+                return "Insufficient funds";
+            }
+        }
+
+        return null;
+    }
+
+    private void applyDeltas(Map<UUID, BigDecimal> deltas, Map<UUID, UUID> owners) {
+        groupByShard(deltas.keySet(), owners).forEach((shard, walletUids) -> {
+            Map<UUID, BigDecimal> shardDeltas = new LinkedHashMap<>();
+            walletUids.forEach(uid -> shardDeltas.put(uid, deltas.get(uid)));
+
+            Set<UUID> userUids = walletUids.stream().map(owners::get).collect(Collectors.toSet());
+            int updated = walletBalanceJdbcRepository.applyDeltas(userUids, shardDeltas);
+
+            if (updated != shardDeltas.size()) {
+                throw new IllegalStateException(
+                        "Ledger update touched " + updated + " of " + shardDeltas.size() + " wallets on shard " + shard);
+            }
+        });
+    }
+
+    private void settleHolds(Map<UUID, BigDecimal> settled, Map<UUID, BigDecimal> released, Map<UUID, UUID> owners) {
+        Set<UUID> walletUids = new HashSet<>(settled.keySet());
+        walletUids.addAll(released.keySet());
+
+        groupByShard(walletUids, owners).forEach((shard, shardWalletUids) -> {
+            Map<UUID, BigDecimal> shardSettled = new LinkedHashMap<>();
+            Map<UUID, BigDecimal> shardReleased = new LinkedHashMap<>();
+            for (UUID uid : shardWalletUids) {
+                if (settled.containsKey(uid)) {
+                    shardSettled.put(uid, settled.get(uid));
+                }
+                if (released.containsKey(uid)) {
+                    shardReleased.put(uid, released.get(uid));
+                }
+            }
+
+            Set<UUID> userUids = shardWalletUids.stream().map(owners::get).collect(Collectors.toSet());
+            int updated = walletBalanceJdbcRepository.settleHolds(userUids, shardSettled, shardReleased);
+
+            if (updated != shardWalletUids.size()) {
+                throw new IllegalStateException(
+                        "Hold settlement touched " + updated + " of " + shardWalletUids.size() + " wallets on shard " + shard);
+            }
+        });
+    }
+
+    private void complete(List<Transaction> completed) {
+        Map<Integer, List<Transaction>> byShard = completed.stream()
+                .collect(Collectors.groupingBy(tx -> shardRouter.shardOf(tx.getUserUid()), TreeMap::new, Collectors.toList()));
+
+        byShard.forEach((shard, txs) -> {
+            Set<UUID> userUids = txs.stream().map(Transaction::getUserUid).collect(Collectors.toSet());
+            List<UUID> uids = txs.stream().map(Transaction::getUid).toList();
+            LocalDateTime since = txs.stream().map(Transaction::getCreatedAt).min(Comparator.naturalOrder()).orElseThrow();
+
+            int updated = transactionRepository.updatePendingStatus(userUids, uids, since, "COMPLETED");
+
+            // кто-то успел обработать транзакцию параллельно — откатываем батч целиком
+            if (updated != uids.size()) {
+                throw new IllegalStateException(
+                        "Expected " + uids.size() + " PENDING transactions on shard " + shard + ", updated " + updated);
+            }
+        });
+    }
+
+    private Map<Integer, List<UUID>> groupByShard(Collection<UUID> walletUids, Map<UUID, UUID> owners) {
+        return walletUids.stream()
+                .sorted()
+                .collect(Collectors.groupingBy(uid -> shardRouter.shardOf(owners.get(uid)), TreeMap::new, Collectors.toList()));
+    }
+}
@@ -0,0 +1,232 @@
+package com.artem.transactionservice.kafka;
+
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.dto.LedgerEntry;
+import com.artem.transactionservice.dto.TransferSagaEvent;
+import com.artem.transactionservice.entity.Transaction;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.repository.TransferCreditRepository;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.service.OutboxService;
+import com.artem.transactionservice.service.SplitBalanceService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Перевод между кошельками разных шардов.
+ * <p>
+ * Одна локальная транзакция не может атомарно изменить два шарда, поэтому перевод идёт в три шага,
+ * каждый — локальная транзакция одного шарда, а следующий шаг публикуется через outbox того же шарда:
+ * <ol>
+ *     <li>шард источника: сумма с комиссией уже в резерве (HELD), статус CREDITING, событие transfer.credit;</li>
+ *     <li>шард получателя: зачисление + запись в transfer_credits (идемпотентность), событие transfer.settle;</li>
+ *     <li>шард источника: резерв списывается (COMPLETED) или возвращается в баланс (FAILED).</li>
+ * </ol>
+ * Доставка at-least-once: каждый шаг проверяет, не был ли он уже выполнен.
+ * Ключ события — кошелёк, который меняет следующий шаг.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TransferSaga {
+
+    public static final String CREDIT_TOPIC = "transfer.credit";
+    public static final String SETTLE_TOPIC = "transfer.settle";
+
+    static final String CREDITING = "CREDITING";
+
+    /**
+     * Граница для событий без createdAt: перевод ищется во всех секциях.
+     */
+    private static final LocalDateTime UNBOUNDED_SINCE = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final TransactionRepository transactionRepository;
+    private final WalletRepository walletRepository;
+    private final WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+    private final TransferCreditRepository transferCreditRepository;
+    private final SplitBalanceService splitBalanceService;
+    private final OutboxService outboxService;
+    private final TransactionTemplate transactionTemplate;
+    private final WalletCache walletCache;
+    private final ObjectMapper objectMapper;
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    /**
+     * 1️⃣ Вызывается из транзакции {@link LedgerBatchApplier}; пишет только в шард источника.
+     */
+    public void start(List<Transaction> transfers, Map<UUID, UUID> owners) {
+        for (Transaction tx : transfers) {
+            if (transactionRepository.transition(tx.getUserUid(), tx.getUid(), tx.getCreatedAt(), "HELD", CREDITING, null) != 1) {
+                throw new IllegalStateException("Transfer is no longer HELD, tx=" + tx.getUid());
+            }
+
+            TransferSagaEvent event = new TransferSagaEvent(
+                    tx.getUid(),
+                    tx.getUserUid(),
+                    tx.getWallet().getUid(),
+                    owners.get(tx.getTargetWalletUid()),
+                    tx.getTargetWalletUid(),
+                    tx.getAmount(),
+                    tx.getFee(),
+                    null,
+                    tx.getCreatedAt()
+            );
+
+            outboxService.publish(CREDIT_TOPIC, tx.getUserUid(), tx.getTargetWalletUid().toString(), write(event));
+            log.info("Cross-shard transfer started, tx={}", tx.getUid());
+        }
+    }
+
+    /**
+     * 2️⃣ Зачисление на шарде получателя.
+     */
+    public void credit(List<String> payloads) {
+        forEachEvent(payloads, this::creditInTransaction);
+    }
+
+    /**
+     * 3️⃣ Закрытие резерва на шарде источника.
+     */
+    public void settle(List<String> payloads) {
+        forEachEvent(payloads, this::settleInTransaction);
+    }
+
+    private void forEachEvent(List<String> payloads, Consumer<TransferSagaEvent> step) {
+        for (int i = 0; i < payloads.size(); i++) {
+            TransferSagaEvent event = read(payloads.get(i));
+            if (event == null) {
+                continue;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> step.accept(event));
+            } catch (RuntimeException e) {
+                throw new BatchListenerFailedException("Transfer saga step failed, tx=" + event.transactionUid(), e, i);
+            }
+        }
+    }
+
+    private void creditInTransaction(TransferSagaEvent event) {
+        // 🔐 идемпотентность: повтор события не зачисляет второй раз
+        if (!transferCreditRepository.insert(event.transactionUid(), event.targetUserUid(),
+                event.targetWalletUid(), event.amount())) {
+            log.warn("Transfer already credited, tx={}", event.transactionUid());
+            return;
+        }
+
+        String failure = creditTarget(event);
+        if (failure != null) {
+            transferCreditRepository.markFailed(event.transactionUid(), event.targetUserUid(), failure);
+        } else {
+            ledgerEntryRepository.insert(List.of(new LedgerEntry(event.transactionUid(), event.targetUserUid(),
+                    event.targetWalletUid(), event.amount())));
+        }
+
+        // outbox шарда получателя: результат уходит атомарно с зачислением
+        outboxService.publish(SETTLE_TOPIC, event.targetUserUid(), event.sourceWalletUid().toString(),
+                write(event.failed(failure)));
+
+        walletCache.invalidateBalancesAfterCommit(List.of(event.targetWalletUid()));
+    }
+
+    private String creditTarget(TransferSagaEvent event) {
+        if (walletBalanceJdbcRepository.credit(event.targetWalletUid(), event.targetUserUid(), event.amount()).isPresent()) {
+            return null;
+        }
+
+        Optional<Wallet> wallet = walletRepository
+                .findByUidAndUserUidAndStatus(event.targetWalletUid(), event.targetUserUid(), "ACTIVE");
+
+        if (wallet.isEmpty()) {
+            return "Wallet is not active: " + event.targetWalletUid();
+        }
+
+        if (wallet.get().getBalanceSlots() == 0) {
+            throw new IllegalStateException("Wallet changed concurrently: " + event.targetWalletUid());
+        }
+
+        splitBalanceService.credit(wallet.get(), event.amount(), event.transactionUid());
+        return null;
+    }
+
+    private void settleInTransaction(TransferSagaEvent event) {
+        String failure = event.failureReason();
+        String status = failure == null ? "COMPLETED" : "FAILED";
+
+        LocalDateTime since = event.createdAt() == null ? UNBOUNDED_SINCE : event.createdAt();
+
+        // 🔐 идемпотентность: закрываем только перевод в статусе CREDITING
+        if (transactionRepository.transition(event.sourceUserUid(), event.transactionUid(), since, CREDITING, status, failure) != 1) {
+            log.warn("Transfer already settled, tx={}", event.transactionUid());
+            return;
+        }
+
+        Wallet source = walletRepository
+                .findByUidAndUserUidForUpdate(event.sourceWalletUid(), event.sourceUserUid())
+                .orElseThrow(() -> new IllegalStateException("Source wallet not found, tx=" + event.transactionUid()));
+
+        BigDecimal held = event.amount().add(event.feeOrZero());
+
+        if (source.getBalanceSlots() > 0) {
+            // у split balance резерв списан из слотов сразу, вернуть его — обычное зачисление
+            if (failure != null) {
+                splitBalanceService.credit(source, held, event.transactionUid());
+            }
+        } else {
+            Map<UUID, BigDecimal> hold = Map.of(source.getUid(), held);
+            walletBalanceJdbcRepository.settleHolds(Set.of(event.sourceUserUid()),
+                    failure == null ? hold : Map.of(),
+                    failure == null ? Map.of() : hold);
+        }
+
+        if (failure != null) {
+            walletCache.invalidateBalancesAfterCommit(List.of(source.getUid()));
+        } else {
+            List<LedgerEntry> entries = new ArrayList<>(2);
+            entries.add(new LedgerEntry(event.transactionUid(), event.sourceUserUid(),
+                    event.sourceWalletUid(), event.amount().negate()));
+            if (event.feeOrZero().signum() > 0) {
+                entries.add(LedgerEntry.fee(event.transactionUid(), event.sourceUserUid(),
+                        event.sourceWalletUid(), event.feeOrZero().negate()));
+            }
+            ledgerEntryRepository.insert(entries);
+        }
+
+        log.info("Cross-shard transfer settled, tx={}, status={}", event.transactionUid(), status);
+    }
+
+    private String write(TransferSagaEvent event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize transfer event, tx=" + event.transactionUid(), e);
+        }
+    }
+
+    private TransferSagaEvent read(String payload) {
+        try {
+            return objectMapper.readValue(payload, TransferSagaEvent.class);
+        } catch (JsonProcessingException e) {
+            log.error("Malformed transfer saga event, skipped: {}", payload);
+            return null;
+        }
+    }
+}
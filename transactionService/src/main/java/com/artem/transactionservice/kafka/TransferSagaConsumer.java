@@ -0,0 +1,44 @@
+package com.artem.transactionservice.kafka;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TransferSagaConsumer {
+
+    private final TransferSaga transferSaga;
+    private final KeyedBatchDispatcher keyedBatchDispatcher;
+
+    @KafkaListener(
+            id = "transfer-credit",
+            topics = TransferSaga.CREDIT_TOPIC,
+            groupId = "transaction-service",
+            containerFactory = "batchListenerContainerFactory"
+    )
+    public void handleCredits(List<ConsumerRecord<String, String>> events) {
+
+        log.info("Received transfer credit batch, size={}", events.size());
+
+        keyedBatchDispatcher.dispatch(events, transferSaga::credit);
+    }
+
+    @KafkaListener(
+            id = "transfer-settle",
+            topics = TransferSaga.SETTLE_TOPIC,
+            groupId = "transaction-service",
+            containerFactory = "batchListenerContainerFactory"
+    )
+    public void handleSettlements(List<ConsumerRecord<String, String>> events) {
+
+        log.info("Received transfer settle batch, size={}", events.size());
+
+        keyedBatchDispatcher.dispatch(events, transferSaga::settle);
+    }
+}
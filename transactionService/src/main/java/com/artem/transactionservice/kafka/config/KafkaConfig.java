@@ -1,18 +1,54 @@
 package com.artem.transactionservice.kafka.config;
 
+import com.artem.transactionservice.config.LedgerBatchProperties;
+import org.apache.kafka.clients.consumer.ConsumerConfig;
+import org.springframework.boot.autoconfigure.kafka.KafkaProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
+import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
+import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
 
+import java.util.Map;
+
 @Configuration
-@Profile("!test")
 public class KafkaConfig {
+
     @Bean
+    @Profile("!test")
     public KafkaTemplate<String, Object> kafkaTemplate(
             ProducerFactory<String, Object> producerFactory
     ) {
         return new KafkaTemplate<>(producerFactory);
     }
+
+    /**
+     * Фабрика для batch-листенеров: один poll -> один вызов с пачкой записей.
+     * Пачка внутри листенера параллелится по ключу через KeyedBatchDispatcher.
+     */
+    @Bean
+    public ConcurrentKafkaListenerContainerFactory<String, String> batchListenerContainerFactory(
+            KafkaProperties kafkaProperties,
+            LedgerBatchProperties ledgerBatchProperties
+    ) {
+        Map<String, Object> props = kafkaProperties.buildConsumerProperties(null);
+        props.put(ConsumerConfig.MAX_POLL_RECORDS_CONFIG, ledgerBatchProperties.getMaxPollRecords());
+        props.put(ConsumerConfig.FETCH_MAX_WAIT_MS_CONFIG, ledgerBatchProperties.getFetchMaxWaitMs());
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory =
+                new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(props));
+        factory.setBatchListener(true);
+
+        // concurrency задаётся для каждого листенера по его id (transaction.ledger.batch.concurrency)
+        factory.setContainerCustomizer(container -> {
+            Integer concurrency = ledgerBatchProperties.getConcurrency().get(container.getListenerId());
+            if (concurrency != null) {
+                container.setConcurrency(concurrency);
+            }
+        });
+        return factory;
+    }
 }
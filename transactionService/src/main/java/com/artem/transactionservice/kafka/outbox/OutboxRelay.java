@@ -0,0 +1,161 @@
+package com.artem.transactionservice.kafka.outbox;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.config.OutboxProperties;
+import com.artem.transactionservice.repository.OutboxRepository;
+import com.artem.transactionservice.repository.projection.OutboxEventRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Переносит события из outbox_events в Kafka.
+ * <p>
+ * Каждый шард разбирается пачками в порядке id: advisory-блокировка шарда, захват пачки,
+ * отправка всей пачки (producer сам склеивает её в batch-запросы),
+ * ожидание ack и удаление — в одной транзакции. Если брокер не ответил,
+ * транзакция откатывается и события уйдут повторно (consumers идемпотентны).
+ * <p>
+ * Инстансов может быть несколько, но шард в каждый момент разбирает только один:
+ * остальные пропускают его до следующего опроса, так порядок событий ключа сохраняется.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.outbox", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class OutboxRelay {
+
+    private final OutboxRepository outboxRepository;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate transactionTemplate;
+    private final OutboxProperties properties;
+
+    private final Counter publishedCounter;
+    private final Timer batchTimer;
+    private final MeterRegistry meterRegistry;
+    private final Map<Integer, AtomicLong> lagMillis = new ConcurrentHashMap<>();
+
+    public OutboxRelay(OutboxRepository outboxRepository,
+                       KafkaTemplate<String, Object> kafkaTemplate,
+                       ShardRouter shardRouter,
+                       TransactionTemplate transactionTemplate,
+                       OutboxProperties properties,
+                       MeterRegistry meterRegistry) {
+        this.outboxRepository = outboxRepository;
+        this.kafkaTemplate = kafkaTemplate;
+        this.shardRouter = shardRouter;
+        this.transactionTemplate = transactionTemplate;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        this.publishedCounter = Counter.builder("outbox.relay.published")
+                .description("Events relayed from outbox to Kafka")
+                .register(meterRegistry);
+        this.batchTimer = Timer.builder("outbox.relay.batch")
+                .description("Claim, send and delete of one outbox batch")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.outbox.poll-interval-ms:100}")
+    public void relay() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            try {
+                int relayed;
+                do {
+                    relayed = relayBatch(shard);
+                } while (relayed == properties.getBatchSize());
+            } catch (RuntimeException e) {
+                log.error("Outbox relay failed, shard={}", shard, e);
+            }
+
+            updateLag(shard);
+        }
+    }
+
+    private int relayBatch(int shard) {
+        Integer relayed = batchTimer.record(() -> transactionTemplate.execute(status -> {
+
+            if (!shardRouter.onShard(shard, () -> outboxRepository.tryLockRelay(shard))) {
+                log.debug("Outbox shard is relayed by another instance, shard={}", shard);
+                return 0;
+            }
+
+            List<OutboxEventRow> events = outboxRepository.claimBatch(shard, properties.getBatchSize());
+            if (events.isEmpty()) {
+                return 0;
+            }
+
+            CompletableFuture<?>[] acks = events.stream()
+                    .map(event -> kafkaTemplate.send(event.topic(), event.messageKey(), event.payload()))
+                    .toArray(CompletableFuture[]::new);
+
+            kafkaTemplate.flush();
+            awaitAcks(acks);
+
+            outboxRepository.deleteBatch(shard, events.stream().map(OutboxEventRow::id).toList());
+            return events.size();
+        }));
+
+        int count = relayed == null ? 0 : relayed;
+        if (count > 0) {
+            publishedCounter.increment(count);
+            log.debug("Outbox batch relayed, shard={}, size={}", shard, count);
+        }
+        return count;
+    }
+
+    private void awaitAcks(CompletableFuture<?>[] acks) {
+        try {
+            CompletableFuture.allOf(acks).get(properties.getSendTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for Kafka ack", e);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalStateException("Kafka did not acknowledge outbox batch", e);
+        }
+    }
+
+    private void updateLag(int shard) {
+        try {
+            long lag = outboxRepository.findOldestCreatedAt(shard)
+                    .map(createdAt -> Duration.between(createdAt, LocalDateTime.now()).toMillis())
+                    .orElse(0L);
+            lagGauge(shard).set(Math.max(lag, 0));
+        } catch (RuntimeException e) {
+            log.warn("Failed to measure outbox lag, shard={}", shard, e);
+        }
+    }
+
+    /**
+     * Шарды могут добавляться после переноса бакетов, поэтому gauge регистрируется при первом обращении.
+     */
+    private AtomicLong lagGauge(int shard) {
+        return lagMillis.computeIfAbsent(shard, key -> {
+            AtomicLong lag = new AtomicLong();
+            Gauge.builder("outbox.relay.lag", lag, AtomicLong::get)
+                    .description("Age of the oldest event still waiting in outbox")
+                    .baseUnit("milliseconds")
+                    .tag("shard", String.valueOf(key))
+                    .register(meterRegistry);
+            return lag;
+        });
+    }
+}
@@ -0,0 +1,59 @@
+package com.artem.transactionservice.ledger;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.config.LedgerSnapshotProperties;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Периодически снимает балансы кошельков, у которых появились проводки.
+ * Снимок = предыдущий снимок + проводки после него, поэтому стоимость прогона пропорциональна
+ * числу новых проводок, а не всей истории.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.ledger.snapshot", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BalanceSnapshotJob {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final ShardRouter shardRouter;
+    private final LedgerSnapshotProperties properties;
+    private final Counter takenCounter;
+
+    public BalanceSnapshotJob(LedgerEntryRepository ledgerEntryRepository,
+                              ShardRouter shardRouter,
+                              LedgerSnapshotProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.ledgerEntryRepository = ledgerEntryRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+        this.takenCounter = Counter.builder("ledger.snapshots.taken")
+                .description("Wallet balance snapshots taken from ledger entries")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.ledger.snapshot.interval-ms:300000}")
+    public void snapshot() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(Duration.ofMillis(properties.getLagMs()));
+
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            try {
+                int taken = shardRouter.onShard(shard, () -> ledgerEntryRepository.takeSnapshots(cutoff));
+                takenCounter.increment(taken);
+                if (taken > 0) {
+                    log.info("Balance snapshots taken, shard={}, wallets={}", shard, taken);
+                }
+            } catch (RuntimeException e) {
+                log.error("Balance snapshot failed, shard={}", shard, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.artem.transactionservice.money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Currency;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Сумма в минимальных единицах валюты (копейки, центы) — long вместо BigDecimal на горячем пути.
+ * <p>
+ * Масштаб — из ISO 4217 (java.util.Currency) по currency_code типа кошелька (RUB, USD — 2, JPY — 0):
+ * в wallet_types хранится только код, своего масштаба там нет, поэтому внутренние коды считаются двухзнаковыми.
+ * BigDecimal остаётся на границе: API, колонки балансов и SQL-арифметика консьюмеров. В базе суммы
+ * только DECIMAL — Money не сохраняется.
+ * Перевод туда и обратно точный — лишние знаки после запятой считаются ошибкой, а не округляются.
+ */
+public record Money(long minor, String currency) implements Comparable<Money> {
+
+    private static final int DEFAULT_SCALE = 2;
+    private static final long BASIS_POINTS = 10_000;
+
+    private static final Map<String, Integer> SCALES = new ConcurrentHashMap<>();
+
+    public Money {
+        if (currency == null) {
+            throw new IllegalArgumentException("currency must not be null");
+        }
+    }
+
+    public static Money of(BigDecimal amount, String currency) {
+        if (amount == null) {
+            throw new IllegalArgumentException("amount must not be null");
+        }
+        int scale = scaleOf(currency);
+        try {
+            return new Money(amount.setScale(scale, RoundingMode.UNNECESSARY).unscaledValue().longValueExact(), currency);
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    "amount " + amount.toPlainString() + " does not fit " + currency + " with scale " + scale, e);
+        }
+    }
+
+    public static Money zero(String currency) {
+        return new Money(0, currency);
+    }
+
+    /**
+     * Число знаков после запятой; неизвестные ISO 4217 коды и валюты без дробной части
+     * по справочнику (XAU, XXX) считаются как двухзнаковые.
+     */
+    public static int scaleOf(String currency) {
+        if (currency == null) {
+            throw new IllegalArgumentException("currency must not be null");
+        }
+        return SCALES.computeIfAbsent(currency, code -> {
+            try {
+                int digits = Currency.getInstance(code).getDefaultFractionDigits();
+                return digits >= 0 ? digits : DEFAULT_SCALE;
+            } catch (IllegalArgumentException e) {
+                return DEFAULT_SCALE;
+            }
+        });
+    }
+
+    public int scale() {
+        return scaleOf(currency);
+    }
+
+    public Money plus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.addExact(minor, other.minor), currency);
+    }
+
+    public Money minus(Money other) {
+        requireSameCurrency(other);
+        return new Money(Math.subtractExact(minor, other.minor), currency);
+    }
+
+    /**
+     * Доля суммы в базисных пунктах (150 = 1.5%), округление HALF_UP до минимальной единицы —
+     * как setScale(scale, HALF_UP) у BigDecimal.
+     */
+    public Money percentOf(long basisPoints) {
+        return new Money(percentOf(minor, basisPoints), currency);
+    }
+
+    public static long percentOf(long minor, long basisPoints) {
+        long product = Math.multiplyExact(minor, basisPoints);
+        long quotient = product / BASIS_POINTS;
+        if (Math.abs(product % BASIS_POINTS) * 2 >= BASIS_POINTS) {
+            quotient += Long.signum(product);
+        }
+        return quotient;
+    }
+
+    public int signum() {
+        return Long.signum(minor);
+    }
+
+    public boolean isGreaterThan(Money other) {
+        return compareTo(other) > 0;
+    }
+
+    public BigDecimal toBigDecimal() {
+        return BigDecimal.valueOf(minor, scale());
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        requireSameCurrency(other);
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public String toString() {
+        return toBigDecimal().toPlainString() + " " + currency;
+    }
+
+    private void requireSameCurrency(Money other) {
+        if (!currency.equals(other.currency)) {
+            throw new IllegalArgumentException("currency mismatch: " + currency + " vs " + other.currency);
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.artem.transactionservice.partition;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.config.PartitionProperties;
+import com.artem.transactionservice.repository.TransactionPartitionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Поддерживает месячные секции transactions на каждом шарде:
+ * 1️⃣ заранее создаёт секции на months-ahead месяцев вперёд;
+ * 2️⃣ отсоединяет секции старше detach-after-months и переносит их в archive-schema.
+ * <p>
+ * Обе операции идемпотентны, поэтому несколько инстансов могут выполнять их одновременно.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.partitions", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class TransactionPartitionMaintainer {
+
+    private final TransactionPartitionRepository partitionRepository;
+    private final ShardRouter shardRouter;
+    private final PartitionProperties properties;
+    private final Counter createdCounter;
+    private final Counter detachedCounter;
+
+    public TransactionPartitionMaintainer(TransactionPartitionRepository partitionRepository,
+                                          ShardRouter shardRouter,
+                                          PartitionProperties properties,
+                                          MeterRegistry meterRegistry) {
+        this.partitionRepository = partitionRepository;
+        this.shardRouter = shardRouter;
+        this.properties = properties;
+
+        this.createdCounter = Counter.builder("transactions.partitions.created")
+                .description("Monthly transactions partitions created ahead of time")
+                .register(meterRegistry);
+        this.detachedCounter = Counter.builder("transactions.partitions.detached")
+                .description("Monthly transactions partitions moved to the archive schema")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        maintain();
+    }
+
+    @Scheduled(cron = "${transaction.partitions.cron:0 0 3 * * *}")
+    public void maintain() {
+        for (int shard = 0; shard < shardRouter.getShardCount(); shard++) {
+            try {
+                int created = shardRouter.onShard(shard, () -> partitionRepository.createPartitions(properties.getMonthsAhead()));
+                createdCounter.increment(created);
+                if (created > 0) {
+                    log.info("Transactions partitions created, shard={}, count={}", shard, created);
+                }
+
+                if (properties.getDetachAfterMonths() > 0) {
+                    List<String> detached = shardRouter.onShard(shard, () -> partitionRepository.detachPartitions(
+                            properties.getDetachAfterMonths(), properties.getArchiveSchema()));
+                    detachedCounter.increment(detached.size());
+                    if (!detached.isEmpty()) {
+                        log.info("Transactions partitions archived, shard={}, partitions={}", shard, detached);
+                    }
+                }
+            } catch (RuntimeException e) {
+                log.error("Transactions partition maintenance failed, shard={}", shard, e);
+            }
+        }
+    }
+}
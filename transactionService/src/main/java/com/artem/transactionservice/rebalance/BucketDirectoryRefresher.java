@@ -0,0 +1,69 @@
+package com.artem.transactionservice.rebalance;
+
+import com.artem.transactionservice.ShardBuckets;
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.repository.BucketDirectoryRepository;
+import com.artem.transactionservice.repository.projection.ShardBucketRow;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Держит {@link ShardBuckets} в актуальном состоянии: при старте заполняет каталог
+ * раскладкой по умолчанию, затем периодически перечитывает shard_buckets.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.rebalance", name = "enabled", havingValue = "true")
+public class BucketDirectoryRefresher {
+
+    private final BucketDirectoryRepository directoryRepository;
+    private final int shardCount;
+
+    public BucketDirectoryRefresher(BucketDirectoryRepository directoryRepository,
+                                    ShardRouter shardRouter,
+                                    MeterRegistry meterRegistry) {
+        if (shardRouter.isLegacyHash()) {
+            throw new IllegalStateException("Bucket rebalancing requires legacy-hash=false for user-sharding in sharding.yaml");
+        }
+        this.directoryRepository = directoryRepository;
+        this.shardCount = shardRouter.getDefaultShardCount();
+
+        FunctionCounter.builder("rebalance.frozen.rejected", this, refresher -> ShardBuckets.frozenRejects())
+                .description("Requests rejected because their bucket was frozen for the final catch-up")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void init() {
+        int seeded = directoryRepository.seed(shardCount);
+        if (seeded > 0) {
+            log.info("Bucket directory seeded, buckets={}, shards={}", seeded, shardCount);
+        }
+        refresh();
+    }
+
+    @Scheduled(fixedDelayString = "${transaction.rebalance.directory-refresh-ms:1000}")
+    public void refresh() {
+        List<ShardBucketRow> rows = directoryRepository.findAll();
+        if (rows.size() != ShardBuckets.BUCKET_COUNT) {
+            log.warn("Bucket directory is incomplete, rows={}", rows.size());
+            return;
+        }
+
+        int[] shards = new int[ShardBuckets.BUCKET_COUNT];
+        boolean[] frozen = new boolean[ShardBuckets.BUCKET_COUNT];
+        for (ShardBucketRow row : rows) {
+            shards[row.bucket()] = row.shardId();
+            frozen[row.bucket()] = BucketDirectoryRepository.FROZEN.equals(row.state());
+        }
+
+        ShardBuckets.publish(shards, frozen);
+    }
+}
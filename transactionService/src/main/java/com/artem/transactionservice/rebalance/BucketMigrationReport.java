@@ -0,0 +1,15 @@
+package com.artem.transactionservice.rebalance;
+
+import java.util.Set;
+
+public record BucketMigrationReport(
+        Set<Integer> buckets,
+        int sourceShard,
+        int targetShard,
+        long wallets,
+        long copiedRows,
+        long deletedRows,
+        long durationMs,
+        long frozenMs
+) {
+}
@@ -0,0 +1,550 @@
+package com.artem.transactionservice.rebalance;
+
+import com.artem.transactionservice.ShardBuckets;
+import com.artem.transactionservice.config.RebalanceProperties;
+import com.artem.transactionservice.repository.BucketDirectoryRepository;
+import com.artem.transactionservice.repository.ShardCopyRepository;
+import com.artem.transactionservice.repository.projection.ShardBucketRow;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Переносит бакеты пользователей на другой шард без остановки сервиса.
+ * <p>
+ * 1️⃣ COPYING: кошельки бакетов и все строки их владельцев из таблиц, шардированных по user_uid
+ * ({@link #MOVED_TABLES}), порциями копируются в staging-таблицы rebalance_* целевого шарда.
+ * Запись продолжает идти в исходный шард.
+ * <p>
+ * 2️⃣ Догонка: строки, изменённые после отметки времени (COALESCE(modified_at, created_at)),
+ * копируются повторно, пока дельта не станет меньше одной порции. Строки без отметки времени,
+ * которые меняются на месте (transfer_credits, idempotency_keys), копируются заново целиком.
+ * <p>
+ * 3️⃣ FROZEN: бакеты замораживаются, после распространения каталога на все инстансы
+ * выполняется финальная догонка, staging переносится в живые таблицы, исходные строки удаляются.
+ * <p>
+ * 4️⃣ Флип: один UPDATE shard_buckets переключает все бакеты на новый шард.
+ * <p>
+ * Копии до заморозки лежат в staging, а не в живых таблицах, чтобы широковещательные
+ * запросы по uid (без user_uid) не видели одну строку в двух шардах.
+ * <p>
+ * id из BIGSERIAL (ledger_entries, idempotency_keys) в целевом шарде выдаются заново: строки
+ * сопоставляются по естественному ключу. Из снимков балансов переносятся только начальные
+ * (last_entry_id = 0), остальные ссылаются на xid транзакций источника — целевой шард пересчитает их сам.
+ * outbox_events шардируется по shard_id и не переносится: relay источника дошлёт уже записанные события.
+ * Время заморозки пропорционально объёму бакетов, поэтому переносить их стоит небольшими группами.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(prefix = "transaction.rebalance", name = "enabled", havingValue = "true")
+public class BucketMigrator {
+
+    private static final String WALLETS = "wallets";
+    private static final String TRANSACTIONS = "transactions";
+    private static final String BALANCE_SLOTS = "wallet_balance_slots";
+    private static final String TRANSFER_CREDITS = "transfer_credits";
+    private static final String LEDGER_ENTRIES = "ledger_entries";
+    private static final String BALANCE_SNAPSHOTS = "wallet_balance_snapshots";
+    private static final String IDEMPOTENCY_KEYS = "idempotency_keys";
+    private static final String WALLET_TYPES = "wallet_types";
+    private static final String STAGING_PREFIX = "rebalance_";
+
+    /**
+     * Все таблицы с user-sharding в sharding.yaml: новая таблица по user_uid должна появиться здесь,
+     * иначе её строки останутся в исходном шарде.
+     */
+    public static final List<String> MOVED_TABLES = List.of(
+            WALLETS, TRANSACTIONS, BALANCE_SLOTS, TRANSFER_CREDITS, LEDGER_ENTRIES, BALANCE_SNAPSHOTS, IDEMPOTENCY_KEYS
+    );
+
+    private static final Timestamp EPOCH = new Timestamp(0);
+
+    private static final List<String> UID_KEY = List.of("uid");
+    // transactions секционирована по created_at, он входит в первичный ключ
+    private static final List<String> TRANSACTION_KEY = List.of("uid", "created_at");
+    private static final List<String> SLOT_KEY = List.of("wallet_uid", "slot");
+    private static final List<String> CREDIT_KEY = List.of("transaction_uid");
+    private static final List<String> LEDGER_KEY = List.of("transaction_uid", "wallet_uid", "direction", "kind");
+    private static final List<String> SNAPSHOT_KEY = List.of("wallet_uid", "last_entry_id");
+    private static final List<String> IDEMPOTENCY_KEY = List.of("user_uid", "operation", "idempotency_key");
+
+    private final ShardDataSources shardDataSources;
+    private final BucketDirectoryRepository directoryRepository;
+    private final ShardCopyRepository copyRepository;
+    private final BucketDirectoryRefresher directoryRefresher;
+    private final RebalanceProperties properties;
+    private final MeterRegistry meterRegistry;
+
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofPlatform().name("bucket-migrator").factory());
+    private final AtomicInteger movingBuckets = new AtomicInteger();
+
+    public BucketMigrator(ShardDataSources shardDataSources,
+                          BucketDirectoryRepository directoryRepository,
+                          ShardCopyRepository copyRepository,
+                          BucketDirectoryRefresher directoryRefresher,
+                          RebalanceProperties properties,
+                          MeterRegistry meterRegistry) {
+        this.shardDataSources = shardDataSources;
+        this.directoryRepository = directoryRepository;
+        this.copyRepository = copyRepository;
+        this.directoryRefresher = directoryRefresher;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+
+        Gauge.builder("rebalance.buckets.moving", movingBuckets, AtomicInteger::get)
+                .description("Buckets currently being moved between shards")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Запускает перенос в фоне. Переносы выполняются строго по одному.
+     */
+    public CompletableFuture<List<BucketMigrationReport>> submit(Set<Integer> buckets, int targetShard) {
+        validate(buckets, targetShard);
+        return CompletableFuture.supplyAsync(() -> migrate(buckets, targetShard), executor);
+    }
+
+    public List<BucketMigrationReport> migrate(Set<Integer> buckets, int targetShard) {
+        validate(buckets, targetShard);
+
+        Map<Integer, Set<Integer>> bucketsBySource = new TreeMap<>();
+        for (ShardBucketRow row : directoryRepository.findAll()) {
+            if (!buckets.contains(row.bucket()) || row.shardId() == targetShard) {
+                continue;
+            }
+            if (!BucketDirectoryRepository.STABLE.equals(row.state())) {
+                throw new IllegalStateException("Bucket " + row.bucket() + " is already being moved");
+            }
+            bucketsBySource.computeIfAbsent(row.shardId(), shard -> new TreeSet<>()).add(row.bucket());
+        }
+
+        List<BucketMigrationReport> reports = new ArrayList<>();
+        bucketsBySource.forEach((sourceShard, sourceBuckets) ->
+                reports.add(migrateFrom(sourceShard, sourceBuckets, targetShard)));
+        return reports;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private BucketMigrationReport migrateFrom(int sourceShard, Set<Integer> buckets, int targetShard) {
+        long startedAt = System.nanoTime();
+        JdbcTemplate source = shardDataSources.jdbc(sourceShard);
+        JdbcTemplate target = shardDataSources.jdbc(targetShard);
+        Migration migration = new Migration(buckets);
+
+        if (directoryRepository.startCopying(buckets, targetShard) != buckets.size()) {
+            directoryRepository.abort(buckets, targetShard);
+            throw new IllegalStateException("Buckets " + buckets + " changed state concurrently");
+        }
+
+        log.info("Bucket migration started, buckets={}, {} -> {}", buckets, sourceShard, targetShard);
+        movingBuckets.addAndGet(buckets.size());
+        boolean promoted = false;
+
+        try {
+            prepareStaging(target);
+
+            Timestamp since = watermark(source);
+            phase("copy", () -> copyAll(source, target, migration));
+
+            for (int pass = 0; pass < properties.getMaxCatchUpPasses(); pass++) {
+                Timestamp next = watermark(source);
+                Timestamp from = since;
+                long changed = phase("catch_up", () -> catchUp(source, target, migration, from));
+                since = next;
+                if (changed < properties.getChunkSize()) {
+                    break;
+                }
+            }
+
+            directoryRepository.freeze(buckets, targetShard);
+            long frozenAt = System.nanoTime();
+            awaitDirectoryPropagation();
+
+            Timestamp from = since;
+            phase("final_catch_up", () -> catchUp(source, target, migration, from));
+            phase("promote", () -> promote(targetShard));
+            promoted = true;
+            phase("cleanup", () -> deleteSource(source, migration));
+
+            directoryRepository.flip(buckets, targetShard);
+            directoryRefresher.refresh();
+
+            BucketMigrationReport report = new BucketMigrationReport(
+                    buckets, sourceShard, targetShard,
+                    migration.walletUids.size(), migration.copiedRows, migration.deletedRows,
+                    toMillis(System.nanoTime() - startedAt), toMillis(System.nanoTime() - frozenAt)
+            );
+            log.info("Bucket migration finished: {}, throughput={} rows/s", report,
+                    report.durationMs() == 0 ? report.copiedRows() : report.copiedRows() * 1000 / report.durationMs());
+            return report;
+        } catch (RuntimeException e) {
+            if (promoted) {
+                // данные уже в целевом шарде: переключаемся, остатки в источнике удаляются повторным запуском очистки
+                directoryRepository.flip(buckets, targetShard);
+                log.error("Bucket migration promoted but source cleanup failed, buckets={}, source={}",
+                        buckets, sourceShard, e);
+            } else {
+                directoryRepository.abort(buckets, targetShard);
+                dropStaging(target);
+                log.error("Bucket migration aborted, buckets={}, {} -> {}", buckets, sourceShard, targetShard, e);
+            }
+            directoryRefresher.refresh();
+            throw e;
+        } finally {
+            movingBuckets.addAndGet(-buckets.size());
+        }
+    }
+
+    private long copyAll(JdbcTemplate source, JdbcTemplate target, Migration migration) {
+        int chunkSize = properties.getChunkSize();
+
+        UUID after = ShardCopyRepository.MIN_UUID;
+        List<Map<String, Object>> page;
+        do {
+            page = copyRepository.scanWallets(source, after, chunkSize);
+            if (!page.isEmpty()) {
+                after = (UUID) page.getLast().get("uid");
+            }
+            copyWallets(source, target, migration, page);
+            pause();
+        } while (page.size() == chunkSize);
+
+        for (List<UUID> walletChunk : chunks(migration.walletUids, chunkSize)) {
+            UUID afterTransaction = ShardCopyRepository.MIN_UUID;
+            do {
+                page = copyRepository.findTransactions(source, walletChunk, afterTransaction, chunkSize);
+                if (!page.isEmpty()) {
+                    afterTransaction = (UUID) page.getLast().get("uid");
+                }
+                copyRows(target, migration, TRANSACTIONS, TRANSACTION_KEY, page);
+                pause();
+            } while (page.size() == chunkSize);
+
+            copyLedgerEntries(source, target, migration, walletChunk, EPOCH);
+        }
+
+        copyUntimed(source, target, migration);
+        return migration.copiedRows;
+    }
+
+    /**
+     * Повторно копирует всё, что изменилось в источнике с момента since, включая новые кошельки бакетов.
+     */
+    private long catchUp(JdbcTemplate source, JdbcTemplate target, Migration migration, Timestamp since) {
+        int chunkSize = properties.getChunkSize();
+        long before = migration.copiedRows;
+
+        UUID after = ShardCopyRepository.MIN_UUID;
+        List<Map<String, Object>> page;
+        do {
+            page = copyRepository.findChangedWallets(source, since, after, chunkSize);
+            if (!page.isEmpty()) {
+                after = (UUID) page.getLast().get("uid");
+            }
+            copyWallets(source, target, migration, page);
+        } while (page.size() == chunkSize);
+
+        after = ShardCopyRepository.MIN_UUID;
+        do {
+            page = copyRepository.findChangedTransactions(source, since, after, chunkSize);
+            if (!page.isEmpty()) {
+                after = (UUID) page.getLast().get("uid");
+            }
+            copyRows(target, migration, TRANSACTIONS, TRANSACTION_KEY, page.stream()
+                    .filter(row -> migration.walletUids.contains((UUID) row.get("wallet_uid")))
+                    .toList());
+        } while (page.size() == chunkSize);
+
+        // проводки неизменяемы: достаточно созданных после since
+        for (List<UUID> walletChunk : chunks(migration.walletUids, chunkSize)) {
+            copyLedgerEntries(source, target, migration, walletChunk, since);
+        }
+
+        // слоты меняются на каждом зачислении, их немного — копируем целиком
+        for (List<UUID> walletChunk : chunks(migration.splitWalletUids, chunkSize)) {
+            copyRows(target, migration, BALANCE_SLOTS, SLOT_KEY, copyRepository.findBalanceSlots(source, walletChunk));
+        }
+
+        long changed = migration.copiedRows - before;
+        copyUntimed(source, target, migration);
+        return changed;
+    }
+
+    private void copyLedgerEntries(JdbcTemplate source, JdbcTemplate target, Migration migration,
+                                   List<UUID> walletUids, Timestamp since) {
+        int chunkSize = properties.getChunkSize();
+        long afterId = 0;
+        List<Map<String, Object>> page;
+        do {
+            page = copyRepository.findLedgerEntries(source, walletUids, since, afterId, chunkSize);
+            if (!page.isEmpty()) {
+                afterId = ((Number) page.getLast().get("id")).longValue();
+            }
+            copyRows(target, migration, LEDGER_ENTRIES, LEDGER_KEY, withoutId(page));
+            pause();
+        } while (page.size() == chunkSize);
+    }
+
+    /**
+     * Строки без отметки времени, которые меняются на месте: статус зачисления, ответ по ключу идемпотентности.
+     * Их немного (ключи живут до expires_at), поэтому каждый проход копирует их целиком; финальный — под заморозкой.
+     * Начальные снимки неизменяемы, но копируются здесь же — для кошельков, найденных догонкой.
+     */
+    private void copyUntimed(JdbcTemplate source, JdbcTemplate target, Migration migration) {
+        int chunkSize = properties.getChunkSize();
+
+        for (List<UUID> walletChunk : chunks(migration.walletUids, chunkSize)) {
+            copyRows(target, migration, TRANSFER_CREDITS, CREDIT_KEY, copyRepository.findTransferCredits(source, walletChunk));
+            copyRows(target, migration, BALANCE_SNAPSHOTS, SNAPSHOT_KEY,
+                    copyRepository.findOpeningSnapshots(source, walletChunk));
+        }
+
+        for (List<UUID> userChunk : chunks(migration.userUids, chunkSize)) {
+            copyRows(target, migration, IDEMPOTENCY_KEYS, IDEMPOTENCY_KEY,
+                    withoutId(copyRepository.findIdempotencyKeys(source, userChunk)));
+        }
+    }
+
+    private void copyWallets(JdbcTemplate source, JdbcTemplate target, Migration migration,
+                             List<Map<String, Object>> rows) {
+        List<Map<String, Object>> moved = rows.stream()
+                .filter(row -> migration.buckets.contains(ShardBuckets.bucketOf((UUID) row.get("user_uid"))))
+                .toList();
+        if (moved.isEmpty()) {
+            return;
+        }
+
+        // типы кошельков — справочник, в целевом шарде их достаточно просто иметь
+        Set<UUID> walletTypeUids = new LinkedHashSet<>();
+        moved.forEach(row -> walletTypeUids.add((UUID) row.get("wallet_type_uid")));
+        copyRepository.upsert(target, WALLET_TYPES, UID_KEY, false,
+                copyRepository.findWalletTypes(source, walletTypeUids));
+
+        copyRows(target, migration, WALLETS, UID_KEY, moved);
+
+        List<UUID> splitWallets = new ArrayList<>();
+        for (Map<String, Object> row : moved) {
+            UUID walletUid = (UUID) row.get("uid");
+            migration.walletUids.add(walletUid);
+            migration.userUids.add((UUID) row.get("user_uid"));
+            if (((Number) row.get("balance_slots")).intValue() > 0) {
+                migration.splitWalletUids.add(walletUid);
+                splitWallets.add(walletUid);
+            }
+        }
+
+        copyRows(target, migration, BALANCE_SLOTS, SLOT_KEY, copyRepository.findBalanceSlots(source, splitWallets));
+    }
+
+    private void copyRows(JdbcTemplate target, Migration migration, String table, List<String> keyColumns,
+                          List<Map<String, Object>> rows) {
+        int copied = copyRepository.upsert(target, STAGING_PREFIX + table, keyColumns, true, rows);
+        migration.copiedRows += copied;
+        counter("rebalance.rows.copied", table).increment(copied);
+    }
+
+    /**
+     * Переносит staging в живые таблицы одной транзакцией целевого шарда.
+     */
+    private long promote(int targetShard) {
+        return shardDataSources.transactions(targetShard).execute(status -> {
+            JdbcTemplate target = shardDataSources.jdbc(targetShard);
+            int wallets = target.update(
+                    "INSERT INTO wallets SELECT * FROM rebalance_wallets ON CONFLICT (uid) DO NOTHING");
+            int transactions = target.update(
+                    "INSERT INTO transactions SELECT * FROM rebalance_transactions ON CONFLICT (uid, created_at) DO NOTHING");
+            int slots = target.update(
+                    "INSERT INTO wallet_balance_slots SELECT * FROM rebalance_wallet_balance_slots"
+                            + " ON CONFLICT (wallet_uid, slot) DO NOTHING");
+            int credits = target.update(
+                    "INSERT INTO transfer_credits SELECT * FROM rebalance_transfer_credits"
+                            + " ON CONFLICT (transaction_uid) DO NOTHING");
+            int snapshots = target.update(
+                    "INSERT INTO wallet_balance_snapshots SELECT * FROM rebalance_wallet_balance_snapshots"
+                            + " ON CONFLICT (wallet_uid, last_entry_id) DO NOTHING");
+            // id и created_xid — целевого шарда: новые проводки попадут в следующий снимок балансов
+            int entries = target.update("""
+                    INSERT INTO ledger_entries (created_at, user_uid, wallet_uid, transaction_uid, direction, amount, kind)
+                    SELECT created_at, user_uid, wallet_uid, transaction_uid, direction, amount, kind
+                    FROM rebalance_ledger_entries
+                    ORDER BY created_at, id
+                    ON CONFLICT (transaction_uid, wallet_uid, direction, kind) DO NOTHING
+                    """);
+            int keys = target.update("""
+                    INSERT INTO idempotency_keys (user_uid, operation, idempotency_key, request_hash, response,
+                                                  created_at, expires_at)
+                    SELECT user_uid, operation, idempotency_key, request_hash, response, created_at, expires_at
+                    FROM rebalance_idempotency_keys
+                    ON CONFLICT (user_uid, operation, idempotency_key) DO NOTHING
+                    """);
+            dropStaging(target);
+            return (long) wallets + transactions + slots + credits + snapshots + entries + keys;
+        });
+    }
+
+    private long deleteSource(JdbcTemplate source, Migration migration) {
+        int chunkSize = properties.getChunkSize();
+
+        for (List<UUID> walletChunk : chunks(migration.walletUids, chunkSize)) {
+            deleteAll(source, TRANSACTIONS, "wallet_uid", walletChunk, migration);
+            deleteAll(source, BALANCE_SLOTS, "wallet_uid", walletChunk, migration);
+            deleteAll(source, TRANSFER_CREDITS, "wallet_uid", walletChunk, migration);
+            deleteAll(source, LEDGER_ENTRIES, "wallet_uid", walletChunk, migration);
+            deleteAll(source, BALANCE_SNAPSHOTS, "wallet_uid", walletChunk, migration);
+            deleteAll(source, WALLETS, "uid", walletChunk, migration);
+        }
+
+        // бакет — это пользователи целиком: все их кошельки переехали вместе с ключами идемпотентности
+        for (List<UUID> userChunk : chunks(migration.userUids, chunkSize)) {
+            deleteAll(source, IDEMPOTENCY_KEYS, "user_uid", userChunk, migration);
+        }
+
+        return migration.deletedRows;
+    }
+
+    private void deleteAll(JdbcTemplate source, String table, String column, List<UUID> values, Migration migration) {
+        int deleted;
+        do {
+            deleted = copyRepository.deleteChunk(source, table, column, values, properties.getChunkSize());
+            migration.deletedRows += deleted;
+            counter("rebalance.rows.deleted", table).increment(deleted);
+        } while (deleted == properties.getChunkSize());
+    }
+
+    private void prepareStaging(JdbcTemplate target) {
+        dropStaging(target);
+        for (String table : MOVED_TABLES) {
+            target.execute("CREATE TABLE " + STAGING_PREFIX + table + " (LIKE " + table + " INCLUDING ALL)");
+        }
+    }
+
+    private void dropStaging(JdbcTemplate target) {
+        for (String table : MOVED_TABLES.reversed()) {
+            target.execute("DROP TABLE IF EXISTS " + STAGING_PREFIX + table);
+        }
+    }
+
+    /**
+     * После заморозки каждый инстанс должен успеть перечитать каталог,
+     * иначе запись в замороженный бакет может проскочить в исходный шард.
+     */
+    private void awaitDirectoryPropagation() {
+        directoryRefresher.refresh();
+        sleep(2 * properties.getDirectoryRefreshMs());
+    }
+
+    private Timestamp watermark(JdbcTemplate source) {
+        Timestamp now = copyRepository.now(source);
+        return new Timestamp(now.getTime() - properties.getCatchUpMarginMs());
+    }
+
+    private <T> T phase(String name, Supplier<T> action) {
+        return Timer.builder("rebalance.phase")
+                .description("Duration of bucket migration phases")
+                .tag("phase", name)
+                .register(meterRegistry)
+                .record(action);
+    }
+
+    private Counter counter(String name, String table) {
+        return Counter.builder(name)
+                .tag("table", table)
+                .register(meterRegistry);
+    }
+
+    private void pause() {
+        if (properties.getChunkPauseMs() > 0) {
+            sleep(properties.getChunkPauseMs());
+        }
+    }
+
+    private void validate(Set<Integer> buckets, int targetShard) {
+        if (buckets.isEmpty()) {
+            throw new IllegalArgumentException("No buckets to move");
+        }
+        for (int bucket : buckets) {
+            if (bucket < 0 || bucket >= ShardBuckets.BUCKET_COUNT) {
+                throw new IllegalArgumentException("Bucket " + bucket + " is out of range");
+            }
+        }
+        if (targetShard < 0 || targetShard >= shardDataSources.size()) {
+            throw new IllegalArgumentException("Shard " + targetShard + " is not configured in transaction.rebalance.shards");
+        }
+    }
+
+    private static List<List<UUID>> chunks(Set<UUID> values, int chunkSize) {
+        List<UUID> all = new ArrayList<>(values);
+        List<List<UUID>> chunks = new ArrayList<>();
+        for (int from = 0; from < all.size(); from += chunkSize) {
+            chunks.add(all.subList(from, Math.min(from + chunkSize, all.size())));
+        }
+        return chunks;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Bucket migration interrupted", e);
+        }
+    }
+
+    /**
+     * BIGSERIAL-id источника в целевом шарде не нужен: там своя последовательность.
+     */
+    /**
+     * id и created_xid проводки имеют смысл только в исходном шарде: целевой выдаёт свои.
+     */
+    private static List<Map<String, Object>> withoutId(List<Map<String, Object>> rows) {
+        rows.forEach(row -> {
+            row.remove("id");
+            row.remove("created_xid");
+        });
+        return rows;
+    }
+
+    private static long toMillis(long nanos) {
+        return nanos / 1_000_000;
+    }
+
+    private static final class Migration {
+
+        private final Set<Integer> buckets;
+        private final Set<UUID> walletUids = new LinkedHashSet<>();
+        private final Set<UUID> splitWalletUids = new LinkedHashSet<>();
+        private final Set<UUID> userUids = new LinkedHashSet<>();
+        private long copiedRows;
+        private long deletedRows;
+
+        private Migration(Set<Integer> buckets) {
+            this.buckets = buckets;
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.artem.transactionservice.rebalance;
+
+import com.artem.transactionservice.config.RebalanceProperties;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Прямые подключения к физическим шардам в обход ShardingSphere:
+ * мигратору нужно читать и писать конкретную базу, а не ту, что выберет алгоритм.
+ * <p>
+ * Намеренно не DataSource-бин, чтобы не подменить шардированный DataSource приложения.
+ */
+public class ShardDataSources implements AutoCloseable {
+
+    private final List<HikariDataSource> dataSources = new ArrayList<>();
+    private final List<JdbcTemplate> jdbcTemplates = new ArrayList<>();
+    private final List<TransactionTemplate> transactionTemplates = new ArrayList<>();
+
+    public ShardDataSources(List<RebalanceProperties.Shard> shards, int poolSize) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("transaction.rebalance.shards must list every physical shard");
+        }
+
+        for (int i = 0; i < shards.size(); i++) {
+            RebalanceProperties.Shard shard = shards.get(i);
+
+            HikariConfig config = new HikariConfig();
+            config.setPoolName("rebalance-ds_" + i);
+            config.setJdbcUrl(shard.getUrl());
+            config.setUsername(shard.getUsername());
+            config.setPassword(shard.getPassword());
+            config.setMaximumPoolSize(poolSize);
+
+            HikariDataSource dataSource = new HikariDataSource(config);
+            dataSources.add(dataSource);
+            jdbcTemplates.add(new JdbcTemplate(dataSource));
+            transactionTemplates.add(new TransactionTemplate(new DataSourceTransactionManager(dataSource)));
+        }
+    }
+
+    public JdbcTemplate jdbc(int shard) {
+        checkShard(shard);
+        return jdbcTemplates.get(shard);
+    }
+
+    public TransactionTemplate transactions(int shard) {
+        checkShard(shard);
+        return transactionTemplates.get(shard);
+    }
+
+    public int size() {
+        return dataSources.size();
+    }
+
+    @Override
+    public void close() {
+        dataSources.forEach(HikariDataSource::close);
+    }
+
+    private void checkShard(int shard) {
+        if (shard < 0 || shard >= dataSources.size()) {
+            throw new IllegalArgumentException("Shard " + shard + " is not configured in transaction.rebalance.shards");
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.ShardBuckets;
+import com.artem.transactionservice.rebalance.ShardDataSources;
+import com.artem.transactionservice.repository.projection.ShardBucketRow;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Каталог бакетов shard_buckets. Единственный экземпляр лежит в ds_0.
+ * <p>
+ * Состояния бакета: STABLE — живёт в shard_id; COPYING — данные копируются в target_shard_id,
+ * запись идёт в shard_id; FROZEN — финальная догонка, запросы к бакету отклоняются.
+ */
+@Repository
+@ConditionalOnProperty(prefix = "transaction.rebalance", name = "enabled", havingValue = "true")
+public class BucketDirectoryRepository {
+
+    public static final String STABLE = "STABLE";
+    public static final String COPYING = "COPYING";
+    public static final String FROZEN = "FROZEN";
+
+    private static final RowMapper<ShardBucketRow> ROW_MAPPER = (rs, rowNum) -> new ShardBucketRow(
+            rs.getInt("bucket"),
+            rs.getInt("shard_id"),
+            rs.getString("state"),
+            (Integer) rs.getObject("target_shard_id")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public BucketDirectoryRepository(ShardDataSources shardDataSources) {
+        this.jdbcTemplate = shardDataSources.jdbc(0);
+    }
+
+    /**
+     * Заполняет каталог раскладкой по умолчанию (bucket % shardCount), если он ещё пуст.
+     */
+    public int seed(int shardCount) {
+        return jdbcTemplate.update("""
+                INSERT INTO shard_buckets (bucket, shard_id, state)
+                SELECT b, b % ?, 'STABLE' FROM generate_series(0, ?) AS b
+                ON CONFLICT (bucket) DO NOTHING
+                """, shardCount, ShardBuckets.BUCKET_COUNT - 1);
+    }
+
+    public List<ShardBucketRow> findAll() {
+        return jdbcTemplate.query(
+                "SELECT bucket, shard_id, state, target_shard_id FROM shard_buckets ORDER BY bucket",
+                ROW_MAPPER
+        );
+    }
+
+    /**
+     * STABLE → COPYING. Бакеты, уже участвующие в другом переносе, не трогаются.
+     */
+    public int startCopying(Collection<Integer> buckets, int targetShardId) {
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE shard_buckets
+                    SET state = 'COPYING', target_shard_id = ?, modified_at = now()
+                    WHERE bucket = ANY(?) AND state = 'STABLE' AND shard_id <> ?
+                    """);
+            ps.setInt(1, targetShardId);
+            ps.setArray(2, con.createArrayOf("integer", buckets.toArray()));
+            ps.setInt(3, targetShardId);
+            return ps;
+        });
+    }
+
+    public int freeze(Collection<Integer> buckets, int targetShardId) {
+        return moveState(buckets, targetShardId, COPYING, FROZEN);
+    }
+
+    /**
+     * Откат неудачного переноса: бакеты остаются в исходном шарде.
+     */
+    public int abort(Collection<Integer> buckets, int targetShardId) {
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE shard_buckets
+                    SET state = 'STABLE', target_shard_id = NULL, modified_at = now()
+                    WHERE bucket = ANY(?) AND target_shard_id = ?
+                    """);
+            ps.setArray(1, con.createArrayOf("integer", buckets.toArray()));
+            ps.setInt(2, targetShardId);
+            return ps;
+        });
+    }
+
+    /**
+     * Переключение одним UPDATE: все бакеты переноса меняют шард атомарно.
+     */
+    public int flip(Collection<Integer> buckets, int targetShardId) {
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE shard_buckets
+                    SET shard_id = target_shard_id, target_shard_id = NULL, state = 'STABLE', modified_at = now()
+                    WHERE bucket = ANY(?) AND state = 'FROZEN' AND target_shard_id = ?
+                    """);
+            ps.setArray(1, con.createArrayOf("integer", buckets.toArray()));
+            ps.setInt(2, targetShardId);
+            return ps;
+        });
+    }
+
+    private int moveState(Collection<Integer> buckets, int targetShardId, String from, String to) {
+        return jdbcTemplate.update(con -> {
+            var ps = con.prepareStatement("""
+                    UPDATE shard_buckets
+                    SET state = ?, modified_at = now()
+                    WHERE bucket = ANY(?) AND state = ? AND target_shard_id = ?
+                    """);
+            ps.setString(1, to);
+            ps.setArray(2, con.createArrayOf("integer", buckets.toArray()));
+            ps.setString(3, from);
+            ps.setInt(4, targetShardId);
+            return ps;
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.repository.projection.FeeRuleRow;
+import com.artem.transactionservice.repository.projection.ReferenceDataVersion;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Правила комиссий fee_rules — broadcast-таблица, чтение идёт в любой шард.
+ */
+@Repository
+@RequiredArgsConstructor
+public class FeeRuleRepository {
+
+    private static final RowMapper<FeeRuleRow> ROW_MAPPER = (rs, rowNum) -> new FeeRuleRow(
+            rs.getLong("id"),
+            rs.getString("operation"),
+            rs.getString("currency_code"),
+            rs.getObject("wallet_type_uid", UUID.class),
+            rs.getBigDecimal("min_amount"),
+            rs.getInt("percent_bp"),
+            rs.getBigDecimal("fixed_fee"),
+            rs.getBigDecimal("min_fee"),
+            rs.getBigDecimal("max_fee")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public List<FeeRuleRow> findActive() {
+        return jdbcTemplate.query("""
+                SELECT id, operation, currency_code, wallet_type_uid, min_amount, percent_bp, fixed_fee, min_fee, max_fee
+                FROM fee_rules
+                WHERE status = 'ACTIVE'
+                ORDER BY id
+                """, ROW_MAPPER);
+    }
+
+    /**
+     * Считает все строки, а не только ACTIVE: архивация правила тоже должна перестроить индекс.
+     */
+    public ReferenceDataVersion version() {
+        return jdbcTemplate.queryForObject(
+                "SELECT count(*) AS total, max(modified_at) AS last_modified FROM fee_rules",
+                (rs, rowNum) -> {
+                    Timestamp lastModified = rs.getTimestamp("last_modified");
+                    return new ReferenceDataVersion(rs.getLong("total"),
+                            lastModified != null ? lastModified.toLocalDateTime() : null);
+                });
+    }
+}
@@ -0,0 +1,79 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.repository.projection.IdempotencyKeyRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Ключи идемпотентности confirm, маршрут по user_uid.
+ * Очистка ({@link #findExpired}, {@link #deleteBatch}) выполняется в конкретном шарде через ShardRouter.onShard.
+ */
+@Repository
+@RequiredArgsConstructor
+public class IdempotencyKeyRepository {
+
+    private static final RowMapper<IdempotencyKeyRow> ROW_MAPPER = (rs, rowNum) -> new IdempotencyKeyRow(
+            rs.getString("request_hash"),
+            rs.getString("response")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Захватывает ключ в текущей транзакции. Если ключ уже захвачен незавершённой транзакцией,
+     * Postgres ждёт её окончания.
+     *
+     * @return false, если ключ уже сохранён
+     */
+    public boolean claim(UUID userUid, String operation, String key, String requestHash, LocalDateTime expiresAt) {
+        return jdbcTemplate.update("""
+                INSERT INTO idempotency_keys (user_uid, operation, idempotency_key, request_hash, expires_at)
+                VALUES (?, ?, ?, ?, ?)
+                ON CONFLICT (user_uid, operation, idempotency_key) DO NOTHING
+                """, userUid, operation, key, requestHash, Timestamp.valueOf(expiresAt)) == 1;
+    }
+
+    public void saveResponse(UUID userUid, String operation, String key, String response) {
+        jdbcTemplate.update("""
+                UPDATE idempotency_keys SET response = ?
+                WHERE user_uid = ? AND operation = ? AND idempotency_key = ?
+                """, response, userUid, operation, key);
+    }
+
+    public Optional<IdempotencyKeyRow> find(UUID userUid, String operation, String key) {
+        return jdbcTemplate.query("""
+                SELECT request_hash, response FROM idempotency_keys
+                WHERE user_uid = ? AND operation = ? AND idempotency_key = ?
+                """, ROW_MAPPER, userUid, operation, key).stream().findFirst();
+    }
+
+    public List<Long> findExpired(LocalDateTime now, int limit) {
+        return jdbcTemplate.queryForList("""
+                SELECT id FROM idempotency_keys
+                WHERE expires_at < ?
+                ORDER BY expires_at, id
+                LIMIT ?
+                """, Long.class, Timestamp.valueOf(now), limit);
+    }
+
+    public int deleteBatch(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        return jdbcTemplate.update(
+                "DELETE FROM idempotency_keys WHERE id IN ("
+                        + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                ids.toArray()
+        );
+    }
+}
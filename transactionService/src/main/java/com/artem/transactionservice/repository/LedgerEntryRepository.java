@@ -0,0 +1,112 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.dto.LedgerEntry;
+import com.artem.transactionservice.repository.projection.BalanceSnapshotRow;
+import com.artem.transactionservice.repository.projection.LedgerTail;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * ledger_entries и wallet_balance_snapshots, маршрут по user_uid.
+ * Проводки только добавляются; повтор той же проводки гасится уникальным индексом.
+ * Снимок покрывает проводки с created_xid меньше covered_xid, хвост после него — остальные, см. V17.
+ */
+@Repository
+@RequiredArgsConstructor
+public class LedgerEntryRepository {
+
+    private static final RowMapper<BalanceSnapshotRow> SNAPSHOT_MAPPER = (rs, rowNum) -> new BalanceSnapshotRow(
+            rs.getLong("last_entry_id"),
+            rs.getLong("covered_xid"),
+            rs.getTimestamp("covered_until").toLocalDateTime(),
+            rs.getBigDecimal("balance")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * Одна пачка INSERT на все ноги; ShardingSphere раскладывает строки по шардам владельцев.
+     */
+    public void insert(List<LedgerEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<Object[]> args = entries.stream()
+                .filter(entry -> entry.delta().signum() != 0)
+                .map(entry -> new Object[]{
+                        entry.userUid(),
+                        entry.walletUid(),
+                        entry.transactionUid(),
+                        entry.delta().signum() > 0 ? "CREDIT" : "DEBIT",
+                        entry.delta().abs(),
+                        entry.fee() ? "FEE" : "PRINCIPAL"
+                })
+                .toList();
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO ledger_entries (user_uid, wallet_uid, transaction_uid, direction, amount, kind)
+                VALUES (?, ?, ?, ?, ?, ?)
+                ON CONFLICT (transaction_uid, wallet_uid, direction, kind) DO NOTHING
+                """, args);
+    }
+
+    /**
+     * Последний снимок, целиком покрывающий проводки не позже asOf.
+     */
+    public Optional<BalanceSnapshotRow> findSnapshot(UUID walletUid, UUID userUid, LocalDateTime asOf) {
+        return jdbcTemplate.query("""
+                SELECT last_entry_id, covered_xid::text::bigint AS covered_xid, covered_until, balance
+                FROM wallet_balance_snapshots
+                WHERE wallet_uid = ? AND user_uid = ? AND covered_until <= ?
+                ORDER BY covered_xid DESC
+                LIMIT 1
+                """, SNAPSHOT_MAPPER, walletUid, userUid, Timestamp.valueOf(asOf)).stream().findFirst();
+    }
+
+    /**
+     * Начальный снимок кошелька, существовавшего до появления проводок: раньше него истории нет.
+     */
+    public Optional<BalanceSnapshotRow> findOpeningSnapshot(UUID walletUid, UUID userUid) {
+        return jdbcTemplate.query("""
+                SELECT last_entry_id, covered_xid::text::bigint AS covered_xid, covered_until, balance
+                FROM wallet_balance_snapshots
+                WHERE wallet_uid = ? AND user_uid = ? AND last_entry_id = 0
+                """, SNAPSHOT_MAPPER, walletUid, userUid).stream().findFirst();
+    }
+
+    /**
+     * Проводки, не вошедшие в снимок с covered_xid = afterXid, не позже asOf.
+     */
+    public LedgerTail sumAfter(UUID walletUid, UUID userUid, long afterXid, LocalDateTime asOf) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COALESCE(sum(CASE direction WHEN 'CREDIT' THEN amount ELSE -amount END), 0) AS delta,
+                       count(*) AS entries
+                FROM ledger_entries
+                WHERE wallet_uid = ? AND user_uid = ? AND created_xid >= CAST(? AS xid8) AND created_at <= ?
+                """, (rs, rowNum) -> new LedgerTail(
+                Optional.ofNullable(rs.getBigDecimal("delta")).orElse(BigDecimal.ZERO),
+                rs.getLong("entries")
+        ), walletUid, userUid, String.valueOf(afterXid), Timestamp.valueOf(asOf));
+    }
+
+    /**
+     * Выполняется в конкретном шарде через ShardRouter.onShard, см. take_balance_snapshots в V17.
+     *
+     * @return сколько снимков снято
+     */
+    public int takeSnapshots(LocalDateTime cutoff) {
+        Integer taken = jdbcTemplate.queryForObject(
+                "SELECT take_balance_snapshots(?)", Integer.class, Timestamp.valueOf(cutoff));
+        return taken == null ? 0 : taken;
+    }
+}
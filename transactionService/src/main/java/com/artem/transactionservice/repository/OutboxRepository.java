@@ -0,0 +1,99 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.repository.projection.OutboxEventRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Таблица outbox_events шардируется по shard_id,
+ * поэтому каждый запрос relay уходит ровно в один шард.
+ * {@link #tryLockRelay} — в конкретном шарде через ShardRouter.onShard.
+ * <p>
+ * Разбор шарда сериализован: пачку читает и удаляет только транзакция, держащая advisory-блокировку
+ * relay этого шарда, поэтому строки outbox при чтении не блокируются. Пропускная способность relay
+ * одного шарда — один поток; масштабируется она числом шардов, а не инстансов.
+ */
+@Repository
+@RequiredArgsConstructor
+public class OutboxRepository {
+
+    private static final RowMapper<OutboxEventRow> ROW_MAPPER = (rs, rowNum) -> new OutboxEventRow(
+            rs.getLong("id"),
+            rs.getString("topic"),
+            rs.getString("message_key"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime()
+    );
+
+    /**
+     * Первый ключ advisory-блокировки relay, второй — shard_id.
+     */
+    private static final int RELAY_LOCK_CLASS = 0x6f7574;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void save(int shardId, String topic, String messageKey, String payload) {
+        jdbcTemplate.update(
+                "INSERT INTO outbox_events (shard_id, topic, message_key, payload) VALUES (?, ?, ?, ?)",
+                shardId, topic, messageKey, payload
+        );
+    }
+
+    /**
+     * Делает текущую транзакцию единственным relay шарда до её завершения.
+     * Без этого два инстанса разбирали бы соседние пачки одновременно
+     * и события одного ключа могли уйти в Kafka не по порядку.
+     *
+     * @return false, если шард уже разбирает другой инстанс
+     */
+    public boolean tryLockRelay(int shardId) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT pg_try_advisory_xact_lock(?, ?)", Boolean.class, RELAY_LOCK_CLASS, shardId));
+    }
+
+    /**
+     * Самые старые события шарда. Вызывается только под {@link #tryLockRelay}.
+     */
+    public List<OutboxEventRow> claimBatch(int shardId, int limit) {
+        return jdbcTemplate.query("""
+                SELECT id, topic, message_key, payload, created_at
+                FROM outbox_events
+                WHERE shard_id = ?
+                ORDER BY id
+                LIMIT ?
+                """, ROW_MAPPER, shardId, limit);
+    }
+
+    public int deleteBatch(int shardId, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+
+        List<Object> args = new ArrayList<>(ids.size() + 1);
+        args.add(shardId);
+        args.addAll(ids);
+
+        return jdbcTemplate.update(
+                "DELETE FROM outbox_events WHERE shard_id = ? AND id IN ("
+                        + String.join(", ", Collections.nCopies(ids.size(), "?")) + ")",
+                args.toArray()
+        );
+    }
+
+    public Optional<LocalDateTime> findOldestCreatedAt(int shardId) {
+        List<Timestamp> oldest = jdbcTemplate.queryForList(
+                "SELECT created_at FROM outbox_events WHERE shard_id = ? ORDER BY id LIMIT 1",
+                Timestamp.class, shardId
+        );
+        return oldest.stream().findFirst().map(Timestamp::toLocalDateTime);
+    }
+}
@@ -0,0 +1,174 @@
+package com.artem.transactionservice.repository;
+
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Чтение и запись строк конкретного физического шарда для мигратора бакетов.
+ * Все выборки постраничные (keyset по uid), строки переносятся как есть — колонка в колонку.
+ */
+@Repository
+public class ShardCopyRepository {
+
+    public static final UUID MIN_UUID = new UUID(0, 0);
+
+    private static final ColumnMapRowMapper ROW_MAPPER = new ColumnMapRowMapper();
+
+    public List<Map<String, Object>> scanWallets(JdbcTemplate source, UUID afterUid, int limit) {
+        return source.query(
+                "SELECT * FROM wallets WHERE uid > ? ORDER BY uid LIMIT ?",
+                ROW_MAPPER, afterUid, limit
+        );
+    }
+
+    public List<Map<String, Object>> findChangedWallets(JdbcTemplate source, Timestamp since, UUID afterUid, int limit) {
+        return source.query("""
+                SELECT * FROM wallets
+                WHERE COALESCE(modified_at, created_at) >= ? AND uid > ?
+                ORDER BY uid
+                LIMIT ?
+                """, ROW_MAPPER, since, afterUid, limit);
+    }
+
+    public List<Map<String, Object>> findTransactions(JdbcTemplate source, Collection<UUID> walletUids, UUID afterUid, int limit) {
+        return source.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT * FROM transactions
+                    WHERE wallet_uid = ANY(?) AND uid > ?
+                    ORDER BY uid
+                    LIMIT ?
+                    """);
+            ps.setArray(1, con.createArrayOf("uuid", walletUids.toArray()));
+            ps.setObject(2, afterUid);
+            ps.setInt(3, limit);
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    public List<Map<String, Object>> findChangedTransactions(JdbcTemplate source, Timestamp since, UUID afterUid, int limit) {
+        return source.query("""
+                SELECT * FROM transactions
+                WHERE COALESCE(modified_at, created_at) >= ? AND uid > ?
+                ORDER BY uid
+                LIMIT ?
+                """, ROW_MAPPER, since, afterUid, limit);
+    }
+
+    /**
+     * Проводки кошельков, созданные не раньше since, постранично по id.
+     */
+    public List<Map<String, Object>> findLedgerEntries(JdbcTemplate source, Collection<UUID> walletUids, Timestamp since,
+                                                       long afterId, int limit) {
+        return source.query(con -> {
+            var ps = con.prepareStatement("""
+                    SELECT * FROM ledger_entries
+                    WHERE wallet_uid = ANY(?) AND created_at >= ? AND id > ?
+                    ORDER BY id
+                    LIMIT ?
+                    """);
+            ps.setArray(1, con.createArrayOf("uuid", walletUids.toArray()));
+            ps.setTimestamp(2, since);
+            ps.setLong(3, afterId);
+            ps.setInt(4, limit);
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    /**
+     * Только начальные снимки (last_entry_id = 0): остальные ссылаются на xid транзакций исходного шарда.
+     */
+    public List<Map<String, Object>> findOpeningSnapshots(JdbcTemplate source, Collection<UUID> walletUids) {
+        if (walletUids.isEmpty()) {
+            return List.of();
+        }
+        return source.query(con -> {
+            var ps = con.prepareStatement(
+                    "SELECT * FROM wallet_balance_snapshots WHERE wallet_uid = ANY(?) AND last_entry_id = 0");
+            ps.setArray(1, con.createArrayOf("uuid", walletUids.toArray()));
+            return ps;
+        }, ROW_MAPPER);
+    }
+
+    public List<Map<String, Object>> findTransferCredits(JdbcTemplate source, Collection<UUID> walletUids) {
+        return findByAny(source, "transfer_credits", "wallet_uid", walletUids);
+    }
+
+    public List<Map<String, Object>> findIdempotencyKeys(JdbcTemplate source, Collection<UUID> userUids) {
+        return findByAny(source, "idempotency_keys", "user_uid", userUids);
+    }
+
+    public List<Map<String, Object>> findBalanceSlots(JdbcTemplate source, Collection<UUID> walletUids) {
+        return findByAny(source, "wallet_balance_slots", "wallet_uid", walletUids);
+    }
+
+    public List<Map<String, Object>> findWalletTypes(JdbcTemplate source, Collection<UUID> walletTypeUids) {
+        return findByAny(source, "wallet_types", "uid", walletTypeUids);
+    }
+
+    /**
+     * INSERT ... ON CONFLICT: повторное копирование той же строки перезаписывает её актуальной версией,
+     * поэтому проходы догонки можно повторять сколько угодно раз.
+     */
+    public int upsert(JdbcTemplate target, String table, List<String> keyColumns, boolean overwrite,
+                      List<Map<String, Object>> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        List<String> columns = new ArrayList<>(rows.get(0).keySet());
+        List<String> updates = columns.stream()
+                .filter(column -> !keyColumns.contains(column))
+                .map(column -> column + " = EXCLUDED." + column)
+                .toList();
+
+        String sql = "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES ("
+                + String.join(", ", columns.stream().map(column -> "?").toList()) + ")"
+                + " ON CONFLICT (" + String.join(", ", keyColumns) + ")"
+                + (overwrite && !updates.isEmpty() ? " DO UPDATE SET " + String.join(", ", updates) : " DO NOTHING");
+
+        List<Object[]> args = rows.stream()
+                .map(row -> columns.stream().map(row::get).toArray())
+                .toList();
+
+        target.batchUpdate(sql, args);
+        return rows.size();
+    }
+
+    /**
+     * Удаляет строки порциями, чтобы не держать долгие блокировки на живом шарде.
+     */
+    public int deleteChunk(JdbcTemplate source, String table, String column, Collection<UUID> values, int limit) {
+        return source.update(con -> {
+            var ps = con.prepareStatement(
+                    "DELETE FROM " + table + " WHERE ctid IN (SELECT ctid FROM " + table
+                            + " WHERE " + column + " = ANY(?) LIMIT ?)"
+            );
+            ps.setArray(1, con.createArrayOf("uuid", values.toArray()));
+            ps.setInt(2, limit);
+            return ps;
+        });
+    }
+
+    public Timestamp now(JdbcTemplate source) {
+        return source.queryForObject("SELECT now()::timestamp", Timestamp.class);
+    }
+
+    private List<Map<String, Object>> findByAny(JdbcTemplate source, String table, String column, Collection<UUID> values) {
+        if (values.isEmpty()) {
+            return List.of();
+        }
+        return source.query(con -> {
+            var ps = con.prepareStatement("SELECT * FROM " + table + " WHERE " + column + " = ANY(?)");
+            ps.setArray(1, con.createArrayOf("uuid", values.toArray()));
+            return ps;
+        }, ROW_MAPPER);
+    }
+}
@@ -0,0 +1,110 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * История транзакций кошелька без загрузки сущностей и ленивого Wallet.
+ * <p>
+ * Порядок (created_at DESC, uid) совпадает с индексом idx_transactions_wallet_history,
+ * продолжение страницы — keyset по последней строке, без OFFSET.
+ * Если передан user_uid, запрос уходит в один шард, иначе ShardingSphere сливает
+ * отсортированные потоки всех шардов.
+ */
+@Repository
+public class TransactionHistoryRepository {
+
+    public static final String COLUMNS = """
+            SELECT uid, created_at, modified_at, user_uid, wallet_uid, amount, type, status,
+                   comment, fee, target_wallet_uid, failure_reason
+            FROM transactions
+            """;
+
+    private static final String ORDER = " ORDER BY created_at DESC, uid";
+
+    public static final RowMapper<TransactionHistoryView> ROW_MAPPER = (rs, rowNum) -> map(rs);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final JdbcTemplate cursorJdbcTemplate;
+
+    public TransactionHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+
+        // fetchSize внутри транзакции включает серверный курсор PostgreSQL: строки читаются порциями
+        this.cursorJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.cursorJdbcTemplate.setFetchSize(1000);
+    }
+
+    public List<TransactionHistoryView> findPage(UUID walletUid, UUID userUid,
+                                                 LocalDateTime afterCreatedAt, UUID afterUid, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder(COLUMNS).append(where(walletUid, userUid, args));
+
+        if (afterCreatedAt != null) {
+            // отдельное условие created_at <= ? позволяет планировщику отбросить более новые секции
+            sql.append(" AND created_at <= ? AND (created_at < ? OR uid > ?)");
+            args.add(Timestamp.valueOf(afterCreatedAt));
+            args.add(Timestamp.valueOf(afterCreatedAt));
+            args.add(afterUid);
+        }
+
+        sql.append(ORDER).append(" LIMIT ?");
+        args.add(limit);
+
+        return jdbcTemplate.query(sql.toString(), ROW_MAPPER, args.toArray());
+    }
+
+    /**
+     * Читает всю историю кошелька курсором, не накапливая строки в памяти.
+     * Должен вызываться внутри транзакции, иначе драйвер загрузит результат целиком.
+     */
+    public void streamAll(UUID walletUid, UUID userUid, Consumer<TransactionHistoryView> consumer) {
+        List<Object> args = new ArrayList<>();
+        String sql = COLUMNS + where(walletUid, userUid, args) + ORDER;
+
+        cursorJdbcTemplate.query(sql, rs -> {
+            consumer.accept(map(rs));
+        }, args.toArray());
+    }
+
+    private static String where(UUID walletUid, UUID userUid, List<Object> args) {
+        args.add(walletUid);
+        if (userUid == null) {
+            return " WHERE wallet_uid = ?";
+        }
+        args.add(userUid);
+        return " WHERE wallet_uid = ? AND user_uid = ?";
+    }
+
+    private static TransactionHistoryView map(ResultSet rs) throws SQLException {
+        return new TransactionHistoryView(
+                (UUID) rs.getObject("uid"),
+                toLocalDateTime(rs.getTimestamp("created_at")),
+                toLocalDateTime(rs.getTimestamp("modified_at")),
+                (UUID) rs.getObject("user_uid"),
+                (UUID) rs.getObject("wallet_uid"),
+                rs.getBigDecimal("amount"),
+                rs.getString("type"),
+                rs.getString("status"),
+                rs.getString("comment"),
+                rs.getBigDecimal("fee"),
+                (UUID) rs.getObject("target_wallet_uid"),
+                rs.getString("failure_reason")
+        );
+    }
+
+    private static LocalDateTime toLocalDateTime(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime();
+    }
+}
@@ -0,0 +1,36 @@
+package com.artem.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Обслуживание секций transactions через функции из V10__transactions_partitioning.sql.
+ * DDL выполняется в базе, поэтому ShardingSphere не разбирает его: достаточно направить вызов в шард
+ * через ShardRouter.onShard.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionPartitionRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return сколько секций создано
+     */
+    public int createPartitions(int monthsAhead) {
+        Integer created = jdbcTemplate.queryForObject(
+                "SELECT create_transaction_partitions(?)", Integer.class, monthsAhead);
+        return created == null ? 0 : created;
+    }
+
+    /**
+     * @return имена отсоединённых секций
+     */
+    public List<String> detachPartitions(int keepMonths, String archiveSchema) {
+        return jdbcTemplate.queryForList(
+                "SELECT detach_transaction_partitions(?, ?)", String.class, keepMonths, archiveSchema);
+    }
+}
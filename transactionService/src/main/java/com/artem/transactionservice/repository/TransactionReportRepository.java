@@ -0,0 +1,39 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.ScatterGatherExecutor;
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.util.Comparator;
+import java.util.UUID;
+
+/**
+ * Отчётные выборки по всем шардам через {@link ScatterGatherExecutor}.
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransactionReportRepository {
+
+    /**
+     * Тот же порядок, что у PostgreSQL: uuid сравнивается побайтно, то есть как беззнаковые long.
+     */
+    private static final Comparator<UUID> PG_UUID_ORDER = Comparator
+            .<UUID, Long>comparing(UUID::getMostSignificantBits, Long::compareUnsigned)
+            .thenComparing(UUID::getLeastSignificantBits, Long::compareUnsigned);
+
+    private static final Comparator<TransactionHistoryView> OLDEST_FIRST = Comparator
+            .comparing(TransactionHistoryView::createdAt)
+            .thenComparing(TransactionHistoryView::uid, PG_UUID_ORDER);
+
+    private final ScatterGatherExecutor scatterGatherExecutor;
+
+    public ScatterGatherExecutor.Result<TransactionHistoryView> findOldestPending(int limit) {
+        return scatterGatherExecutor.query(
+                TransactionHistoryRepository.COLUMNS + " WHERE status IN ('PENDING', 'HELD', 'CREDITING') ORDER BY created_at, uid",
+                TransactionHistoryRepository.ROW_MAPPER,
+                OLDEST_FIRST,
+                limit
+        );
+    }
+}
@@ -8,8 +8,76 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.UUID;
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
 
+    List<Transaction> findAllByUidIn(Collection<UUID> uids);
+
+    /**
+     * Граница по created_at отсекает секции старше since, uid ищется только в свежих месяцах.
+     */
+    List<Transaction> findAllByUidInAndCreatedAtGreaterThanEqual(Collection<UUID> uids, LocalDateTime since);
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update Transaction t
+        set t.status = :status,
+            t.modifiedAt = CURRENT_TIMESTAMP
+        where t.userUid in :userUids
+          and t.uid in :uids
+          and t.createdAt >= :since
+          and t.status in ('PENDING', 'HELD')
+    """)
+    int updatePendingStatus(
+            @Param("userUids") Collection<UUID> userUids,
+            @Param("uids") Collection<UUID> uids,
+            @Param("since") LocalDateTime since,
+            @Param("status") String status
+    );
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update Transaction t
+        set t.status = 'FAILED',
+            t.failureReason = :reason,
+            t.modifiedAt = CURRENT_TIMESTAMP
+        where t.userUid = :userUid
+          and t.uid = :uid
+          and t.createdAt = :createdAt
+          and t.status in ('PENDING', 'HELD')
+    """)
+    int markFailed(
+            @Param("userUid") UUID userUid,
+            @Param("uid") UUID uid,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("reason") String reason
+    );
+
+    /**
+     * Переход статуса одной транзакции; 0 — транзакция уже не в статусе expected.
+     * Граница по created_at, как и в {@link #updatePendingStatus}, отсекает секции старше since.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update Transaction t
+        set t.status = :status,
+            t.failureReason = :reason,
+            t.modifiedAt = CURRENT_TIMESTAMP
+        where t.userUid = :userUid
+          and t.uid = :uid
+          and t.createdAt >= :since
+          and t.status = :expected
+    """)
+    int transition(
+            @Param("userUid") UUID userUid,
+            @Param("uid") UUID uid,
+            @Param("since") LocalDateTime since,
+            @Param("expected") String expected,
+            @Param("status") String status,
+            @Param("reason") String reason
+    );
 }
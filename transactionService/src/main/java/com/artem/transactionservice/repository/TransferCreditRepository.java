@@ -0,0 +1,36 @@
+package com.artem.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Журнал зачислений межшардовых переводов на шарде получателя (маршрут по user_uid получателя).
+ */
+@Repository
+@RequiredArgsConstructor
+public class TransferCreditRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * @return false, если зачисление по этой транзакции уже было
+     */
+    public boolean insert(UUID transactionUid, UUID userUid, UUID walletUid, BigDecimal amount) {
+        return jdbcTemplate.update("""
+                INSERT INTO transfer_credits (transaction_uid, user_uid, wallet_uid, amount, status)
+                VALUES (?, ?, ?, ?, 'COMPLETED')
+                ON CONFLICT (transaction_uid) DO NOTHING
+                """, transactionUid, userUid, walletUid, amount) == 1;
+    }
+
+    public void markFailed(UUID transactionUid, UUID userUid, String reason) {
+        jdbcTemplate.update("""
+                UPDATE transfer_credits SET status = 'FAILED', failure_reason = ?
+                WHERE transaction_uid = ? AND user_uid = ?
+                """, reason, transactionUid, userUid);
+    }
+}
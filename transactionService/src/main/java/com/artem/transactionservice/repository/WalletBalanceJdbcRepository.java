@@ -0,0 +1,139 @@
+package com.artem.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Пакетное изменение балансов одним UPDATE на шард.
+ * ShardingSphere маршрутизирует запрос по user_uid из WHERE,
+ * поэтому все кошельки в вызове должны принадлежать одному шарду.
+ * <p>
+ * Одиночные списания — условный UPDATE ... WHERE balance >= ? RETURNING balance:
+ * проверка и списание за один round trip, строка не блокируется на время работы Java-кода.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBalanceJdbcRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public int applyDeltas(Collection<UUID> userUids, Map<UUID, BigDecimal> deltas) {
+        if (deltas.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE wallets SET balance = balance + CASE uid");
+        List<Object> args = new ArrayList<>(deltas.size() * 3 + userUids.size());
+
+        deltas.forEach((walletUid, delta) -> {
+            sql.append(" WHEN ? THEN CAST(? AS NUMERIC)");
+            args.add(walletUid);
+            args.add(delta);
+        });
+
+        sql.append(" ELSE 0 END, modified_at = now() WHERE user_uid IN (")
+                .append(placeholders(userUids.size()))
+                .append(") AND uid IN (")
+                .append(placeholders(deltas.size()))
+                .append(")");
+
+        args.addAll(userUids);
+        args.addAll(deltas.keySet());
+
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    /**
+     * @return новый баланс; empty — средств не хватает, кошелёк неактивен или в режиме split balance
+     */
+    public Optional<BigDecimal> debit(UUID walletUid, UUID userUid, BigDecimal amount) {
+        return single(jdbcTemplate.query("""
+                UPDATE wallets SET balance = balance - ?, modified_at = now()
+                WHERE uid = ? AND user_uid = ? AND status = 'ACTIVE' AND balance_slots = 0 AND balance >= ?
+                RETURNING balance
+                """, (rs, i) -> rs.getBigDecimal(1), amount, walletUid, userUid, amount));
+    }
+
+    /**
+     * То же, что debit, но сумма переносится в held_balance до применения транзакции консьюмером.
+     */
+    public Optional<BigDecimal> hold(UUID walletUid, UUID userUid, BigDecimal amount) {
+        return single(jdbcTemplate.query("""
+                UPDATE wallets SET balance = balance - ?, held_balance = held_balance + ?, modified_at = now()
+                WHERE uid = ? AND user_uid = ? AND status = 'ACTIVE' AND balance_slots = 0 AND balance >= ?
+                RETURNING balance
+                """, (rs, i) -> rs.getBigDecimal(1), amount, amount, walletUid, userUid, amount));
+    }
+
+    public Optional<BigDecimal> credit(UUID walletUid, UUID userUid, BigDecimal amount) {
+        return single(jdbcTemplate.query("""
+                UPDATE wallets SET balance = balance + ?, modified_at = now()
+                WHERE uid = ? AND user_uid = ? AND status = 'ACTIVE' AND balance_slots = 0
+                RETURNING balance
+                """, (rs, i) -> rs.getBigDecimal(1), amount, walletUid, userUid));
+    }
+
+    /**
+     * Закрывает резервы одного шарда: settled списывается из held_balance,
+     * released списывается из held_balance и возвращается в balance.
+     */
+    public int settleHolds(Collection<UUID> userUids, Map<UUID, BigDecimal> settled, Map<UUID, BigDecimal> released) {
+        Map<UUID, BigDecimal> held = new LinkedHashMap<>(settled);
+        released.forEach((walletUid, amount) -> held.merge(walletUid, amount, BigDecimal::add));
+
+        if (held.isEmpty()) {
+            return 0;
+        }
+
+        StringBuilder sql = new StringBuilder("UPDATE wallets SET held_balance = held_balance - CASE uid");
+        List<Object> args = new ArrayList<>(held.size() * 3 + released.size() * 2 + userUids.size());
+
+        held.forEach((walletUid, amount) -> {
+            sql.append(" WHEN ? THEN CAST(? AS NUMERIC)");
+            args.add(walletUid);
+            args.add(amount);
+        });
+
+        sql.append(" ELSE 0 END");
+
+        if (!released.isEmpty()) {
+            sql.append(", balance = balance + CASE uid");
+            released.forEach((walletUid, amount) -> {
+                sql.append(" WHEN ? THEN CAST(? AS NUMERIC)");
+                args.add(walletUid);
+                args.add(amount);
+            });
+            sql.append(" ELSE 0 END");
+        }
+
+        sql.append(", modified_at = now() WHERE user_uid IN (")
+                .append(placeholders(userUids.size()))
+                .append(") AND uid IN (")
+                .append(placeholders(held.size()))
+                .append(")");
+
+        args.addAll(userUids);
+        args.addAll(held.keySet());
+
+        return jdbcTemplate.update(sql.toString(), args.toArray());
+    }
+
+    private static Optional<BigDecimal> single(List<BigDecimal> balances) {
+        return balances.isEmpty() ? Optional.empty() : Optional.of(balances.get(0));
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
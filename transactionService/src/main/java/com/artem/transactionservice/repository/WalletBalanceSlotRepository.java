@@ -0,0 +1,94 @@
+package com.artem.transactionservice.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Слоты split balance. Каждое изменение трогает одну строку слота,
+ * строка wallets при этом не блокируется.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBalanceSlotRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void createSlots(UUID walletUid, UUID userUid, int slots, BigDecimal initialBalance) {
+        List<Object[]> rows = new ArrayList<>(slots);
+        for (int slot = 0; slot < slots; slot++) {
+            rows.add(new Object[]{walletUid, userUid, slot, slot == 0 ? initialBalance : BigDecimal.ZERO});
+        }
+
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO wallet_balance_slots (wallet_uid, user_uid, slot, balance, modified_at) VALUES (?, ?, ?, ?, now())",
+                rows
+        );
+    }
+
+    public int credit(UUID walletUid, UUID userUid, int slot, BigDecimal amount) {
+        return jdbcTemplate.update("""
+                UPDATE wallet_balance_slots
+                SET balance = balance + ?, modified_at = now()
+                WHERE user_uid = ? AND wallet_uid = ? AND slot = ?
+                """, amount, userUid, walletUid, slot);
+    }
+
+    /**
+     * Списание из одного слота; как и WalletRepository.decreaseBalance,
+     * ничего не меняет, если в слоте меньше amount.
+     */
+    public int debit(UUID walletUid, UUID userUid, int slot, BigDecimal amount) {
+        return jdbcTemplate.update("""
+                UPDATE wallet_balance_slots
+                SET balance = balance - ?, modified_at = now()
+                WHERE user_uid = ? AND wallet_uid = ? AND slot = ?
+                  AND balance >= ?
+                """, amount, userUid, walletUid, slot, amount);
+    }
+
+    /**
+     * Блокирует все слоты кошелька в порядке slot и возвращает их балансы (индекс = номер слота).
+     */
+    public List<BigDecimal> lockSlots(UUID walletUid, UUID userUid) {
+        return jdbcTemplate.queryForList("""
+                SELECT balance FROM wallet_balance_slots
+                WHERE user_uid = ? AND wallet_uid = ?
+                ORDER BY slot
+                FOR UPDATE
+                """, BigDecimal.class, userUid, walletUid);
+    }
+
+    /**
+     * Блокирует перечисленные слоты кошелька в порядке slot.
+     */
+    public void lockSlots(UUID walletUid, UUID userUid, Collection<Integer> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+
+        List<Object> args = new ArrayList<>(slots.size() + 2);
+        args.add(userUid);
+        args.add(walletUid);
+        args.addAll(slots);
+
+        jdbcTemplate.queryForList(
+                "SELECT slot FROM wallet_balance_slots WHERE user_uid = ? AND wallet_uid = ? AND slot IN ("
+                        + String.join(", ", Collections.nCopies(slots.size(), "?")) + ") ORDER BY slot FOR UPDATE",
+                Integer.class, args.toArray());
+    }
+
+    public BigDecimal sumBalance(UUID walletUid, UUID userUid) {
+        return jdbcTemplate.queryForObject("""
+                SELECT COALESCE(SUM(balance), 0) FROM wallet_balance_slots
+                WHERE user_uid = ? AND wallet_uid = ?
+                """, BigDecimal.class, userUid, walletUid);
+    }
+}
@@ -0,0 +1,36 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.dto.BulkWalletRow;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Пакетная вставка кошельков. Все строки должны принадлежать одному шарду:
+ * вызывать внутри ShardRouter.onShard.
+ */
+@Repository
+@RequiredArgsConstructor
+public class WalletBulkRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insert(List<BulkWalletRow> rows, int batchSize) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        jdbcTemplate.batchUpdate("""
+                INSERT INTO wallets (uid, created_at, name, wallet_type_uid, user_uid, status, balance)
+                VALUES (?, ?, ?, ?, ?, 'ACTIVE', 0)
+                """, rows, batchSize, (ps, row) -> {
+            ps.setObject(1, row.uid());
+            ps.setTimestamp(2, now);
+            ps.setString(3, row.name());
+            ps.setObject(4, row.walletTypeUid());
+            ps.setObject(5, row.userUid());
+        });
+    }
+}
@@ -0,0 +1,32 @@
+package com.artem.transactionservice.repository;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.entity.Wallet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.UUID;
+
+/**
+ * Поиск кошелька по одному uid, когда user_uid неизвестен.
+ * Для uid с зашитым бакетом или legacy-шардом запрос уходит в один шард, старые uid ищутся во всех.
+ * Промах в вычисленном шарде повторяется во всех: у uid первых выпусков признак legacy-шарда случайный.
+ */
+@Component
+@RequiredArgsConstructor
+public class WalletLocator {
+
+    private final WalletRepository walletRepository;
+    private final ShardRouter shardRouter;
+
+    public Optional<Wallet> findByUid(UUID walletUid) {
+        OptionalInt shard = shardRouter.shardOfWallet(walletUid);
+        if (shard.isEmpty()) {
+            return walletRepository.findByUid(walletUid);
+        }
+        Optional<Wallet> wallet = shardRouter.onShard(shard.getAsInt(), () -> walletRepository.findByUid(walletUid));
+        return wallet.isPresent() ? wallet : walletRepository.findByUid(walletUid);
+    }
+}
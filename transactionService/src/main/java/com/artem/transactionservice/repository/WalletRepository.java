@@ -1,6 +1,7 @@
 package com.artem.transactionservice.repository;
 
 import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.repository.projection.WalletOwnerView;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -10,6 +11,7 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
@@ -32,30 +34,16 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
             String status
     );
 
-    @Modifying(clearAutomatically = true, flushAutomatically = true)
     @Query("""
-        update Wallet w
-        set w.balance = w.balance + :amount,
-            w.modifiedAt = CURRENT_TIMESTAMP
-        where w.uid = :walletUid
-    """)
-    int increaseBalance(
+    select w.balance from Wallet w
+    where w.uid = :walletUid
+      and w.userUid = :userUid
+""")
+    Optional<BigDecimal> findBalance(
             @Param("walletUid") UUID walletUid,
-            @Param("amount") BigDecimal amount
+            @Param("userUid") UUID userUid
     );
 
-    @Modifying(clearAutomatically = true, flushAutomatically = true)
-    @Query("""
-        update Wallet w
-        set w.balance = w.balance - :amount,
-            w.modifiedAt = CURRENT_TIMESTAMP
-        where w.uid = :walletUid
-          and w.balance >= :amount
-    """)
-    int decreaseBalance(
-            @Param("walletUid") UUID walletUid,
-            @Param("amount") BigDecimal amount
-    );
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     @Query("""
     select w from Wallet w
@@ -66,4 +54,56 @@ public interface WalletRepository extends JpaRepository<Wallet, UUID> {
             @Param("walletUid") UUID walletUid,
             @Param("userUid") UUID userUid
     );
-}
\ No newline at end of file
+
+    /**
+     * Блокирует кошельки одного шарда в порядке uid,
+     * чтобы параллельные батчи не могли взаимно заблокироваться.
+     * Кошельки в режиме split balance не блокируются — их баланс меняется по слотам.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("""
+    select w from Wallet w
+    where w.userUid in :userUids
+      and w.uid in :walletUids
+      and w.balanceSlots = 0
+    order by w.uid
+""")
+    List<Wallet> findAllForUpdate(
+            @Param("userUids") Collection<UUID> userUids,
+            @Param("walletUids") Collection<UUID> walletUids
+    );
+
+    @Query("""
+    select w.uid as uid, w.userUid as userUid
+    from Wallet w
+    where w.uid in :walletUids
+""")
+    List<WalletOwnerView> findOwnersByUidIn(@Param("walletUids") Collection<UUID> walletUids);
+
+    @Query("""
+    select w from Wallet w
+    where w.userUid in :userUids
+      and w.uid in :walletUids
+      and w.balanceSlots > 0
+""")
+    List<Wallet> findAllSplit(
+            @Param("userUids") Collection<UUID> userUids,
+            @Param("walletUids") Collection<UUID> walletUids
+    );
+
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("""
+        update Wallet w
+        set w.balanceSlots = :slots,
+            w.balance = 0,
+            w.modifiedAt = CURRENT_TIMESTAMP
+        where w.uid = :walletUid
+          and w.userUid = :userUid
+          and w.balanceSlots = 0
+    """)
+    int enableSplitBalance(
+            @Param("walletUid") UUID walletUid,
+            @Param("userUid") UUID userUid,
+            @Param("slots") int slots
+    );
+}
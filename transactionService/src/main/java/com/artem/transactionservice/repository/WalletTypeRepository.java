@@ -1,7 +1,9 @@
 package com.artem.transactionservice.repository;
 
 import com.artem.transactionservice.entity.WalletType;
+import com.artem.transactionservice.repository.projection.ReferenceDataVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -13,4 +15,14 @@ public interface WalletTypeRepository extends JpaRepository<WalletType, UUID> {
 
     Optional<WalletType> findByName(String name);
 
+    /**
+     * Версия справочника для WalletTypeRegistry: modified_at двигает триггер из V14.
+     */
+    @Query("""
+            SELECT new com.artem.transactionservice.repository.projection.ReferenceDataVersion(
+                count(t), max(coalesce(t.modifiedAt, t.createdAt)))
+            FROM WalletType t
+            """)
+    ReferenceDataVersion findVersion();
+
 }
@@ -0,0 +1,12 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public record BalanceSnapshotRow(
+        long lastEntryId,
+        long coveredXid,
+        LocalDateTime coveredUntil,
+        BigDecimal balance
+) {
+}
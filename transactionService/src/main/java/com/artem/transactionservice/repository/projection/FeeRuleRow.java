@@ -0,0 +1,17 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+public record FeeRuleRow(
+        long id,
+        String operation,
+        String currencyCode,
+        UUID walletTypeUid,
+        BigDecimal minAmount,
+        int percentBp,
+        BigDecimal fixedFee,
+        BigDecimal minFee,
+        BigDecimal maxFee
+) {
+}
@@ -0,0 +1,10 @@
+package com.artem.transactionservice.repository.projection;
+
+/**
+ * response == null только внутри транзакции, захватившей ключ.
+ */
+public record IdempotencyKeyRow(
+        String requestHash,
+        String response
+) {
+}
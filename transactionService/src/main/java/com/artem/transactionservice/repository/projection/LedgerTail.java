@@ -0,0 +1,12 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Сумма проводок после снимка и их число.
+ */
+public record LedgerTail(
+        BigDecimal delta,
+        long entries
+) {
+}
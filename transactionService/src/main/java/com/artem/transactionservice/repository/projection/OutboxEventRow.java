@@ -0,0 +1,12 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.time.LocalDateTime;
+
+public record OutboxEventRow(
+        long id,
+        String topic,
+        String messageKey,
+        String payload,
+        LocalDateTime createdAt
+) {
+}
@@ -0,0 +1,13 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.time.LocalDateTime;
+
+/**
+ * Число строк справочника и время последнего изменения: если оба совпали с прошлым чтением,
+ * in-memory копия не перестраивается.
+ */
+public record ReferenceDataVersion(
+        long count,
+        LocalDateTime lastModified
+) {
+}
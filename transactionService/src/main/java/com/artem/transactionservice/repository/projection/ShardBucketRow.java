@@ -0,0 +1,9 @@
+package com.artem.transactionservice.repository.projection;
+
+public record ShardBucketRow(
+        int bucket,
+        int shardId,
+        String state,
+        Integer targetShardId
+) {
+}
@@ -0,0 +1,21 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public record TransactionHistoryView(
+        UUID uid,
+        LocalDateTime createdAt,
+        LocalDateTime modifiedAt,
+        UUID userUid,
+        UUID walletUid,
+        BigDecimal amount,
+        String type,
+        String status,
+        String comment,
+        BigDecimal fee,
+        UUID targetWalletUid,
+        String failureReason
+) {
+}
@@ -0,0 +1,10 @@
+package com.artem.transactionservice.repository.projection;
+
+import java.util.UUID;
+
+public interface WalletOwnerView {
+
+    UUID getUid();
+
+    UUID getUserUid();
+}
@@ -0,0 +1,21 @@
+package com.artem.transactionservice.service;
+
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.artem.transactionservice.fee.FeeSchedule;
+import com.artem.transactionservice.money.Money;
+
+public interface FeeService {
+
+    String WITHDRAWAL = "WITHDRAWAL";
+    String TRANSFER = "TRANSFER";
+
+    /**
+     * Комиссия за операцию по правилам типа и валюты кошелька; только из памяти, без запросов к БД.
+     */
+    Money calculate(String operation, WalletSnapshot wallet, Money amount);
+
+    /**
+     * Атомарно подменяет набор правил: текущие расчёты дорабатывают на прежнем индексе.
+     */
+    void publish(FeeSchedule schedule);
+}
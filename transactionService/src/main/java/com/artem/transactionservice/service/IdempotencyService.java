@@ -0,0 +1,13 @@
+package com.artem.transactionservice.service;
+
+import java.util.UUID;
+import java.util.function.Supplier;
+
+public interface IdempotencyService {
+
+    /**
+     * Выполняет action один раз на (userUid, operation, key) и возвращает его сохранённый ответ на повторах.
+     * Без ключа action выполняется как обычно.
+     */
+    <T> T execute(String key, UUID userUid, String operation, Object request, Class<T> responseType, Supplier<T> action);
+}
@@ -0,0 +1,14 @@
+package com.artem.transactionservice.service;
+
+import com.artem.transactionservice.dto.BalanceAsOf;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+public interface LedgerService {
+
+    /**
+     * Проведённый баланс кошелька на момент asOf (null — сейчас): последний снимок плюс хвост проводок.
+     */
+    BalanceAsOf getBalanceAsOf(UUID walletUid, UUID userUid, LocalDateTime asOf);
+}
@@ -0,0 +1,12 @@
+package com.artem.transactionservice.service;
+
+import java.util.UUID;
+
+public interface OutboxService {
+
+    /**
+     * Кладёт событие в outbox шарда пользователя.
+     * Должно вызываться внутри транзакции, которая пишет саму бизнес-запись.
+     */
+    void publish(String topic, UUID userUid, String key, String payload);
+}
@@ -0,0 +1,44 @@
+package com.artem.transactionservice.service;
+
+import com.artem.transactionservice.entity.Wallet;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+public interface SplitBalanceService {
+
+    Wallet enableSplitBalance(UUID walletUid, UUID userUid, int slots);
+
+    void credit(Wallet wallet, BigDecimal amount, UUID spreadKey);
+
+    /**
+     * @return false, если суммарно во всех слотах меньше amount (ничего не списано)
+     */
+    boolean tryDebit(Wallet wallet, BigDecimal amount, UUID spreadKey);
+
+    boolean tryDebit(UUID walletUid, UUID userUid, int slots, BigDecimal amount, UUID spreadKey);
+
+    /**
+     * Заранее блокирует слоты, которые пачка операций тронет в текущей транзакции, по возрастанию (wallet_uid, slot):
+     * слоты зачислений по их spreadKey и все слоты кошельков со списаниями. Последующие credit и tryDebit
+     * этих кошельков новых блокировок не берут, поэтому две пачки не захватывают слоты встречно.
+     *
+     * @param wallets         split-кошельки по uid
+     * @param creditKeys      кошелёк -> spreadKey его зачислений
+     * @param debitWalletUids кошельки, с которых будет списание
+     */
+    void lockSlots(Map<UUID, Wallet> wallets, Map<UUID, Set<UUID>> creditKeys, Set<UUID> debitWalletUids);
+
+    /**
+     * Сумма слотов из кэша с коротким TTL. Не годится для проверки перед списанием —
+     * неотрицательность гарантирует только tryDebit.
+     */
+    BigDecimal getBalance(Wallet wallet);
+
+    /**
+     * То же, что getBalance(Wallet), когда сущность не загружена: residual — значение wallets.balance.
+     */
+    BigDecimal getBalance(UUID walletUid, UUID userUid, BigDecimal residual);
+}
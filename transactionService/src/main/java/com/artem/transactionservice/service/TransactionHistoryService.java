@@ -0,0 +1,16 @@
+package com.artem.transactionservice.service;
+
+import com.artem.transactionservice.dto.TransactionHistoryPage;
+
+import java.io.OutputStream;
+import java.util.UUID;
+
+public interface TransactionHistoryService {
+
+    TransactionHistoryPage getHistory(UUID walletUid, UUID userUid, String cursor, Integer limit);
+
+    /**
+     * Пишет всю историю кошелька в NDJSON (одна транзакция — одна строка).
+     */
+    void exportHistory(UUID walletUid, UUID userUid, OutputStream out);
+}
@@ -0,0 +1,13 @@
+package com.artem.transactionservice.service;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface WalletBulkService {
+
+    /**
+     * Создаёт кошельки из NDJSON (по CreateWalletRequest в строке) и пишет в out NDJSON с результатом
+     * каждой строки: {"line":N,"walletUid":...} или {"line":N,"error":...}.
+     */
+    void createWallets(InputStream in, OutputStream out);
+}
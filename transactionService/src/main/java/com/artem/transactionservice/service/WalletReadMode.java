@@ -0,0 +1,10 @@
+package com.artem.transactionservice.service;
+
+/**
+ * INIT — можно отвечать из кэша, ответ носит справочный характер.
+ * CONFIRM — чтение перед созданием транзакции: из БД, если включён transaction.wallet-cache.strict-confirm.
+ */
+public enum WalletReadMode {
+    INIT,
+    CONFIRM
+}
@@ -2,6 +2,7 @@ package com.artem.transactionservice.service;
 
 import com.artem.transaction.model.CreateWalletRequest;
 import com.artem.transaction.model.UpdateWalletRequest;
+import com.artem.transactionservice.dto.WalletSnapshot;
 import com.artem.transactionservice.entity.Wallet;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,6 +24,31 @@ public interface WalletService {
 
     Wallet getActiveWallet(UUID walletUid, UUID userUid);
 
+    BigDecimal getAvailableBalance(Wallet wallet);
+
+    /**
+     * Активный кошелёк через кэш (INIT) или из БД (CONFIRM при strict-confirm).
+     */
+    WalletSnapshot getActiveWalletSnapshot(UUID walletUid, UUID userUid, WalletReadMode mode);
+
+    /**
+     * Для свежего снимка — баланс, прочитанный вместе с ним; для снимка из кэша — баланс с коротким TTL.
+     */
+    BigDecimal getAvailableBalance(WalletSnapshot wallet);
+
+    /**
+     * Ссылка на кошелёк для связи с транзакцией, без запроса в БД.
+     */
+    Wallet getWalletReference(WalletSnapshot wallet);
+
+    /**
+     * Проверка остатка и резерв суммы одним условным UPDATE (для split balance — списанием из слотов).
+     * Транзакция после резерва создаётся в статусе HELD, консьюмер её только проводит.
+     */
+    void holdFunds(WalletSnapshot wallet, BigDecimal amount);
+
+    Wallet enableSplitBalance(UUID walletUid, UUID userUid, int slots);
+
 
 
     @Transactional
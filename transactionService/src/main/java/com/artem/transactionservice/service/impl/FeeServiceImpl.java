@@ -0,0 +1,41 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.artem.transactionservice.fee.FeeSchedule;
+import com.artem.transactionservice.money.Money;
+import com.artem.transactionservice.service.FeeService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Расчёт комиссий по неизменяемому {@link FeeSchedule}. Индекс целиком заменяется
+ * FeeRuleRefresher'ом, читатели видят либо старый, либо новый набор правил, но не смесь.
+ */
+@Service
+public class FeeServiceImpl implements FeeService {
+
+    private final AtomicReference<FeeSchedule> schedule = new AtomicReference<>(FeeSchedule.EMPTY);
+
+    public FeeServiceImpl(MeterRegistry meterRegistry) {
+        Gauge.builder("fee.rules.loaded", schedule, current -> current.get().ruleCount())
+                .description("Active fee rules in the in-memory index")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Money calculate(String operation, WalletSnapshot wallet, Money amount) {
+        if (!amount.currency().equals(wallet.currencyCode())) {
+            throw new IllegalArgumentException("amount currency " + amount.currency()
+                    + " does not match wallet currency " + wallet.currencyCode());
+        }
+        return schedule.get().feeFor(operation, wallet.walletTypeUid(), amount);
+    }
+
+    @Override
+    public void publish(FeeSchedule next) {
+        schedule.set(next);
+    }
+}
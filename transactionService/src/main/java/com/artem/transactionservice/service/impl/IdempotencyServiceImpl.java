@@ -0,0 +1,162 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.config.IdempotencyProperties;
+import com.artem.transactionservice.repository.IdempotencyKeyRepository;
+import com.artem.transactionservice.repository.projection.IdempotencyKeyRow;
+import com.artem.transactionservice.service.IdempotencyService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Идемпотентность confirm по заголовку Idempotency-Key.
+ * <p>
+ * 1️⃣ Недавние ответы лежат в памяти: повтор шлюза отдаётся без обращения к БД.
+ * 2️⃣ Иначе ключ захватывается INSERT ... ON CONFLICT DO NOTHING в той же транзакции, что и confirm:
+ *    откат confirm освобождает ключ, конкурентный повтор ждёт на уникальном индексе и получает готовый ответ.
+ * 3️⃣ Тот же ключ с другим телом запроса отклоняется.
+ * <p>
+ * Сохранённый ответ неизменен, поэтому память инстанса не может разойтись с БД.
+ */
+@Slf4j
+@Service
+public class IdempotencyServiceImpl implements IdempotencyService {
+
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private final IdempotencyKeyRepository idempotencyKeyRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyProperties properties;
+
+    private final Cache<RecentKey, IdempotencyKeyRow> recent;
+    private final Counter memoryReplays;
+    private final Counter storedReplays;
+
+    public IdempotencyServiceImpl(IdempotencyKeyRepository idempotencyKeyRepository,
+                                  TransactionTemplate transactionTemplate,
+                                  ObjectMapper objectMapper,
+                                  IdempotencyProperties properties,
+                                  MeterRegistry meterRegistry) {
+        this.idempotencyKeyRepository = idempotencyKeyRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+
+        this.recent = Caffeine.newBuilder()
+                .maximumSize(properties.getRecentMaximumSize())
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, Math.min(properties.getRecentTtlMs(), properties.getTtlMs()))))
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, recent, "idempotency-keys");
+
+        this.memoryReplays = Counter.builder("idempotency.replayed")
+                .description("Confirm retries answered with a stored response")
+                .tag("source", "memory")
+                .register(meterRegistry);
+        this.storedReplays = Counter.builder("idempotency.replayed")
+                .description("Confirm retries answered with a stored response")
+                .tag("source", "db")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public <T> T execute(String key, UUID userUid, String operation, Object request,
+                         Class<T> responseType, Supplier<T> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must not be longer than " + MAX_KEY_LENGTH + " characters");
+        }
+        if (userUid == null) {
+            throw new IllegalArgumentException("userUid must not be null");
+        }
+
+        String requestHash = hash(request);
+        RecentKey recentKey = new RecentKey(userUid, operation, key);
+
+        IdempotencyKeyRow cached = recent.getIfPresent(recentKey);
+        if (cached != null) {
+            memoryReplays.increment();
+            return replay(cached, requestHash, responseType);
+        }
+
+        Outcome<T> outcome = transactionTemplate.execute(status -> {
+            LocalDateTime expiresAt = LocalDateTime.now().plus(Duration.ofMillis(properties.getTtlMs()));
+
+            if (!idempotencyKeyRepository.claim(userUid, operation, key, requestHash, expiresAt)) {
+                IdempotencyKeyRow stored = idempotencyKeyRepository.find(userUid, operation, key)
+                        .orElseThrow(() -> new IllegalStateException("Idempotency-Key expired concurrently, retry the request"));
+                return new Outcome<T>(stored, null);
+            }
+
+            T response = action.get();
+            String json = write(response);
+            idempotencyKeyRepository.saveResponse(userUid, operation, key, json);
+            return new Outcome<>(new IdempotencyKeyRow(requestHash, json), response);
+        });
+
+        // сюда доходим уже после коммита: ответ можно отдавать повторам из памяти
+        recent.put(recentKey, outcome.row());
+
+        if (outcome.response() != null) {
+            return outcome.response();
+        }
+        storedReplays.increment();
+        log.info("Replaying stored response: operation={}, userUid={}, key={}", operation, userUid, key);
+        return replay(outcome.row(), requestHash, responseType);
+    }
+
+    private <T> T replay(IdempotencyKeyRow row, String requestHash, Class<T> responseType) {
+        if (!row.requestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used with a different request");
+        }
+        if (row.response() == null) {
+            throw new IllegalStateException("Request with this Idempotency-Key is still in progress");
+        }
+        try {
+            return objectMapper.readValue(row.response(), responseType);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Stored idempotent response is unreadable", e);
+        }
+    }
+
+    private String write(Object response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize idempotent response", e);
+        }
+    }
+
+    private String hash(Object request) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest);
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Failed to hash idempotent request", e);
+        }
+    }
+
+    private record RecentKey(UUID userUid, String operation, String key) {
+    }
+
+    private record Outcome<T>(IdempotencyKeyRow row, T response) {
+    }
+}
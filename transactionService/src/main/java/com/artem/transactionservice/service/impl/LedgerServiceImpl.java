@@ -0,0 +1,51 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.dto.BalanceAsOf;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.projection.BalanceSnapshotRow;
+import com.artem.transactionservice.repository.projection.LedgerTail;
+import com.artem.transactionservice.service.LedgerService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Баланс на момент времени без чтения wallets и без переигрывания transactions:
+ * 1️⃣ последний снимок, покрывающий только проводки не позже asOf;
+ * 2️⃣ сумма проводок, не вошедших в снимок, до asOf — O(проводок с последнего снимка).
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerServiceImpl implements LedgerService {
+
+    private final LedgerEntryRepository ledgerEntryRepository;
+
+    @Override
+    public BalanceAsOf getBalanceAsOf(UUID walletUid, UUID userUid, LocalDateTime asOf) {
+        if (walletUid == null || userUid == null) {
+            throw new IllegalArgumentException("walletUid and userUid must not be null");
+        }
+
+        LocalDateTime at = asOf == null ? LocalDateTime.now() : asOf;
+        Optional<BalanceSnapshotRow> snapshot = ledgerEntryRepository.findSnapshot(walletUid, userUid, at);
+
+        if (snapshot.isEmpty()) {
+            // кошелёк существовал до проводок: раньше начального снимка баланс неизвестен
+            ledgerEntryRepository.findOpeningSnapshot(walletUid, userUid).ifPresent(opening -> {
+                throw new IllegalArgumentException("Ledger history of wallet " + walletUid
+                        + " starts at " + opening.coveredUntil());
+            });
+        }
+
+        long snapshotEntryId = snapshot.map(BalanceSnapshotRow::lastEntryId).orElse(0L);
+        long afterXid = snapshot.map(BalanceSnapshotRow::coveredXid).orElse(0L);
+        BigDecimal base = snapshot.map(BalanceSnapshotRow::balance).orElse(BigDecimal.ZERO);
+        LedgerTail tail = ledgerEntryRepository.sumAfter(walletUid, userUid, afterXid, at);
+
+        return new BalanceAsOf(walletUid, at, base.add(tail.delta()), snapshotEntryId, tail.entries());
+    }
+}
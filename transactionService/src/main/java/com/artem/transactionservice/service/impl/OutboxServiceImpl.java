@@ -0,0 +1,25 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.repository.OutboxRepository;
+import com.artem.transactionservice.service.OutboxService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class OutboxServiceImpl implements OutboxService {
+
+    private final OutboxRepository outboxRepository;
+    private final ShardRouter shardRouter;
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void publish(String topic, UUID userUid, String key, String payload) {
+        outboxRepository.save(shardRouter.shardOf(userUid), topic, key, payload);
+    }
+}
@@ -0,0 +1,186 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.config.SplitBalanceProperties;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.repository.WalletBalanceSlotRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.service.SplitBalanceService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Split balance для кошельков с высокой конкуренцией.
+ * <p>
+ * Зачисление идёт в слот hash(spreadKey) % N — разные транзакции попадают
+ * в разные строки и не ждут друг друга. Списание сначала пробует тот же слот
+ * условным UPDATE (balance >= amount), а если там не хватает — блокирует
+ * все слоты кошелька и добирает сумму по кругу.
+ * <p>
+ * Слоты блокируются только по возрастанию (wallet_uid, slot): sweep берёт слоты кошелька по порядку,
+ * а пачка операций в одной транзакции заранее берёт все свои слоты через {@link #lockSlots}.
+ * <p>
+ * Метрики кэша сумм: cache.gets, cache.evictions, cache.size с тегом cache=split-balance-aggregates.
+ */
+@Slf4j
+@Service
+public class SplitBalanceServiceImpl implements SplitBalanceService {
+
+    private final WalletRepository walletRepository;
+    private final WalletBalanceSlotRepository slotRepository;
+    private final SplitBalanceProperties properties;
+
+    private final Cache<UUID, BigDecimal> aggregates;
+
+    public SplitBalanceServiceImpl(WalletRepository walletRepository,
+                                   WalletBalanceSlotRepository slotRepository,
+                                   SplitBalanceProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.walletRepository = walletRepository;
+        this.slotRepository = slotRepository;
+        this.properties = properties;
+        this.aggregates = Caffeine.newBuilder()
+                .maximumSize(properties.getAggregateTtlMs() > 0 ? properties.getAggregateMaximumSize() : 0)
+                .expireAfterWrite(Duration.ofMillis(Math.max(1, properties.getAggregateTtlMs())))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(meterRegistry, aggregates, "split-balance-aggregates");
+    }
+
+    @Override
+    @Transactional
+    public Wallet enableSplitBalance(UUID walletUid, UUID userUid, int slots) {
+        if (slots < 2 || slots > properties.getMaxSlots()) {
+            throw new IllegalArgumentException("slots must be between 2 and " + properties.getMaxSlots());
+        }
+
+        Wallet wallet = walletRepository
+                .findByUidAndUserUidForUpdate(walletUid, userUid)
+                .orElseThrow(() -> new RuntimeException("Wallet not found"));
+
+        if (wallet.getBalanceSlots() > 0) {
+            throw new IllegalStateException("Split balance is already enabled for wallet " + walletUid);
+        }
+
+        // резерв закрывается по строке wallets (held_balance), а отменённый — возвращался бы в слот:
+        // сумма посчиталась бы дважды. Включаем, только когда незакрытых резервов нет
+        if (wallet.getHeldBalance().signum() > 0) {
+            throw new IllegalStateException("Wallet " + walletUid + " has funds on hold: " + wallet.getHeldBalance());
+        }
+
+        // весь текущий баланс переезжает в слот 0
+        slotRepository.createSlots(walletUid, userUid, slots, wallet.getBalance());
+        walletRepository.enableSplitBalance(walletUid, userUid, slots);
+
+        log.info("Split balance enabled, wallet={}, slots={}", walletUid, slots);
+
+        return walletRepository.findByUidAndUserUidForUpdate(walletUid, userUid).orElseThrow();
+    }
+
+    @Override
+    @Transactional
+    public void credit(Wallet wallet, BigDecimal amount, UUID spreadKey) {
+        int slot = slotOf(spreadKey, wallet.getBalanceSlots());
+
+        if (slotRepository.credit(wallet.getUid(), wallet.getUserUid(), slot, amount) != 1) {
+            throw new IllegalStateException("Balance slot " + slot + " not found for wallet " + wallet.getUid());
+        }
+
+        aggregates.invalidate(wallet.getUid());
+    }
+
+    @Override
+    @Transactional
+    public void lockSlots(Map<UUID, Wallet> wallets, Map<UUID, Set<UUID>> creditKeys, Set<UUID> debitWalletUids) {
+        Map<UUID, SortedSet<Integer>> slots = new TreeMap<>();
+
+        creditKeys.forEach((walletUid, spreadKeys) -> {
+            int count = wallets.get(walletUid).getBalanceSlots();
+            SortedSet<Integer> walletSlots = slots.computeIfAbsent(walletUid, uid -> new TreeSet<>());
+            spreadKeys.forEach(spreadKey -> walletSlots.add(slotOf(spreadKey, count)));
+        });
+
+        // списание может уйти в sweep, а он блокирует все слоты кошелька
+        for (UUID walletUid : debitWalletUids) {
+            int count = wallets.get(walletUid).getBalanceSlots();
+            SortedSet<Integer> walletSlots = slots.computeIfAbsent(walletUid, uid -> new TreeSet<>());
+            for (int slot = 0; slot < count; slot++) {
+                walletSlots.add(slot);
+            }
+        }
+
+        slots.forEach((walletUid, walletSlots) ->
+                slotRepository.lockSlots(walletUid, wallets.get(walletUid).getUserUid(), walletSlots));
+    }
+
+    @Override
+    @Transactional
+    public boolean tryDebit(Wallet wallet, BigDecimal amount, UUID spreadKey) {
+        return tryDebit(wallet.getUid(), wallet.getUserUid(), wallet.getBalanceSlots(), amount, spreadKey);
+    }
+
+    @Override
+    @Transactional
+    public boolean tryDebit(UUID walletUid, UUID userUid, int slots, BigDecimal amount, UUID spreadKey) {
+        int preferred = slotOf(spreadKey, slots);
+
+        // 1️⃣ быстрый путь: хватает одного слота
+        if (slotRepository.debit(walletUid, userUid, preferred, amount) == 1) {
+            aggregates.invalidate(walletUid);
+            return true;
+        }
+
+        // 2️⃣ sweep: блокируем все слоты по возрастанию и собираем сумму по кругу
+        List<BigDecimal> balances = slotRepository.lockSlots(walletUid, userUid);
+        BigDecimal total = balances.stream().reduce(BigDecimal.ZERO, BigDecimal::add);
+
+        if (total.compareTo(amount) < 0) {
+            return false;
+        }
+
+        BigDecimal remaining = amount;
+        for (int i = 0; i < balances.size() && remaining.signum() > 0; i++) {
+            int slot = (preferred + i) % balances.size();
+            BigDecimal take = balances.get(slot).min(remaining);
+
+            if (take.signum() > 0) {
+                if (slotRepository.debit(walletUid, userUid, slot, take) != 1) {
+                    throw new IllegalStateException("Balance slot " + slot + " changed under lock, wallet " + walletUid);
+                }
+                remaining = remaining.subtract(take);
+            }
+        }
+
+        aggregates.invalidate(walletUid);
+        return true;
+    }
+
+    @Override
+    public BigDecimal getBalance(Wallet wallet) {
+        return getBalance(wallet.getUid(), wallet.getUserUid(), wallet.getBalance());
+    }
+
+    @Override
+    public BigDecimal getBalance(UUID walletUid, UUID userUid, BigDecimal residual) {
+        return aggregates.get(walletUid, uid -> residual.add(slotRepository.sumBalance(uid, userUid)));
+    }
+
+    static int slotOf(UUID spreadKey, int slots) {
+        return Math.floorMod(spreadKey.hashCode(), slots);
+    }
+}
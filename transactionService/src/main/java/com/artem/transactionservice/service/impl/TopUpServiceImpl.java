@@ -1,15 +1,18 @@
 package com.artem.transactionservice.service.impl;
 
 import com.artem.transaction.model.*;
+import com.artem.transactionservice.dto.WalletSnapshot;
 import com.artem.transactionservice.entity.Transaction;
-import com.artem.transactionservice.entity.Wallet;
 import com.artem.transactionservice.entity.enums.PaymentType;
+import com.artem.transactionservice.money.Money;
 import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.service.OutboxService;
 import com.artem.transactionservice.service.TopUpService;
+import com.artem.transactionservice.service.WalletReadMode;
 import com.artem.transactionservice.service.WalletService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.kafka.core.KafkaTemplate;
+import org.apache.kafka.common.errors.InvalidRequestException;
 import org.springframework.stereotype.Service;
 import com.artem.transaction.model.TopUpInitRequest;
 import com.artem.transaction.model.TopUpConfirmRequest;
@@ -25,7 +28,7 @@ public class TopUpServiceImpl implements TopUpService {
 
     private final WalletService walletService;
     private final TransactionRepository transactionRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxService outboxService;
 
     @Override
     public TopUpInitResponse init(TopUpInitRequest request) {
@@ -40,22 +43,26 @@ public class TopUpServiceImpl implements TopUpService {
         if (userUid == null || walletUid == null) {
             throw new IllegalArgumentException("userUid and walletUid must not be null");
         }
-        Wallet wallet = walletService.getActiveWallet(walletUid, userUid);
+        WalletSnapshot wallet = walletService.getActiveWalletSnapshot(walletUid, userUid, WalletReadMode.INIT);
 
         if (wallet == null) {
             throw new RuntimeException("Wallet not found or not active");
         }
 
-        BigDecimal fee = request.getAmount()
-                .multiply(BigDecimal.valueOf(0.00));
-        BigDecimal total = request.getAmount().add(fee);
+        // fee/total считаются в минимальных единицах валюты, BigDecimal только на входе и выходе
+        Money amount = toMoney(request.getAmount(), wallet);
+        // платёж у провайдера проводится на amount, комиссию за пополнение взять не с чего:
+        // пока её не списывает платёжный сервис, клиенту показывается нулевая
+        Money fee = Money.zero(wallet.currencyCode());
+        Money total = amount.plus(fee);
 
         TopUpInitResponse response = new TopUpInitResponse();
         response.setAvailable(true);
-        response.setFee(fee);
-        response.setTotalAmount(total);
+        response.setFee(fee.toBigDecimal());
+        response.setTotalAmount(total.toBigDecimal());
+        response.setCurrency(wallet.currencyCode());
 
-        log.info("TopUp init successful for wallet: {}", wallet.getUid());
+        log.info("TopUp init successful for wallet: {}", wallet.uid());
         return response;
     }
 
@@ -77,15 +84,18 @@ public class TopUpServiceImpl implements TopUpService {
 
         try {
 
-            Wallet wallet = walletService.getActiveWallet(walletUid, userUid);
+            WalletSnapshot wallet = walletService.getActiveWalletSnapshot(walletUid, userUid, WalletReadMode.CONFIRM);
 
             if (wallet == null) {
                 throw new RuntimeException("Wallet not found or not active");
             }
 
+            // сумма с лишними для валюты знаками после запятой отклоняется, а не округляется
+            toMoney(request.getAmount(), wallet);
+
             Transaction tx = new Transaction();
             tx.setUserUid(userUid);
-            tx.setWallet(wallet);
+            tx.setWallet(walletService.getWalletReference(wallet));
             tx.setAmount(request.getAmount());
             tx.setType(PaymentType.DEPOSIT.name());
             tx.setStatus("PENDING");
@@ -93,9 +103,12 @@ public class TopUpServiceImpl implements TopUpService {
             transactionRepository.save(tx);
             log.info("Transaction created: {}", tx.getUid());
 
-            kafkaTemplate.send(
+            // событие уйдёт в Kafka только после коммита этой транзакции (outbox);
+            // ключ — кошелёк: события одного кошелька попадают в одну партицию и идут по порядку
+            outboxService.publish(
                     "deposit.requested",
-                    tx.getUid().toString(),
+                    userUid,
+                    walletUid.toString(),
                     tx.getUid().toString()
             );
 
@@ -110,4 +123,18 @@ public class TopUpServiceImpl implements TopUpService {
             throw e;
         }
     }
+
+    /**
+     * Сумма в минимальных единицах валюты кошелька; лишние знаки после запятой — ошибка запроса.
+     */
+    private static Money toMoney(BigDecimal amount, WalletSnapshot wallet) {
+        if (amount == null || amount.signum() <= 0) {
+            throw new InvalidRequestException("amount must be greater than zero");
+        }
+        try {
+            return Money.of(amount, wallet.currencyCode());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
 }
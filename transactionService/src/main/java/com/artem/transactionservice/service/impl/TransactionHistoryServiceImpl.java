@@ -0,0 +1,103 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transactionservice.dto.TransactionHistoryPage;
+import com.artem.transactionservice.repository.TransactionHistoryRepository;
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+import com.artem.transactionservice.service.TransactionHistoryService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+@Service
+@RequiredArgsConstructor
+public class TransactionHistoryServiceImpl implements TransactionHistoryService {
+
+    private static final int DEFAULT_LIMIT = 50;
+    private static final int MAX_LIMIT = 500;
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    private final TransactionHistoryRepository transactionHistoryRepository;
+    private final ObjectMapper objectMapper;
+
+    @Override
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage getHistory(UUID walletUid, UUID userUid, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_LIMIT : limit;
+        if (pageSize <= 0 || pageSize > MAX_LIMIT) {
+            throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        LocalDateTime afterCreatedAt = null;
+        UUID afterUid = null;
+        if (cursor != null && !cursor.isBlank()) {
+            String[] position = decodeCursor(cursor);
+            afterCreatedAt = LocalDateTime.parse(position[0]);
+            afterUid = UUID.fromString(position[1]);
+        }
+
+        // лишняя строка показывает, есть ли следующая страница
+        List<TransactionHistoryView> rows = transactionHistoryRepository
+                .findPage(walletUid, userUid, afterCreatedAt, afterUid, pageSize + 1);
+
+        if (rows.size() <= pageSize) {
+            return new TransactionHistoryPage(rows, null);
+        }
+
+        List<TransactionHistoryView> items = rows.subList(0, pageSize);
+        return new TransactionHistoryPage(items, encodeCursor(items.getLast()));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportHistory(UUID walletUid, UUID userUid, OutputStream out) {
+        ObjectWriter writer = objectMapper.writerFor(TransactionHistoryView.class);
+        BufferedOutputStream buffered = new BufferedOutputStream(out, EXPORT_BUFFER_SIZE);
+
+        transactionHistoryRepository.streamAll(walletUid, userUid, row -> {
+            try {
+                buffered.write(writer.writeValueAsBytes(row));
+                buffered.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to write transaction history export", e);
+            }
+        });
+
+        try {
+            buffered.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write transaction history export", e);
+        }
+    }
+
+    private static String encodeCursor(TransactionHistoryView last) {
+        String position = last.createdAt() + "|" + last.uid();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String[] position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            if (position.length != 2) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            LocalDateTime.parse(position[0]);
+            UUID.fromString(position[1]);
+            return position;
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
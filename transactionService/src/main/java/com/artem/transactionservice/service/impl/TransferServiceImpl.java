@@ -1,17 +1,21 @@
 package com.artem.transactionservice.service.impl;
 
 import com.artem.transaction.model.*;
+import com.artem.transactionservice.dto.WalletSnapshot;
 import com.artem.transactionservice.entity.Transaction;
-import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.money.Money;
 import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.service.FeeService;
+import com.artem.transactionservice.service.OutboxService;
 import com.artem.transactionservice.service.TopUpService;
 import com.artem.transactionservice.service.TransferService;
+import com.artem.transactionservice.service.WalletReadMode;
 import com.artem.transactionservice.service.WalletService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.errors.InvalidRequestException;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -22,7 +26,8 @@ import java.util.UUID;
 public class TransferServiceImpl implements TransferService {
     private final WalletService walletService;
     private final TransactionRepository transactionRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxService outboxService;
+    private final FeeService feeService;
 
     @Override
     public TransferInitResponse init(TransferInitRequest request) {
@@ -50,17 +55,21 @@ public class TransferServiceImpl implements TransferService {
             throw new InvalidRequestException("source and target wallets must be different");
         }
 
-        // 2️⃣ Проверяем source wallet
-        Wallet sourceWallet = walletService.getActiveWallet(sourceWalletUid, userUid);
+        // 2️⃣ Проверяем source wallet (из кэша — init только информирует)
+        WalletSnapshot sourceWallet = walletService.getActiveWalletSnapshot(sourceWalletUid, userUid, WalletReadMode.INIT);
+
+        Money money = toMoney(amount, sourceWallet);
+        Money fee = feeService.calculate(FeeService.TRANSFER, sourceWallet, money);
+        Money total = money.plus(fee);
 
-        boolean available = sourceWallet.getBalance().compareTo(amount) >= 0;
+        boolean available = walletService.getAvailableBalance(sourceWallet).compareTo(total.toBigDecimal()) >= 0;
 
         // 3️⃣ Ответ
         TransferInitResponse response = new TransferInitResponse();
         response.setAvailable(available);
-        response.setTotalAmount(amount);
-        response.setFee(BigDecimal.ZERO);      // пока 0
-        response.setCurrency("RUB");           // или из wallet
+        response.setTotalAmount(total.toBigDecimal());
+        response.setFee(fee.toBigDecimal());
+        response.setCurrency(sourceWallet.currencyCode());
         response.setMessage(
                 available
                         ? "Transfer is available"
@@ -71,6 +80,7 @@ public class TransferServiceImpl implements TransferService {
     }
 
 
+    @Transactional
     @Override
     public TransferConfirmResponse confirm(TransferConfirmRequest request) {
 
@@ -98,39 +108,51 @@ public class TransferServiceImpl implements TransferService {
         }
 
         // 2️⃣ Проверяем source wallet
-        Wallet sourceWallet = walletService.getActiveWallet(sourceWalletUid, userUid);
+        WalletSnapshot sourceWallet = walletService.getActiveWalletSnapshot(sourceWalletUid, userUid, WalletReadMode.CONFIRM);
+        Money money = toMoney(amount, sourceWallet);
+        // комиссия считается заново по текущим правилам и резервируется вместе с суммой
+        Money fee = feeService.calculate(FeeService.TRANSFER, sourceWallet, money);
 
-        if (sourceWallet.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient funds");
-        }
+        // проверка и резерв одним условным UPDATE; консьюмер только проводит резерв
+        walletService.holdFunds(sourceWallet, money.plus(fee).toBigDecimal());
 
         // 3️⃣ Создаём транзакцию
         Transaction tx = new Transaction();
         tx.setUserUid(userUid);
-        tx.setWallet(sourceWallet);
+        tx.setWallet(walletService.getWalletReference(sourceWallet));
         tx.setTargetWalletUid(targetWalletUid);
         tx.setAmount(amount);
+        tx.setFee(fee.toBigDecimal());
         tx.setType("TRANSFER");
-        tx.setStatus("PENDING");
+        tx.setStatus("HELD");
         tx.setComment(request.getComment());
 
         transactionRepository.save(tx);
 
         log.info("Transfer transaction created: {}", tx.getUid());
 
-        // 4️⃣ Kafka
-        kafkaTemplate.send(
+        // 4️⃣ Kafka (через outbox, в той же транзакции)
+        outboxService.publish(
                 "transfer.requested",
-                tx.getUid().toString(), // key
-                tx.getUid().toString()  // value
+                userUid,
+                sourceWalletUid.toString(), // key: порядок по кошельку-источнику
+                tx.getUid().toString()      // value
         );
 
         // 5️⃣ Ответ
         TransferConfirmResponse response = new TransferConfirmResponse();
         response.setTransactionUid(tx.getUid());
+        // HELD — внутренний статус резерва; для клиентов API операция по-прежнему PENDING до проводки
         response.setStatus("PENDING");
 
         return response;
     }
 
+    private static Money toMoney(BigDecimal amount, WalletSnapshot wallet) {
+        try {
+            return Money.of(amount, wallet.currencyCode());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,232 @@
+package com.artem.transactionservice.service.impl;
+
+import com.artem.transaction.model.CreateWalletRequest;
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.cache.WalletTypeRegistry;
+import com.artem.transactionservice.config.WalletBulkProperties;
+import com.artem.transactionservice.dto.BulkWalletResult;
+import com.artem.transactionservice.dto.BulkWalletRow;
+import com.artem.transactionservice.repository.WalletBulkRepository;
+import com.artem.transactionservice.service.WalletBulkService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Массовое создание кошельков из NDJSON-потока.
+ * <p>
+ * 1️⃣ строки читаются чанками по chunk-size, каждая проверяется (тип — из WalletTypeRegistry) и получает uid и шард;
+ * 2️⃣ чанк раскладывается по шардам, каждый шард вставляется в своём виртуальном потоке одной транзакцией,
+ *    пакетами по batch-size (reWriteBatchedInserts склеивает их в многострочные INSERT);
+ * 3️⃣ результаты чанка пишутся в ответ в порядке строк запроса, до чтения следующего чанка.
+ * <p>
+ * Ошибка вставки в шарде откатывает только строки этого шарда в текущем чанке — они вернутся с error.
+ * Таймаут тоже задаётся транзакции шарда, а не ожиданию: Postgres отменяет запрос и откатывает её,
+ * поэтому ответ всегда отражает исход транзакции — строка с error не может оказаться в базе.
+ */
+@Slf4j
+@Service
+public class WalletBulkServiceImpl implements WalletBulkService {
+
+    private static final int OUTPUT_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_NAME_LENGTH = 32;
+
+    private final WalletBulkRepository walletBulkRepository;
+    private final WalletTypeRegistry walletTypeRegistry;
+    private final ShardRouter shardRouter;
+    private final TransactionTemplate shardTransaction;
+    private final WalletBulkProperties properties;
+    private final ObjectReader requestReader;
+    private final ObjectWriter resultWriter;
+    private final Counter createdCounter;
+    private final Counter failedCounter;
+
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public WalletBulkServiceImpl(WalletBulkRepository walletBulkRepository,
+                                 WalletTypeRegistry walletTypeRegistry,
+                                 ShardRouter shardRouter,
+                                 TransactionTemplate transactionTemplate,
+                                 WalletBulkProperties properties,
+                                 ObjectMapper objectMapper,
+                                 MeterRegistry meterRegistry) {
+        this.walletBulkRepository = walletBulkRepository;
+        this.walletTypeRegistry = walletTypeRegistry;
+        this.shardRouter = shardRouter;
+        this.shardTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager(), transactionTemplate);
+        this.shardTransaction.setTimeout((int) Math.max(1, TimeUnit.MILLISECONDS.toSeconds(properties.getTimeoutMs() + 999)));
+        this.properties = properties;
+        this.requestReader = objectMapper.readerFor(CreateWalletRequest.class);
+        this.resultWriter = objectMapper.writerFor(BulkWalletResult.class);
+        this.createdCounter = Counter.builder("wallets.bulk.created")
+                .description("Wallets created through the bulk endpoint")
+                .register(meterRegistry);
+        this.failedCounter = Counter.builder("wallets.bulk.failed")
+                .description("Bulk wallet lines rejected or rolled back")
+                .register(meterRegistry);
+    }
+
+    @Override
+    public void createWallets(InputStream in, OutputStream out) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        BufferedOutputStream buffered = new BufferedOutputStream(out, OUTPUT_BUFFER_SIZE);
+
+        try {
+            List<BulkWalletRow> rows = new ArrayList<>(properties.getChunkSize());
+            List<BulkWalletResult> rejected = new ArrayList<>();
+            int lineNumber = 0;
+            String line;
+
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+
+                try {
+                    rows.add(toRow(lineNumber, line));
+                } catch (IllegalArgumentException | IllegalStateException | JsonProcessingException e) {
+                    rejected.add(BulkWalletResult.failed(lineNumber, e.getMessage()));
+                }
+
+                if (rows.size() + rejected.size() >= properties.getChunkSize()) {
+                    flushChunk(rows, rejected, buffered);
+                }
+            }
+
+            flushChunk(rows, rejected, buffered);
+            buffered.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to stream bulk wallet creation", e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private BulkWalletRow toRow(int lineNumber, String line) throws JsonProcessingException {
+        CreateWalletRequest request = requestReader.readValue(line);
+
+        if (request.getUserUid() == null || request.getWalletTypeUid() == null || request.getName() == null) {
+            throw new IllegalArgumentException("userUid, name and walletTypeUid are required");
+        }
+        if (request.getName().length() > MAX_NAME_LENGTH) {
+            throw new IllegalArgumentException("name must not be longer than " + MAX_NAME_LENGTH);
+        }
+
+        walletTypeRegistry.require(request.getWalletTypeUid());
+
+        return new BulkWalletRow(
+                lineNumber,
+                shardRouter.shardOf(request.getUserUid()),
+                shardRouter.newWalletUid(request.getUserUid()),
+                request.getUserUid(),
+                request.getWalletTypeUid(),
+                request.getName()
+        );
+    }
+
+    private void flushChunk(List<BulkWalletRow> rows, List<BulkWalletResult> rejected, OutputStream out)
+            throws IOException {
+        if (rows.isEmpty() && rejected.isEmpty()) {
+            return;
+        }
+
+        List<BulkWalletResult> results = new ArrayList<>(rows.size() + rejected.size());
+        results.addAll(rejected);
+        results.addAll(insertByShard(rows));
+        results.sort(Comparator.comparingInt(BulkWalletResult::line));
+
+        for (BulkWalletResult result : results) {
+            out.write(resultWriter.writeValueAsBytes(result));
+            out.write('\n');
+            if (result.error() == null) {
+                createdCounter.increment();
+            } else {
+                failedCounter.increment();
+            }
+        }
+        out.flush();
+
+        rows.clear();
+        rejected.clear();
+    }
+
+    private List<BulkWalletResult> insertByShard(List<BulkWalletRow> rows) {
+        Map<Integer, List<BulkWalletRow>> byShard = new TreeMap<>();
+        for (BulkWalletRow row : rows) {
+            byShard.computeIfAbsent(row.shard(), shard -> new ArrayList<>()).add(row);
+        }
+
+        Map<Integer, Future<?>> futures = new TreeMap<>();
+        byShard.forEach((shard, shardRows) -> futures.put(shard, executor.submit(() ->
+                shardTransaction.executeWithoutResult(status -> shardRouter.onShard(shard, () -> {
+                    walletBulkRepository.insert(shardRows, properties.getBatchSize());
+                    return null;
+                })))));
+
+        List<BulkWalletResult> results = new ArrayList<>(rows.size());
+
+        for (Map.Entry<Integer, Future<?>> entry : futures.entrySet()) {
+            List<BulkWalletRow> shardRows = byShard.get(entry.getKey());
+            String error = await(entry.getValue());
+
+            if (error != null) {
+                log.error("Bulk wallet insert failed, shard={}, rows={}: {}", entry.getKey(), shardRows.size(), error);
+            }
+            for (BulkWalletRow row : shardRows) {
+                results.add(error == null
+                        ? BulkWalletResult.created(row.line(), row.uid())
+                        : BulkWalletResult.failed(row.line(), error));
+            }
+        }
+
+        return results;
+    }
+
+    /**
+     * Ждёт завершения транзакции шарда без своего дедлайна: его ограничивает таймаут транзакции.
+     *
+     * @return null, если вставка закоммичена, иначе текст ошибки для строк этого шарда (транзакция откачена)
+     */
+    private static String await(Future<?> future) {
+        try {
+            future.get();
+            return null;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while inserting wallets", e);
+        } catch (ExecutionException e) {
+            return e.getCause().getMessage();
+        }
+    }
+}
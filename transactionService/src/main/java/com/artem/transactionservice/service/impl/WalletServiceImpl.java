@@ -2,12 +2,21 @@ package com.artem.transactionservice.service.impl;
 
 import com.artem.transaction.model.CreateWalletRequest;
 import com.artem.transaction.model.UpdateWalletRequest;
+import com.artem.transactionservice.ShardRouter;
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.cache.WalletTypeRegistry;
+import com.artem.transactionservice.config.WalletCacheProperties;
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.artem.transactionservice.dto.WalletTypeInfo;
 import com.artem.transactionservice.entity.Wallet;
-import com.artem.transactionservice.entity.WalletType;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletLocator;
 import com.artem.transactionservice.repository.WalletRepository;
-import com.artem.transactionservice.repository.WalletTypeRepository;
+import com.artem.transactionservice.service.SplitBalanceService;
+import com.artem.transactionservice.service.WalletReadMode;
 import com.artem.transactionservice.service.WalletService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -15,34 +24,40 @@ import java.math.BigDecimal;
 import java.util.List;
 import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class WalletServiceImpl implements WalletService {
 
     private final WalletRepository walletRepository;
-    private final WalletTypeRepository walletTypeRepository;
+    private final WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+    private final WalletLocator walletLocator;
+    private final WalletTypeRegistry walletTypeRegistry;
+    private final SplitBalanceService splitBalanceService;
+    private final WalletCache walletCache;
+    private final WalletCacheProperties walletCacheProperties;
+    private final ShardRouter shardRouter;
 
     @Override
     public Wallet createWallet(CreateWalletRequest dto) {
 
-        WalletType walletType = walletTypeRepository
-                .findById(dto.getWalletTypeUid())
-                .orElseThrow(() -> new IllegalArgumentException("Wallet type not found"));
+        // тип из справочника в памяти: без SELECT по wallet_types, и ответ сериализуется без lazy-загрузки
+        WalletTypeInfo walletType = walletTypeRegistry.require(dto.getWalletTypeUid());
 
         Wallet wallet = new Wallet();
-        wallet.setUid(UUID.randomUUID());
+        wallet.setUid(shardRouter.newWalletUid(dto.getUserUid()));
         wallet.setUserUid(dto.getUserUid());
         wallet.setName(dto.getName());
-        wallet.setWalletType(walletType);
+        wallet.setWalletType(walletTypeRegistry.toEntity(walletType));
         wallet.setStatus("ACTIVE");
         wallet.setBalance(BigDecimal.ZERO);
 
-         return walletRepository.save(wallet);
+         return walletTypeRegistry.resolve(walletRepository.save(wallet));
     }
 
     @Override
     public Wallet updateWallet(UUID walletId, UpdateWalletRequest dto) {
-        Wallet wallet = walletRepository.findByUid(walletId)
+        Wallet wallet = walletLocator.findByUid(walletId)
                 .orElseThrow(() -> new IllegalArgumentException("Wallet not found"));
 
         if (dto.getName() != null) {
@@ -53,7 +68,9 @@ public class WalletServiceImpl implements WalletService {
             wallet.setStatus(dto.getStatus().getValue());
         }
 
-        return walletRepository.save(wallet);
+        Wallet saved = walletRepository.save(wallet);
+        walletCache.invalidate(walletId);
+        return walletTypeRegistry.resolve(saved);
     }
 
     @Override
@@ -66,12 +83,14 @@ public class WalletServiceImpl implements WalletService {
 
     @Override
     public List<Wallet> findAllWalletsByUserId(UUID id) {
-        return walletRepository.findAllByUserUid(id);
+        return walletRepository.findAllByUserUid(id).stream().map(walletTypeRegistry::resolve).toList();
     }
 
     @Override
     public List<Wallet> findAllWalletsByUserIdAndWalletTypeCurrencyCode(UUID id, String currencyCode) {
-        return walletRepository.findAllByUserUidAndWalletType_CurrencyCode(id, currencyCode);
+        return walletRepository.findAllByUserUidAndWalletType_CurrencyCode(id, currencyCode).stream()
+                .map(walletTypeRegistry::resolve)
+                .toList();
     }
 
     @Override
@@ -87,28 +106,158 @@ public class WalletServiceImpl implements WalletService {
                 );
     }
 
+    @Override
+    public BigDecimal getAvailableBalance(Wallet wallet) {
+        if (wallet.getBalanceSlots() > 0) {
+            return splitBalanceService.getBalance(wallet);
+        }
+        return wallet.getBalance();
+    }
+
+    @Override
+    public WalletSnapshot getActiveWalletSnapshot(UUID walletUid, UUID userUid, WalletReadMode mode) {
+        if (walletUid == null || userUid == null) {
+            throw new IllegalArgumentException("walletUid and userUid must not be null");
+        }
+
+        if (mode == WalletReadMode.CONFIRM && walletCacheProperties.isStrictConfirm()) {
+            WalletSnapshot snapshot = loadSnapshot(walletUid, userUid);
+            walletCache.putSnapshot(snapshot);
+            return snapshot;
+        }
+
+        WalletSnapshot snapshot = walletCache.getSnapshot(walletUid, uid -> loadSnapshot(uid, userUid));
+
+        // кэш ключуется по walletUid: чужой кошелёк для этого пользователя не существует
+        if (!snapshot.userUid().equals(userUid)) {
+            throw new RuntimeException("Active wallet not found");
+        }
+
+        return snapshot;
+    }
+
+    @Override
+    public BigDecimal getAvailableBalance(WalletSnapshot wallet) {
+        if (wallet.fresh()) {
+            return wallet.balanceSlots() > 0
+                    ? splitBalanceService.getBalance(wallet.uid(), wallet.userUid(), wallet.balance())
+                    : wallet.balance();
+        }
+
+        return walletCache.getBalance(wallet.uid(), uid -> {
+            BigDecimal residual = walletRepository.findBalance(uid, wallet.userUid())
+                    .orElseThrow(() -> new RuntimeException("Wallet not found"));
+            return wallet.balanceSlots() > 0
+                    ? splitBalanceService.getBalance(uid, wallet.userUid(), residual)
+                    : residual;
+        });
+    }
+
+    @Override
+    public Wallet getWalletReference(WalletSnapshot wallet) {
+        return walletRepository.getReferenceById(wallet.uid());
+    }
+
+    @Override
+    public Wallet enableSplitBalance(UUID walletUid, UUID userUid, int slots) {
+        try {
+            return splitBalanceService.enableSplitBalance(walletUid, userUid, slots);
+        } finally {
+            walletCache.invalidate(walletUid);
+        }
+    }
+
+    @Override
+    @Transactional
+    public void holdFunds(WalletSnapshot wallet, BigDecimal amount) {
+        if (!tryHold(wallet, amount)) {
+            // снимок из кэша мог устареть (кошелёк перевели в split balance) — перечитываем и пробуем ещё раз
+            if (wallet.fresh() || !tryHold(refresh(wallet), amount)) {
+                throw new RuntimeException("Insufficient funds");
+            }
+        }
+
+        walletCache.invalidateBalancesAfterCommit(List.of(wallet.uid()));
+    }
+
+    /**
+     * Обычный кошелёк — один условный UPDATE, чтение нужно, только если он не прошёл.
+     */
     @Transactional
     @Override
     public void increaseBalance(UUID walletUid, UUID userUid, BigDecimal amount) {
-        Wallet wallet = walletRepository
-                .findByUidAndUserUidAndStatus(walletUid, userUid, "ACTIVE")
-                .orElseThrow();
+        if (walletBalanceJdbcRepository.credit(walletUid, userUid, amount).isEmpty()) {
+            WalletSnapshot wallet = loadSnapshot(walletUid, userUid);
+
+            if (wallet.balanceSlots() == 0) {
+                throw new IllegalStateException("Wallet changed concurrently: " + walletUid);
+            }
 
-        wallet.setBalance(wallet.getBalance().add(amount));
+            splitBalanceService.credit(getWalletReference(wallet), amount, UUID.randomUUID());
+        }
+
+        walletCache.invalidateBalancesAfterCommit(List.of(walletUid));
     }
 
     @Transactional
     @Override
     public void decreaseBalance(UUID walletUid, UUID userUid, BigDecimal amount) {
+        if (walletBalanceJdbcRepository.debit(walletUid, userUid, amount).isEmpty()) {
+            WalletSnapshot wallet = loadSnapshot(walletUid, userUid);
+
+            if (wallet.balanceSlots() == 0
+                    || !splitBalanceService.tryDebit(walletUid, userUid, wallet.balanceSlots(), amount, UUID.randomUUID())) {
+                throw new RuntimeException("Insufficient funds");
+            }
+        }
+
+        walletCache.invalidateBalancesAfterCommit(List.of(walletUid));
+    }
+
+    private boolean tryHold(WalletSnapshot wallet, BigDecimal amount) {
+        if (wallet.balanceSlots() > 0) {
+            return splitBalanceService.tryDebit(wallet.uid(), wallet.userUid(), wallet.balanceSlots(), amount, UUID.randomUUID());
+        }
+
+        return walletBalanceJdbcRepository.hold(wallet.uid(), wallet.userUid(), amount)
+                .map(balance -> {
+                    log.debug("Funds held, wallet={}, amount={}, balance={}", wallet.uid(), amount, balance);
+                    return true;
+                })
+                .orElse(false);
+    }
 
+    private WalletSnapshot refresh(WalletSnapshot wallet) {
+        WalletSnapshot fresh = loadSnapshot(wallet.uid(), wallet.userUid());
+        walletCache.putSnapshot(fresh);
+        return fresh;
+    }
+
+    /**
+     * Валюта — из справочника типов в памяти: getUid() у lazy-прокси не требует открытой сессии
+     * и не загружает тип из wallet_types.
+     */
+    private WalletSnapshot loadSnapshot(UUID walletUid, UUID userUid) {
         Wallet wallet = walletRepository
                 .findByUidAndUserUidAndStatus(walletUid, userUid, "ACTIVE")
-                .orElseThrow();
+                .orElseThrow(() ->
+                        new RuntimeException("Active wallet not found")
+                );
 
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient funds");
-        }
+        UUID walletTypeUid = wallet.getWalletType().getUid();
+        String currencyCode = walletTypeRegistry.find(walletTypeUid)
+                .map(WalletTypeInfo::currencyCode)
+                .orElseThrow(() -> new IllegalStateException("Wallet type not found for wallet " + walletUid));
 
-        wallet.setBalance(wallet.getBalance().subtract(amount));
+        return new WalletSnapshot(
+                wallet.getUid(),
+                wallet.getUserUid(),
+                wallet.getStatus(),
+                walletTypeUid,
+                currencyCode,
+                wallet.getBalanceSlots(),
+                wallet.getBalance(),
+                true
+        );
     }
 }
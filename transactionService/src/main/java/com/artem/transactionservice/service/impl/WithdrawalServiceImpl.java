@@ -4,16 +4,20 @@ import com.artem.transaction.model.WithdrawalConfirmRequest;
 import com.artem.transaction.model.WithdrawalConfirmResponse;
 import com.artem.transaction.model.WithdrawalInitRequest;
 import com.artem.transaction.model.WithdrawalInitResponse;
+import com.artem.transactionservice.dto.WalletSnapshot;
 import com.artem.transactionservice.entity.Transaction;
-import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.money.Money;
 import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.service.FeeService;
+import com.artem.transactionservice.service.OutboxService;
+import com.artem.transactionservice.service.WalletReadMode;
 import com.artem.transactionservice.service.WalletService;
 import com.artem.transactionservice.service.WithdrawalService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.kafka.common.errors.InvalidRequestException;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.util.UUID;
@@ -25,7 +29,8 @@ public class WithdrawalServiceImpl implements WithdrawalService {
 
     private final WalletService walletService;
     private final TransactionRepository transactionRepository;
-    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final OutboxService outboxService;
+    private final FeeService feeService;
 
     @Override
     public WithdrawalInitResponse init(WithdrawalInitRequest request) {
@@ -49,38 +54,39 @@ public class WithdrawalServiceImpl implements WithdrawalService {
         }
 
 
-        Wallet wallet = walletService.getActiveWallet(walletUid, userUid);
+        // init только информирует клиента: кошелёк и баланс из кэша
+        WalletSnapshot wallet = walletService.getActiveWalletSnapshot(walletUid, userUid, WalletReadMode.INIT);
 
 
-        BigDecimal fee = amount.multiply(BigDecimal.valueOf(0.00));
+        Money money = toMoney(amount, wallet);
+        Money fee = feeService.calculate(FeeService.WITHDRAWAL, wallet, money);
+        Money totalAmount = money.plus(fee);
 
 
-        BigDecimal totalAmount = amount.add(fee);
-
-
-        if (wallet.getBalance().compareTo(totalAmount) < 0) {
+        if (walletService.getAvailableBalance(wallet).compareTo(totalAmount.toBigDecimal()) < 0) {
             WithdrawalInitResponse response = new WithdrawalInitResponse();
             response.setAvailable(false);
             response.setMessage("Insufficient funds");
-            response.setFee(fee);
-            response.setTotalAmount(totalAmount);
-            response.setCurrency(wallet.getWalletType().getCurrencyCode());
+            response.setFee(fee.toBigDecimal());
+            response.setTotalAmount(totalAmount.toBigDecimal());
+            response.setCurrency(wallet.currencyCode());
             return response;
         }
 
 
         WithdrawalInitResponse response = new WithdrawalInitResponse();
         response.setAvailable(true);
-        response.setFee(fee);
-        response.setTotalAmount(totalAmount);
-        response.setCurrency(wallet.getWalletType().getCurrencyCode());
+        response.setFee(fee.toBigDecimal());
+        response.setTotalAmount(totalAmount.toBigDecimal());
+        response.setCurrency(wallet.currencyCode());
         response.setMessage("Withdrawal is available");
 
-        log.info("Withdrawal init successful for wallet: {}", wallet.getUid());
+        log.info("Withdrawal init successful for wallet: {}", wallet.uid());
 
         return response;
     }
 
+    @Transactional
     @Override
     public WithdrawalConfirmResponse confirm(WithdrawalConfirmRequest request) {
 
@@ -103,20 +109,23 @@ public class WithdrawalServiceImpl implements WithdrawalService {
         }
 
 
-        Wallet wallet = walletService.getActiveWallet(walletUid, userUid);
+        WalletSnapshot wallet = walletService.getActiveWalletSnapshot(walletUid, userUid, WalletReadMode.CONFIRM);
+        Money money = toMoney(amount, wallet);
+        // комиссия считается заново по текущим правилам и резервируется вместе с суммой
+        Money fee = feeService.calculate(FeeService.WITHDRAWAL, wallet, money);
 
 
-        if (wallet.getBalance().compareTo(amount) < 0) {
-            throw new RuntimeException("Insufficient funds");
-        }
+        // проверка и резерв одним условным UPDATE; консьюмер только проводит резерв
+        walletService.holdFunds(wallet, money.plus(fee).toBigDecimal());
 
 
         Transaction tx = new Transaction();
         tx.setUserUid(userUid);
-        tx.setWallet(wallet);
+        tx.setWallet(walletService.getWalletReference(wallet));
         tx.setAmount(amount);
+        tx.setFee(fee.toBigDecimal());
         tx.setType("WITHDRAWAL");
-        tx.setStatus("PENDING");
+        tx.setStatus("HELD");
         tx.setComment(request.getComment());
 
         transactionRepository.save(tx);
@@ -124,17 +133,30 @@ public class WithdrawalServiceImpl implements WithdrawalService {
         log.info("Withdrawal transaction created: {}", tx.getUid());
 
 
-        kafkaTemplate.send(
+        outboxService.publish(
                 "withdrawal.requested",
-                tx.getUid().toString(),
+                userUid,
+                walletUid.toString(), // ключ — кошелёк: события одного кошелька идут по порядку
                 tx.getUid().toString()
         );
 
 
         WithdrawalConfirmResponse response = new WithdrawalConfirmResponse();
         response.setTransactionUid(tx.getUid());
+        // HELD — внутренний статус резерва; для клиентов API операция по-прежнему PENDING до проводки
         response.setStatus("PENDING");
 
         return response;
     }
+
+    /**
+     * Сумма в минимальных единицах валюты кошелька; лишние знаки после запятой — ошибка запроса.
+     */
+    private static Money toMoney(BigDecimal amount, WalletSnapshot wallet) {
+        try {
+            return Money.of(amount, wallet.currencyCode());
+        } catch (IllegalArgumentException e) {
+            throw new InvalidRequestException(e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,98 @@
+-- transactions секционируется по created_at помесячно (на каждом шарде).
+-- Старая таблица целиком становится секцией «всё до начала месяца, следующего за последней
+-- строкой» (на пустой таблице — до текущего месяца): данные не копируются, но ATTACH не бесплатен.
+-- Он читает всю transactions_legacy, проверяя границу секции, и строит на ней индексы родителя
+-- (PK (uid, created_at), idx_transactions_wallet_history, idx_transactions_pending); всё это время
+-- transactions_legacy под ACCESS EXCLUSIVE, т.е. окно блокировки растёт с размером старой таблицы.
+-- Месячные секции начинаются сразу за ней: их создаёт TransactionPartitionMaintainer,
+-- старые он отсоединяет и переносит в схему archive.
+ALTER TABLE transactions RENAME TO transactions_legacy;
+ALTER INDEX transactions_pkey RENAME TO transactions_legacy_pkey;
+DROP INDEX IF EXISTS idx_transactions_wallet_history;
+DROP INDEX IF EXISTS idx_transactions_pending;
+
+CREATE TABLE transactions (LIKE transactions_legacy INCLUDING DEFAULTS INCLUDING CONSTRAINTS)
+    PARTITION BY RANGE (created_at);
+
+-- ключ секционирования обязан входить в первичный ключ
+ALTER TABLE transactions ADD PRIMARY KEY (uid, created_at);
+ALTER TABLE transactions ADD CONSTRAINT transactions_wallet_uid_fkey FOREIGN KEY (wallet_uid) REFERENCES wallets (uid);
+
+CREATE INDEX IF NOT EXISTS idx_transactions_wallet_history ON transactions (wallet_uid, created_at DESC, uid);
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (created_at, uid) WHERE status IN ('PENDING', 'HELD', 'CREDITING');
+
+-- на живом шарде в transactions_legacy уже есть строки текущего месяца (и, при сдвиге часов, будущих):
+-- граница должна быть строго больше max(created_at), иначе ATTACH упадёт на первой же такой строке
+DO $$
+DECLARE
+    legacy_upper DATE;
+BEGIN
+    SELECT greatest(date_trunc('month', now()),
+                    date_trunc('month', max(created_at)) + INTERVAL '1 month')::date
+    INTO legacy_upper
+    FROM transactions_legacy;
+
+    EXECUTE format('ALTER TABLE transactions ATTACH PARTITION transactions_legacy FOR VALUES FROM (MINVALUE) TO (%L)',
+                   legacy_upper);
+END $$;
+
+-- страховка на случай, если месяц не был создан заранее; в норме пустая
+CREATE TABLE IF NOT EXISTS transactions_default PARTITION OF transactions DEFAULT;
+
+-- верхняя граница секции transactions_legacy (NULL, если она не подключена)
+CREATE OR REPLACE FUNCTION transactions_legacy_upper_bound() RETURNS DATE AS $$
+    SELECT substring(pg_get_expr(c.relpartbound, c.oid) FROM 'TO \(''([^'']+)''\)')::date
+    FROM pg_class c
+    WHERE c.oid = to_regclass('transactions_legacy')
+      AND c.relispartition;
+$$ LANGUAGE sql STABLE;
+
+-- создаёт секции transactions_yYYYYmMM с текущего месяца на months_ahead вперёд, возвращает число созданных.
+-- Месяцы, которые ещё покрывает transactions_legacy, пропускаются
+CREATE OR REPLACE FUNCTION create_transaction_partitions(months_ahead INT) RETURNS INT AS $$
+DECLARE
+    legacy_upper DATE := coalesce(transactions_legacy_upper_bound(), '-infinity'::date);
+    month_start DATE;
+    partition_name TEXT;
+    created INT := 0;
+BEGIN
+    FOR i IN 0..months_ahead LOOP
+        month_start := (date_trunc('month', now()) + make_interval(months => i))::date;
+        partition_name := 'transactions_' || to_char(month_start, '"y"YYYY"m"MM');
+
+        IF month_start >= legacy_upper AND to_regclass(partition_name) IS NULL THEN
+            EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                           partition_name, month_start, (month_start + INTERVAL '1 month')::date);
+            created := created + 1;
+        END IF;
+    END LOOP;
+    RETURN created;
+END;
+$$ LANGUAGE plpgsql;
+
+-- отсоединяет месячные секции, целиком старше keep_months, и переносит их в archive_schema.
+-- transactions_legacy и transactions_default не трогаются
+CREATE OR REPLACE FUNCTION detach_transaction_partitions(keep_months INT, archive_schema TEXT) RETURNS SETOF TEXT AS $$
+DECLARE
+    cutoff DATE := (date_trunc('month', now()) - make_interval(months => keep_months))::date;
+    partition_name TEXT;
+BEGIN
+    EXECUTE format('CREATE SCHEMA IF NOT EXISTS %I', archive_schema);
+
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'transactions'::regclass
+          AND c.relname ~ '^transactions_y[0-9]{4}m[0-9]{2}$'
+          AND to_date(substring(c.relname FROM 14), '"y"YYYY"m"MM') < cutoff
+        ORDER BY c.relname
+    LOOP
+        EXECUTE format('ALTER TABLE transactions DETACH PARTITION %I', partition_name);
+        EXECUTE format('ALTER TABLE %I SET SCHEMA %I', partition_name, archive_schema);
+        RETURN NEXT partition_name;
+    END LOOP;
+END;
+$$ LANGUAGE plpgsql;
+
+SELECT create_transaction_partitions(3);
@@ -0,0 +1,83 @@
+-- проводки: по строке на каждую ногу проведённой транзакции, только INSERT.
+-- Проводится движение всех средств кошелька; резерв (held) до списания проводкой не является
+CREATE TABLE IF NOT EXISTS ledger_entries (
+    id BIGSERIAL PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    user_uid UUID NOT NULL,
+    wallet_uid UUID NOT NULL,
+    transaction_uid UUID NOT NULL,
+    direction VARCHAR(6) NOT NULL CHECK (direction IN ('DEBIT', 'CREDIT')),
+    amount DECIMAL NOT NULL CHECK (amount > 0)
+    );
+
+-- повтор проводки той же ноги (переигрывание батча, повтор события саги) ничего не добавляет
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ledger_entries_leg ON ledger_entries (transaction_uid, wallet_uid, direction);
+
+-- хвост после снимка читается по этому индексу: O(число проводок после снимка)
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_wallet ON ledger_entries (wallet_uid, id);
+
+-- снимок: баланс кошелька по всем проводкам с id <= last_entry_id;
+-- covered_until — самая поздняя created_at среди них (для запроса «баланс на момент T»)
+CREATE TABLE IF NOT EXISTS wallet_balance_snapshots (
+    wallet_uid UUID NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    user_uid UUID NOT NULL,
+    covered_until TIMESTAMP NOT NULL,
+    balance DECIMAL NOT NULL,
+    PRIMARY KEY (wallet_uid, last_entry_id)
+    );
+
+-- начальные снимки: у существующих кошельков нет истории проводок, их проведённый баланс —
+-- доступный + зарезервированный, у split balance — слоты плюс незакрытые резервы (они уже списаны из слотов)
+INSERT INTO wallet_balance_snapshots (wallet_uid, last_entry_id, user_uid, covered_until, balance)
+SELECT w.uid, 0, w.user_uid, now(),
+       w.balance + w.held_balance
+           + COALESCE((SELECT sum(s.balance) FROM wallet_balance_slots s WHERE s.wallet_uid = w.uid), 0)
+           + CASE WHEN w.balance_slots > 0
+                  THEN COALESCE((SELECT sum(t.amount) FROM transactions t
+                                 WHERE t.wallet_uid = w.uid AND t.status IN ('HELD', 'CREDITING')), 0)
+                  ELSE 0 END
+FROM wallets w
+ON CONFLICT DO NOTHING;
+
+-- снимает новые снимки по проводкам старше cutoff, которые ещё не вошли в снимки; возвращает число снимков.
+-- Все снимки одного прогона заканчиваются на одном last_entry_id, поэтому следующий прогон начинает с max(last_entry_id)
+CREATE OR REPLACE FUNCTION take_balance_snapshots(cutoff TIMESTAMP) RETURNS INT AS $$
+DECLARE
+    from_id BIGINT;
+    to_id BIGINT;
+    taken INT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('take_balance_snapshots'));
+
+    SELECT COALESCE(max(last_entry_id), 0) INTO from_id FROM wallet_balance_snapshots;
+    SELECT max(id) INTO to_id FROM ledger_entries WHERE id > from_id AND created_at < cutoff;
+
+    IF to_id IS NULL THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO wallet_balance_snapshots (wallet_uid, last_entry_id, user_uid, covered_until, balance)
+    SELECT d.wallet_uid, to_id, d.user_uid,
+           GREATEST(p.covered_until, d.max_created_at),
+           COALESCE(p.balance, 0) + d.delta
+    FROM (
+        SELECT wallet_uid, user_uid, max(created_at) AS max_created_at,
+               sum(CASE direction WHEN 'CREDIT' THEN amount ELSE -amount END) AS delta
+        FROM ledger_entries
+        WHERE id > from_id AND id <= to_id
+        GROUP BY wallet_uid, user_uid
+    ) d
+    LEFT JOIN LATERAL (
+        SELECT s.balance, s.covered_until
+        FROM wallet_balance_snapshots s
+        WHERE s.wallet_uid = d.wallet_uid
+        ORDER BY s.last_entry_id DESC
+        LIMIT 1
+    ) p ON true
+    ON CONFLICT DO NOTHING;
+
+    GET DIAGNOSTICS taken = ROW_COUNT;
+    RETURN taken;
+END;
+$$ LANGUAGE plpgsql;
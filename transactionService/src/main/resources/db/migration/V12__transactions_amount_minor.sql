@@ -0,0 +1,4 @@
+-- Сумма транзакции в минимальных единицах валюты кошелька (см. Money): amount * 10^scale.
+-- Заполняется при confirm; у строк до V12 остаётся NULL — источником истины по-прежнему служит amount.
+-- На секционированной таблице колонка добавляется во все секции, перезаписи данных нет.
+ALTER TABLE transactions ADD COLUMN IF NOT EXISTS amount_minor BIGINT;
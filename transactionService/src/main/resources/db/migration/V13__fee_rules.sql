@@ -0,0 +1,41 @@
+-- правила комиссий: справочник, одинаковый во всех шардах (broadcast-таблица в sharding.yaml).
+-- Сервис держит их в памяти (FeeRuleRefresher), init в БД не ходит.
+--
+-- Строка — ступень шкалы: действует для сумм от min_amount (включительно) до min_amount следующей ступени.
+-- fee = fixed_fee + amount * percent_bp / 10000, затем ограничивается [min_fee, max_fee].
+-- wallet_type_uid = NULL — правило для всех типов кошельков в этой валюте; правило типа его перекрывает.
+CREATE TABLE IF NOT EXISTS fee_rules (
+    id BIGSERIAL PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    modified_at TIMESTAMP NOT NULL DEFAULT now(),
+    operation VARCHAR(32) NOT NULL,
+    currency_code VARCHAR(3) NOT NULL,
+    wallet_type_uid UUID,
+    min_amount DECIMAL NOT NULL DEFAULT 0,
+    percent_bp INT NOT NULL DEFAULT 0,
+    fixed_fee DECIMAL NOT NULL DEFAULT 0,
+    min_fee DECIMAL,
+    max_fee DECIMAL,
+    status VARCHAR(18) NOT NULL DEFAULT 'ACTIVE',
+    CONSTRAINT chk_fee_rules_operation CHECK (operation IN ('DEPOSIT', 'WITHDRAWAL', 'TRANSFER')),
+    CONSTRAINT chk_fee_rules_values CHECK (min_amount >= 0 AND percent_bp >= 0 AND fixed_fee >= 0
+        AND (min_fee IS NULL OR min_fee >= 0)
+        AND (max_fee IS NULL OR max_fee >= coalesce(min_fee, 0)))
+    );
+
+-- одна ступень на (операция, валюта, тип кошелька, нижняя граница)
+CREATE UNIQUE INDEX IF NOT EXISTS ux_fee_rules_tier ON fee_rules (
+    operation, currency_code, coalesce(wallet_type_uid, '00000000-0000-0000-0000-000000000000'::uuid), min_amount
+    ) WHERE status = 'ACTIVE';
+
+-- по max(modified_at) и count(*) сервис понимает, что правила поменялись
+CREATE OR REPLACE FUNCTION fee_rules_touch() RETURNS trigger AS $$
+BEGIN
+    NEW.modified_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_fee_rules_touch ON fee_rules;
+CREATE TRIGGER trg_fee_rules_touch BEFORE UPDATE ON fee_rules
+    FOR EACH ROW EXECUTE FUNCTION fee_rules_touch();
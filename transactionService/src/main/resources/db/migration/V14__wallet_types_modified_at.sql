@@ -0,0 +1,19 @@
+-- wallet_types держится в памяти сервиса (WalletTypeRegistry) и перечитывается,
+-- когда меняются count(*) или max(coalesce(modified_at, created_at)): любое UPDATE должно двигать modified_at.
+-- Та же функция заменяет fee_rules_touch из V13.
+CREATE OR REPLACE FUNCTION touch_modified_at() RETURNS trigger AS $$
+BEGIN
+    NEW.modified_at := now();
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS trg_wallet_types_touch ON wallet_types;
+CREATE TRIGGER trg_wallet_types_touch BEFORE UPDATE ON wallet_types
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+DROP TRIGGER IF EXISTS trg_fee_rules_touch ON fee_rules;
+CREATE TRIGGER trg_fee_rules_touch BEFORE UPDATE ON fee_rules
+    FOR EACH ROW EXECUTE FUNCTION touch_modified_at();
+
+DROP FUNCTION IF EXISTS fee_rules_touch();
@@ -0,0 +1,7 @@
+-- комиссия списывается отдельной проводкой той же транзакции и того же кошелька:
+-- вид проводки входит в ключ идемпотентности, иначе проводка комиссии гасилась бы как повтор основной
+ALTER TABLE ledger_entries ADD COLUMN IF NOT EXISTS kind VARCHAR(9) NOT NULL DEFAULT 'PRINCIPAL'
+    CHECK (kind IN ('PRINCIPAL', 'FEE'));
+
+DROP INDEX IF EXISTS ux_ledger_entries_leg;
+CREATE UNIQUE INDEX IF NOT EXISTS ux_ledger_entries_leg ON ledger_entries (transaction_uid, wallet_uid, direction, kind);
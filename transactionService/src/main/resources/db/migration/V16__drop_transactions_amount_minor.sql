@@ -0,0 +1,4 @@
+-- amount_minor (V12) только записывался: балансы, проводки, снимки и консьюмеры считают по amount (DECIMAL),
+-- а Money живёт в памяти на пути init/confirm. Вторая копия суммы без читателей лишь расходится с amount.
+-- На секционированной таблице DROP COLUMN меняет только каталог, данные не переписываются.
+ALTER TABLE transactions DROP COLUMN IF EXISTS amount_minor;
@@ -0,0 +1,72 @@
+-- Граница снимка по id проводки не была устойчива к порядку коммитов: id выдаётся при INSERT,
+-- а строка становится видна при COMMIT, и проводка с меньшим id могла закоммититься уже после
+-- снимка с бóльшим last_entry_id — она не попадала ни в снимок, ни в хвост после него.
+-- Теперь граница — горизонт транзакций: у каждой проводки есть xid её транзакции, а снимок
+-- покрывает все проводки с created_xid < covered_xid. Транзакции с xid меньше xmin снимка Postgres
+-- уже завершены, поэтому за такой границей незакоммиченных проводок не бывает.
+ALTER TABLE ledger_entries ADD COLUMN IF NOT EXISTS created_xid XID8 NOT NULL DEFAULT pg_current_xact_id();
+
+-- хвост после снимка читается по этому индексу: O(число проводок после снимка)
+DROP INDEX IF EXISTS idx_ledger_entries_wallet;
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_wallet ON ledger_entries (wallet_uid, created_xid);
+
+-- прогон снимков выбирает проводки по диапазону xid
+CREATE INDEX IF NOT EXISTS idx_ledger_entries_xid ON ledger_entries (created_xid);
+
+-- covered_xid: снимок покрывает проводки кошелька с created_xid < covered_xid; у начальных снимков — 0.
+-- last_entry_id остаётся в ключе: у снимков кошелька это наибольший id среди вошедших в прогон проводок
+ALTER TABLE wallet_balance_snapshots ADD COLUMN IF NOT EXISTS covered_xid XID8 NOT NULL DEFAULT '0';
+
+-- прежние снимки посчитаны по id и могли пропустить проводки: следующий прогон снимет их заново
+-- от начальных снимков (все существующие проводки получили xid этой миграции)
+DELETE FROM wallet_balance_snapshots WHERE last_entry_id <> 0;
+
+-- снимает новые снимки по проводкам старше cutoff, которые ещё не вошли в снимки; возвращает число снимков.
+-- Все снимки одного прогона заканчиваются на одном covered_xid, поэтому следующий прогон начинает с max(covered_xid)
+CREATE OR REPLACE FUNCTION take_balance_snapshots(cutoff TIMESTAMP) RETURNS INT AS $$
+DECLARE
+    from_xid XID8;
+    to_xid XID8;
+    taken INT;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('take_balance_snapshots'));
+
+    SELECT COALESCE(max(covered_xid), '0') INTO from_xid FROM wallet_balance_snapshots;
+
+    -- всё, что ниже xmin, завершено: проводки таких транзакций уже видны или не появятся никогда
+    to_xid := pg_snapshot_xmin(pg_current_snapshot());
+
+    -- проводки не старше cutoff ждут следующего прогона: граница не заходит за первую из них
+    SELECT least(to_xid, min(created_xid)) INTO to_xid
+    FROM ledger_entries
+    WHERE created_xid >= from_xid AND created_at >= cutoff;
+
+    IF to_xid <= from_xid THEN
+        RETURN 0;
+    END IF;
+
+    INSERT INTO wallet_balance_snapshots (wallet_uid, last_entry_id, user_uid, covered_until, balance, covered_xid)
+    SELECT d.wallet_uid, d.last_entry_id, d.user_uid,
+           GREATEST(p.covered_until, d.max_created_at),
+           COALESCE(p.balance, 0) + d.delta,
+           to_xid
+    FROM (
+        SELECT wallet_uid, user_uid, max(id) AS last_entry_id, max(created_at) AS max_created_at,
+               sum(CASE direction WHEN 'CREDIT' THEN amount ELSE -amount END) AS delta
+        FROM ledger_entries
+        WHERE created_xid >= from_xid AND created_xid < to_xid
+        GROUP BY wallet_uid, user_uid
+    ) d
+    LEFT JOIN LATERAL (
+        SELECT s.balance, s.covered_until
+        FROM wallet_balance_snapshots s
+        WHERE s.wallet_uid = d.wallet_uid
+        ORDER BY s.covered_xid DESC
+        LIMIT 1
+    ) p ON true
+    ON CONFLICT DO NOTHING;
+
+    GET DIAGNOSTICS taken = ROW_COUNT;
+    RETURN taken;
+END;
+$$ LANGUAGE plpgsql;
@@ -0,0 +1,6 @@
+-- комиссия за пополнение нигде не считается: TopUpService её не берёт, а правило DEPOSIT
+-- выглядело бы действующим. Такие строки удаляются, новые не пропускает CHECK
+DELETE FROM fee_rules WHERE operation = 'DEPOSIT';
+
+ALTER TABLE fee_rules DROP CONSTRAINT IF EXISTS chk_fee_rules_operation;
+ALTER TABLE fee_rules ADD CONSTRAINT chk_fee_rules_operation CHECK (operation IN ('WITHDRAWAL', 'TRANSFER'));
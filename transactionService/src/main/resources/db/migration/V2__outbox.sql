@@ -0,0 +1,10 @@
+-- outbox: события для Kafka пишутся в той же транзакции, что и transactions,
+-- и отправляются отдельным relay (см. OutboxRelay)
+CREATE TABLE IF NOT EXISTS outbox_events (
+    id BIGSERIAL PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    shard_id INT NOT NULL,
+    topic VARCHAR(128) NOT NULL,
+    message_key VARCHAR(128),
+    payload TEXT NOT NULL
+    );
@@ -0,0 +1,12 @@
+-- split balance: баланс "горячего" кошелька раскладывается по N слотам,
+-- чтобы параллельные зачисления не упирались в одну строку wallets
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS balance_slots INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS wallet_balance_slots (
+    wallet_uid UUID NOT NULL REFERENCES wallets(uid),
+    user_uid UUID NOT NULL,
+    slot INT NOT NULL,
+    balance DECIMAL NOT NULL DEFAULT 0.0 CHECK (balance >= 0),
+    modified_at TIMESTAMP,
+    PRIMARY KEY (wallet_uid, slot)
+    );
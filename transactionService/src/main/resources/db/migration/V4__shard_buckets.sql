@@ -0,0 +1,14 @@
+-- каталог виртуальных бакетов: bucket (hash(user_uid) % 1024) -> шард.
+-- создаётся во всех базах, используется экземпляр в ds_0
+CREATE TABLE IF NOT EXISTS shard_buckets (
+    bucket INT PRIMARY KEY,
+    shard_id INT NOT NULL,
+    state VARCHAR(16) NOT NULL DEFAULT 'STABLE',
+    target_shard_id INT,
+    modified_at TIMESTAMP NOT NULL DEFAULT now()
+    );
+
+-- мигратор копирует транзакции по кошелькам и догоняет изменения по времени
+CREATE INDEX IF NOT EXISTS idx_transactions_wallet_uid ON transactions (wallet_uid);
+CREATE INDEX IF NOT EXISTS idx_transactions_changed_at ON transactions ((COALESCE(modified_at, created_at)));
+CREATE INDEX IF NOT EXISTS idx_wallets_changed_at ON wallets ((COALESCE(modified_at, created_at)));
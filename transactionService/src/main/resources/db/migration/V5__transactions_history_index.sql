@@ -0,0 +1,4 @@
+-- история кошелька: keyset-пагинация по (created_at DESC, uid) читает индекс по порядку без сортировки.
+-- индекс по одному wallet_uid из V4 покрывается префиксом нового
+CREATE INDEX IF NOT EXISTS idx_transactions_wallet_history ON transactions (wallet_uid, created_at DESC, uid);
+DROP INDEX IF EXISTS idx_transactions_wallet_uid;
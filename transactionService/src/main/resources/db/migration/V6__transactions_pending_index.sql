@@ -0,0 +1,2 @@
+-- отчёт по незавершённым транзакциям (scatter-gather по всем шардам) читает только этот частичный индекс
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (created_at, uid) WHERE status = 'PENDING';
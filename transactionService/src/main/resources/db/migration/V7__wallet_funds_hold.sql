@@ -0,0 +1,9 @@
+-- резерв средств: confirm переносит сумму из balance в held_balance одним условным UPDATE,
+-- консьюмер только списывает резерв (COMPLETED) или возвращает его в balance (FAILED)
+ALTER TABLE wallets ADD COLUMN IF NOT EXISTS held_balance DECIMAL NOT NULL DEFAULT 0.0;
+
+ALTER TABLE wallets ADD CONSTRAINT wallets_held_balance_non_negative CHECK (held_balance >= 0);
+
+-- транзакции с резервом (HELD) тоже незавершённые
+DROP INDEX IF EXISTS idx_transactions_pending;
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (created_at, uid) WHERE status IN ('PENDING', 'HELD');
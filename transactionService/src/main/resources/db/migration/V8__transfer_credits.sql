@@ -0,0 +1,15 @@
+-- межшардовый перевод: зачисления на шарде получателя (см. TransferSaga).
+-- transaction_uid — ключ идемпотентности: повтор события из Kafka не зачисляет второй раз
+CREATE TABLE IF NOT EXISTS transfer_credits (
+    transaction_uid UUID PRIMARY KEY,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    user_uid UUID NOT NULL,
+    wallet_uid UUID NOT NULL,
+    amount DECIMAL NOT NULL,
+    status VARCHAR(32) NOT NULL,
+    failure_reason VARCHAR(256)
+    );
+
+-- CREDITING — перевод ждёт зачисления на другом шарде, тоже незавершённый
+DROP INDEX IF EXISTS idx_transactions_pending;
+CREATE INDEX IF NOT EXISTS idx_transactions_pending ON transactions (created_at, uid) WHERE status IN ('PENDING', 'HELD', 'CREDITING');
@@ -0,0 +1,18 @@
+-- ответы confirm по заголовку Idempotency-Key; живут на шарде пользователя.
+-- Повтор с тем же ключом получает сохранённый ответ, новая транзакция не создаётся
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    user_uid UUID NOT NULL,
+    operation VARCHAR(32) NOT NULL,
+    idempotency_key VARCHAR(128) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    response TEXT,
+    created_at TIMESTAMP NOT NULL DEFAULT now(),
+    expires_at TIMESTAMP NOT NULL
+    );
+
+-- конкурентный повтор ждёт на этом индексе, пока первый запрос не закоммитится или не откатится
+CREATE UNIQUE INDEX IF NOT EXISTS ux_idempotency_keys ON idempotency_keys (user_uid, operation, idempotency_key);
+
+-- очистка пачками по истёкшим ключам
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires ON idempotency_keys (expires_at, id);
@@ -0,0 +1,90 @@
+package com.artem.transactionservice;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * take_balance_snapshots на настоящем Postgres: проводка, закоммиченная позже проводки с бóльшим id,
+ * не теряется между снимком и хвостом.
+ */
+@Testcontainers
+class BalanceSnapshotFunctionTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static JdbcTemplate jdbc;
+
+    @BeforeAll
+    static void setUp() {
+        Flyway.configure()
+                .dataSource(POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())
+                .locations("classpath:db/migration")
+                .load()
+                .migrate();
+
+        jdbc = new JdbcTemplate(new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword()));
+    }
+
+    @Test
+    void takeSnapshots_shouldNotSkipEntryCommittedAfterLaterId() throws Exception {
+        UUID userUid = UUID.randomUUID();
+        UUID walletUid = UUID.randomUUID();
+
+        try (Connection slow = DriverManager.getConnection(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword())) {
+            slow.setAutoCommit(false);
+            // меньший id, но коммит — уже после снимка
+            try (PreparedStatement ps = slow.prepareStatement("""
+                    INSERT INTO ledger_entries (user_uid, wallet_uid, transaction_uid, direction, amount)
+                    VALUES (?, ?, ?, 'CREDIT', 10)
+                    """)) {
+                ps.setObject(1, userUid);
+                ps.setObject(2, walletUid);
+                ps.setObject(3, UUID.randomUUID());
+                ps.executeUpdate();
+            }
+
+            createEntry(userUid, walletUid, 5);
+            takeSnapshots();
+
+            slow.commit();
+        }
+
+        takeSnapshots();
+
+        BigDecimal snapshot = jdbc.queryForObject("""
+                SELECT balance FROM wallet_balance_snapshots
+                WHERE wallet_uid = ?
+                ORDER BY covered_xid DESC
+                LIMIT 1
+                """, BigDecimal.class, walletUid);
+        assertEquals(0, BigDecimal.valueOf(15).compareTo(snapshot));
+    }
+
+    private static void createEntry(UUID userUid, UUID walletUid, int amount) {
+        jdbc.update("""
+                INSERT INTO ledger_entries (user_uid, wallet_uid, transaction_uid, direction, amount)
+                VALUES (?, ?, ?, 'CREDIT', ?)
+                """, userUid, walletUid, UUID.randomUUID(), amount);
+    }
+
+    private static void takeSnapshots() {
+        jdbc.queryForObject("SELECT take_balance_snapshots((now() + interval '1 hour')::timestamp)", Integer.class);
+    }
+}
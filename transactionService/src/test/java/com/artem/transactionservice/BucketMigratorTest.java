@@ -0,0 +1,228 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.config.RebalanceProperties;
+import com.artem.transactionservice.rebalance.BucketDirectoryRefresher;
+import com.artem.transactionservice.rebalance.BucketMigrationReport;
+import com.artem.transactionservice.rebalance.BucketMigrator;
+import com.artem.transactionservice.rebalance.ShardDataSources;
+import com.artem.transactionservice.repository.BucketDirectoryRepository;
+import com.artem.transactionservice.repository.ShardCopyRepository;
+import com.artem.transactionservice.repository.projection.ShardBucketRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Перенос бакета из ds_0 в новый ds_2 на трёх настоящих Postgres.
+ */
+@Testcontainers
+class BucketMigratorTest {
+
+    @Container
+    static PostgreSQLContainer<?> SHARD_0 = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> SHARD_1 = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Container
+    static PostgreSQLContainer<?> SHARD_2 = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static ShardDataSources shards;
+    private static BucketDirectoryRepository directoryRepository;
+    private static BucketMigrator migrator;
+
+    @BeforeAll
+    static void setUp() {
+        RebalanceProperties properties = new RebalanceProperties();
+        properties.setChunkSize(2);
+        properties.setDirectoryRefreshMs(10);
+        properties.setCatchUpMarginMs(1000);
+        properties.setShards(List.of(shard(SHARD_0), shard(SHARD_1), shard(SHARD_2)));
+
+        shards = new ShardDataSources(properties.getShards(), 2);
+        for (PostgreSQLContainer<?> container : List.of(SHARD_0, SHARD_1, SHARD_2)) {
+            Flyway.configure()
+                    .dataSource(container.getJdbcUrl(), container.getUsername(), container.getPassword())
+                    .locations("classpath:db/migration")
+                    .load()
+                    .migrate();
+        }
+
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        directoryRepository = new BucketDirectoryRepository(shards);
+        BucketDirectoryRefresher refresher = new BucketDirectoryRefresher(directoryRepository,
+                new ShardRouter(2, false), meterRegistry);
+        refresher.init();
+
+        migrator = new BucketMigrator(shards, directoryRepository, new ShardCopyRepository(), refresher,
+                properties, meterRegistry);
+    }
+
+    @AfterAll
+    static void tearDown() {
+        ShardBuckets.reset();
+        migrator.shutdown();
+        shards.close();
+    }
+
+    @Test
+    void migrate_shouldMoveBucketToNewShardAndLeaveOthers() {
+        UUID movedUser = userOnShardZero(-1);
+        UUID stayingUser = userOnShardZero(ShardBuckets.bucketOf(movedUser));
+        int bucket = ShardBuckets.bucketOf(movedUser);
+
+        JdbcTemplate source = shards.jdbc(0);
+        JdbcTemplate target = shards.jdbc(2);
+
+        UUID walletTypeUid = UUID.randomUUID();
+        source.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'main', 'RUB', 'ACTIVE')",
+                walletTypeUid);
+
+        UUID movedWallet = createWallet(source, walletTypeUid, movedUser, 0);
+        UUID splitWallet = createWallet(source, walletTypeUid, movedUser, 2);
+        UUID stayingWallet = createWallet(source, walletTypeUid, stayingUser, 0);
+        source.update("INSERT INTO wallet_balance_slots (wallet_uid, user_uid, slot, balance) VALUES (?, ?, 0, 5), (?, ?, 1, 7)",
+                splitWallet, movedUser, splitWallet, movedUser);
+        for (int i = 0; i < 5; i++) {
+            createTransaction(source, movedUser, movedWallet);
+            createTransaction(source, stayingUser, stayingWallet);
+        }
+
+        // проводка другого пользователя в целевом шарде занимает тот же id, что и у переносимой
+        createLedgerEntry(target, UUID.randomUUID(), UUID.randomUUID());
+        for (int i = 0; i < 3; i++) {
+            createLedgerEntry(source, movedUser, movedWallet);
+        }
+        source.update("""
+                INSERT INTO wallet_balance_snapshots (wallet_uid, last_entry_id, user_uid, covered_until, balance)
+                VALUES (?, 0, ?, now(), 70)
+                """, movedWallet, movedUser);
+        source.update("""
+                INSERT INTO transfer_credits (transaction_uid, user_uid, wallet_uid, amount, status)
+                VALUES (?, ?, ?, 10, 'COMPLETED')
+                """, UUID.randomUUID(), movedUser, movedWallet);
+        source.update("""
+                INSERT INTO idempotency_keys (user_uid, operation, idempotency_key, request_hash, expires_at)
+                VALUES (?, 'DEPOSIT', 'key-1', 'hash', now() + interval '1 day')
+                """, movedUser);
+
+        List<BucketMigrationReport> reports = migrator.migrate(Set.of(bucket), 2);
+
+        assertEquals(1, reports.size());
+        assertEquals(2, reports.get(0).wallets());
+
+        assertEquals(2, count(target, "SELECT count(*) FROM wallets WHERE user_uid = ?", movedUser));
+        assertEquals(5, count(target, "SELECT count(*) FROM transactions WHERE user_uid = ?", movedUser));
+        assertEquals(2, count(target, "SELECT count(*) FROM wallet_balance_slots WHERE wallet_uid = ?", splitWallet));
+        assertEquals(1, count(target, "SELECT count(*) FROM wallet_types WHERE uid = ?", walletTypeUid));
+        assertEquals(3, count(target, "SELECT count(*) FROM ledger_entries WHERE wallet_uid = ?", movedWallet));
+        assertEquals(1, count(target,
+                "SELECT count(*) FROM wallet_balance_snapshots WHERE wallet_uid = ? AND last_entry_id = 0", movedWallet));
+        assertEquals(1, count(target, "SELECT count(*) FROM transfer_credits WHERE wallet_uid = ?", movedWallet));
+        assertEquals(1, count(target, "SELECT count(*) FROM idempotency_keys WHERE user_uid = ?", movedUser));
+        assertEquals(0, target.queryForObject(
+                "SELECT count(*) FROM information_schema.tables WHERE table_name LIKE 'rebalance\\_%'", Long.class));
+
+        assertEquals(0, count(source, "SELECT count(*) FROM wallets WHERE user_uid = ?", movedUser));
+        assertEquals(0, count(source, "SELECT count(*) FROM transactions WHERE user_uid = ?", movedUser));
+        for (String table : List.of("ledger_entries", "wallet_balance_snapshots", "transfer_credits", "idempotency_keys")) {
+            assertEquals(0, count(source, "SELECT count(*) FROM " + table + " WHERE user_uid = ?", movedUser), table);
+        }
+        assertEquals(1, count(source, "SELECT count(*) FROM wallets WHERE user_uid = ?", stayingUser));
+        assertEquals(5, count(source, "SELECT count(*) FROM transactions WHERE user_uid = ?", stayingUser));
+
+        ShardBucketRow row = directoryRepository.findAll().get(bucket);
+        assertEquals(2, row.shardId());
+        assertEquals(BucketDirectoryRepository.STABLE, row.state());
+        assertEquals(2, ShardBuckets.route(movedUser, 2));
+        assertEquals(0, ShardBuckets.route(stayingUser, 2));
+    }
+
+    @Test
+    void movedTables_shouldCoverEveryUserShardedTable() throws IOException {
+        Set<String> userSharded = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                Objects.requireNonNull(getClass().getResourceAsStream("/sharding.yaml")), StandardCharsets.UTF_8))) {
+            String table = null;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.startsWith("#")) {
+                    continue;
+                }
+                if (line.matches("^ {6}[a-z_]+:\\s*$")) {
+                    table = line.trim().replace(":", "");
+                } else if (table != null && line.trim().equals("shardingAlgorithmName: user-sharding")) {
+                    userSharded.add(table);
+                }
+            }
+        }
+
+        assertEquals(userSharded, Set.copyOf(BucketMigrator.MOVED_TABLES));
+    }
+
+    private static UUID userOnShardZero(int exceptBucket) {
+        while (true) {
+            UUID userUid = UUID.randomUUID();
+            int bucket = ShardBuckets.bucketOf(userUid);
+            if (bucket % 2 == 0 && bucket != exceptBucket) {
+                assertNotEquals(2, ShardBuckets.route(userUid, 2));
+                return userUid;
+            }
+        }
+    }
+
+    private static UUID createWallet(JdbcTemplate jdbc, UUID walletTypeUid, UUID userUid, int slots) {
+        UUID walletUid = UUID.randomUUID();
+        jdbc.update("""
+                INSERT INTO wallets (uid, name, wallet_type_uid, user_uid, status, balance, balance_slots)
+                VALUES (?, 'wallet', ?, ?, 'ACTIVE', 100, ?)
+                """, walletUid, walletTypeUid, userUid, slots);
+        return walletUid;
+    }
+
+    private static void createTransaction(JdbcTemplate jdbc, UUID userUid, UUID walletUid) {
+        jdbc.update("""
+                INSERT INTO transactions (uid, user_uid, wallet_uid, amount, type, status)
+                VALUES (?, ?, ?, 10, 'DEPOSIT', 'COMPLETED')
+                """, UUID.randomUUID(), userUid, walletUid);
+    }
+
+    private static void createLedgerEntry(JdbcTemplate jdbc, UUID userUid, UUID walletUid) {
+        jdbc.update("""
+                INSERT INTO ledger_entries (user_uid, wallet_uid, transaction_uid, direction, amount)
+                VALUES (?, ?, ?, 'CREDIT', 10)
+                """, userUid, walletUid, UUID.randomUUID());
+    }
+
+    private static long count(JdbcTemplate jdbc, String sql, Object arg) {
+        Long count = jdbc.queryForObject(sql, Long.class, arg);
+        return count == null ? 0 : count;
+    }
+
+    private static RebalanceProperties.Shard shard(PostgreSQLContainer<?> container) {
+        RebalanceProperties.Shard shard = new RebalanceProperties.Shard();
+        shard.setUrl(container.getJdbcUrl());
+        shard.setUsername(container.getUsername());
+        shard.setPassword(container.getPassword());
+        return shard;
+    }
+}
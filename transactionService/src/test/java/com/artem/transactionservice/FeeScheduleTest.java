@@ -0,0 +1,66 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.fee.FeeSchedule;
+import com.artem.transactionservice.money.Money;
+import com.artem.transactionservice.repository.projection.FeeRuleRow;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FeeScheduleTest {
+
+    private final UUID premiumType = UUID.randomUUID();
+
+    private final FeeSchedule schedule = FeeSchedule.build(List.of(
+            // общая шкала вывода в RUB: до 1000 — 1.5% не меньше 10, от 1000 — 1% не больше 500
+            rule(1, "WITHDRAWAL", "RUB", null, "0", 150, "0", "10", null),
+            rule(2, "WITHDRAWAL", "RUB", null, "1000", 100, "0", null, "500"),
+            // премиальный тип — фиксированные 5 плюс 0.5%
+            rule(3, "WITHDRAWAL", "RUB", premiumType, "0", 50, "5", null, null),
+            rule(4, "TRANSFER", "RUB", null, "100", 0, "1", null, null)
+    ));
+
+    @Test
+    void feeFor_shouldPickTierByBinarySearchAndClamp() {
+        assertFee("10.00", "WITHDRAWAL", null, "100.00");      // 1.50 → min 10
+        assertFee("14.99", "WITHDRAWAL", null, "999.33");      // 1.5% HALF_UP
+        assertFee("10.00", "WITHDRAWAL", null, "1000.00");     // граница ступени — 1%
+        assertFee("500.00", "WITHDRAWAL", null, "90000.00");   // 900 → max 500
+    }
+
+    @Test
+    void feeFor_shouldPreferWalletTypeRuleOverDefault() {
+        assertFee("10.00", "WITHDRAWAL", premiumType, "1000.00");
+        assertFee("10.00", "WITHDRAWAL", UUID.randomUUID(), "1000.00");
+    }
+
+    @Test
+    void feeFor_shouldReturnZero_whenNoRuleOrBelowFirstTier() {
+        assertFee("0.00", "TRANSFER", null, "99.99");
+        assertFee("1.00", "TRANSFER", null, "100.00");
+        assertEquals(0, schedule.feeFor("WITHDRAWAL", null, Money.of(BigDecimal.TEN, "USD")).minor());
+    }
+
+    @Test
+    void build_shouldReject_whenRuleDoesNotFitCurrency() {
+        List<FeeRuleRow> rows = List.of(rule(5, "TRANSFER", "JPY", null, "0", 0, "0.5", null, null));
+
+        assertThrows(IllegalStateException.class, () -> FeeSchedule.build(rows));
+    }
+
+    private void assertFee(String expected, String operation, UUID walletType, String amount) {
+        Money fee = schedule.feeFor(operation, walletType, Money.of(new BigDecimal(amount), "RUB"));
+
+        assertEquals(new BigDecimal(expected), fee.toBigDecimal(), operation + " " + amount);
+    }
+
+    private static FeeRuleRow rule(long id, String operation, String currency, UUID walletType, String from,
+                                   int percentBp, String fixed, String min, String max) {
+        return new FeeRuleRow(id, operation, currency, walletType, new BigDecimal(from), percentBp,
+                new BigDecimal(fixed), min != null ? new BigDecimal(min) : null, max != null ? new BigDecimal(max) : null);
+    }
+}
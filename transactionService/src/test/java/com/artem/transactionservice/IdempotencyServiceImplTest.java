@@ -0,0 +1,132 @@
+package com.artem.transactionservice;
+
+import com.artem.transaction.model.TopUpConfirmRequest;
+import com.artem.transaction.model.TopUpConfirmResponse;
+import com.artem.transactionservice.config.IdempotencyProperties;
+import com.artem.transactionservice.repository.IdempotencyKeyRepository;
+import com.artem.transactionservice.repository.projection.IdempotencyKeyRow;
+import com.artem.transactionservice.service.impl.IdempotencyServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceImplTest {
+
+    private static final String OPERATION = "topup.confirm";
+
+    @Mock
+    private IdempotencyKeyRepository idempotencyKeyRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private IdempotencyServiceImpl idempotencyService;
+
+    private final UUID userUid = UUID.randomUUID();
+    private final TopUpConfirmRequest request = new TopUpConfirmRequest();
+
+    @BeforeEach
+    void setUp() {
+        idempotencyService = new IdempotencyServiceImpl(idempotencyKeyRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), objectMapper,
+                new IdempotencyProperties(), new SimpleMeterRegistry());
+
+        request.setUserUid(userUid);
+        request.setWalletUid(UUID.randomUUID());
+        request.setAmount(BigDecimal.TEN);
+    }
+
+    @Test
+    void execute_shouldRunActionOnceAndReplayRetryFromMemory() {
+        when(idempotencyKeyRepository.claim(eq(userUid), eq(OPERATION), eq("key-1"), anyString(), any()))
+                .thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+
+        TopUpConfirmResponse first = idempotencyService.execute("key-1", userUid, OPERATION, request,
+                TopUpConfirmResponse.class, () -> response(calls));
+        TopUpConfirmResponse retry = idempotencyService.execute("key-1", userUid, OPERATION, request,
+                TopUpConfirmResponse.class, () -> response(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(first.getTransactionUid(), retry.getTransactionUid());
+        verify(idempotencyKeyRepository, times(1)).claim(any(), any(), any(), any(), any());
+        verify(idempotencyKeyRepository).saveResponse(eq(userUid), eq(OPERATION), eq("key-1"), anyString());
+        verify(idempotencyKeyRepository, never()).find(any(), any(), any());
+    }
+
+    @Test
+    void execute_shouldReturnStoredResponse_whenKeyWasClaimedElsewhere() throws Exception {
+        when(idempotencyKeyRepository.claim(eq(userUid), eq(OPERATION), eq("key-2"), anyString(), any()))
+                .thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+        TopUpConfirmResponse original = idempotencyService.execute("key-2", userUid, OPERATION, request,
+                TopUpConfirmResponse.class, () -> response(calls));
+
+        ArgumentCaptor<String> hash = ArgumentCaptor.forClass(String.class);
+        verify(idempotencyKeyRepository).claim(any(), any(), any(), hash.capture(), any());
+
+        // другой инстанс: в памяти ничего нет, ключ уже в БД
+        IdempotencyServiceImpl otherInstance = new IdempotencyServiceImpl(idempotencyKeyRepository,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), objectMapper,
+                new IdempotencyProperties(), new SimpleMeterRegistry());
+        when(idempotencyKeyRepository.claim(eq(userUid), eq(OPERATION), eq("key-2"), anyString(), any()))
+                .thenReturn(false);
+        when(idempotencyKeyRepository.find(userUid, OPERATION, "key-2"))
+                .thenReturn(Optional.of(new IdempotencyKeyRow(hash.getValue(), objectMapper.writeValueAsString(original))));
+
+        TopUpConfirmResponse replayed = otherInstance.execute("key-2", userUid, OPERATION, request,
+                TopUpConfirmResponse.class, () -> response(calls));
+
+        assertEquals(1, calls.get());
+        assertEquals(original.getTransactionUid(), replayed.getTransactionUid());
+    }
+
+    @Test
+    void execute_shouldRejectKeyReusedWithDifferentRequest() {
+        when(idempotencyKeyRepository.claim(any(), any(), any(), anyString(), any())).thenReturn(true);
+        AtomicInteger calls = new AtomicInteger();
+        idempotencyService.execute("key-3", userUid, OPERATION, request,
+                TopUpConfirmResponse.class, () -> response(calls));
+
+        request.setAmount(BigDecimal.ONE);
+
+        assertThrows(IllegalArgumentException.class, () -> idempotencyService.execute("key-3", userUid, OPERATION,
+                request, TopUpConfirmResponse.class, () -> response(calls)));
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void execute_shouldBypassStore_whenKeyIsMissing() {
+        AtomicInteger calls = new AtomicInteger();
+
+        idempotencyService.execute(null, userUid, OPERATION, request, TopUpConfirmResponse.class, () -> response(calls));
+        idempotencyService.execute(null, userUid, OPERATION, request, TopUpConfirmResponse.class, () -> response(calls));
+
+        assertEquals(2, calls.get());
+        verifyNoInteractions(idempotencyKeyRepository);
+    }
+
+    private static TopUpConfirmResponse response(AtomicInteger calls) {
+        calls.incrementAndGet();
+        TopUpConfirmResponse response = new TopUpConfirmResponse();
+        response.setTransactionUid(UUID.randomUUID());
+        response.setStatus("PENDING");
+        return response;
+    }
+}
@@ -0,0 +1,85 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.config.LedgerBatchProperties;
+import com.artem.transactionservice.kafka.KeyedBatchDispatcher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeyedBatchDispatcherTest {
+
+    private KeyedBatchDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        dispatcher = new KeyedBatchDispatcher(new LedgerBatchProperties(), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void dispatch_shouldKeepOrderWithinKey() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String key = "wallet-" + (i % 10);
+            records.add(record(i, key, key + ":" + i));
+        }
+
+        Map<String, List<Integer>> seen = new ConcurrentHashMap<>();
+        List<String> handled = Collections.synchronizedList(new ArrayList<>());
+        dispatcher.dispatch(records, values -> {
+            for (String value : values) {
+                String[] parts = value.split(":");
+                seen.computeIfAbsent(parts[0], k -> Collections.synchronizedList(new ArrayList<>()))
+                        .add(Integer.parseInt(parts[1]));
+                handled.add(value);
+            }
+        });
+
+        assertEquals(100, handled.size());
+        assertEquals(10, seen.size());
+        seen.values().forEach(sequence -> {
+            List<Integer> sorted = new ArrayList<>(sequence);
+            Collections.sort(sorted);
+            assertEquals(sorted, sequence);
+        });
+    }
+
+    @Test
+    void dispatch_shouldReportSmallestOriginalIndexOfFailure() {
+        List<ConsumerRecord<String, String>> records = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            records.add(record(i, "wallet-" + (i % 4), String.valueOf(i)));
+        }
+
+        BatchListenerFailedException failure = assertThrows(BatchListenerFailedException.class,
+                () -> dispatcher.dispatch(records, values -> {
+                    for (int i = 0; i < values.size(); i++) {
+                        int offset = Integer.parseInt(values.get(i));
+                        if (offset == 13 || offset == 7) {
+                            throw new BatchListenerFailedException("boom", i);
+                        }
+                    }
+                }));
+
+        assertEquals(7, failure.getIndex());
+    }
+
+    private static ConsumerRecord<String, String> record(long offset, String key, String value) {
+        return new ConsumerRecord<>("deposit.requested", 0, offset, key, value);
+    }
+}
@@ -0,0 +1,290 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.dto.LedgerEntry;
+import com.artem.transactionservice.entity.Transaction;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.kafka.LedgerBatchApplier;
+import com.artem.transactionservice.kafka.TransferSaga;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.repository.projection.WalletOwnerView;
+import com.artem.transactionservice.service.SplitBalanceService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerBatchApplierTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+
+    @Mock
+    private SplitBalanceService splitBalanceService;
+
+    @Mock
+    private WalletCache walletCache;
+
+    @Mock
+    private TransferSaga transferSaga;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private LedgerBatchApplier applier;
+
+    private final UUID userUid = UUID.randomUUID();
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        applier = new LedgerBatchApplier(
+                transactionRepository,
+                walletRepository,
+                walletBalanceJdbcRepository,
+                new ShardRouter(2, false),
+                new TransactionTemplate(mock(PlatformTransactionManager.class)),
+                splitBalanceService,
+                walletCache,
+                transferSaga,
+                ledgerEntryRepository
+        );
+
+        wallet = new Wallet();
+        wallet.setUid(UUID.randomUUID());
+        wallet.setUserUid(userUid);
+        wallet.setStatus("ACTIVE");
+        wallet.setBalance(BigDecimal.valueOf(100));
+    }
+
+    @Test
+    void apply_shouldNetDeltasPerWallet_andFailOnlyOverdrawingRecord() {
+        Transaction deposit = tx("DEPOSIT", 50);
+        Transaction withdrawal = tx("WITHDRAWAL", 120);
+        Transaction overdraw = tx("WITHDRAWAL", 100);
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(deposit, withdrawal, overdraw));
+        when(walletRepository.findAllForUpdate(anyCollection(), anyCollection()))
+                .thenReturn(List.of(wallet));
+        when(walletBalanceJdbcRepository.applyDeltas(anyCollection(), anyMap()))
+                .thenReturn(1);
+        when(transactionRepository.updatePendingStatus(anyCollection(), anyCollection(), any(), eq("COMPLETED")))
+                .thenReturn(2);
+
+        applier.apply(List.of(
+                deposit.getUid().toString(),
+                withdrawal.getUid().toString(),
+                overdraw.getUid().toString()
+        ));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Map<UUID, BigDecimal>> deltas = ArgumentCaptor.forClass(Map.class);
+        verify(walletBalanceJdbcRepository).applyDeltas(anyCollection(), deltas.capture());
+        assertEquals(0, BigDecimal.valueOf(-70).compareTo(deltas.getValue().get(wallet.getUid())));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<UUID>> completed = ArgumentCaptor.forClass(Collection.class);
+        verify(transactionRepository).updatePendingStatus(anyCollection(), completed.capture(), any(), eq("COMPLETED"));
+        assertEquals(List.of(deposit.getUid(), withdrawal.getUid()), List.copyOf(completed.getValue()));
+
+        verify(transactionRepository).markFailed(userUid, overdraw.getUid(), overdraw.getCreatedAt(), "Insufficient funds");
+        verify(transactionRepository, never()).markFailed(any(), eq(deposit.getUid()), any(), anyString());
+        verify(walletCache).invalidateBalances(Set.of(wallet.getUid()));
+
+        // по проводке на ногу, только у проведённых транзакций
+        verify(ledgerEntryRepository).insert(List.of(
+                new LedgerEntry(deposit.getUid(), userUid, wallet.getUid(), deposit.getAmount()),
+                new LedgerEntry(withdrawal.getUid(), userUid, wallet.getUid(), withdrawal.getAmount().negate())
+        ));
+    }
+
+    @Test
+    void apply_shouldSkipAlreadyProcessedTransactions() {
+        Transaction processed = tx("DEPOSIT", 10);
+        processed.setStatus("COMPLETED");
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(processed));
+
+        applier.apply(List.of(processed.getUid().toString()));
+
+        verify(walletRepository, never()).findAllForUpdate(anyCollection(), anyCollection());
+        verify(walletBalanceJdbcRepository, never()).applyDeltas(anyCollection(), anyMap());
+    }
+
+    @Test
+    void apply_shouldOnlySettleHeldWithdrawal_withoutCheckingBalanceAgain() {
+        wallet.setBalance(BigDecimal.ZERO);
+        Transaction held = tx("WITHDRAWAL", 100);
+        held.setStatus("HELD");
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(held));
+        when(walletRepository.findAllForUpdate(anyCollection(), anyCollection()))
+                .thenReturn(List.of(wallet));
+        when(walletBalanceJdbcRepository.settleHolds(anyCollection(), anyMap(), anyMap()))
+                .thenReturn(1);
+        when(transactionRepository.updatePendingStatus(anyCollection(), anyCollection(), any(), eq("COMPLETED")))
+                .thenReturn(1);
+
+        applier.apply(List.of(held.getUid().toString()));
+
+        verify(walletBalanceJdbcRepository).settleHolds(anyCollection(),
+                eq(Map.of(wallet.getUid(), BigDecimal.valueOf(100))), eq(Map.of()));
+        verify(walletBalanceJdbcRepository, never()).applyDeltas(anyCollection(), anyMap());
+        verify(transactionRepository, never()).markFailed(any(), any(), any(), anyString());
+    }
+
+    @Test
+    void apply_shouldSettleHeldFee_andBookItAsSeparateEntry() {
+        Transaction held = tx("WITHDRAWAL", 100);
+        held.setStatus("HELD");
+        held.setFee(BigDecimal.valueOf(3));
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(held));
+        when(walletRepository.findAllForUpdate(anyCollection(), anyCollection()))
+                .thenReturn(List.of(wallet));
+        when(walletBalanceJdbcRepository.settleHolds(anyCollection(), anyMap(), anyMap()))
+                .thenReturn(1);
+        when(transactionRepository.updatePendingStatus(anyCollection(), anyCollection(), any(), eq("COMPLETED")))
+                .thenReturn(1);
+
+        applier.apply(List.of(held.getUid().toString()));
+
+        verify(walletBalanceJdbcRepository).settleHolds(anyCollection(),
+                eq(Map.of(wallet.getUid(), BigDecimal.valueOf(103))), eq(Map.of()));
+        verify(ledgerEntryRepository).insert(List.of(
+                new LedgerEntry(held.getUid(), userUid, wallet.getUid(), BigDecimal.valueOf(-100)),
+                LedgerEntry.fee(held.getUid(), userUid, wallet.getUid(), BigDecimal.valueOf(-3))
+        ));
+    }
+
+    @Test
+    void apply_shouldReleaseHold_whenHeldTransferFails() {
+        Transaction held = tx("TRANSFER", 30);
+        held.setStatus("HELD");
+        held.setTargetWalletUid(UUID.randomUUID());
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(held));
+        when(walletRepository.findAllForUpdate(anyCollection(), anyCollection()))
+                .thenReturn(List.of(wallet));
+        when(walletBalanceJdbcRepository.settleHolds(anyCollection(), anyMap(), anyMap()))
+                .thenReturn(1);
+
+        applier.apply(List.of(held.getUid().toString()));
+
+        verify(walletBalanceJdbcRepository).settleHolds(anyCollection(),
+                eq(Map.of()), eq(Map.of(wallet.getUid(), BigDecimal.valueOf(30))));
+        verify(transactionRepository).markFailed(userUid, held.getUid(), held.getCreatedAt(), "Wallet not found: " + held.getTargetWalletUid());
+    }
+
+    @Test
+    void apply_shouldLockSplitSlotsBeforeCrediting() {
+        wallet.setBalanceSlots(4);
+        Transaction first = tx("DEPOSIT", 10);
+        Transaction second = tx("DEPOSIT", 20);
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(first, second));
+        when(walletRepository.findAllSplit(anyCollection(), anyCollection()))
+                .thenReturn(List.of(wallet));
+        when(transactionRepository.updatePendingStatus(anyCollection(), anyCollection(), any(), eq("COMPLETED")))
+                .thenReturn(2);
+
+        applier.apply(List.of(first.getUid().toString(), second.getUid().toString()));
+
+        InOrder inOrder = inOrder(splitBalanceService);
+        inOrder.verify(splitBalanceService).lockSlots(Map.of(wallet.getUid(), wallet),
+                Map.of(wallet.getUid(), Set.of(first.getUid(), second.getUid())), Set.of());
+        inOrder.verify(splitBalanceService, times(2)).credit(eq(wallet), any(), any());
+    }
+
+    @Test
+    void apply_shouldHandOverHeldCrossShardTransferToSaga() {
+        ShardRouter shardRouter = new ShardRouter(2, false);
+        UUID targetWalletUid = UUID.randomUUID();
+        UUID targetOwner;
+        do {
+            targetOwner = UUID.randomUUID();
+        } while (shardRouter.shardOf(targetOwner) == shardRouter.shardOf(userUid));
+        UUID owner = targetOwner;
+
+        Transaction held = tx("TRANSFER", 30);
+        held.setStatus("HELD");
+        held.setTargetWalletUid(targetWalletUid);
+
+        when(transactionRepository.findAllByUidIn(anyCollection()))
+                .thenReturn(List.of(held));
+        when(walletRepository.findOwnersByUidIn(anyCollection()))
+                .thenReturn(List.of(owner(targetWalletUid, owner)));
+
+        applier.apply(List.of(held.getUid().toString()));
+
+        verify(transferSaga).start(List.of(held), Map.of(wallet.getUid(), userUid, targetWalletUid, owner));
+        verify(walletBalanceJdbcRepository, never()).settleHolds(anyCollection(), anyMap(), anyMap());
+        verify(walletBalanceJdbcRepository, never()).applyDeltas(anyCollection(), anyMap());
+    }
+
+    private static WalletOwnerView owner(UUID walletUid, UUID userUid) {
+        return new WalletOwnerView() {
+            @Override
+            public UUID getUid() {
+                return walletUid;
+            }
+
+            @Override
+            public UUID getUserUid() {
+                return userUid;
+            }
+        };
+    }
+
+    private Transaction tx(String type, long amount) {
+        Transaction tx = new Transaction();
+        tx.setUid(UUID.randomUUID());
+        tx.setUserUid(userUid);
+        tx.setWallet(wallet);
+        tx.setType(type);
+        tx.setStatus("PENDING");
+        tx.setAmount(BigDecimal.valueOf(amount));
+        return tx;
+    }
+}
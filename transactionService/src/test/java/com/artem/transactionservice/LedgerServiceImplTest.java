@@ -0,0 +1,73 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.dto.BalanceAsOf;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.projection.BalanceSnapshotRow;
+import com.artem.transactionservice.repository.projection.LedgerTail;
+import com.artem.transactionservice.service.impl.LedgerServiceImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class LedgerServiceImplTest {
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private LedgerServiceImpl ledgerService;
+
+    private final UUID walletUid = UUID.randomUUID();
+    private final UUID userUid = UUID.randomUUID();
+    private final LocalDateTime asOf = LocalDateTime.of(2024, 5, 1, 12, 0);
+
+    @BeforeEach
+    void setUp() {
+        ledgerService = new LedgerServiceImpl(ledgerEntryRepository);
+    }
+
+    @Test
+    void getBalanceAsOf_shouldAddTailAfterLatestSnapshot() {
+        when(ledgerEntryRepository.findSnapshot(walletUid, userUid, asOf))
+                .thenReturn(Optional.of(new BalanceSnapshotRow(40, 900, asOf.minusHours(1), BigDecimal.valueOf(100))));
+        when(ledgerEntryRepository.sumAfter(walletUid, userUid, 900, asOf))
+                .thenReturn(new LedgerTail(BigDecimal.valueOf(-30), 3));
+
+        BalanceAsOf balance = ledgerService.getBalanceAsOf(walletUid, userUid, asOf);
+
+        assertEquals(0, BigDecimal.valueOf(70).compareTo(balance.balance()));
+        assertEquals(40, balance.snapshotEntryId());
+        assertEquals(3, balance.tailEntries());
+        verify(ledgerEntryRepository, never()).findOpeningSnapshot(any(), any());
+    }
+
+    @Test
+    void getBalanceAsOf_shouldSumWholeLedger_whenWalletHasNoSnapshot() {
+        when(ledgerEntryRepository.findSnapshot(walletUid, userUid, asOf)).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.findOpeningSnapshot(walletUid, userUid)).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.sumAfter(walletUid, userUid, 0, asOf))
+                .thenReturn(new LedgerTail(BigDecimal.valueOf(25), 2));
+
+        assertEquals(0, BigDecimal.valueOf(25).compareTo(ledgerService.getBalanceAsOf(walletUid, userUid, asOf).balance()));
+    }
+
+    @Test
+    void getBalanceAsOf_shouldReject_whenAsOfPrecedesLedgerHistory() {
+        when(ledgerEntryRepository.findSnapshot(walletUid, userUid, asOf)).thenReturn(Optional.empty());
+        when(ledgerEntryRepository.findOpeningSnapshot(walletUid, userUid))
+                .thenReturn(Optional.of(new BalanceSnapshotRow(0, 0, asOf.plusDays(1), BigDecimal.TEN)));
+
+        assertThrows(IllegalArgumentException.class, () -> ledgerService.getBalanceAsOf(walletUid, userUid, asOf));
+        verify(ledgerEntryRepository, never()).sumAfter(any(), any(), anyLong(), any());
+    }
+}
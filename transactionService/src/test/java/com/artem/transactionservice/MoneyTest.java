@@ -0,0 +1,58 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.money.Money;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyTest {
+
+    @Test
+    void of_shouldUseCurrencyScale() {
+        assertEquals(123456, Money.of(new BigDecimal("1234.56"), "RUB").minor());
+        assertEquals(100, Money.of(BigDecimal.ONE, "USD").minor());
+        assertEquals(1234, Money.of(new BigDecimal("1234"), "JPY").minor());
+        assertEquals(2, Money.scaleOf("NOT_ISO"));
+    }
+
+    @Test
+    void of_shouldRejectExtraFractionDigits() {
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("10.001"), "RUB"));
+        assertThrows(IllegalArgumentException.class, () -> Money.of(new BigDecimal("10.5"), "JPY"));
+        assertEquals(1000, Money.of(new BigDecimal("10.000"), "RUB").minor());
+    }
+
+    @Test
+    void toBigDecimal_shouldRoundTrip() {
+        BigDecimal amount = new BigDecimal("98765.43");
+
+        assertEquals(amount, Money.of(amount, "RUB").toBigDecimal());
+    }
+
+    @Test
+    void percentOf_shouldMatchBigDecimalHalfUp() {
+        long[] basisPoints = {0, 1, 49, 50, 150, 333, 10_000};
+        String[] amounts = {"0.01", "0.33", "1.00", "1234.56", "99999.99", "-0.33", "-1234.56"};
+
+        for (String value : amounts) {
+            BigDecimal amount = new BigDecimal(value);
+            for (long bp : basisPoints) {
+                BigDecimal expected = amount.multiply(BigDecimal.valueOf(bp, 4)).setScale(2, RoundingMode.HALF_UP);
+
+                assertEquals(expected, Money.of(amount, "RUB").percentOf(bp).toBigDecimal(), value + " * " + bp);
+            }
+        }
+    }
+
+    @Test
+    void arithmetic_shouldRejectCurrencyMismatchAndOverflow() {
+        Money rub = Money.of(BigDecimal.TEN, "RUB");
+
+        assertThrows(IllegalArgumentException.class, () -> rub.plus(Money.of(BigDecimal.TEN, "USD")));
+        assertThrows(ArithmeticException.class, () -> new Money(Long.MAX_VALUE, "RUB").plus(rub));
+        assertTrue(rub.plus(rub).isGreaterThan(rub));
+    }
+}
@@ -0,0 +1,70 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.config.OutboxProperties;
+import com.artem.transactionservice.kafka.outbox.OutboxRelay;
+import com.artem.transactionservice.repository.OutboxRepository;
+import com.artem.transactionservice.repository.projection.OutboxEventRow;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class OutboxRelayTest {
+
+    @Mock
+    private OutboxRepository outboxRepository;
+
+    @Mock
+    private KafkaTemplate<String, Object> kafkaTemplate;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    private OutboxRelay relay;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+
+        relay = new OutboxRelay(outboxRepository, kafkaTemplate, new ShardRouter(2, false),
+                transactionTemplate, new OutboxProperties(), new SimpleMeterRegistry());
+    }
+
+    @Test
+    void relay_shouldSkipShardLockedByAnotherInstance() {
+        // блокировка берётся в том шарде, который разбирается: маршрут виден через хинт потока
+        when(outboxRepository.tryLockRelay(anyInt())).thenAnswer(invocation ->
+                HintManager.getDataSourceName().orElseThrow().equals("ds_" + invocation.getArgument(0))
+                        && invocation.<Integer>getArgument(0) == 1);
+        when(outboxRepository.claimBatch(eq(1), anyInt())).thenReturn(List.of(
+                new OutboxEventRow(7L, "deposit.requested", "wallet", "tx", LocalDateTime.now())));
+        when(kafkaTemplate.send(anyString(), anyString(), any())).thenReturn(CompletableFuture.completedFuture(null));
+
+        relay.relay();
+
+        verify(outboxRepository, never()).claimBatch(eq(0), anyInt());
+        verify(outboxRepository, never()).deleteBatch(eq(0), any());
+        verify(kafkaTemplate).send("deposit.requested", "wallet", "tx");
+        verify(outboxRepository).deleteBatch(1, List.of(7L));
+    }
+}
@@ -0,0 +1,98 @@
+package com.artem.transactionservice;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.shardingsphere.infra.hint.HintManager;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ScatterGatherExecutorTest {
+
+    @Test
+    void merge_shouldInterleaveSortedShardsUpToLimit() {
+        List<Integer> merged = ScatterGatherExecutor.merge(
+                List.of(List.of(1, 4, 7), List.of(), List.of(2, 3, 9), List.of(5)),
+                Comparator.naturalOrder(),
+                5
+        );
+
+        assertEquals(List.of(1, 2, 3, 4, 5), merged);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void query_shouldAskEveryShardWithLimitAndMergeResults() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        Map<String, List<Integer>> rowsByShard = Map.of(
+                "ds_0", List.of(10, 30),
+                "ds_1", List.of(20, 40)
+        );
+
+        // каждый шард отвечает своими строками: маршрут виден через хинт текущего потока
+        when(jdbcTemplate.query(anyString(), any(RowMapper.class), any(Object[].class)))
+                .thenAnswer(invocation -> rowsByShard.get(HintManager.getDataSourceName().orElseThrow()));
+
+        ScatterGatherExecutor executor = new ScatterGatherExecutor(
+                jdbcTemplate, new ShardRouter(2, false), new SimpleMeterRegistry(), 5000);
+
+        try {
+            ScatterGatherExecutor.Result<Integer> result = executor.query(
+                    "SELECT amount FROM transactions WHERE wallet_uid = ? ORDER BY amount",
+                    (rs, rowNum) -> rs.getInt(1),
+                    Comparator.naturalOrder(),
+                    3,
+                    UUID.randomUUID()
+            );
+
+            assertEquals(List.of(10, 20, 30), result.rows());
+            assertEquals(2, result.shardLatencyMs().size());
+            verify(jdbcTemplate, times(2)).query(endsWith(" LIMIT ?"), any(RowMapper.class), any(Object[].class));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void walletUid_shouldCarryOwnersBucket() {
+        ShardRouter router = new ShardRouter(2, false);
+
+        for (int i = 0; i < 1_000; i++) {
+            UUID userUid = UUID.randomUUID();
+            UUID walletUid = WalletUids.newWalletUid(userUid);
+
+            assertEquals(8, walletUid.version());
+            assertEquals(2, walletUid.variant());
+            assertEquals(ShardBuckets.bucketOf(userUid), WalletUids.bucketOf(walletUid));
+            assertEquals(router.shardOf(userUid), router.shardOfWallet(walletUid).orElseThrow());
+        }
+
+        assertTrue(router.shardOfWallet(UUID.randomUUID()).isEmpty());
+    }
+
+    @Test
+    void walletUid_shouldCarryOwnersShard_inLegacyHashMode() {
+        ShardRouter legacy = new ShardRouter(2, true);
+        ShardRouter buckets = new ShardRouter(2, false);
+
+        for (int i = 0; i < 1_000; i++) {
+            UUID userUid = UUID.randomUUID();
+            UUID walletUid = legacy.newWalletUid(userUid);
+
+            assertEquals(8, walletUid.version());
+            assertEquals(Math.abs(userUid.hashCode()) % 2, legacy.shardOfWallet(walletUid).orElseThrow());
+            assertEquals(-1, WalletUids.bucketOf(walletUid));
+            // uid другого режима не маршрутизируется — только широковещательный поиск
+            assertTrue(buckets.shardOfWallet(walletUid).isEmpty());
+            assertTrue(legacy.shardOfWallet(buckets.newWalletUid(userUid)).isEmpty());
+        }
+    }
+}
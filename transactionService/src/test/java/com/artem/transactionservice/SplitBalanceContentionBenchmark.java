@@ -0,0 +1,166 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.config.SplitBalanceProperties;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.repository.WalletBalanceSlotRepository;
+import com.artem.transactionservice.service.impl.SplitBalanceServiceImpl;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Конкурентная нагрузка на один кошелёк: пропускная способность в зависимости от числа слотов.
+ * slots = 0 — текущий путь (UPDATE одной строки wallets, как WalletBalanceJdbcRepository.credit).
+ * <p>
+ * Запуск: ./gradlew test --tests '*SplitBalanceContentionBenchmark' -Dbenchmark=true
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SplitBalanceContentionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(SplitBalanceContentionBenchmark.class);
+
+    private static final int THREADS = 32;
+    private static final long DURATION_MS = 5_000;
+    private static final int[] SLOT_COUNTS = {0, 1, 2, 4, 8, 16, 32};
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void throughputBySlotCount() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(THREADS);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            WalletBalanceSlotRepository slotRepository = new WalletBalanceSlotRepository(jdbc);
+            SplitBalanceServiceImpl splitBalanceService =
+                    new SplitBalanceServiceImpl(null, slotRepository, new SplitBalanceProperties(), new SimpleMeterRegistry());
+
+            UUID walletTypeUid = UUID.randomUUID();
+            jdbc.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'bench', 'RUB', 'ACTIVE')",
+                    walletTypeUid);
+
+            StringBuilder report = new StringBuilder("\nslots | credit ops/s | mixed ops/s\n");
+
+            for (int slots : SLOT_COUNTS) {
+                Wallet wallet = createWallet(jdbc, slotRepository, walletTypeUid, slots);
+
+                double credit = run(() -> tx.executeWithoutResult(status -> credit(jdbc, splitBalanceService, wallet)));
+                double mixed = run(() -> {
+                    // 4 зачисления на одно списание
+                    boolean debit = ThreadLocalRandom.current().nextInt(5) == 0;
+                    tx.executeWithoutResult(status -> {
+                        if (debit) {
+                            debit(jdbc, splitBalanceService, wallet);
+                        } else {
+                            credit(jdbc, splitBalanceService, wallet);
+                        }
+                    });
+                });
+
+                report.append(String.format("%5d | %12.0f | %11.0f%n", slots, credit, mixed));
+                assertTrue(credit > 0);
+            }
+
+            log.info(report.toString());
+        }
+    }
+
+    private static Wallet createWallet(JdbcTemplate jdbc,
+                                       WalletBalanceSlotRepository slotRepository,
+                                       UUID walletTypeUid,
+                                       int slots) {
+        Wallet wallet = new Wallet();
+        wallet.setUid(UUID.randomUUID());
+        wallet.setUserUid(UUID.randomUUID());
+        wallet.setBalanceSlots(slots);
+        wallet.setBalance(BigDecimal.ZERO);
+
+        jdbc.update("""
+                INSERT INTO wallets (uid, name, wallet_type_uid, user_uid, status, balance, balance_slots)
+                VALUES (?, 'bench', ?, ?, 'ACTIVE', 0, ?)
+                """, wallet.getUid(), walletTypeUid, wallet.getUserUid(), slots);
+
+        if (slots > 0) {
+            slotRepository.createSlots(wallet.getUid(), wallet.getUserUid(), slots, BigDecimal.valueOf(1_000_000));
+        } else {
+            jdbc.update("UPDATE wallets SET balance = 1000000 WHERE uid = ?", wallet.getUid());
+        }
+        return wallet;
+    }
+
+    private static void credit(JdbcTemplate jdbc, SplitBalanceServiceImpl service, Wallet wallet) {
+        if (wallet.getBalanceSlots() > 0) {
+            service.credit(wallet, BigDecimal.ONE, UUID.randomUUID());
+        } else {
+            jdbc.update("UPDATE wallets SET balance = balance + 1, modified_at = now() WHERE uid = ?", wallet.getUid());
+        }
+    }
+
+    private static void debit(JdbcTemplate jdbc, SplitBalanceServiceImpl service, Wallet wallet) {
+        if (wallet.getBalanceSlots() > 0) {
+            service.tryDebit(wallet, BigDecimal.ONE, UUID.randomUUID());
+        } else {
+            jdbc.update("UPDATE wallets SET balance = balance - 1, modified_at = now() WHERE uid = ? AND balance >= 1",
+                    wallet.getUid());
+        }
+    }
+
+    private static double run(Runnable operation) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+
+        List<Future<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                long ops = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    operation.run();
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+
+        long total = 0;
+        for (Future<Long> worker : workers) {
+            total += worker.get();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        return total * 1000.0 / DURATION_MS;
+    }
+}
@@ -0,0 +1,97 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.config.SplitBalanceProperties;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.repository.WalletBalanceSlotRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.service.impl.SplitBalanceServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class SplitBalanceServiceImplTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletBalanceSlotRepository slotRepository;
+
+    private SplitBalanceServiceImpl splitBalanceService;
+
+    private final UUID walletUid = UUID.randomUUID();
+    private final UUID userUid = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        splitBalanceService = new SplitBalanceServiceImpl(walletRepository, slotRepository, new SplitBalanceProperties(),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void lockSlots_shouldLockByAscendingWalletAndSlot() {
+        Wallet low = splitWallet(new UUID(0, 1), 4);
+        Wallet high = splitWallet(new UUID(0, 2), 3);
+
+        // hashCode у UUID(0, n) равен n: зачисления попадают в слоты 3 и 1
+        splitBalanceService.lockSlots(Map.of(high.getUid(), high, low.getUid(), low),
+                Map.of(low.getUid(), Set.of(new UUID(0, 3), new UUID(0, 1))), Set.of(high.getUid()));
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<Integer>> slots = ArgumentCaptor.forClass(Collection.class);
+        InOrder inOrder = inOrder(slotRepository);
+        inOrder.verify(slotRepository).lockSlots(eq(low.getUid()), eq(userUid), slots.capture());
+        inOrder.verify(slotRepository).lockSlots(eq(high.getUid()), eq(userUid), slots.capture());
+
+        assertEquals(List.of(List.of(1, 3), List.of(0, 1, 2)),
+                slots.getAllValues().stream().map(List::copyOf).toList());
+    }
+
+    @Test
+    void enableSplitBalance_shouldRefuse_whileFundsAreOnHold() {
+        Wallet wallet = new Wallet();
+        wallet.setUid(walletUid);
+        wallet.setUserUid(userUid);
+        wallet.setBalance(BigDecimal.valueOf(100));
+        wallet.setHeldBalance(BigDecimal.valueOf(30));
+
+        when(walletRepository.findByUidAndUserUidForUpdate(walletUid, userUid)).thenReturn(Optional.of(wallet));
+
+        assertThrows(IllegalStateException.class, () -> splitBalanceService.enableSplitBalance(walletUid, userUid, 4));
+
+        verify(slotRepository, never()).createSlots(any(), any(), anyInt(), any());
+        verify(walletRepository, never()).enableSplitBalance(any(), any(), anyInt());
+    }
+
+    private Wallet splitWallet(UUID uid, int slots) {
+        Wallet wallet = new Wallet();
+        wallet.setUid(uid);
+        wallet.setUserUid(userUid);
+        wallet.setBalanceSlots(slots);
+        return wallet;
+    }
+}
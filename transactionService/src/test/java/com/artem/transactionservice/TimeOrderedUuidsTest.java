@@ -0,0 +1,92 @@
+package com.artem.transactionservice;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeOrderedUuidsTest {
+
+    @Test
+    void next_shouldBeVersion7WithCurrentTimestamp() {
+        long before = System.currentTimeMillis();
+        UUID uid = TimeOrderedUuids.next();
+
+        assertEquals(7, uid.version());
+        assertEquals(2, uid.variant());
+        // при всплеске счётчик переносится в следующие миллисекунды, поэтому допускаем небольшой запас
+        assertTrue(TimeOrderedUuids.timestampMillis(uid) >= before);
+        assertTrue(TimeOrderedUuids.timestampMillis(uid) <= System.currentTimeMillis() + 1_000);
+    }
+
+    @Test
+    void next_shouldBeStrictlyIncreasingWithinOneThread() {
+        UUID previous = TimeOrderedUuids.next();
+        for (int i = 0; i < 100_000; i++) {
+            UUID current = TimeOrderedUuids.next();
+            assertTrue(Long.compareUnsigned(current.getMostSignificantBits(), previous.getMostSignificantBits()) > 0);
+            previous = current;
+        }
+    }
+
+    @Test
+    void next_shouldStayUniqueAndOrderedPerThread_underContention() throws Exception {
+        int threads = 8;
+        int perThread = 50_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<List<UUID>>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                List<UUID> uids = new ArrayList<>(perThread);
+                for (int i = 0; i < perThread; i++) {
+                    uids.add(TimeOrderedUuids.next());
+                }
+                return uids;
+            }));
+        }
+
+        Set<Long> prefixes = new HashSet<>();
+        for (Future<List<UUID>> future : futures) {
+            List<UUID> uids = future.get();
+            for (int i = 0; i < uids.size(); i++) {
+                assertTrue(prefixes.add(uids.get(i).getMostSignificantBits()));
+                if (i > 0) {
+                    assertTrue(Long.compareUnsigned(uids.get(i).getMostSignificantBits(),
+                            uids.get(i - 1).getMostSignificantBits()) > 0);
+                }
+            }
+        }
+        executor.shutdown();
+
+        assertEquals(threads * perThread, prefixes.size());
+    }
+
+    @Test
+    void walletUid_shouldBeTimeOrdered_andKeepOwnerBucket() {
+        UUID userUid = UUID.randomUUID();
+
+        UUID first = WalletUids.newWalletUid(userUid);
+        UUID second = WalletUids.newWalletUid(userUid);
+
+        assertEquals(8, first.version());
+        assertEquals(2, first.variant());
+        assertEquals(ShardBuckets.bucketOf(userUid), WalletUids.bucketOf(first));
+        assertEquals(ShardBuckets.bucketOf(userUid), WalletUids.bucketOf(second));
+        assertTrue(Long.compareUnsigned(second.getMostSignificantBits(), first.getMostSignificantBits()) > 0);
+    }
+
+    @Test
+    void bucketOf_shouldIgnoreTransactionUids() {
+        assertEquals(-1, WalletUids.bucketOf(TimeOrderedUuids.next()));
+        assertEquals(-1, WalletUids.bucketOf(UUID.randomUUID()));
+    }
+}
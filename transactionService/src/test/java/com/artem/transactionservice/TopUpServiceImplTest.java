@@ -0,0 +1,78 @@
+package com.artem.transactionservice;
+
+import com.artem.transaction.model.TopUpConfirmRequest;
+import com.artem.transaction.model.TopUpInitRequest;
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.service.OutboxService;
+import com.artem.transactionservice.service.WalletReadMode;
+import com.artem.transactionservice.service.WalletService;
+import com.artem.transactionservice.service.impl.TopUpServiceImpl;
+import org.apache.kafka.common.errors.InvalidRequestException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class TopUpServiceImplTest {
+
+    @Mock
+    private WalletService walletService;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @InjectMocks
+    private TopUpServiceImpl topUpService;
+
+    private final UUID userUid = UUID.randomUUID();
+    private final UUID walletUid = UUID.randomUUID();
+
+    @Test
+    void init_shouldRejectAmountWithExtraFractionDigits() {
+        stubWallet(WalletReadMode.INIT);
+
+        TopUpInitRequest request = new TopUpInitRequest();
+        request.setUserUid(userUid);
+        request.setWalletUid(walletUid);
+        request.setAmount(new BigDecimal("10.001"));
+
+        assertThrows(InvalidRequestException.class, () -> topUpService.init(request));
+    }
+
+    @Test
+    void confirm_shouldRejectAmountWithExtraFractionDigits_withoutCreatingTransaction() {
+        stubWallet(WalletReadMode.CONFIRM);
+
+        TopUpConfirmRequest request = new TopUpConfirmRequest();
+        request.setUserUid(userUid);
+        request.setWalletUid(walletUid);
+        request.setAmount(new BigDecimal("10.001"));
+
+        assertThrows(InvalidRequestException.class, () -> topUpService.confirm(request));
+
+        verify(transactionRepository, never()).save(any());
+        verify(outboxService, never()).publish(any(), any(), any(), any());
+    }
+
+    private void stubWallet(WalletReadMode mode) {
+        WalletSnapshot wallet = new WalletSnapshot(walletUid, userUid, "ACTIVE", UUID.randomUUID(), "RUB",
+                0, BigDecimal.valueOf(100), true);
+        when(walletService.getActiveWalletSnapshot(eq(walletUid), eq(userUid), eq(mode))).thenReturn(wallet);
+    }
+}
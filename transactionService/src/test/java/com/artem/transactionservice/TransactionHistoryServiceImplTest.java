@@ -0,0 +1,100 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.dto.TransactionHistoryPage;
+import com.artem.transactionservice.repository.TransactionHistoryRepository;
+import com.artem.transactionservice.repository.projection.TransactionHistoryView;
+import com.artem.transactionservice.service.impl.TransactionHistoryServiceImpl;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceImplTest {
+
+    @Mock
+    private TransactionHistoryRepository transactionHistoryRepository;
+
+    private TransactionHistoryServiceImpl transactionHistoryService;
+
+    private final UUID walletUid = UUID.randomUUID();
+    private final UUID userUid = UUID.randomUUID();
+
+    @BeforeEach
+    void setUp() {
+        transactionHistoryService = new TransactionHistoryServiceImpl(
+                transactionHistoryRepository, new ObjectMapper().registerModule(new JavaTimeModule()));
+    }
+
+    @Test
+    void getHistory_shouldReturnCursorOfLastRow_whenMoreRowsExist() {
+        TransactionHistoryView first = row(LocalDateTime.of(2024, 5, 2, 10, 0));
+        TransactionHistoryView second = row(LocalDateTime.of(2024, 5, 1, 10, 0));
+        TransactionHistoryView extra = row(LocalDateTime.of(2024, 4, 30, 10, 0));
+
+        when(transactionHistoryRepository.findPage(walletUid, userUid, null, null, 3))
+                .thenReturn(List.of(first, second, extra));
+
+        TransactionHistoryPage page = transactionHistoryService.getHistory(walletUid, userUid, null, 2);
+
+        assertEquals(List.of(first, second), page.items());
+        assertNotNull(page.nextCursor());
+
+        // курсор продолжает выборку строго после последней строки страницы
+        when(transactionHistoryRepository.findPage(walletUid, userUid, second.createdAt(), second.uid(), 3))
+                .thenReturn(List.of(extra));
+
+        TransactionHistoryPage next = transactionHistoryService.getHistory(walletUid, userUid, page.nextCursor(), 2);
+
+        assertEquals(List.of(extra), next.items());
+        assertNull(next.nextCursor());
+    }
+
+    @Test
+    void getHistory_shouldRejectInvalidCursorAndLimit() {
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.getHistory(walletUid, userUid, "not-a-cursor", 10));
+        assertThrows(IllegalArgumentException.class,
+                () -> transactionHistoryService.getHistory(walletUid, userUid, null, 0));
+
+        verifyNoInteractions(transactionHistoryRepository);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void exportHistory_shouldWriteOneJsonLinePerTransaction() {
+        doAnswer(invocation -> {
+            Consumer<TransactionHistoryView> consumer = invocation.getArgument(2);
+            consumer.accept(row(LocalDateTime.of(2024, 5, 2, 10, 0)));
+            consumer.accept(row(LocalDateTime.of(2024, 5, 1, 10, 0)));
+            return null;
+        }).when(transactionHistoryRepository).streamAll(eq(walletUid), isNull(), any(Consumer.class));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        transactionHistoryService.exportHistory(walletUid, null, out);
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertTrue(lines[0].startsWith("{") && lines[0].contains(walletUid.toString()));
+    }
+
+    private TransactionHistoryView row(LocalDateTime createdAt) {
+        return new TransactionHistoryView(UUID.randomUUID(), createdAt, null, userUid, walletUid,
+                BigDecimal.TEN, "DEPOSIT", "COMPLETED", null, BigDecimal.ZERO, null, null);
+    }
+}
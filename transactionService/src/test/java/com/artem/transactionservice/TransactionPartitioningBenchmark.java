@@ -0,0 +1,211 @@
+package com.artem.transactionservice;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Обычная таблица transactions против помесячно секционированной (V10) на одном и том же наборе данных:
+ * вставка новых транзакций в несколько потоков и первая/следующая страница истории кошелька.
+ * <p>
+ * Запуск: ./gradlew test --tests '*TransactionPartitioningBenchmark' -Dbenchmark=true [-Dbenchmark.rows=5000000]
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransactionPartitioningBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TransactionPartitioningBenchmark.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 3_000_000);
+    private static final int WALLETS = 1_000;
+    private static final int MONTHS = 24;
+    private static final int THREADS = 16;
+    private static final long DURATION_MS = 10_000;
+    private static final int QUERIES = 2_000;
+    private static final int PAGE = 50;
+
+    private static final String HEAP = "transactions_heap";
+    private static final String PARTITIONED = "transactions";
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB");
+
+    @Test
+    void insertAndHistoryLatency() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(THREADS);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+            List<UUID> wallets = createWallets(jdbc);
+            prepareTables(jdbc);
+
+            for (String table : List.of(HEAP, PARTITIONED)) {
+                seed(jdbc, table);
+            }
+
+            StringBuilder report = new StringBuilder(String.format(
+                    "%nrows=%d, wallets=%d, months=%d%ntable              | inserts/s | first page p50/p99 ms | cursor page p50/p99 ms%n",
+                    ROWS, WALLETS, MONTHS));
+
+            for (String table : List.of(HEAP, PARTITIONED)) {
+                double inserts = insertThroughput(jdbc, table, wallets);
+                double[] first = historyLatency(jdbc, table, wallets, false);
+                double[] cursor = historyLatency(jdbc, table, wallets, true);
+
+                report.append(String.format("%-18s | %9.0f | %9.2f / %9.2f | %10.2f / %10.2f%n",
+                        table, inserts, first[0], first[1], cursor[0], cursor[1]));
+                assertTrue(inserts > 0);
+            }
+
+            log.info(report.toString());
+        }
+    }
+
+    private static List<UUID> createWallets(JdbcTemplate jdbc) {
+        UUID walletTypeUid = UUID.randomUUID();
+        jdbc.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'bench', 'RUB', 'ACTIVE')",
+                walletTypeUid);
+        jdbc.update("""
+                INSERT INTO wallets (uid, name, wallet_type_uid, user_uid, status, balance)
+                SELECT uuid_generate_v4(), 'bench', ?, uuid_generate_v4(), 'ACTIVE', 0
+                FROM generate_series(1, ?)
+                """, walletTypeUid, WALLETS);
+        return jdbc.queryForList("SELECT uid FROM wallets", UUID.class);
+    }
+
+    /**
+     * Обычная таблица — схема до V10; в секционированной история раскладывается по месяцам,
+     * а не в одну секцию transactions_legacy.
+     */
+    private static void prepareTables(JdbcTemplate jdbc) {
+        jdbc.execute("CREATE TABLE " + HEAP + " (LIKE transactions INCLUDING DEFAULTS)");
+        jdbc.execute("ALTER TABLE " + HEAP + " ADD PRIMARY KEY (uid)");
+        jdbc.execute("ALTER TABLE " + HEAP + " ADD FOREIGN KEY (wallet_uid) REFERENCES wallets (uid)");
+        jdbc.execute("CREATE INDEX ON " + HEAP + " (wallet_uid, created_at DESC, uid)");
+        jdbc.execute("CREATE INDEX ON " + HEAP + " (created_at, uid) WHERE status IN ('PENDING', 'HELD', 'CREDITING')");
+
+        jdbc.execute("ALTER TABLE transactions DETACH PARTITION transactions_legacy");
+        jdbc.execute("DROP TABLE transactions_legacy");
+        jdbc.execute("""
+                DO $$
+                DECLARE
+                    month_start DATE;
+                BEGIN
+                    FOR i IN 1..%d LOOP
+                        month_start := (date_trunc('month', now()) - make_interval(months => i))::date;
+                        EXECUTE format('CREATE TABLE %%I PARTITION OF transactions FOR VALUES FROM (%%L) TO (%%L)',
+                                       'transactions_' || to_char(month_start, '"y"YYYY"m"MM'),
+                                       month_start, (month_start + INTERVAL '1 month')::date);
+                    END LOOP;
+                END $$
+                """.formatted(MONTHS));
+    }
+
+    private static void seed(JdbcTemplate jdbc, String table) {
+        long start = System.nanoTime();
+        jdbc.update("""
+                WITH w AS (SELECT array_agg(uid) AS uids, array_agg(user_uid) AS users, count(*)::int AS n FROM wallets)
+                INSERT INTO %s (uid, created_at, user_uid, wallet_uid, amount, type, status)
+                SELECT uuid_generate_v4(),
+                       now() - random() * make_interval(months => %d),
+                       w.users[1 + g %% w.n], w.uids[1 + g %% w.n], 10, 'DEPOSIT', 'COMPLETED'
+                FROM generate_series(1, ?) g, w
+                """.formatted(table, MONTHS), ROWS);
+        jdbc.execute("ANALYZE " + table);
+        log.info("Seeded {} in {} s", table, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start));
+    }
+
+    private static double insertThroughput(JdbcTemplate jdbc, String table, List<UUID> wallets) throws Exception {
+        String sql = "INSERT INTO " + table + " (uid, created_at, user_uid, wallet_uid, amount, type, status)"
+                + " SELECT ?, ?, user_uid, uid, 10, 'DEPOSIT', 'PENDING' FROM wallets WHERE uid = ?";
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+
+        List<Future<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                long ops = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    UUID wallet = wallets.get(ThreadLocalRandom.current().nextInt(wallets.size()));
+                    jdbc.update(sql, UUID.randomUUID(), Timestamp.valueOf(LocalDateTime.now()), wallet);
+                    ops++;
+                }
+                return ops;
+            }));
+        }
+
+        long total = 0;
+        for (Future<Long> worker : workers) {
+            total += worker.get();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        return total * 1000.0 / DURATION_MS;
+    }
+
+    /**
+     * Запросы совпадают с TransactionHistoryRepository.findPage; курсор — середина истории кошелька.
+     *
+     * @return p50 и p99 в миллисекундах
+     */
+    private static double[] historyLatency(JdbcTemplate jdbc, String table, List<UUID> wallets, boolean cursor) {
+        String first = "SELECT uid, created_at, status FROM " + table
+                + " WHERE wallet_uid = ? ORDER BY created_at DESC, uid LIMIT " + PAGE;
+        String next = "SELECT uid, created_at, status FROM " + table
+                + " WHERE wallet_uid = ? AND created_at <= ? AND (created_at < ? OR uid > ?)"
+                + " ORDER BY created_at DESC, uid LIMIT " + PAGE;
+
+        Timestamp middle = Timestamp.valueOf(LocalDateTime.now().minusMonths(MONTHS / 2));
+        UUID afterUid = new UUID(0, 0);
+
+        long[] nanos = new long[QUERIES];
+        for (int i = 0; i < QUERIES; i++) {
+            UUID wallet = wallets.get(ThreadLocalRandom.current().nextInt(wallets.size()));
+            long start = System.nanoTime();
+            if (cursor) {
+                jdbc.queryForList(next, wallet, middle, middle, afterUid);
+            } else {
+                jdbc.queryForList(first, wallet);
+            }
+            nanos[i] = System.nanoTime() - start;
+        }
+
+        Arrays.sort(nanos);
+        return new double[]{
+                nanos[QUERIES / 2] / 1_000_000.0,
+                nanos[QUERIES * 99 / 100] / 1_000_000.0
+        };
+    }
+}
@@ -0,0 +1,115 @@
+package com.artem.transactionservice;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * V10 на шарде, где в transactions уже есть история, в том числе строки текущего месяца
+ * и строка «из будущего» (сдвиг часов): ATTACH не должен упасть, данные остаются в transactions_legacy,
+ * месячные секции начинаются сразу за её границей.
+ */
+@Testcontainers
+class TransactionPartitioningMigrationTest {
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    private static final String SEED = "seed";
+
+    private static JdbcTemplate jdbc;
+    private static UUID walletUid;
+
+    @BeforeAll
+    static void migrateNonEmptyShard() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                POSTGRES.getJdbcUrl(), POSTGRES.getUsername(), POSTGRES.getPassword());
+        jdbc = new JdbcTemplate(dataSource);
+
+        flyway(dataSource, "9").migrate();
+
+        UUID walletTypeUid = UUID.randomUUID();
+        walletUid = UUID.randomUUID();
+        jdbc.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'main', 'RUB', 'ACTIVE')",
+                walletTypeUid);
+        jdbc.update("INSERT INTO wallets (uid, name, wallet_type_uid, user_uid, status, balance)"
+                + " VALUES (?, 'main', ?, ?, 'ACTIVE', 100)", walletUid, walletTypeUid, UUID.randomUUID());
+
+        insertTransaction("now() - INTERVAL '3 months'", SEED);
+        insertTransaction("now() - INTERVAL '1 month'", SEED);
+        insertTransaction("now()", SEED);
+        insertTransaction("date_trunc('month', now()) + INTERVAL '1 month' + INTERVAL '1 day'", SEED);
+
+        flyway(dataSource, "latest").migrate();
+    }
+
+    @Test
+    void legacyPartitionCoversExistingRows() {
+        assertEquals(monthStart(2),
+                jdbc.queryForObject("SELECT transactions_legacy_upper_bound()", LocalDate.class));
+        assertEquals(4, seeded("transactions"));
+        assertEquals(4, seeded("transactions_legacy"));
+    }
+
+    @Test
+    void monthlyPartitionsStartAfterLegacyBound() {
+        // V10 вызывает create_transaction_partitions(3): из месяцев 0..3 legacy уже покрывает два
+        assertEquals(0, jdbc.queryForObject("SELECT create_transaction_partitions(3)", Integer.class));
+        assertEquals(monthStart(2), jdbc.queryForObject("""
+                SELECT min(to_date(substring(c.relname FROM 14), '"y"YYYY"m"MM'))
+                FROM pg_inherits i
+                JOIN pg_class c ON c.oid = i.inhrelid
+                WHERE i.inhparent = 'transactions'::regclass
+                  AND c.relname ~ '^transactions_y[0-9]{4}m[0-9]{2}$'
+                """, LocalDate.class));
+    }
+
+    @Test
+    void newRowsLandInLegacyOrMonthlyPartitionNotDefault() {
+        assertEquals("transactions_legacy", insertTransaction("now()", "current"));
+        assertEquals("transactions_" + monthStart(2).format(DateTimeFormatter.ofPattern("'y'yyyy'm'MM")),
+                insertTransaction("date_trunc('month', now()) + INTERVAL '2 months' + INTERVAL '1 day'", "ahead"));
+        assertEquals(0, jdbc.queryForObject("SELECT count(*) FROM transactions_default", Long.class));
+    }
+
+    /**
+     * Начало месяца по часам базы — граница секций считается по ним, а не по часам JVM.
+     */
+    private static LocalDate monthStart(int monthsAhead) {
+        return jdbc.queryForObject("SELECT (date_trunc('month', now()) + make_interval(months => ?))::date",
+                LocalDate.class, monthsAhead);
+    }
+
+    private static Flyway flyway(DriverManagerDataSource dataSource, String target) {
+        return Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .target(target)
+                .load();
+    }
+
+    /**
+     * @return секция, в которую легла строка
+     */
+    private static String insertTransaction(String createdAt, String comment) {
+        return jdbc.queryForObject("INSERT INTO transactions (uid, created_at, user_uid, wallet_uid, amount, type, status, comment)"
+                        + " SELECT ?, " + createdAt + ", user_uid, uid, 10, 'DEPOSIT', 'COMPLETED', ? FROM wallets WHERE uid = ?"
+                        + " RETURNING tableoid::regclass::text",
+                String.class, UUID.randomUUID(), comment, walletUid);
+    }
+
+    private static long seeded(String table) {
+        return jdbc.queryForObject("SELECT count(*) FROM " + table + " WHERE comment = ?", Long.class, SEED);
+    }
+}
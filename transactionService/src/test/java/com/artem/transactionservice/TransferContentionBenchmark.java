@@ -0,0 +1,161 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Встречные переводы между небольшим набором кошельков одного шарда.
+ * <ul>
+ *     <li>sequential — прежний консьюмер: списание и зачисление отдельными загрузками
+ *     в порядке "источник, получатель", встречные переводы ловят deadlock;</li>
+ *     <li>ordered — как LedgerBatchApplier: оба кошелька блокируются одним SELECT ... ORDER BY uid,
+ *     списание и зачисление — один UPDATE.</li>
+ * </ul>
+ * Запуск: ./gradlew test --tests '*TransferContentionBenchmark' -Dbenchmark=true
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class TransferContentionBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(TransferContentionBenchmark.class);
+
+    private static final int THREADS = 32;
+    private static final int WALLETS = 8;
+    private static final long DURATION_MS = 5_000;
+    private static final BigDecimal INITIAL = BigDecimal.valueOf(1_000_000);
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine");
+
+    @Test
+    void crissCrossTransfers() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(THREADS);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            Flyway.configure().dataSource(dataSource).locations("classpath:db/migration").load().migrate();
+
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+            TransactionTemplate tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+            WalletBalanceJdbcRepository balances = new WalletBalanceJdbcRepository(jdbc);
+
+            UUID walletTypeUid = UUID.randomUUID();
+            jdbc.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'bench', 'RUB', 'ACTIVE')",
+                    walletTypeUid);
+
+            UUID userUid = UUID.randomUUID();
+            List<UUID> wallets = new ArrayList<>();
+            for (int i = 0; i < WALLETS; i++) {
+                UUID walletUid = UUID.randomUUID();
+                jdbc.update("""
+                        INSERT INTO wallets (uid, name, wallet_type_uid, user_uid, status, balance)
+                        VALUES (?, 'bench', ?, ?, 'ACTIVE', ?)
+                        """, walletUid, walletTypeUid, userUid, INITIAL);
+                wallets.add(walletUid);
+            }
+
+            StringBuilder report = new StringBuilder("\nstrategy   | transfers/s | deadlocks\n");
+
+            LongAdder sequentialDeadlocks = new LongAdder();
+            double sequential = run(wallets, sequentialDeadlocks, (source, target) -> tx.executeWithoutResult(status -> {
+                lockAndAdd(jdbc, source, userUid, BigDecimal.ONE.negate());
+                lockAndAdd(jdbc, target, userUid, BigDecimal.ONE);
+            }));
+            report.append(String.format("sequential | %11.0f | %9d%n", sequential, sequentialDeadlocks.sum()));
+
+            LongAdder orderedDeadlocks = new LongAdder();
+            double ordered = run(wallets, orderedDeadlocks, (source, target) -> tx.executeWithoutResult(status -> {
+                jdbc.queryForList("SELECT uid FROM wallets WHERE user_uid = ? AND uid IN (?, ?) ORDER BY uid FOR UPDATE",
+                        userUid, source, target);
+                balances.applyDeltas(Set.of(userUid), Map.of(source, BigDecimal.ONE.negate(), target, BigDecimal.ONE));
+            }));
+            report.append(String.format("ordered    | %11.0f | %9d%n", ordered, orderedDeadlocks.sum()));
+
+            log.info(report.toString());
+
+            // деньги не появились и не пропали
+            assertEquals(0, INITIAL.multiply(BigDecimal.valueOf(WALLETS)).compareTo(
+                    jdbc.queryForObject("SELECT sum(balance) FROM wallets WHERE user_uid = ?", BigDecimal.class, userUid)));
+            assertEquals(0, orderedDeadlocks.sum());
+            assertTrue(ordered > 0);
+        }
+    }
+
+    private static void lockAndAdd(JdbcTemplate jdbc, UUID walletUid, UUID userUid, BigDecimal delta) {
+        jdbc.queryForObject("SELECT balance FROM wallets WHERE uid = ? AND user_uid = ? FOR UPDATE",
+                BigDecimal.class, walletUid, userUid);
+        jdbc.update("UPDATE wallets SET balance = balance + ?, modified_at = now() WHERE uid = ? AND user_uid = ?",
+                delta, walletUid, userUid);
+    }
+
+    private static double run(List<UUID> wallets, LongAdder deadlocks, Transfer transfer) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long deadline = System.currentTimeMillis() + DURATION_MS;
+
+        List<Future<Long>> workers = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            workers.add(executor.submit(() -> {
+                long ops = 0;
+                while (System.currentTimeMillis() < deadline) {
+                    int source = ThreadLocalRandom.current().nextInt(wallets.size());
+                    int target = (source + 1 + ThreadLocalRandom.current().nextInt(wallets.size() - 1)) % wallets.size();
+                    try {
+                        transfer.execute(wallets.get(source), wallets.get(target));
+                        ops++;
+                    } catch (PessimisticLockingFailureException e) {
+                        // PostgreSQL откатил одну из транзакций цикла ожидания
+                        deadlocks.increment();
+                    }
+                }
+                return ops;
+            }));
+        }
+
+        long total = 0;
+        for (Future<Long> worker : workers) {
+            total += worker.get();
+        }
+
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        return total * 1000.0 / DURATION_MS;
+    }
+
+    @FunctionalInterface
+    private interface Transfer {
+        void execute(UUID source, UUID target);
+    }
+}
@@ -0,0 +1,168 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.dto.LedgerEntry;
+import com.artem.transactionservice.dto.TransferSagaEvent;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.kafka.TransferSaga;
+import com.artem.transactionservice.repository.LedgerEntryRepository;
+import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.repository.TransferCreditRepository;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.service.OutboxService;
+import com.artem.transactionservice.service.SplitBalanceService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class TransferSagaTest {
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+
+    @Mock
+    private TransferCreditRepository transferCreditRepository;
+
+    @Mock
+    private SplitBalanceService splitBalanceService;
+
+    @Mock
+    private OutboxService outboxService;
+
+    @Mock
+    private WalletCache walletCache;
+
+    @Mock
+    private LedgerEntryRepository ledgerEntryRepository;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    private TransferSaga saga;
+
+    private final TransferSagaEvent event = new TransferSagaEvent(UUID.randomUUID(), UUID.randomUUID(),
+            UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), BigDecimal.valueOf(30), BigDecimal.valueOf(2), null,
+            LocalDateTime.of(2026, 10, 1, 12, 0));
+
+    @BeforeEach
+    void setUp() {
+        saga = new TransferSaga(transactionRepository, walletRepository, walletBalanceJdbcRepository,
+                transferCreditRepository, splitBalanceService, outboxService,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), walletCache, objectMapper, ledgerEntryRepository);
+    }
+
+    @Test
+    void credit_shouldCreditTargetAndPublishSettleFromTargetShard() throws Exception {
+        when(transferCreditRepository.insert(event.transactionUid(), event.targetUserUid(),
+                event.targetWalletUid(), event.amount())).thenReturn(true);
+        when(walletBalanceJdbcRepository.credit(event.targetWalletUid(), event.targetUserUid(), event.amount()))
+                .thenReturn(Optional.of(BigDecimal.valueOf(130)));
+
+        saga.credit(List.of(objectMapper.writeValueAsString(event)));
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(outboxService).publish(eq(TransferSaga.SETTLE_TOPIC), eq(event.targetUserUid()),
+                eq(event.sourceWalletUid().toString()), payload.capture());
+        assertEquals(event, objectMapper.readValue(payload.getValue(), TransferSagaEvent.class));
+        verify(ledgerEntryRepository).insert(List.of(new LedgerEntry(event.transactionUid(), event.targetUserUid(),
+                event.targetWalletUid(), event.amount())));
+    }
+
+    @Test
+    void credit_shouldSkipDuplicateEvent() throws Exception {
+        when(transferCreditRepository.insert(any(), any(), any(), any())).thenReturn(false);
+
+        saga.credit(List.of(objectMapper.writeValueAsString(event)));
+
+        verifyNoInteractions(walletBalanceJdbcRepository, outboxService);
+    }
+
+    @Test
+    void credit_shouldReportFailure_whenTargetWalletIsNotActive() throws Exception {
+        when(transferCreditRepository.insert(any(), any(), any(), any())).thenReturn(true);
+        when(walletBalanceJdbcRepository.credit(any(), any(), any())).thenReturn(Optional.empty());
+        when(walletRepository.findByUidAndUserUidAndStatus(event.targetWalletUid(), event.targetUserUid(), "ACTIVE"))
+                .thenReturn(Optional.empty());
+
+        saga.credit(List.of(objectMapper.writeValueAsString(event)));
+
+        ArgumentCaptor<String> payload = ArgumentCaptor.forClass(String.class);
+        verify(outboxService).publish(eq(TransferSaga.SETTLE_TOPIC), any(), any(), payload.capture());
+        assertNotNull(objectMapper.readValue(payload.getValue(), TransferSagaEvent.class).failureReason());
+        verify(transferCreditRepository).markFailed(eq(event.transactionUid()), eq(event.targetUserUid()), anyString());
+    }
+
+    @Test
+    void settle_shouldReleaseHold_whenCreditFailed() throws Exception {
+        Wallet source = new Wallet();
+        source.setUid(event.sourceWalletUid());
+        source.setUserUid(event.sourceUserUid());
+
+        when(transactionRepository.transition(event.sourceUserUid(), event.transactionUid(), event.createdAt(), "CREDITING", "FAILED", "gone"))
+                .thenReturn(1);
+        when(walletRepository.findByUidAndUserUidForUpdate(event.sourceWalletUid(), event.sourceUserUid()))
+                .thenReturn(Optional.of(source));
+
+        saga.settle(List.of(objectMapper.writeValueAsString(event.failed("gone"))));
+
+        verify(walletBalanceJdbcRepository).settleHolds(Set.of(event.sourceUserUid()),
+                Map.of(), Map.of(event.sourceWalletUid(), BigDecimal.valueOf(32)));
+    }
+
+    @Test
+    void settle_shouldChargeHoldWithFeeAndBookFeeSeparately() throws Exception {
+        Wallet source = new Wallet();
+        source.setUid(event.sourceWalletUid());
+        source.setUserUid(event.sourceUserUid());
+
+        when(transactionRepository.transition(event.sourceUserUid(), event.transactionUid(), event.createdAt(), "CREDITING", "COMPLETED", null))
+                .thenReturn(1);
+        when(walletRepository.findByUidAndUserUidForUpdate(event.sourceWalletUid(), event.sourceUserUid()))
+                .thenReturn(Optional.of(source));
+
+        saga.settle(List.of(objectMapper.writeValueAsString(event)));
+
+        verify(walletBalanceJdbcRepository).settleHolds(Set.of(event.sourceUserUid()),
+                Map.of(event.sourceWalletUid(), BigDecimal.valueOf(32)), Map.of());
+        verify(ledgerEntryRepository).insert(List.of(
+                new LedgerEntry(event.transactionUid(), event.sourceUserUid(), event.sourceWalletUid(), BigDecimal.valueOf(-30)),
+                LedgerEntry.fee(event.transactionUid(), event.sourceUserUid(), event.sourceWalletUid(), BigDecimal.valueOf(-2))
+        ));
+    }
+
+    @Test
+    void settle_shouldIgnoreAlreadySettledTransfer() throws Exception {
+        when(transactionRepository.transition(any(), any(), any(), eq("CREDITING"), eq("COMPLETED"), isNull()))
+                .thenReturn(0);
+
+        saga.settle(List.of(objectMapper.writeValueAsString(event)));
+
+        verifyNoInteractions(walletRepository, walletBalanceJdbcRepository);
+    }
+}
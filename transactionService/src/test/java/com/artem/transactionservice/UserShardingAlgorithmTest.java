@@ -0,0 +1,123 @@
+package com.artem.transactionservice;
+
+import org.apache.shardingsphere.infra.datanode.DataNodeInfo;
+import org.apache.shardingsphere.sharding.api.sharding.standard.PreciseShardingValue;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class UserShardingAlgorithmTest {
+
+    @Test
+    void doSharding_shouldBeStableAndMatchShardRouter() {
+        UserShardingAlgorithm algorithm = algorithm(4, false);
+        ShardRouter router = new ShardRouter(4, false);
+        List<String> targets = List.of("ds_0", "ds_1", "ds_2", "ds_3");
+
+        for (int i = 0; i < 1_000; i++) {
+            UUID userUid = UUID.randomUUID();
+
+            String first = algorithm.doSharding(targets, value(userUid));
+            String second = algorithm.doSharding(targets, value(userUid.toString()));
+
+            assertSame(first, second);
+            assertEquals("ds_" + router.shardOf(userUid), first);
+        }
+    }
+
+    @Test
+    void doSharding_shouldSpreadUsersEvenly() {
+        int shards = 8;
+        int users = 80_000;
+        int[] counts = new int[shards];
+
+        for (int i = 0; i < users; i++) {
+            counts[UserShardingAlgorithm.shardIndex(UUID.randomUUID(), shards, false)]++;
+        }
+
+        for (int count : counts) {
+            // ожидаем 10_000 на шард, допускаем ±5%
+            assertTrue(Math.abs(count - users / shards) < users / shards / 20, "skewed shard: " + count);
+        }
+    }
+
+    @Test
+    void legacyHash_shouldMatchOldInlineExpression() {
+        UUID userUid = UUID.randomUUID();
+
+        assertEquals(Math.abs(userUid.hashCode()) % 2, UserShardingAlgorithm.shardIndex(userUid, 2, true));
+    }
+
+    @Test
+    void init_shouldDefaultToLegacyHashAndPublishLayout() {
+        UserShardingAlgorithm algorithm = new UserShardingAlgorithm();
+        algorithm.init(new Properties());
+        UUID userUid = UUID.randomUUID();
+
+        assertEquals(new UserShardingAlgorithm.Layout(2, true), UserShardingAlgorithm.layout());
+        assertEquals("ds_" + Math.abs(userUid.hashCode()) % 2,
+                algorithm.doSharding(List.of("ds_0", "ds_1"), value(userUid)));
+
+        algorithm(4, false);
+
+        assertEquals(new UserShardingAlgorithm.Layout(4, false), UserShardingAlgorithm.layout());
+    }
+
+    @Test
+    void doSharding_shouldRejectUnavailableShard() {
+        UserShardingAlgorithm algorithm = algorithm(2, false);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> algorithm.doSharding(List.of(), value(UUID.randomUUID())));
+    }
+
+    @Test
+    void doSharding_shouldFollowBucketDirectoryAndRejectFrozenBuckets() {
+        UserShardingAlgorithm algorithm = algorithm(2, false);
+        UUID movedUser = UUID.randomUUID();
+        UUID frozenUser = UUID.randomUUID();
+        while (ShardBuckets.bucketOf(frozenUser) == ShardBuckets.bucketOf(movedUser)) {
+            frozenUser = UUID.randomUUID();
+        }
+
+        int[] shards = new int[ShardBuckets.BUCKET_COUNT];
+        boolean[] frozen = new boolean[ShardBuckets.BUCKET_COUNT];
+        for (int bucket = 0; bucket < shards.length; bucket++) {
+            shards[bucket] = bucket % 2;
+        }
+        shards[ShardBuckets.bucketOf(movedUser)] = 2;
+        frozen[ShardBuckets.bucketOf(frozenUser)] = true;
+
+        try {
+            ShardBuckets.publish(shards, frozen);
+            UUID rejected = frozenUser;
+
+            assertEquals("ds_2", algorithm.doSharding(List.of("ds_0", "ds_1", "ds_2"), value(movedUser)));
+            assertThrows(IllegalStateException.class,
+                    () -> algorithm.doSharding(List.of("ds_0", "ds_1", "ds_2"), value(rejected)));
+        } finally {
+            ShardBuckets.reset();
+        }
+    }
+
+    private static UserShardingAlgorithm algorithm(int shards, boolean legacyHash) {
+        Properties props = new Properties();
+        props.setProperty(UserShardingAlgorithm.SHARDING_COUNT, String.valueOf(shards));
+        props.setProperty(UserShardingAlgorithm.LEGACY_HASH, String.valueOf(legacyHash));
+
+        UserShardingAlgorithm algorithm = new UserShardingAlgorithm();
+        algorithm.init(props);
+        return algorithm;
+    }
+
+    private static PreciseShardingValue<Comparable<?>> value(Comparable<?> userUid) {
+        return new PreciseShardingValue<>("wallets", "user_uid", new DataNodeInfo("ds_", 1, '0'), userUid);
+    }
+}
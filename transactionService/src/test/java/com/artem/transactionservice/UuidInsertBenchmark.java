@@ -0,0 +1,116 @@
+package com.artem.transactionservice;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Вставка в большую таблицу с первичным ключом UUID: случайные v4 против упорядоченных по времени v7
+ * ({@link TimeOrderedUuids}). Таблица заранее заполнена так, что индекс pkey не помещается в shared_buffers,
+ * затем в несколько потоков идут одиночные INSERT, как при init транзакций.
+ * Кроме скорости печатается размер индекса и число прочитанных с диска страниц индекса.
+ * <p>
+ * Запуск: ./gradlew test --tests '*UuidInsertBenchmark' -Dbenchmark=true [-Dbenchmark.rows=20000000]
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class UuidInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(UuidInsertBenchmark.class);
+
+    private static final int ROWS = Integer.getInteger("benchmark.rows", 10_000_000);
+    private static final int INSERTS = Integer.getInteger("benchmark.inserts", 200_000);
+    private static final int THREADS = 16;
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=128MB", "-c", "max_wal_size=4GB");
+
+    @Test
+    void randomVersusTimeOrdered() throws Exception {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl());
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(THREADS);
+
+        try (HikariDataSource dataSource = new HikariDataSource(config)) {
+            JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+            Result v4 = run(jdbc, "uid_v4", UUID::randomUUID);
+            Result v7 = run(jdbc, "uid_v7", TimeOrderedUuids::next);
+
+            log.info(String.format("%nrows=%d, inserts=%d, threads=%d%n"
+                            + "key | inserts/s | pkey MB | pkey blocks read%n"
+                            + "v4  | %9.0f | %7d | %16d%nv7  | %9.0f | %7d | %16d%nspeed-up: %.1fx",
+                    ROWS, INSERTS, THREADS,
+                    v4.rate, v4.indexMb, v4.blocksRead, v7.rate, v7.indexMb, v7.blocksRead, v7.rate / v4.rate));
+        }
+    }
+
+    private static Result run(JdbcTemplate jdbc, String table, Supplier<UUID> keys) throws Exception {
+        jdbc.execute("CREATE TABLE " + table + " (uid UUID PRIMARY KEY, created_at TIMESTAMP NOT NULL DEFAULT now(), "
+                + "amount NUMERIC(19, 4) NOT NULL)");
+
+        // заполнение — пакетами из приложения, чтобы порядок ключей в индексе совпадал с боевым
+        List<Object[]> batch = new ArrayList<>(10_000);
+        for (int i = 0; i < ROWS; i++) {
+            batch.add(new Object[]{keys.get(), i % 10_000});
+            if (batch.size() == 10_000) {
+                jdbc.batchUpdate("INSERT INTO " + table + " (uid, amount) VALUES (?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbc.batchUpdate("INSERT INTO " + table + " (uid, amount) VALUES (?, ?)", batch);
+        jdbc.execute("VACUUM ANALYZE " + table);
+        jdbc.execute("SELECT pg_stat_reset()");
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        long start = System.nanoTime();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int count = INSERTS / THREADS + (t < INSERTS % THREADS ? 1 : 0);
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    jdbc.update("INSERT INTO " + table + " (uid, amount) VALUES (?, 100)", keys.get());
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        double rate = INSERTS * 1e9 / (System.nanoTime() - start);
+        executor.shutdown();
+
+        assertEquals((long) ROWS + INSERTS, jdbc.queryForObject("SELECT count(*) FROM " + table, Long.class));
+        long indexMb = jdbc.queryForObject("SELECT pg_relation_size(?::regclass) / 1048576",
+                Long.class, table + "_pkey");
+        Long blocksRead = jdbc.queryForObject("SELECT coalesce(idx_blks_read, 0) FROM pg_statio_user_indexes "
+                + "WHERE indexrelname = ?", Long.class, table + "_pkey");
+
+        jdbc.execute("DROP TABLE " + table);
+        return new Result(rate, indexMb, blocksRead != null ? blocksRead : 0);
+    }
+
+    private record Result(double rate, long indexMb, long blocksRead) {
+    }
+}
@@ -0,0 +1,145 @@
+package com.artem.transactionservice;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Создание кошельков по одному (как POST /api/v1/wallets: INSERT в своей транзакции)
+ * против пакетной вставки bulk-эндпоинта (WalletBulkRepository: batch по 1000, reWriteBatchedInserts,
+ * одна транзакция на чанк шарда). Параллельные потоки bulk-режима изображают шарды.
+ * <p>
+ * Запуск: ./gradlew test --tests '*WalletBulkInsertBenchmark' -Dbenchmark=true [-Dbenchmark.wallets=200000]
+ */
+@Testcontainers
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class WalletBulkInsertBenchmark {
+
+    private static final Logger log = LoggerFactory.getLogger(WalletBulkInsertBenchmark.class);
+
+    private static final int WALLETS = Integer.getInteger("benchmark.wallets", 100_000);
+    private static final int SINGLE_THREADS = 16;
+    private static final int SHARDS = 2;
+    private static final int CHUNK = 10_000;
+    private static final int BATCH = 1_000;
+
+    private static final String INSERT = """
+            INSERT INTO wallets (uid, created_at, name, wallet_type_uid, user_uid, status, balance)
+            VALUES (?, ?, ?, ?, ?, 'ACTIVE', 0)
+            """;
+
+    @Container
+    static PostgreSQLContainer<?> POSTGRES = new PostgreSQLContainer<>("postgres:16-alpine")
+            .withCommand("postgres", "-c", "shared_buffers=512MB", "-c", "max_wal_size=4GB");
+
+    @Test
+    void singleVersusBulk() throws Exception {
+        try (HikariDataSource single = dataSource(false, SINGLE_THREADS);
+             HikariDataSource batched = dataSource(true, SHARDS)) {
+            Flyway.configure().dataSource(single).locations("classpath:db/migration").load().migrate();
+            JdbcTemplate jdbc = new JdbcTemplate(single);
+
+            UUID walletTypeUid = UUID.randomUUID();
+            jdbc.update("INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'bench', 'RUB', 'ACTIVE')",
+                    walletTypeUid);
+
+            double singleRate = single(jdbc, walletTypeUid);
+            double bulkRate = bulk(new JdbcTemplate(batched), new TransactionTemplate(new DataSourceTransactionManager(batched)),
+                    walletTypeUid);
+
+            assertEquals(2L * WALLETS, jdbc.queryForObject("SELECT count(*) FROM wallets", Long.class));
+            log.info(String.format("%nwallets=%d%nmode                         | wallets/s%n"
+                            + "single (%2d threads)          | %9.0f%nbulk (%d shards, batch %d) | %9.0f%nspeed-up: %.1fx",
+                    WALLETS, SINGLE_THREADS, singleRate, SHARDS, BATCH, bulkRate, bulkRate / singleRate));
+        }
+    }
+
+    private static HikariDataSource dataSource(boolean rewriteBatchedInserts, int poolSize) {
+        HikariConfig config = new HikariConfig();
+        config.setJdbcUrl(POSTGRES.getJdbcUrl() + (rewriteBatchedInserts ? "&reWriteBatchedInserts=true" : ""));
+        config.setUsername(POSTGRES.getUsername());
+        config.setPassword(POSTGRES.getPassword());
+        config.setMaximumPoolSize(poolSize);
+        return new HikariDataSource(config);
+    }
+
+    private static double single(JdbcTemplate jdbc, UUID walletTypeUid) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(SINGLE_THREADS);
+        long start = System.nanoTime();
+
+        List<Future<?>> workers = new ArrayList<>();
+        for (int t = 0; t < SINGLE_THREADS; t++) {
+            int count = WALLETS / SINGLE_THREADS + (t < WALLETS % SINGLE_THREADS ? 1 : 0);
+            workers.add(executor.submit(() -> {
+                for (int i = 0; i < count; i++) {
+                    UUID userUid = UUID.randomUUID();
+                    jdbc.update(INSERT, WalletUids.newWalletUid(userUid), Timestamp.valueOf(LocalDateTime.now()),
+                            "bench", walletTypeUid, userUid);
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+
+        double rate = WALLETS * 1e9 / (System.nanoTime() - start);
+        executor.shutdown();
+        return rate;
+    }
+
+    private static double bulk(JdbcTemplate jdbc, TransactionTemplate transactionTemplate, UUID walletTypeUid)
+            throws Exception {
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        long start = System.nanoTime();
+
+        for (int offset = 0; offset < WALLETS; offset += CHUNK) {
+            int chunk = Math.min(CHUNK, WALLETS - offset);
+            List<Future<?>> shards = new ArrayList<>();
+            for (int shard = 0; shard < SHARDS; shard++) {
+                int rows = chunk / SHARDS + (shard < chunk % SHARDS ? 1 : 0);
+                shards.add(executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                    Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+                    List<UUID> users = new ArrayList<>(rows);
+                    for (int i = 0; i < rows; i++) {
+                        users.add(UUID.randomUUID());
+                    }
+                    jdbc.batchUpdate(INSERT, users, BATCH, (ps, userUid) -> {
+                        ps.setObject(1, WalletUids.newWalletUid(userUid));
+                        ps.setTimestamp(2, now);
+                        ps.setString(3, "bench");
+                        ps.setObject(4, walletTypeUid);
+                        ps.setObject(5, userUid);
+                    });
+                })));
+            }
+            for (Future<?> shard : shards) {
+                shard.get();
+            }
+        }
+
+        double rate = WALLETS * 1e9 / (System.nanoTime() - start);
+        executor.shutdown();
+        return rate;
+    }
+}
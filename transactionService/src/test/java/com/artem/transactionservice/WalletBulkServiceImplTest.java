@@ -0,0 +1,173 @@
+package com.artem.transactionservice;
+
+import com.artem.transactionservice.cache.WalletTypeRegistry;
+import com.artem.transactionservice.config.WalletBulkProperties;
+import com.artem.transactionservice.dto.BulkWalletRow;
+import com.artem.transactionservice.dto.WalletTypeInfo;
+import com.artem.transactionservice.repository.WalletBulkRepository;
+import com.artem.transactionservice.service.impl.WalletBulkServiceImpl;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletBulkServiceImplTest {
+
+    @Mock
+    private WalletBulkRepository walletBulkRepository;
+
+    @Mock
+    private WalletTypeRegistry walletTypeRegistry;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ShardRouter shardRouter = new ShardRouter(2, false);
+    private final UUID walletTypeUid = UUID.randomUUID();
+
+    private WalletBulkServiceImpl bulkService;
+
+    @BeforeEach
+    void setUp() {
+        WalletBulkProperties properties = new WalletBulkProperties();
+        properties.setChunkSize(4);
+
+        bulkService = new WalletBulkServiceImpl(walletBulkRepository, walletTypeRegistry, shardRouter,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), properties, objectMapper,
+                new SimpleMeterRegistry());
+
+        lenient().doThrow(new IllegalArgumentException("Wallet type not found"))
+                .when(walletTypeRegistry).require(any());
+        lenient().doReturn(new WalletTypeInfo(walletTypeUid, null, null, "main", "RUB", "ACTIVE", null, null, null, null))
+                .when(walletTypeRegistry).require(walletTypeUid);
+    }
+
+    @AfterEach
+    void tearDown() {
+        bulkService.shutdown();
+    }
+
+    @Test
+    void createWallets_shouldInsertPerShardAndAnswerEveryLineInOrder() throws Exception {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 10; i++) {
+            body.append(line(UUID.randomUUID(), walletTypeUid)).append('\n');
+        }
+
+        List<JsonNode> results = run(body.toString());
+
+        assertEquals(10, results.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, results.get(i).get("line").asInt());
+            assertTrue(results.get(i).hasNonNull("walletUid"));
+        }
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<BulkWalletRow>> batches = ArgumentCaptor.forClass(List.class);
+        verify(walletBulkRepository, atLeast(3)).insert(batches.capture(), eq(1000));
+        List<BulkWalletRow> inserted = new ArrayList<>();
+        for (List<BulkWalletRow> batch : batches.getAllValues()) {
+            Set<Integer> shards = new HashSet<>();
+            batch.forEach(row -> shards.add(row.shard()));
+            assertEquals(1, shards.size(), "one insert call must target a single shard");
+            inserted.addAll(batch);
+        }
+        assertEquals(10, inserted.size());
+        inserted.forEach(row -> assertEquals(shardRouter.shardOf(row.userUid()), row.shard()));
+    }
+
+    @Test
+    void createWallets_shouldReportInvalidLinesWithoutStoppingTheStream() throws Exception {
+        String body = line(UUID.randomUUID(), walletTypeUid) + "\n"
+                + "{not json\n"
+                + "\n"
+                + line(UUID.randomUUID(), UUID.randomUUID()) + "\n"
+                + line(UUID.randomUUID(), walletTypeUid) + "\n";
+
+        List<JsonNode> results = run(body);
+
+        assertEquals(4, results.size());
+        assertTrue(results.get(0).hasNonNull("walletUid"));
+        assertEquals(2, results.get(1).get("line").asInt());
+        assertTrue(results.get(1).hasNonNull("error"));
+        assertEquals(4, results.get(2).get("line").asInt());
+        assertEquals("Wallet type not found", results.get(2).get("error").asText());
+        assertTrue(results.get(3).hasNonNull("walletUid"));
+    }
+
+    @Test
+    void createWallets_shouldFailOnlyRowsOfTheFailedShard() throws Exception {
+        UUID userOnShard0 = userOnShard(0);
+        UUID userOnShard1 = userOnShard(1);
+        lenient().doThrow(new IllegalStateException("duplicate key"))
+                .when(walletBulkRepository).insert(argThat(rows -> rows.get(0).shard() == 1), anyInt());
+
+        List<JsonNode> results = run(line(userOnShard0, walletTypeUid) + "\n" + line(userOnShard1, walletTypeUid) + "\n");
+
+        assertTrue(results.get(0).hasNonNull("walletUid"));
+        assertEquals("duplicate key", results.get(1).get("error").asText());
+    }
+
+    @Test
+    void createWallets_shouldReportCommittedRowsOfSlowShardAsCreated() throws Exception {
+        WalletBulkProperties properties = new WalletBulkProperties();
+        properties.setTimeoutMs(50);
+        bulkService.shutdown();
+        bulkService = new WalletBulkServiceImpl(walletBulkRepository, walletTypeRegistry, shardRouter,
+                new TransactionTemplate(mock(PlatformTransactionManager.class)), properties, objectMapper,
+                new SimpleMeterRegistry());
+        // вставка дольше timeout-ms, но закоммичена: ответ не должен говорить, что строки не созданы
+        doAnswer(invocation -> {
+            Thread.sleep(200);
+            return null;
+        }).when(walletBulkRepository).insert(anyList(), anyInt());
+
+        List<JsonNode> results = run(line(UUID.randomUUID(), walletTypeUid) + "\n");
+
+        assertTrue(results.get(0).hasNonNull("walletUid"));
+        assertFalse(results.get(0).hasNonNull("error"));
+    }
+
+    private List<JsonNode> run(String body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        bulkService.createWallets(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> results = new ArrayList<>();
+        for (String row : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(row));
+        }
+        return results;
+    }
+
+    private UUID userOnShard(int shard) {
+        UUID userUid;
+        do {
+            userUid = UUID.randomUUID();
+        } while (shardRouter.shardOf(userUid) != shard);
+        return userUid;
+    }
+
+    private static String line(UUID userUid, UUID walletTypeUid) {
+        return "{\"userUid\":\"" + userUid + "\",\"name\":\"bulk\",\"walletTypeUid\":\"" + walletTypeUid + "\"}";
+    }
+}
@@ -0,0 +1,189 @@
+package com.artem.transactionservice;
+
+import com.artem.transaction.model.UpdateWalletRequest;
+import com.artem.transactionservice.cache.WalletCache;
+import com.artem.transactionservice.cache.WalletTypeRegistry;
+import com.artem.transactionservice.config.WalletCacheProperties;
+import com.artem.transactionservice.dto.WalletSnapshot;
+import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.entity.WalletType;
+import com.artem.transactionservice.repository.WalletBalanceJdbcRepository;
+import com.artem.transactionservice.repository.WalletLocator;
+import com.artem.transactionservice.repository.WalletRepository;
+import com.artem.transactionservice.repository.WalletTypeRepository;
+import com.artem.transactionservice.service.SplitBalanceService;
+import com.artem.transactionservice.service.WalletReadMode;
+import com.artem.transactionservice.service.impl.WalletServiceImpl;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class WalletCacheTest {
+
+    @Mock
+    private WalletRepository walletRepository;
+
+    @Mock
+    private WalletBalanceJdbcRepository walletBalanceJdbcRepository;
+
+    @Mock
+    private WalletLocator walletLocator;
+
+    @Mock
+    private WalletTypeRepository walletTypeRepository;
+
+    @Mock
+    private SplitBalanceService splitBalanceService;
+
+    private WalletServiceImpl walletService;
+    private WalletCache walletCache;
+    private SimpleMeterRegistry meterRegistry;
+
+    private final UUID userUid = UUID.randomUUID();
+    private Wallet wallet;
+
+    @BeforeEach
+    void setUp() {
+        WalletCacheProperties properties = new WalletCacheProperties();
+        meterRegistry = new SimpleMeterRegistry();
+        walletCache = new WalletCache(properties, meterRegistry);
+        walletService = new WalletServiceImpl(walletRepository, walletBalanceJdbcRepository, walletLocator,
+                new WalletTypeRegistry(walletTypeRepository, meterRegistry), splitBalanceService, walletCache, properties,
+                new ShardRouter(2, false));
+
+        WalletType walletType = new WalletType();
+        walletType.setUid(UUID.randomUUID());
+        walletType.setCurrencyCode("RUB");
+
+        wallet = new Wallet();
+        wallet.setUid(WalletUids.newWalletUid(userUid));
+        wallet.setUserUid(userUid);
+        wallet.setWalletType(walletType);
+        wallet.setStatus("ACTIVE");
+        wallet.setBalance(BigDecimal.valueOf(100));
+
+        lenient().when(walletRepository.findByUidAndUserUidAndStatus(wallet.getUid(), userUid, "ACTIVE"))
+                .thenReturn(Optional.of(wallet));
+        lenient().when(walletTypeRepository.findById(walletType.getUid()))
+                .thenReturn(Optional.of(walletType));
+    }
+
+    @Test
+    void init_shouldReadWalletOnce_andCountHits() {
+        WalletSnapshot first = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+        WalletSnapshot second = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+
+        assertEquals("RUB", second.currencyCode());
+        assertFalse(first.fresh());
+        verify(walletRepository, times(1)).findByUidAndUserUidAndStatus(wallet.getUid(), userUid, "ACTIVE");
+
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "wallets", "result", "hit")
+                .functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tags("cache", "wallets", "result", "miss")
+                .functionCounter().count());
+    }
+
+    @Test
+    void confirm_shouldResolveCurrencyFromRegistry_withoutRereadingWalletType() {
+        walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.CONFIRM);
+        WalletSnapshot second = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.CONFIRM);
+
+        assertEquals("RUB", second.currencyCode());
+        assertEquals(wallet.getWalletType().getUid(), second.walletTypeUid());
+        verify(walletRepository, times(2)).findByUidAndUserUidAndStatus(wallet.getUid(), userUid, "ACTIVE");
+        verify(walletTypeRepository, times(1)).findById(wallet.getWalletType().getUid());
+    }
+
+    @Test
+    void init_shouldRejectWalletOfAnotherUser_evenWhenCached() {
+        walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+
+        assertThrows(RuntimeException.class,
+                () -> walletService.getActiveWalletSnapshot(wallet.getUid(), UUID.randomUUID(), WalletReadMode.INIT));
+    }
+
+    @Test
+    void confirm_shouldAlwaysReadFromDatabase_whenStrict() {
+        walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+        wallet.setBalance(BigDecimal.ONE);
+
+        WalletSnapshot confirmed = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.CONFIRM);
+
+        assertTrue(confirmed.fresh());
+        assertEquals(BigDecimal.ONE, walletService.getAvailableBalance(confirmed));
+        verify(walletRepository, times(2)).findByUidAndUserUidAndStatus(wallet.getUid(), userUid, "ACTIVE");
+        verify(walletRepository, never()).findBalance(any(), any());
+    }
+
+    @Test
+    void cachedBalance_shouldBeReloadedAfterLedgerInvalidation() {
+        when(walletRepository.findBalance(wallet.getUid(), userUid))
+                .thenReturn(Optional.of(BigDecimal.valueOf(100)), Optional.of(BigDecimal.valueOf(40)));
+
+        WalletSnapshot snapshot = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+
+        assertEquals(BigDecimal.valueOf(100), walletService.getAvailableBalance(snapshot));
+        assertEquals(BigDecimal.valueOf(100), walletService.getAvailableBalance(snapshot));
+
+        walletCache.invalidateBalances(List.of(wallet.getUid()));
+
+        assertEquals(BigDecimal.valueOf(40), walletService.getAvailableBalance(snapshot));
+        verify(walletRepository, times(2)).findBalance(wallet.getUid(), userUid);
+    }
+
+    @Test
+    void holdFunds_shouldRereadStaleSnapshot_whenWalletBecameSplit() {
+        WalletSnapshot cached = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+        wallet.setBalanceSlots(4);
+
+        when(walletBalanceJdbcRepository.hold(wallet.getUid(), userUid, BigDecimal.TEN))
+                .thenReturn(Optional.empty());
+        when(splitBalanceService.tryDebit(eq(wallet.getUid()), eq(userUid), eq(4), eq(BigDecimal.TEN), any()))
+                .thenReturn(true);
+
+        walletService.holdFunds(cached, BigDecimal.TEN);
+
+        assertEquals(4, walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT).balanceSlots());
+    }
+
+    @Test
+    void holdFunds_shouldFail_whenGuardedUpdateMatchesNoRow() {
+        WalletSnapshot fresh = walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.CONFIRM);
+
+        when(walletBalanceJdbcRepository.hold(wallet.getUid(), userUid, BigDecimal.valueOf(500)))
+                .thenReturn(Optional.empty());
+
+        assertThrows(RuntimeException.class, () -> walletService.holdFunds(fresh, BigDecimal.valueOf(500)));
+        verifyNoInteractions(splitBalanceService);
+    }
+
+    @Test
+    void updateWallet_shouldEvictSnapshot() {
+        when(walletLocator.findByUid(wallet.getUid())).thenReturn(Optional.of(wallet));
+        when(walletRepository.save(wallet)).thenReturn(wallet);
+
+        walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+
+        UpdateWalletRequest request = new UpdateWalletRequest();
+        request.setName("renamed");
+        walletService.updateWallet(wallet.getUid(), request);
+
+        walletService.getActiveWalletSnapshot(wallet.getUid(), userUid, WalletReadMode.INIT);
+
+        verify(walletRepository, times(2)).findByUidAndUserUidAndStatus(wallet.getUid(), userUid, "ACTIVE");
+    }
+}
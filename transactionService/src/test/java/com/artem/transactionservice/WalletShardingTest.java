@@ -2,10 +2,12 @@ package com.artem.transactionservice;
 
 import com.artem.transaction.model.CreateWalletRequest;
 import com.artem.transaction.model.WalletResponse;
+import com.artem.transactionservice.cache.WalletTypeBackfill;
 import com.artem.transactionservice.entity.Wallet;
 import com.artem.transactionservice.entity.WalletType;
 import com.artem.transactionservice.repository.WalletRepository;
 import com.artem.transactionservice.repository.WalletTypeRepository;
+import com.artem.transactionservice.service.WalletService;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.zaxxer.hikari.HikariDataSource;
 import org.junit.jupiter.api.Test;
@@ -15,6 +17,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
 
@@ -27,6 +30,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
@@ -50,6 +54,18 @@ class WalletShardingTest extends BaseIntegrationTest {
     @Autowired
     WalletTypeRepository walletTypeRepository;
 
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private ShardRouter shardRouter;
+
+    @Autowired
+    private WalletTypeBackfill walletTypeBackfill;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
 
 
     @Test
@@ -96,4 +112,48 @@ class WalletShardingTest extends BaseIntegrationTest {
         assertEquals(1, wallets.size());
         assertEquals("Test Wallet", wallets.getFirst().getName());
     }
+
+    @Test
+    void createWallet_shouldKeepShardEncodedUid() {
+
+        UUID userUid = UUID.randomUUID();
+
+        WalletType type = new WalletType();
+        type.setName("RUB Wallet");
+        type.setCurrencyCode("RUB");
+        type.setStatus("ACTIVE");
+        type.setUserType("INDIVIDUAL");
+        walletTypeRepository.save(type);
+
+        CreateWalletRequest request = new CreateWalletRequest();
+        request.setUserUid(userUid);
+        request.setName("Encoded");
+        request.setWalletTypeUid(type.getUid());
+
+        Wallet saved = walletService.createWallet(request);
+
+        // uid, назначенный сервисом, не подменён при сохранении и указывает на шард владельца
+        int shard = shardRouter.shardOfWallet(saved.getUid()).orElseThrow();
+        assertEquals(shardRouter.shardOf(userUid), shard);
+        assertTrue(shardRouter.onShard(shard, () -> walletRepository.findByUid(saved.getUid())).isPresent());
+    }
+
+    @Test
+    void walletTypeBackfill_shouldCopyTypeMissingOnAShard() {
+
+        UUID typeUid = UUID.randomUUID();
+
+        // тип, созданный до V14, когда wallet_types была !SINGLE: строка есть только в ds_1
+        shardRouter.onShard(1, () -> jdbcTemplate.update(
+                "INSERT INTO wallet_types (uid, name, currency_code, status) VALUES (?, 'legacy', 'EUR', 'ACTIVE')",
+                typeUid));
+
+        walletTypeBackfill.backfill();
+
+        for (int shard = 0; shard < 2; shard++) {
+            Long count = shardRouter.onShard(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT count(*) FROM wallet_types WHERE uid = ?", Long.class, typeUid));
+            assertEquals(1L, count, "shard " + shard);
+        }
+    }
 }
@@ -3,19 +3,24 @@ package com.artem.transactionservice;
 
 import com.artem.transaction.model.WithdrawalConfirmRequest;
 import com.artem.transaction.model.WithdrawalConfirmResponse;
+import com.artem.transactionservice.dto.WalletSnapshot;
 import com.artem.transactionservice.entity.Transaction;
 import com.artem.transactionservice.entity.Wallet;
+import com.artem.transactionservice.money.Money;
 import com.artem.transactionservice.repository.TransactionRepository;
+import com.artem.transactionservice.service.FeeService;
+import com.artem.transactionservice.service.OutboxService;
+import com.artem.transactionservice.service.WalletReadMode;
 import com.artem.transactionservice.service.WalletService;
 import com.artem.transactionservice.service.impl.WithdrawalServiceImpl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-import org.springframework.kafka.core.KafkaTemplate;
 
 import java.math.BigDecimal;
 import java.time.Instant;
@@ -36,7 +41,10 @@ class WithdrawalServiceImplTest {
     private WalletService walletService;
 
     @Mock
-    private KafkaTemplate<String, String> kafkaTemplate;
+    private OutboxService outboxService;
+
+    @Mock
+    private FeeService feeService;
 
     @InjectMocks
     private WithdrawalServiceImpl withdrawalService;
@@ -54,7 +62,7 @@ class WithdrawalServiceImplTest {
 
 
     @Test
-    void confirm_shouldCreatePendingTransaction_andSendKafkaEvent() {
+    void confirm_shouldCreatePendingTransaction_andWriteOutboxEvent() {
         UUID userUid = UUID.randomUUID();
         UUID walletUid = UUID.randomUUID();
         BigDecimal amount = BigDecimal.valueOf(100);
@@ -63,10 +71,15 @@ class WithdrawalServiceImplTest {
         wallet.setUid(walletUid);
         wallet.setUserUid(userUid);
         wallet.setBalance(BigDecimal.valueOf(1000));
+        WalletSnapshot snapshot = snapshot(wallet);
 
 
-        when(walletService.getActiveWallet(any(UUID.class), any(UUID.class)))
+        when(walletService.getActiveWalletSnapshot(any(UUID.class), any(UUID.class), eq(WalletReadMode.CONFIRM)))
+                .thenReturn(snapshot);
+        when(walletService.getWalletReference(snapshot))
                 .thenReturn(wallet);
+        when(feeService.calculate(eq(FeeService.WITHDRAWAL), eq(snapshot), any()))
+                .thenReturn(Money.of(BigDecimal.valueOf(1.5), "RUB"));
 
         when(transactionRepository.save(any(Transaction.class)))
                 .thenAnswer(inv -> {
@@ -87,9 +100,14 @@ class WithdrawalServiceImplTest {
         assertEquals("PENDING", response.getStatus());
         assertNotNull(response.getTransactionUid());
 
-        verify(transactionRepository).save(any(Transaction.class));
-        verify(kafkaTemplate).send(
+        // резервируется сумма вместе с комиссией, комиссия сохраняется в транзакции
+        verify(walletService).holdFunds(snapshot, new BigDecimal("101.50"));
+        ArgumentCaptor<Transaction> saved = ArgumentCaptor.forClass(Transaction.class);
+        verify(transactionRepository).save(saved.capture());
+        assertEquals(new BigDecimal("1.50"), saved.getValue().getFee());
+        verify(outboxService).publish(
                 eq("withdrawal.requested"),
+                eq(userUid),
                 anyString(),
                 anyString()
         );
@@ -103,9 +121,14 @@ class WithdrawalServiceImplTest {
         // given
         Wallet wallet = new Wallet();
         wallet.setBalance(BigDecimal.valueOf(50));
+        WalletSnapshot snapshot = snapshot(wallet);
 
-        when(walletService.getActiveWallet(any(), any()))
-                .thenReturn(wallet);
+        when(walletService.getActiveWalletSnapshot(any(), any(), any()))
+                .thenReturn(snapshot);
+        when(feeService.calculate(any(), any(), any()))
+                .thenReturn(Money.zero("RUB"));
+        doThrow(new RuntimeException("Insufficient funds"))
+                .when(walletService).holdFunds(eq(snapshot), any());
 
         WithdrawalConfirmRequest request = new WithdrawalConfirmRequest();
         request.setUserUid(UUID.randomUUID());
@@ -117,7 +140,7 @@ class WithdrawalServiceImplTest {
                 () -> withdrawalService.confirm(request));
 
         verify(transactionRepository, never()).save(any());
-        verify(kafkaTemplate, never()).send(any(), any(), any());
+        verify(outboxService, never()).publish(any(), any(), any(), any());
     }
 
     
@@ -142,4 +165,9 @@ class WithdrawalServiceImplTest {
         assertThrows(RuntimeException.class,
                 () -> withdrawalService.confirm(request));
     }
+
+    private static WalletSnapshot snapshot(Wallet wallet) {
+        return new WalletSnapshot(wallet.getUid(), wallet.getUserUid(), "ACTIVE", null, "RUB",
+                0, wallet.getBalance(), true);
+    }
 }